@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.benchmark;
+
+import org.craftercms.studio.api.v1.service.content.ContentService;
+import org.craftercms.studio.api.v1.to.ResultTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.craftercms.studio.api.v1.constant.DmConstants.CONTENT_CHAIN_FORM;
+import static org.craftercms.studio.api.v1.constant.DmConstants.KEY_CONTENT_TYPE;
+import static org.craftercms.studio.api.v1.constant.DmConstants.KEY_CREATE_FOLDERS;
+import static org.craftercms.studio.api.v1.constant.DmConstants.KEY_EDIT;
+import static org.craftercms.studio.api.v1.constant.DmConstants.KEY_FILE_NAME;
+import static org.craftercms.studio.api.v1.constant.DmConstants.KEY_PATH;
+import static org.craftercms.studio.api.v1.constant.DmConstants.KEY_SITE;
+import static org.craftercms.studio.api.v1.constant.DmConstants.KEY_SKIP_AUDIT_LOG_INSERT;
+import static org.craftercms.studio.api.v1.constant.DmConstants.KEY_UNLOCK;
+import static org.craftercms.studio.benchmark.SyntheticSiteState.getPagePath;
+import static org.craftercms.studio.benchmark.SyntheticSiteState.toStream;
+
+/**
+ * Benchmarks a content save going through the form content processor pipeline, with the same parameters used by
+ * {@code ContentService.writeContent}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ContentProcessorPipelineBenchmark {
+
+    public static final String CONTENT_TYPE = "/page/entry";
+    public static final String FILE_NAME = "index.xml";
+
+    private ContentService contentService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        contentService = StudioBenchmarkContext.getBean("cstudioContentService", ContentService.class);
+    }
+
+    @Benchmark
+    public ResultTO processFormContent(SyntheticSiteState site) throws Exception {
+        int index = next++ % site.pages;
+        String path = getPagePath(index);
+
+        Map<String, String> params = new HashMap<>();
+        params.put(KEY_SITE, site.siteId);
+        params.put(KEY_PATH, path);
+        params.put(KEY_FILE_NAME, FILE_NAME);
+        params.put(KEY_CONTENT_TYPE, CONTENT_TYPE);
+        params.put(KEY_CREATE_FOLDERS, "true");
+        params.put(KEY_EDIT, "true");
+        params.put(KEY_UNLOCK, "true");
+        params.put(KEY_SKIP_AUDIT_LOG_INSERT, "false");
+        String id = site.siteId + ":" + path + ":" + FILE_NAME + ":" + CONTENT_TYPE;
+
+        return contentService.processContent(id,
+                toStream(site.buildPage("Page " + index + " v" + next, index, site.dependencies * 4)), true, params,
+                CONTENT_CHAIN_FORM);
+    }
+
+}
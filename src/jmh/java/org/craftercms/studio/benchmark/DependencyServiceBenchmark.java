@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.benchmark;
+
+import org.craftercms.studio.api.v1.to.CalculateDependenciesEntityTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the dependency calculation done before publishing a set of pages
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DependencyServiceBenchmark {
+
+    /**
+     * Number of pages submitted in each calculation
+     */
+    @Param({"1", "50"})
+    public int batch;
+
+    private List<String> paths;
+
+    @Setup(Level.Trial)
+    public void setUp(SyntheticSiteState site) {
+        paths = site.pagePaths.subList(0, Math.min(batch, site.pagePaths.size()));
+    }
+
+    @Benchmark
+    public Map<String, List<CalculateDependenciesEntityTO>> calculateDependencies(SyntheticSiteState site)
+            throws Exception {
+        return site.dependencyService.calculateDependencies(site.siteId, paths);
+    }
+
+    @Benchmark
+    public Set<String> calculateDependenciesPaths(SyntheticSiteState site) throws Exception {
+        return site.dependencyService.calculateDependenciesPaths(site.siteId, paths);
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.benchmark;
+
+import org.apache.commons.io.IOUtils;
+import org.craftercms.studio.api.v1.repository.RepositoryItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.craftercms.studio.benchmark.SyntheticSiteState.ROOT_PATH;
+import static org.craftercms.studio.benchmark.SyntheticSiteState.getPagePath;
+import static org.craftercms.studio.benchmark.SyntheticSiteState.toStream;
+
+/**
+ * Benchmarks the sandbox read and write operations of the git content repository
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GitContentRepositoryBenchmark {
+
+    private int next;
+
+    @Benchmark
+    public String writeContent(SyntheticSiteState site) {
+        int index = next++ % site.pages;
+        return site.contentRepository.writeContent(site.siteId, getPagePath(index),
+                toStream(site.buildPage("Page " + index + " v" + next, index, site.dependencies * 4)));
+    }
+
+    @Benchmark
+    public byte[] getContent(SyntheticSiteState site) throws Exception {
+        try (InputStream content = site.contentRepository.getContent(site.siteId, getPagePath(next++ % site.pages))) {
+            return IOUtils.toByteArray(content);
+        }
+    }
+
+    @Benchmark
+    public RepositoryItem[] getContentChildren(SyntheticSiteState site) {
+        return site.contentRepository.getContentChildren(site.siteId, ROOT_PATH);
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.benchmark;
+
+import org.craftercms.studio.api.v2.dal.Item;
+import org.craftercms.studio.api.v2.service.content.internal.ContentServiceInternal;
+import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
+import org.craftercms.studio.model.rest.content.GetChildrenResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.craftercms.studio.benchmark.SyntheticSiteState.ROOT_PAGE_PATH;
+import static org.craftercms.studio.benchmark.SyntheticSiteState.getPagePath;
+
+/**
+ * Benchmarks the item lookups and child listings served from the item table
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ItemChildrenBenchmark {
+
+    public static final String SORT_STRATEGY = "alphabetic";
+    public static final String ORDER = "ASC";
+
+    /**
+     * Page size for the child listings
+     */
+    @Param({"25", "100"})
+    public int limit;
+
+    private ItemServiceInternal itemServiceInternal;
+    private ContentServiceInternal contentServiceInternal;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        itemServiceInternal = StudioBenchmarkContext.getBean("itemServiceInternal", ItemServiceInternal.class);
+        contentServiceInternal =
+                StudioBenchmarkContext.getBean("contentServiceInternal", ContentServiceInternal.class);
+    }
+
+    @Benchmark
+    public Item getItem(SyntheticSiteState site) {
+        return itemServiceInternal.getItem(site.siteId, getPagePath(next++ % site.pages));
+    }
+
+    @Benchmark
+    public GetChildrenResult getFirstChildrenPage(SyntheticSiteState site) throws Exception {
+        return contentServiceInternal.getChildrenByPath(site.siteId, ROOT_PAGE_PATH, null, null, null, SORT_STRATEGY,
+                ORDER, 0, limit);
+    }
+
+    @Benchmark
+    public GetChildrenResult getLastChildrenPage(SyntheticSiteState site) throws Exception {
+        return contentServiceInternal.getChildrenByPath(site.siteId, ROOT_PAGE_PATH, null, null, null, SORT_STRATEGY,
+                ORDER, Math.max(site.pages - limit, 0), limit);
+    }
+
+}
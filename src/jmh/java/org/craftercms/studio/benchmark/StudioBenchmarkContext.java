@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.benchmark;
+
+import org.springframework.core.io.FileSystemResourceLoader;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.XmlWebApplicationContext;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Holds the Studio application context used by the benchmarks. The context is started once in every JVM forked by
+ * JMH, using the same configuration as the integration tests, so it runs against the embedded MariaDB and the
+ * repositories under {@code target/tests}.
+ *
+ * @since 4.0.0
+ */
+public final class StudioBenchmarkContext {
+
+    public static final String CONTEXT_LOCATION = "classpath*:crafter/engine/services/main-services-context.xml";
+    public static final String PROPERTIES_LOCATION = "classpath:crafter/studio/test-application.yaml";
+    public static final String WEBAPP_LOCATION = "file:src/main/webapp";
+    public static final String BENCHMARK_USER = "admin";
+
+    private static XmlWebApplicationContext context;
+
+    private StudioBenchmarkContext() {
+    }
+
+    public static synchronized WebApplicationContext getContext() throws IOException {
+        if (context == null) {
+            // JMH may call setup and benchmark methods from different threads
+            SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(BENCHMARK_USER, null, Collections.emptyList()));
+
+            XmlWebApplicationContext ctx = new XmlWebApplicationContext();
+            ctx.setServletContext(new MockServletContext(WEBAPP_LOCATION, new FileSystemResourceLoader()));
+            ctx.setConfigLocation(CONTEXT_LOCATION);
+            ctx.getEnvironment().getPropertySources().addFirst(new ResourcePropertySource(PROPERTIES_LOCATION));
+            ctx.refresh();
+            ctx.registerShutdownHook();
+
+            context = ctx;
+        }
+        return context;
+    }
+
+    public static <T> T getBean(String name, Class<T> type) throws IOException {
+        return getContext().getBean(name, type);
+    }
+
+}
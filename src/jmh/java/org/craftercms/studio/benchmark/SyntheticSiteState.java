@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.benchmark;
+
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v1.service.dependency.DependencyService;
+import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
+import org.craftercms.studio.api.v2.repository.ContentRepository;
+import org.craftercms.studio.api.v2.service.site.internal.SitesServiceInternal;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.craftercms.studio.api.v1.dal.SiteFeed.STATE_READY;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SANDBOX_BRANCH;
+
+/**
+ * Creates a synthetic site from the empty blueprint with {@link #pages} pages, each one referencing
+ * {@link #dependencies} shared components, and syncs it to the database so both the repository and the DAOs have
+ * data to work with. A new site is created for every trial and deleted when the trial ends.
+ */
+@State(Scope.Benchmark)
+public class SyntheticSiteState {
+
+    public static final String BLUEPRINT_ID = "org.craftercms.blueprint.empty";
+    public static final String ROOT_PATH = "/site/website/bench";
+    public static final String ROOT_PAGE_PATH = ROOT_PATH + "/index.xml";
+    public static final String COMPONENTS_PATH = "/site/components/bench";
+
+    /**
+     * Number of pages to create under {@link #ROOT_PATH}
+     */
+    @Param({"100", "1000"})
+    public int pages;
+
+    /**
+     * Number of components referenced by each page
+     */
+    @Param({"5"})
+    public int dependencies;
+
+    public String siteId;
+    public String firstCommitId;
+    public List<String> pagePaths;
+
+    protected org.craftercms.studio.api.v1.repository.ContentRepository contentRepository;
+    protected ContentRepository contentRepositoryV2;
+    protected SiteService siteService;
+    protected DependencyService dependencyService;
+
+    @Setup(Level.Trial)
+    public void createSite() throws Exception {
+        StudioConfiguration studioConfiguration =
+                StudioBenchmarkContext.getBean("studioConfiguration", StudioConfiguration.class);
+        SitesServiceInternal sitesServiceInternal =
+                StudioBenchmarkContext.getBean("sitesServiceInternal", SitesServiceInternal.class);
+        RetryingDatabaseOperationFacade retryingDatabaseOperationFacade =
+                StudioBenchmarkContext.getBean("studio.retryingDatabaseOperationFacade",
+                        RetryingDatabaseOperationFacade.class);
+        contentRepository = StudioBenchmarkContext.getBean("gitContentRepository",
+                org.craftercms.studio.api.v1.repository.ContentRepository.class);
+        contentRepositoryV2 = StudioBenchmarkContext.getBean("gitContentRepositoryV2", ContentRepository.class);
+        siteService = StudioBenchmarkContext.getBean("cstudioSiteServiceSimple", SiteService.class);
+        dependencyService = StudioBenchmarkContext.getBean("studioDependencyService", DependencyService.class);
+
+        siteId = "bench-" + pages + "-" + dependencies + "-" + System.currentTimeMillis();
+        String sandboxBranch = studioConfiguration.getProperty(REPO_SANDBOX_BRANCH);
+
+        // Same steps as a regular site creation, skipping the deployer targets
+        contentRepositoryV2.createSiteFromBlueprint(sitesServiceInternal.getBlueprintLocation(BLUEPRINT_ID), siteId,
+                sandboxBranch, Collections.emptyMap());
+        SiteFeed siteFeed = new SiteFeed();
+        siteFeed.setName(siteId);
+        siteFeed.setSiteId(siteId);
+        siteFeed.setSiteUuid(UUID.randomUUID().toString());
+        siteFeed.setDescription("Synthetic site for benchmarks");
+        siteFeed.setSandboxBranch(sandboxBranch);
+        retryingDatabaseOperationFacade.createSite(siteFeed);
+        siteService.setSiteState(siteId, STATE_READY);
+        firstCommitId = contentRepositoryV2.getRepoFirstCommitId(siteId);
+
+        int components = Math.max(dependencies * 4, 1);
+        for (int i = 0; i < components; i++) {
+            contentRepository.writeContent(siteId, getComponentPath(i), toStream(buildComponent(i)));
+        }
+        contentRepository.writeContent(siteId, ROOT_PAGE_PATH, toStream(buildPage("Bench", 0, components)));
+        pagePaths = new ArrayList<>(pages);
+        for (int i = 0; i < pages; i++) {
+            String path = getPagePath(i);
+            contentRepository.writeContent(siteId, path, toStream(buildPage("Page " + i, i, components)));
+            pagePaths.add(path);
+        }
+
+        siteService.syncDatabaseWithRepo(siteId, firstCommitId, false);
+        dependencyService.upsertDependencies(siteId, pagePaths);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSite() {
+        siteService.deleteSite(siteId);
+    }
+
+    public static String getPagePath(int index) {
+        return ROOT_PATH + "/page-" + index + "/index.xml";
+    }
+
+    public static String getComponentPath(int index) {
+        return COMPONENTS_PATH + "/component-" + index + ".xml";
+    }
+
+    public static InputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds a page descriptor that includes {@link #dependencies} consecutive components starting at the given
+     * index, so neighbouring pages share most of their dependencies
+     */
+    public String buildPage(String name, int index, int components) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<page>\n")
+          .append("<content-type>/page/entry</content-type>\n")
+          .append("<display-template>/templates/web/entry.ftl</display-template>\n")
+          .append("<file-name>index.xml</file-name>\n")
+          .append("<internal-name>").append(name).append("</internal-name>\n")
+          .append("<objectId>").append(UUID.randomUUID()).append("</objectId>\n")
+          .append("<title_t>").append(name).append("</title_t>\n")
+          .append("<components_o item-list=\"true\">\n");
+        for (int i = 0; i < dependencies; i++) {
+            String path = getComponentPath((index + i) % components);
+            sb.append("<item><key>").append(path).append("</key><value>").append(path).append("</value>")
+              .append("<include>").append(path).append("</include>")
+              .append("<disableFlattening>false</disableFlattening></item>\n");
+        }
+        sb.append("</components_o>\n</page>\n");
+        return sb.toString();
+    }
+
+    public static String buildComponent(int index) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<component>\n" +
+               "<content-type>/component/bench</content-type>\n" +
+               "<file-name>component-" + index + ".xml</file-name>\n" +
+               "<internal-name>Component " + index + "</internal-name>\n" +
+               "<objectId>" + UUID.randomUUID() + "</objectId>\n" +
+               "</component>\n";
+    }
+
+}
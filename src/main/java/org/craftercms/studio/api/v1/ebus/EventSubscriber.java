@@ -22,6 +22,7 @@ public class EventSubscriber {
 
     protected String beanName;
     protected Method method;
+    protected volatile Invoker invoker;
 
     public EventSubscriber(String beanName, Method method) {
         this.beanName = beanName;
@@ -43,4 +44,22 @@ public class EventSubscriber {
     public void setMethod(Method method) {
         this.method = method;
     }
+
+    public Invoker getInvoker() {
+        return invoker;
+    }
+
+    public void setInvoker(Invoker invoker) {
+        this.invoker = invoker;
+    }
+
+    /**
+     * Delivers the arguments of an event to the listener
+     */
+    @FunctionalInterface
+    public interface Invoker {
+
+        void invoke(Object[] args) throws Throwable;
+
+    }
 }
@@ -60,6 +60,25 @@ public interface ContentRepository {
      */
     InputStream getContent(String site, String path) throws ContentNotFoundException;
 
+    /**
+     * Get the id of the object holding the current version of the content, the id changes every time the content
+     * changes so it can be used as a cache key
+     *
+     * @param site site id where the operation will be executed
+     * @param path path of the content
+     * @return the object id or null if the content doesn't exist or it is not stored in the repository
+     */
+    String getContentId(String site, String path);
+
+    /**
+     * Get content from the object with the given id, avoids resolving the path again when the id is already known
+     *
+     * @param site      site id where the operation will be executed
+     * @param contentId id of the object returned by {@link #getContentId(String, String)}
+     * @return content as input stream or null if the object doesn't exist
+     */
+    InputStream getContentById(String site, String contentId);
+
     /**
      * write content
      *
@@ -15,6 +15,8 @@
  */
 package org.craftercms.studio.api.v1.service;
 
+import java.util.concurrent.TimeUnit;
+
 public interface GeneralLockService {
 
     String MASTER_LOCK = "MASTER LOCK";
@@ -24,4 +26,20 @@ public interface GeneralLockService {
     void unlock(String objectId);
 
     boolean tryLock(String objectId);
+
+    /**
+     * Try to acquire the lock for the given object id, waiting up to the given timeout
+     * @param objectId the id of the object to lock
+     * @param timeout the maximum time to wait for the lock
+     * @param unit the time unit of the timeout
+     * @return true if the lock was acquired
+     */
+    boolean tryLock(String objectId, long timeout, TimeUnit unit);
+
+    /**
+     * Indicates if the lock for the given object id is held by the current thread
+     * @param objectId the id of the object
+     * @return true if the current thread holds the lock
+     */
+    boolean isHeldByCurrentThread(String objectId);
 }
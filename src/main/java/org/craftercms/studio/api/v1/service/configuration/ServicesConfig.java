@@ -15,6 +15,7 @@
  */
 package org.craftercms.studio.api.v1.service.configuration;
 
+import org.craftercms.studio.api.v1.to.ContentTypeClassifierTO;
 import org.craftercms.studio.api.v1.to.ContentTypeConfigTO;
 import org.craftercms.studio.api.v1.to.CopyDependencyConfigTO;
 import org.craftercms.studio.api.v1.to.DeleteDependencyConfigTO;
@@ -126,6 +127,14 @@ public interface ServicesConfig {
 	 */
 	String getLevelDescriptorName(String site);
 
+	/**
+	 * get the compiled repository patterns used to find the content type class of a path
+	 *
+	 * @param site
+	 * @return content type classifier or null if the site has no configuration
+	 */
+	ContentTypeClassifierTO getContentTypeClassifier(String site);
+
 	
 	/**
 	 * get the delete dependencies related to a content type
@@ -17,6 +17,7 @@
 package org.craftercms.studio.api.v1.service.content;
 
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -309,6 +310,15 @@ public interface ContentService {
 
     String getContentTypeClass(String site, String uri);
 
+    /**
+     * get the content type class of all the given paths at once
+     *
+     * @param site site identifier
+     * @param uris paths of the items
+     * @return content type class of each path, in the same order
+     */
+    Map<String, String> getContentTypeClasses(String site, Collection<String> uris);
+
     ResultTO processContent(String id, InputStream input, boolean isXml, Map<String, String> params,
                             String contentChainForm) throws ServiceLayerException;
 
@@ -21,6 +21,7 @@ import org.craftercms.studio.api.v1.ebus.PreviewEventContext;
 
 import java.lang.reflect.Method;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface EventService {
 
@@ -28,5 +29,14 @@ public interface EventService {
 
     void subscribe(String event, String listener, Method method);
 
+    /**
+     * Subscribes a typed handler to an event, the handler receives the first argument of the event
+     * @param event the event name
+     * @param listener the name used to identify the listener
+     * @param type the type of the argument of the event
+     * @param handler the handler to invoke
+     */
+    <T> void subscribe(String event, String listener, Class<T> type, Consumer<T> handler);
+
     void unSubscribe(String event, String listener);
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v1.to;
+
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_ASSET;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_COMPONENT;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_CONTENT_TYPE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_DOCUMENT;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FILE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_LEVEL_DESCRIPTOR;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_PAGE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_RENDERING_TEMPLATE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_SCRIPT;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_TAXONOMY;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_TAXONOMY_REGEX;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+
+/**
+ * Compiled version of the repository patterns of a site, used to find the content type class of a path
+ * (page, component, asset, etc). The checks are done in the same order as the patterns were evaluated one by one:
+ * level descriptor, page, component, document, asset, rendering template, content type, taxonomy and scripts.
+ * Any path that doesn't match is a file.
+ *
+ * @since 4.0.0
+ */
+public class ContentTypeClassifierTO implements Serializable {
+
+    private static final long serialVersionUID = -2783519263574920112L;
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentTypeClassifierTO.class);
+
+    protected final String levelDescriptorSuffix;
+    protected final String contentTypesPath;
+    /** rules checked before the content types path **/
+    protected final List<Rule> rules;
+    /** rules checked after the content types path **/
+    protected final List<Rule> fallbackRules;
+
+    /**
+     * @param repositoryConfig the repository configuration of the site, can be null
+     * @param contentTypesPath the base path of the content type definitions
+     */
+    public ContentTypeClassifierTO(RepositoryConfigTO repositoryConfig, String contentTypesPath) {
+        this.contentTypesPath = contentTypesPath;
+        this.rules = new ArrayList<>();
+        this.fallbackRules = new ArrayList<>();
+        if (repositoryConfig != null) {
+            levelDescriptorSuffix = FILE_SEPARATOR + repositoryConfig.getLevelDescriptorName();
+            addRules(rules, CONTENT_TYPE_PAGE, repositoryConfig.getPagePatterns());
+            addRules(rules, CONTENT_TYPE_COMPONENT, repositoryConfig.getComponentPatterns());
+            addRules(rules, CONTENT_TYPE_DOCUMENT, repositoryConfig.getDocumentPatterns());
+            addRules(rules, CONTENT_TYPE_ASSET, repositoryConfig.getAssetPatterns());
+            addRules(rules, CONTENT_TYPE_RENDERING_TEMPLATE, repositoryConfig.getRenderingTemplatePatterns());
+        } else {
+            levelDescriptorSuffix = null;
+        }
+        addRules(fallbackRules, CONTENT_TYPE_TAXONOMY, List.of(CONTENT_TYPE_TAXONOMY_REGEX));
+        if (repositoryConfig != null) {
+            addRules(fallbackRules, CONTENT_TYPE_SCRIPT, repositoryConfig.getScriptsPatterns());
+        }
+    }
+
+    protected void addRules(List<Rule> target, String contentTypeClass, List<String> patterns) {
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                try {
+                    target.add(new Rule(contentTypeClass, pattern));
+                } catch (PatternSyntaxException e) {
+                    logger.error("Invalid {0} pattern \"{1}\" will be ignored", e, contentTypeClass, pattern);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the content type class of the given path
+     */
+    public String classify(String path) {
+        if (levelDescriptorSuffix != null && path.endsWith(levelDescriptorSuffix)) {
+            return CONTENT_TYPE_LEVEL_DESCRIPTOR;
+        }
+        String contentTypeClass = findClass(rules, path);
+        if (contentTypeClass != null) {
+            return contentTypeClass;
+        }
+        if (StringUtils.startsWith(path, contentTypesPath)) {
+            return CONTENT_TYPE_CONTENT_TYPE;
+        }
+        contentTypeClass = findClass(fallbackRules, path);
+        if (contentTypeClass != null) {
+            return contentTypeClass;
+        }
+        return CONTENT_TYPE_FILE;
+    }
+
+    /**
+     * Returns the content type class of all the given paths, keyed by path in the same order
+     */
+    public Map<String, String> classify(Collection<String> paths) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String path : paths) {
+            result.computeIfAbsent(path, this::classify);
+        }
+        return result;
+    }
+
+    protected String findClass(List<Rule> rules, String path) {
+        for (Rule rule : rules) {
+            if (rule.matches(path)) {
+                return rule.contentTypeClass;
+            }
+        }
+        return null;
+    }
+
+    protected static class Rule implements Serializable {
+
+        private static final long serialVersionUID = 6093817502938657144L;
+
+        protected final String contentTypeClass;
+        protected final String prefix;
+        protected final Pattern pattern;
+
+        protected Rule(String contentTypeClass, String regex) {
+            this.contentTypeClass = contentTypeClass;
+            this.pattern = Pattern.compile(regex);
+            this.prefix = PermissionRuleTO.getLiteralPrefix(regex);
+        }
+
+        protected boolean matches(String path) {
+            return path.startsWith(prefix) && pattern.matcher(path).matches();
+        }
+
+    }
+
+}
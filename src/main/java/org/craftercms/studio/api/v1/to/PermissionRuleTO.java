@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v1.to;
+
+import java.io.Serializable;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled permission rule: the paths matching the regular expression get the allowed permissions.
+ *
+ * @since 4.0.0
+ */
+public class PermissionRuleTO implements Serializable {
+
+    private static final long serialVersionUID = 2467043226412512096L;
+
+    protected static final String REGEX_META_CHARACTERS = "\\[](){}.*+?^$|";
+
+    protected final String regex;
+    protected final Pattern pattern;
+    /** literal text every matching path must start with, used to discard most rules without running the regex **/
+    protected final String prefix;
+    protected final Set<String> allowedPermissions;
+
+    public PermissionRuleTO(String regex, Set<String> allowedPermissions) {
+        this.regex = regex;
+        this.pattern = Pattern.compile(regex);
+        this.prefix = getLiteralPrefix(regex);
+        this.allowedPermissions = allowedPermissions;
+    }
+
+    public String getRegex() {
+        return regex;
+    }
+
+    public Set<String> getAllowedPermissions() {
+        return allowedPermissions;
+    }
+
+    public boolean matches(String path) {
+        return path.startsWith(prefix) && pattern.matcher(path).matches();
+    }
+
+    /**
+     * Returns the literal text at the beginning of the given regex, or an empty string if the regex could match
+     * paths with different beginnings (alternations, optional characters, etc)
+     */
+    public static String getLiteralPrefix(String regex) {
+        if (regex.indexOf('|') >= 0) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        int start = regex.startsWith("^") ? 1 : 0;
+        for (int i = start; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (REGEX_META_CHARACTERS.indexOf(c) >= 0) {
+                // the previous character could be missing
+                if ((c == '*' || c == '?' || c == '{') && prefix.length() > 0) {
+                    prefix.setLength(prefix.length() - 1);
+                }
+                break;
+            }
+            prefix.append(c);
+        }
+        return prefix.toString();
+    }
+
+}
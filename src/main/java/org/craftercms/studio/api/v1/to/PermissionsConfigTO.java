@@ -19,7 +19,9 @@ import java.io.Serializable;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import com.google.common.cache.Cache;
 import org.dom4j.Document;
 import org.dom4j.Node;
 
@@ -43,6 +45,10 @@ public class PermissionsConfigTO implements TimeStamped, Serializable {
 	
 	protected Map<String, List<String>> roles = null;
 	protected Map<String, Map<String, List<Node>>> permissions = null;
+	/** compiled permission rules by site and role **/
+	protected Map<String, Map<String, List<PermissionRuleTO>>> rules = null;
+	/** permissions already resolved with this configuration, discarded with it when the configuration changes **/
+	protected transient Cache<String, Set<String>> decisions = null;
 	
 	@Override
 	public void setLastUpdated(ZonedDateTime lastUpdated) {
@@ -85,4 +91,20 @@ public class PermissionsConfigTO implements TimeStamped, Serializable {
 	public void setPermissions(Map<String, Map<String, List<Node>>> permissions) {
 		this.permissions = permissions;
 	}
+
+	public Map<String, Map<String, List<PermissionRuleTO>>> getRules() {
+		return rules;
+	}
+
+	public void setRules(Map<String, Map<String, List<PermissionRuleTO>>> rules) {
+		this.rules = rules;
+	}
+
+	public Cache<String, Set<String>> getDecisions() {
+		return decisions;
+	}
+
+	public void setDecisions(Cache<String, Set<String>> decisions) {
+		this.decisions = decisions;
+	}
 }
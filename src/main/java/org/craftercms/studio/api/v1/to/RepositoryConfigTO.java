@@ -51,6 +51,9 @@ public class RepositoryConfigTO implements Serializable {
     /** previewable mimetypes patterns **/
     private List<String> previewableMimetypesPaterns;
 
+    /** compiled patterns used to find the content type class of a path **/
+    protected ContentTypeClassifierTO contentTypeClassifier;
+
     /**
      * @return the rootPrefix
      */
@@ -192,4 +195,12 @@ public class RepositoryConfigTO implements Serializable {
     public void setLevelDescriptorPatterns(List<String> patterns) {
         this.levelDescriptorPatterns = patterns;
     }
+
+    public ContentTypeClassifierTO getContentTypeClassifier() {
+        return contentTypeClassifier;
+    }
+
+    public void setContentTypeClassifier(ContentTypeClassifierTO contentTypeClassifier) {
+        this.contentTypeClassifier = contentTypeClassifier;
+    }
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.annotation;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.craftercms.commons.aop.AopUtils;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v2.exception.RetryingOperationErrorException;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class for the aspects that retry operations failing because of contention (deadlocks, locked repositories).
+ *
+ * <ul>
+ *     <li>Retries wait using exponential backoff with full jitter, starting at {@code baseSleep} and capped by
+ *     {@code maxSleep}</li>
+ *     <li>Each invocation stops retrying after {@code maxRetries} retries or after waiting a total of
+ *     {@code maxRetryTime} milliseconds</li>
+ *     <li>When more than {@code circuitBreakerThreshold} conflicts happen within {@code circuitBreakerWindow}
+ *     milliseconds the circuit breaker opens for {@code circuitBreakerCooldown} milliseconds, while open failed
+ *     operations are not retried so they don't add more load to the contended resource</li>
+ * </ul>
+ */
+public abstract class AbstractRetryingOperationAnnotationHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractRetryingOperationAnnotationHandler.class);
+
+    private static final int DEFAULT_MAX_RETRIES = 50;
+
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private int maxSleep = 0;
+    private int baseSleep = 0;
+    private long maxRetryTime = Long.MAX_VALUE;
+    private int circuitBreakerThreshold = 0;
+    private long circuitBreakerWindow = 0;
+    private long circuitBreakerCooldown = 0;
+
+    protected RetryingOperationMetrics metrics;
+
+    private final AtomicLong windowStart = new AtomicLong();
+    private final AtomicInteger windowConflicts = new AtomicInteger();
+    private volatile long circuitOpenUntil;
+
+    protected AbstractRetryingOperationAnnotationHandler(String name) {
+        metrics = new RetryingOperationMetrics(name);
+        metrics.setCircuitBreakerState(this::isCircuitBreakerOpen);
+    }
+
+    public void init() {
+        metrics.init();
+    }
+
+    public void destroy() {
+        metrics.destroy();
+    }
+
+    /**
+     * Indicates if the given error was caused by contention and the operation can be retried
+     */
+    protected abstract boolean isConflict(Throwable error);
+
+    /**
+     * Returns the error to throw for a failure that can't be retried
+     */
+    protected Throwable getNonRetryingError(Method method, Throwable error) {
+        return error;
+    }
+
+    protected Object doRetryingOperation(ProceedingJoinPoint pjp, String description) throws Throwable {
+        Method method = AopUtils.getActualMethod(pjp);
+        RetryingOperationMetrics.Stats stats =
+                metrics.getStats(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        stats.recordInvocation();
+
+        long waited = 0;
+        int numAttempts = 0;
+        try {
+            while (true) {
+                numAttempts++;
+                stats.recordAttempt();
+                if (numAttempts > 1) {
+                    logger.debug("Retrying " + description + " attempt " + (numAttempts - 1));
+                }
+                try {
+                    return pjp.proceed();
+                } catch (Throwable ex) {
+                    if (!isConflict(ex)) {
+                        throw getNonRetryingError(method, ex);
+                    }
+                    stats.recordConflict();
+                    recordConflict();
+                    logger.debug("Failed to execute " + method.getName() + " after " + numAttempts + " attempts", ex);
+
+                    if (isCircuitBreakerOpen()) {
+                        stats.recordRejection();
+                        throw new RetryingOperationErrorException("Failed to execute " + method.getName() +
+                                " after " + numAttempts + " attempts, not retrying due to high contention",
+                                (Exception) ex);
+                    }
+                    if (numAttempts > maxRetries || waited >= maxRetryTime) {
+                        stats.recordFailure();
+                        throw new RetryingOperationErrorException("Failed to execute " + method.getName() +
+                                " after " + numAttempts + " attempts and " + waited + " ms", (Exception) ex);
+                    }
+
+                    long sleep = Math.min(getBackoff(numAttempts), maxRetryTime - waited);
+                    logger.debug("Wait for " + sleep + " before next retry " + method.getName());
+                    Thread.sleep(sleep);
+                    waited += sleep;
+                }
+            }
+        } finally {
+            stats.recordWait(waited);
+        }
+    }
+
+    /**
+     * Returns a random wait between zero and the exponential backoff for the given attempt
+     */
+    protected long getBackoff(int attempt) {
+        if (maxSleep <= 0) {
+            return 0;
+        }
+        long cap = maxSleep;
+        if (baseSleep > 0) {
+            cap = Math.min(cap, (long) baseSleep << Math.min(attempt - 1, 30));
+        }
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    protected void recordConflict() {
+        if (circuitBreakerThreshold <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long start = windowStart.get();
+        if (now - start > circuitBreakerWindow && windowStart.compareAndSet(start, now)) {
+            windowConflicts.set(0);
+        }
+        if (windowConflicts.incrementAndGet() > circuitBreakerThreshold && !isCircuitBreakerOpen()) {
+            circuitOpenUntil = now + circuitBreakerCooldown;
+            metrics.recordCircuitBreakerOpening();
+            logger.warn("Circuit breaker opened for {0} operations after {1} conflicts in {2} ms",
+                    metrics.getName(), windowConflicts.get(), circuitBreakerWindow);
+        }
+    }
+
+    public boolean isCircuitBreakerOpen() {
+        return circuitOpenUntil > System.currentTimeMillis();
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public int getMaxSleep() {
+        return maxSleep;
+    }
+
+    public void setMaxSleep(int maxSleep) {
+        this.maxSleep = maxSleep;
+    }
+
+    public int getBaseSleep() {
+        return baseSleep;
+    }
+
+    public void setBaseSleep(int baseSleep) {
+        this.baseSleep = baseSleep;
+    }
+
+    public long getMaxRetryTime() {
+        return maxRetryTime;
+    }
+
+    public void setMaxRetryTime(long maxRetryTime) {
+        this.maxRetryTime = maxRetryTime;
+    }
+
+    public int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    public void setCircuitBreakerThreshold(int circuitBreakerThreshold) {
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+    }
+
+    public long getCircuitBreakerWindow() {
+        return circuitBreakerWindow;
+    }
+
+    public void setCircuitBreakerWindow(long circuitBreakerWindow) {
+        this.circuitBreakerWindow = circuitBreakerWindow;
+    }
+
+    public long getCircuitBreakerCooldown() {
+        return circuitBreakerCooldown;
+    }
+
+    public void setCircuitBreakerCooldown(long circuitBreakerCooldown) {
+        this.circuitBreakerCooldown = circuitBreakerCooldown;
+    }
+
+    public RetryingOperationMetrics getMetrics() {
+        return metrics;
+    }
+
+}
@@ -19,73 +19,29 @@ package org.craftercms.studio.api.v2.annotation;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.craftercms.commons.aop.AopUtils;
-import org.craftercms.studio.api.v1.log.Logger;
-import org.craftercms.studio.api.v1.log.LoggerFactory;
-import org.craftercms.studio.api.v2.exception.RetryingOperationErrorException;
 import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.springframework.core.annotation.Order;
 import org.springframework.dao.DeadlockLoserDataAccessException;
 
-import java.lang.reflect.Method;
-
 @Aspect
 @Order(1)
-public class RetryingDatabaseOperationAnnotationHandler {
-
-    private static final Logger logger = LoggerFactory.getLogger(RetryingDatabaseOperationAnnotationHandler.class);
-
-    private static final int DEFAULT_MAX_RETRIES = 50;
+public class RetryingDatabaseOperationAnnotationHandler extends AbstractRetryingOperationAnnotationHandler {
 
-    private int maxRetries = DEFAULT_MAX_RETRIES;
-    private int maxSleep = 0;
+    public static final String METRICS_NAME = "database";
 
-    public int getMaxRetries() {
-        return maxRetries;
-    }
-
-    public void setMaxRetries(int maxRetries) {
-        this.maxRetries = maxRetries;
-    }
-
-    public int getMaxSleep() {
-        return maxSleep;
-    }
-
-    public void setMaxSleep(int maxSleep) {
-        this.maxSleep = maxSleep;
+    public RetryingDatabaseOperationAnnotationHandler() {
+        super(METRICS_NAME);
     }
 
     @Around("@within(org.craftercms.studio.api.v2.annotation.RetryingDatabaseOperation) || " +
             "@annotation(org.craftercms.studio.api.v2.annotation.RetryingDatabaseOperation)")
     public Object doRetryingOperation(ProceedingJoinPoint pjp) throws Throwable {
-        Method method = AopUtils.getActualMethod(pjp);
-        logger.debug("Execute retrying operation " + method.getDeclaringClass() + "." + method.getName());
-        int numAttempts = 0;
-        do {
-            numAttempts++;
-            try {
-				 // Execute the business code again
-                if (numAttempts > 1) {
-                    logger.debug("Retrying operation attempt " + (numAttempts - 1));
-                }
-                return pjp.proceed();
-            } catch (DeadlockLoserDataAccessException | JGitInternalException ex) {
-                logger.debug("Failed to execute " + method.getName() + " after " + numAttempts + " attempts", ex);
-                if (numAttempts > maxRetries) {
-                    //log failure information, and throw exception
-                    // If it is greater than the default number of retry mechanisms, we will actually throw it out this time.
-                    throw new RetryingOperationErrorException("Failed to execute " + method.getName() + " after " +
-                            numAttempts + " attempts", ex);
-                } else {
-					 // If the maximum number of retries is not reached, it will be executed again
-                    long sleep = (long)(Math.random() * maxSleep);
-                    logger.debug("Wait for " + sleep + " before next retry" + method.getName());
-                    Thread.sleep(sleep);
-                }
-            }
-        } while (numAttempts < this.maxRetries);
+        return doRetryingOperation(pjp, "operation");
+    }
 
-        return null;
+    @Override
+    protected boolean isConflict(Throwable error) {
+        return error instanceof DeadlockLoserDataAccessException || error instanceof JGitInternalException;
     }
+
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.annotation;
+
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Records the attempts, conflicts and time spent waiting of the operations handled by a retrying aspect.
+ *
+ * <p>Each aspect has its own instance, registered in JMX as {@link #OBJECT_NAME} followed by the name given to the
+ * instance.</p>
+ */
+public class RetryingOperationMetrics implements RetryingOperationMetricsMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryingOperationMetrics.class);
+
+    public static final String OBJECT_NAME = "org.craftercms.studio:type=RetryingOperationMetrics,name=";
+
+    protected final String name;
+    protected final Map<String, Stats> operationStats = new ConcurrentHashMap<>();
+    protected final LongAdder circuitBreakerOpenings = new LongAdder();
+
+    /**
+     * Indicates if the circuit breaker of the aspect is open, provided by the aspect
+     */
+    protected BooleanSupplier circuitBreakerState = () -> false;
+
+    public RetryingOperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public void init() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME + name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(this, objectName);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to register the retrying operation metrics {0} in JMX", e, name);
+        }
+    }
+
+    public void destroy() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME + name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to unregister the retrying operation metrics {0} from JMX", e, name);
+        }
+    }
+
+    /**
+     * Returns the statistics for the given operation, creating them if needed
+     * @param operation the name of the operation
+     * @return the statistics
+     */
+    public Stats getStats(String operation) {
+        return operationStats.computeIfAbsent(operation, key -> new Stats());
+    }
+
+    public void recordCircuitBreakerOpening() {
+        circuitBreakerOpenings.increment();
+    }
+
+    @Override
+    public void reset() {
+        operationStats.clear();
+        circuitBreakerOpenings.reset();
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> getOperationStats() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        operationStats.forEach((operation, stats) -> result.put(operation, stats.toMap()));
+        return result;
+    }
+
+    @Override
+    public long getCircuitBreakerOpenings() {
+        return circuitBreakerOpenings.sum();
+    }
+
+    @Override
+    public boolean isCircuitBreakerOpen() {
+        return circuitBreakerState.getAsBoolean();
+    }
+
+    /**
+     * Returns the state of the circuit breaker and the retry statistics of every operation guarded by this instance
+     * @return map with the circuit breaker state, its number of openings and the stats of each operation
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("circuitBreakerOpen", isCircuitBreakerOpen());
+        summary.put("circuitBreakerOpenings", getCircuitBreakerOpenings());
+        summary.put("operations", getOperationStats());
+        return summary;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setCircuitBreakerState(BooleanSupplier circuitBreakerState) {
+        this.circuitBreakerState = circuitBreakerState;
+    }
+
+    /**
+     * Statistics for a single operation, times are in milliseconds
+     */
+    public static class Stats {
+
+        protected final LongAdder invocations = new LongAdder();
+        protected final LongAdder attempts = new LongAdder();
+        protected final LongAdder conflicts = new LongAdder();
+        protected final LongAdder failures = new LongAdder();
+        protected final LongAdder rejections = new LongAdder();
+        protected final LongAdder totalWaitTime = new LongAdder();
+        protected final LongAccumulator maxWaitTime = new LongAccumulator(Math::max, 0);
+
+        public void recordInvocation() {
+            invocations.increment();
+        }
+
+        public void recordAttempt() {
+            attempts.increment();
+        }
+
+        public void recordConflict() {
+            conflicts.increment();
+        }
+
+        /**
+         * Records an operation that failed after exhausting its retries or budget
+         */
+        public void recordFailure() {
+            failures.increment();
+        }
+
+        /**
+         * Records an operation that was not retried because the circuit breaker was open
+         */
+        public void recordRejection() {
+            rejections.increment();
+        }
+
+        /**
+         * Records the total time an operation waited between its attempts
+         */
+        public void recordWait(long time) {
+            if (time > 0) {
+                totalWaitTime.add(time);
+                maxWaitTime.accumulate(time);
+            }
+        }
+
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        public long getAttempts() {
+            return attempts.sum();
+        }
+
+        public long getConflicts() {
+            return conflicts.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getRejections() {
+            return rejections.sum();
+        }
+
+        public long getTotalWaitTime() {
+            return totalWaitTime.sum();
+        }
+
+        public long getMaxWaitTime() {
+            return maxWaitTime.get();
+        }
+
+        protected Map<String, Long> toMap() {
+            Map<String, Long> map = new LinkedHashMap<>();
+            map.put("invocations", getInvocations());
+            map.put("attempts", getAttempts());
+            map.put("conflicts", getConflicts());
+            map.put("failures", getFailures());
+            map.put("rejections", getRejections());
+            map.put("totalWaitTime", getTotalWaitTime());
+            map.put("maxWaitTime", getMaxWaitTime());
+            return map;
+        }
+
+    }
+
+}
@@ -19,80 +19,42 @@ package org.craftercms.studio.api.v2.annotation;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.craftercms.commons.aop.AopUtils;
-import org.craftercms.studio.api.v1.log.Logger;
-import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v2.exception.RetryingOperationErrorException;
 import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.errors.LockFailedException;
 import org.springframework.core.annotation.Order;
 
 import java.lang.reflect.Method;
-import java.util.Objects;
 
 @Aspect
 @Order(1)
-public class RetryingRepositoryOperationAnnotationHandler {
+public class RetryingRepositoryOperationAnnotationHandler extends AbstractRetryingOperationAnnotationHandler {
 
-    private static final Logger logger = LoggerFactory.getLogger(RetryingRepositoryOperationAnnotationHandler.class);
+    public static final String METRICS_NAME = "repository";
 
-    private static final int DEFAULT_MAX_RETRIES = 50;
-
-    private int maxRetries = DEFAULT_MAX_RETRIES;
-    private int maxSleep = 0;
-
-    public int getMaxRetries() {
-        return maxRetries;
-    }
-
-    public void setMaxRetries(int maxRetries) {
-        this.maxRetries = maxRetries;
-    }
-
-    public int getMaxSleep() {
-        return maxSleep;
-    }
-
-    public void setMaxSleep(int maxSleep) {
-        this.maxSleep = maxSleep;
+    public RetryingRepositoryOperationAnnotationHandler() {
+        super(METRICS_NAME);
     }
 
     @Around("@within(org.craftercms.studio.api.v2.annotation.RetryingRepositoryOperation) || " +
             "@annotation(org.craftercms.studio.api.v2.annotation.RetryingRepositoryOperation)")
     public Object doRetryingOperation(ProceedingJoinPoint pjp) throws Throwable {
-        Method method = AopUtils.getActualMethod(pjp);
+        return doRetryingOperation(pjp, "repository operation");
+    }
 
-        int numAttempts = 0;
-        do {
-            numAttempts++;
-            try {
-                // Execute the business code again
-                if (numAttempts > 1) {
-                    logger.debug("Retrying repository operation attempt " + (numAttempts - 1));
-                }
-                return pjp.proceed();
-            } catch (JGitInternalException ex) {
-                if (Objects.nonNull(ex.getCause()) && ex.getCause() instanceof LockFailedException) {
-                    logger.debug("Failed to execute " + method.getName() + " after " + numAttempts + " attempts", ex);
-                    if (numAttempts > maxRetries) {
-                        //log failure information, and throw exception
-                        // If it is greater than the default number of retry mechanisms, we will actually throw it out this time.
-                        throw new RetryingOperationErrorException("Failed to execute " + method.getName() + " due to the Git repository being locked after " +
-                                numAttempts + " attempts", ex);
-                    } else {
-                        // If the maximum number of retries is not reached, it will be executed again
-                        long sleep = (long) (Math.random() * maxSleep);
-                        logger.debug("Git operation failed due to the repository being locked. Will wait for " +
-                                sleep + " before next retry" + method.getName());
-                        Thread.sleep(sleep);
-                    }
-                } else {
-                    throw new RetryingOperationErrorException("Failed to execute " + method.getName() + " due to " +
-                            "a Git error that does not cause retry attempts", ex);
-                }
-            }
-        } while (numAttempts < this.maxRetries);
+    @Override
+    protected boolean isConflict(Throwable error) {
+        // Only retry when the Git repository is locked
+        return error instanceof JGitInternalException && error.getCause() instanceof LockFailedException;
+    }
 
-        return null;
+    @Override
+    protected Throwable getNonRetryingError(Method method, Throwable error) {
+        if (error instanceof JGitInternalException) {
+            return new RetryingOperationErrorException("Failed to execute " + method.getName() + " due to " +
+                    "a Git error that does not cause retry attempts", (Exception) error);
+        }
+        return error;
     }
+
 }
@@ -21,6 +21,7 @@ import org.apache.ibatis.annotations.Param;
 import java.util.List;
 import java.util.Map;
 
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.AUDIT_LOGS;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
 
 public interface AuditDAO {
@@ -37,6 +38,13 @@ public interface AuditDAO {
 
     int insertAuditLog(AuditLog auditLog);
 
+    /**
+     * Insert multiple audit log records using a single statement, the generated ids are not returned
+     * @param auditLogs audit log records, without parameters
+     * @return number of rows affected
+     */
+    int insertAuditLogList(@Param(AUDIT_LOGS) List<AuditLog> auditLogs);
+
     void insertAuditLogParams(Map params);
 
     List<AuditLog> selectUserFeedEntriesHideLive(Map params);
@@ -44,6 +44,8 @@ public interface DependencyDAO {
 
     String SORUCE_PATH_COLUMN_NAME = "source_path";
     String TARGET_PATH_COLUMN_NAME = "target_path";
+    String PATH_COLUMN_NAME = "path";
+    String STATE_COLUMN_NAME = "state";
 
     /**
      * Get soft dependencies from DB for list of content paths
@@ -97,4 +99,21 @@ public interface DependencyDAO {
     List<String> getItemSpecificDependencies(@Param("siteId") String siteId, @Param("paths") List<String> paths,
                                              @Param("regex") List<String> regex);
 
+    /**
+     * Get all dependencies for a site
+     *
+     * @param site site identifier
+     * @return list of all dependencies of the site
+     */
+    List<Dependency> getAllDependencies(@Param("site") String site);
+
+    /**
+     * Get the state of the items for the given paths
+     *
+     * @param site site identifier
+     * @param paths list of content paths
+     * @return list of maps with the path and state of each existing item
+     */
+    List<Map<String, Object>> getItemStates(@Param("site") String site, @Param("paths") Collection<String> paths);
+
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.api.v2.dal;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FOLDER;
+
+/**
+ * Position of the last item returned by a keyset paginated query. The next page is requested by seeking past the
+ * {@code (rank, value, id)} tuple of the last item instead of skipping an offset, so the cost of a page doesn't
+ * depend on how deep it is.
+ *
+ * <p>The cursor is sent to clients as an opaque token, it also carries the total computed for the first page so
+ * it doesn't need to be counted again for every page when an approximate total is enough.</p>
+ */
+public class ItemCursor {
+
+    public static final int UNKNOWN_TOTAL = -1;
+
+    public static final String ORDER_ASC = "ASC";
+    public static final String ORDER_DESC = "DESC";
+
+    public static final String SORT_STRATEGY_FOLDERS_FIRST = "foldersFirst";
+
+    /**
+     * The only sort supported by the keyset pagination of the content dashboard
+     */
+    public static final String SORT_LAST_MODIFIED_ON = "last_modified_on";
+
+    protected static final String SEPARATOR = "\n";
+
+    /**
+     * Leading sort key, used to keep folders first when needed
+     */
+    protected final int rank;
+
+    /**
+     * Value of the sort field of the item (label, date, etc.), null values are kept because they are sorted apart
+     * from empty ones
+     */
+    protected final String value;
+
+    /**
+     * Id of the item, used to break ties between items with the same sort value
+     */
+    protected final long id;
+
+    /**
+     * Total number of items computed for the first page, or {@link #UNKNOWN_TOTAL}
+     */
+    protected final int total;
+
+    public ItemCursor(int rank, String value, long id, int total) {
+        this.rank = rank;
+        this.value = value;
+        this.id = id;
+        this.total = total;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return opaque token for this cursor
+     */
+    public String encode() {
+        String raw = rank + SEPARATOR + id + SEPARATOR + total;
+        if (value != null) {
+            raw += SEPARATOR + value;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates the cursor pointing to the given child
+     * @param item the last child of the page
+     * @param sortStrategy the sort strategy used for the page
+     * @param total total to carry in the cursor, or {@link #UNKNOWN_TOTAL}
+     * @return the cursor
+     */
+    public static ItemCursor forChild(Item item, String sortStrategy, int total) {
+        int rank = 0;
+        if (SORT_STRATEGY_FOLDERS_FIRST.equals(sortStrategy)) {
+            rank = StringUtils.equals(item.getSystemType(), CONTENT_TYPE_FOLDER) ? 0 : 1;
+        }
+        return new ItemCursor(rank, item.getLabel(), item.getId(), total);
+    }
+
+    /**
+     * Normalizes the order requested by the client, since it is used as-is in the keyset queries
+     * @param order the requested order
+     * @param defaultOrder order to use if none was requested
+     * @return {@link #ORDER_ASC} or {@link #ORDER_DESC}
+     */
+    public static String normalizeOrder(String order, String defaultOrder) {
+        if (StringUtils.isEmpty(order)) {
+            return defaultOrder;
+        }
+        return StringUtils.equalsIgnoreCase(order, ORDER_DESC) ? ORDER_DESC : ORDER_ASC;
+    }
+
+    /**
+     * Parses a token created by {@link #encode()}
+     * @param token the token
+     * @return the cursor, or null if the token is empty (first page)
+     * @throws IllegalArgumentException if the token is not valid
+     */
+    public static ItemCursor decode(String token) {
+        if (StringUtils.isEmpty(token)) {
+            return null;
+        }
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = raw.split(SEPARATOR, 4);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Invalid cursor " + token);
+        }
+        return new ItemCursor(Integer.parseInt(parts[0]), parts.length == 4 ? parts[3] : null,
+                Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+    }
+
+}
@@ -23,15 +23,22 @@ import java.util.List;
 
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.COMMIT_ID;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.CONTENT_TYPE;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.CURSOR_DATE;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.CURSOR_ID;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.CURSOR_VALUE;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.DATE_FROM;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.DATE_TO;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.ENTRIES;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.EXCLUDES;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.FOLDERS;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.FOLDER_PATH;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.ID;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.INCLUDE_LEVEL_DESCRIPTOR;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.IN_PROGRESS_MASK;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.ITEMS;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.ITEM_IDS;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.KEYWORD;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.LAST_ID;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.LAST_PUBLISHED_ON;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.LEVEL_DESCRIPTOR_NAME;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.LEVEL_DESCRIPTOR_PATH;
@@ -118,6 +125,36 @@ public interface ItemDAO {
 
     List<Item> getAllChildrenByPath(@Param(SITE_ID) Long siteId, @Param(PATH) String path);
 
+    /**
+     * Get a page of the items in a subtree, ordered by id. Only the id, path and parent id of the items are loaded.
+     *
+     * @param siteId site identifier
+     * @param path path of the subtree root
+     * @param lastId id of the last item of the previous page, the first page starts after 0
+     * @param limit number of items to return
+     *
+     * @return list of items
+     */
+    List<Item> getSubtreeParentIds(@Param(SITE_ID) Long siteId, @Param(PATH) String path,
+                                   @Param(LAST_ID) long lastId, @Param(LIMIT) int limit);
+
+    /**
+     * Get the id, path and parent id of the items for the given paths
+     *
+     * @param siteId site identifier
+     * @param paths list of paths
+     *
+     * @return list of items
+     */
+    List<Item> getItemIdsByPaths(@Param(SITE_ID) Long siteId, @Param(PATHS) List<String> paths);
+
+    /**
+     * Update the parent id of multiple items in a single statement
+     *
+     * @param items list of items with the id and new parent id set
+     */
+    void updateParentIdBulk(@Param(ITEMS) List<Item> items);
+
     /**
      * Get total number of children for given path
      *
@@ -153,6 +190,59 @@ public interface ItemDAO {
                                @Param(SORT_STRATEGY) String sortStrategy, @Param(ORDER) String order,
                                @Param(OFFSET) int offset, @Param(LIMIT) int limit);
 
+    /**
+     * Get a page of children for given path using keyset pagination
+     *
+     * @param siteId site identifier
+     * @param ldPath level descriptor path
+     * @param ldName level descriptor name
+     * @param parentId id of the item at the given path
+     * @param localeCode locale code
+     * @param keyword filter by keyword
+     * @param excludes exclude items by regular expression patterns
+     * @param order order of children, ASC or DESC
+     * @param includeLevelDescriptor true to include the level descriptor before the children
+     * @param folders true to return only folders, false to return only the rest of the children, null for all
+     * @param cursorValue label of the last child of the previous page
+     * @param cursorId id of the last child of the previous page, null for the first page
+     * @param limit number of children to return
+     *
+     * @return list of items (level descriptor, children)
+     */
+    List<Item> getChildrenByPathAfter(@Param(SITE_ID) Long siteId, @Param(LEVEL_DESCRIPTOR_PATH) String ldPath,
+                                      @Param(LEVEL_DESCRIPTOR_NAME) String ldName, @Param(PARENT_ID) Long parentId,
+                                      @Param(LOCALE_CODE) String localeCode, @Param(KEYWORD) String keyword,
+                                      @Param(EXCLUDES) List<String> excludes, @Param(ORDER) String order,
+                                      @Param(INCLUDE_LEVEL_DESCRIPTOR) boolean includeLevelDescriptor,
+                                      @Param(FOLDERS) Boolean folders, @Param(CURSOR_VALUE) String cursorValue,
+                                      @Param(CURSOR_ID) Long cursorId, @Param(LIMIT) int limit);
+
+    /**
+     * Get a page of children for given id using keyset pagination
+     *
+     * @param siteId site identifier
+     * @param parentId parent identifier
+     * @param ldName level descriptor name
+     * @param localeCode locale code
+     * @param keyword filter by keyword
+     * @param excludes exclude items by regular expression patterns
+     * @param order order of children, ASC or DESC
+     * @param includeLevelDescriptor true to include the level descriptor before the children
+     * @param folders true to return only folders, false to return only the rest of the children, null for all
+     * @param cursorValue label of the last child of the previous page
+     * @param cursorId id of the last child of the previous page, null for the first page
+     * @param limit number of children to return
+     *
+     * @return list of items (level descriptor, children)
+     */
+    List<Item> getChildrenByIdAfter(@Param(SITE_ID) Long siteId, @Param(PARENT_ID) String parentId,
+                                    @Param(LEVEL_DESCRIPTOR_NAME) String ldName,
+                                    @Param(LOCALE_CODE) String localeCode, @Param(KEYWORD) String keyword,
+                                    @Param(EXCLUDES) List<String> excludes, @Param(ORDER) String order,
+                                    @Param(INCLUDE_LEVEL_DESCRIPTOR) boolean includeLevelDescriptor,
+                                    @Param(FOLDERS) Boolean folders, @Param(CURSOR_VALUE) String cursorValue,
+                                    @Param(CURSOR_ID) Long cursorId, @Param(LIMIT) int limit);
+
     /**
      * insert or update item
      *
@@ -338,6 +428,29 @@ public interface ItemDAO {
                                    @Param(DATE_TO) ZonedDateTime dateTo, @Param(SORT_STRATEGY) String sort,
                                    @Param(ORDER) String order, @Param(OFFSET) int offset, @Param(LIMIT) int limit);
 
+    /**
+     * Get a page of the content dashboard sorted by last modified date using keyset pagination
+     *
+     * @param siteId site identifier
+     * @param path path regular expression to apply as filter for result set
+     * @param modifier filter results by user
+     * @param contentType filter results by content type
+     * @param state filter results by state
+     * @param dateFrom lower boundary for modified date
+     * @param dateTo upper boundary for modified date
+     * @param order order of results, ASC or DESC
+     * @param cursorDate last modified date of the last record of the previous page, null for the first page
+     * @param cursorId id of the last record of the previous page, null for the first page
+     * @param limit number of records to return
+     * @return list of item metadata records
+     */
+    List<Item> getContentDashboardAfter(@Param(SITE_ID) String siteId, @Param(PATH) String path,
+                                        @Param(MODIFIER) String modifier, @Param(CONTENT_TYPE) String contentType,
+                                        @Param(STATE) long state, @Param(DATE_FROM) ZonedDateTime dateFrom,
+                                        @Param(DATE_TO) ZonedDateTime dateTo, @Param(ORDER) String order,
+                                        @Param(CURSOR_DATE) ZonedDateTime cursorDate,
+                                        @Param(CURSOR_ID) Long cursorId, @Param(LIMIT) int limit);
+
     /**
      * Move item
      * @param siteId site identifier
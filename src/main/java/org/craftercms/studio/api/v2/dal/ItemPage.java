@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.api.v2.dal;
+
+import java.util.List;
+
+/**
+ * A page of results returned by a keyset paginated query
+ *
+ * @param <T> the type of the results
+ */
+public class ItemPage<T> {
+
+    protected final List<T> items;
+    protected final int total;
+    protected final String nextCursor;
+
+    public ItemPage(List<T> items, int total, String nextCursor) {
+        this.items = items;
+        this.total = total;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return total number of results, it could be the one computed for the first page if an approximate total was
+     * requested
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return token to request the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+}
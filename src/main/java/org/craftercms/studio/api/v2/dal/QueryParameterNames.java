@@ -29,6 +29,12 @@ public final class  QueryParameterNames {
     public static final String SORT_STRATEGY = "sortStrategy";
     // Order
     public static final String ORDER = "order";
+    // Keyset pagination
+    public static final String CURSOR_VALUE = "cursorValue";
+    public static final String CURSOR_DATE = "cursorDate";
+    public static final String CURSOR_ID = "cursorId";
+    public static final String INCLUDE_LEVEL_DESCRIPTOR = "includeLevelDescriptor";
+    public static final String FOLDERS = "folders";
     // Path
     public static final String PATH = "path";
     // LIKE path
@@ -170,6 +176,8 @@ public final class  QueryParameterNames {
     /* Audit */
     public static final String ACTIONS = "actions";
 
+    public static final String AUDIT_LOGS = "auditLogs";
+
     public static final String OPERATIONS = "operations";
 
     public static final String DATE_FROM = "dateFrom";
@@ -207,6 +215,10 @@ public final class  QueryParameterNames {
 
     public static final String ITEM_IDS = "itemIds";
 
+    public static final String LAST_ID = "lastId";
+
+    public static final String ITEMS = "items";
+
     public static final String CONTENT_TYPE = "contentType";
 
     public static final String MOVE_MASK = "moveMask";
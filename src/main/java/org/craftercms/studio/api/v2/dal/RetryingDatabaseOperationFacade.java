@@ -215,6 +215,13 @@ public interface RetryingDatabaseOperationFacade {
      */
     int insertAuditLog(AuditLog auditLog);
 
+    /**
+     * Insert multiple audit log records
+     * @param auditLogs audit log records, without parameters
+     * @return number of rows affected
+     */
+    int insertAuditLogList(List<AuditLog> auditLogs);
+
     /**
      * Insert audit log parameters
      * @param params SQL query parameters
@@ -368,6 +375,14 @@ public interface RetryingDatabaseOperationFacade {
      */
     void markGitLogAudited(String siteId, String commitId, int audited);
 
+    /**
+     * Mark multiple gitlogs as audited for site
+     * @param siteId site identifier
+     * @param commitIds list of commit ids
+     * @param audited audited flag value
+     */
+    void markGitLogAuditedBulk(String siteId, List<String> commitIds, int audited);
+
     /**
      * Insert list of gitlog rows with ignore option if it already exists
      * @param siteId site identifier
@@ -523,6 +538,12 @@ public interface RetryingDatabaseOperationFacade {
      */
     void updateStatesByIdBulk(List<Long> itemIds, long onStatesBitMap, long offStatesBitMap);
 
+    /**
+     * Update the parent id of multiple items in a single statement
+     * @param items list of items with the id and new parent id set
+     */
+    void updateParentIdBulk(List<Item> items);
+
     /**
      * Delete all items for site
      * @param siteId site id
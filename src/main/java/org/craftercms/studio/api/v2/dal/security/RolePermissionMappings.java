@@ -18,16 +18,28 @@ package org.craftercms.studio.api.v2.dal.security;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 public class RolePermissionMappings {
 
     private String role;
     private Map<String, Long> ruleContentItemPermissions = new HashMap<String, Long>();
+    private Map<String, Pattern> rulePatterns = new ConcurrentHashMap<String, Pattern>();
 
     public void addRuleContentItemPermissionsMapping(String rule, Long contentItemAvailableActions) {
         ruleContentItemPermissions.put(rule, contentItemAvailableActions);
     }
 
+    /**
+     * Returns the compiled pattern for the given rule, patterns are compiled only once
+     * @param rule regex of the rule
+     * @return compiled pattern
+     */
+    public Pattern getRulePattern(String rule) {
+        return rulePatterns.computeIfAbsent(rule, Pattern::compile);
+    }
+
     public String getRole() {
         return role;
     }
@@ -42,5 +54,6 @@ public class RolePermissionMappings {
 
     public void setRuleContentItemPermissions(Map<String, Long> ruleContentItemPermissions) {
         this.ruleContentItemPermissions = ruleContentItemPermissions;
+        this.rulePatterns.clear();
     }
 }
@@ -34,6 +34,16 @@ public class SitePermissionMappings {
     private Map<String, List<String>> groupToRolesMapping = new HashMap<String, List<String>>();
 
     public long getAvailableActions(String username, List<Group> groups, String path) {
+        return getAvailableActions(getRoles(username, groups), path);
+    }
+
+    /**
+     * Get the roles for the given user and groups
+     * @param username user name
+     * @param groups groups that user belongs to
+     * @return list of roles
+     */
+    public List<String> getRoles(String username, List<Group> groups) {
         List<String> rolesList = new ArrayList<String>();
         List<String> userRoles = groupToRolesMapping.get(username);
         if (CollectionUtils.isNotEmpty(userRoles)) {
@@ -45,13 +55,25 @@ public class SitePermissionMappings {
                 CollectionUtils.addAll(rolesList, groupRoles);
             }
         });
+        return rolesList;
+    }
 
+    /**
+     * Get the available actions for the given roles and path
+     * @param roles list of roles, as returned by {@link #getRoles(String, List)}
+     * @param path path of the content
+     * @return bitmap representing available actions
+     */
+    public long getAvailableActions(List<String> roles, String path) {
         long availableActions = 0L;
-        for (String role : rolesList) {
+        for (String role : roles) {
             RolePermissionMappings rolePermissionMappings = rolePermissions.get(role);
+            if (Objects.isNull(rolePermissionMappings)) {
+                continue;
+            }
             Map<String, Long> rulePermissions = rolePermissionMappings.getRuleContentItemPermissions();
             for (Map.Entry<String, Long> entry : rulePermissions.entrySet()) {
-                Pattern pattern = Pattern.compile(entry.getKey());
+                Pattern pattern = rolePermissionMappings.getRulePattern(entry.getKey());
                 Matcher matcher = pattern.matcher(path);
                 if (matcher.matches()) {
                     availableActions = availableActions | entry.getValue();
@@ -19,4 +19,12 @@ package org.craftercms.studio.api.v2.job;
 public interface SiteJob {
 
     void execute(String site);
+
+    /**
+     * Sites with pending jobs of a higher priority are served first, the jobs of a single site are always executed
+     * in the order they are scheduled
+     */
+    default int getPriority() {
+        return 0;
+    }
 }
@@ -32,6 +32,7 @@ import org.craftercms.studio.api.v2.dal.PublishingHistoryItem;
 import org.craftercms.studio.api.v2.dal.RepoOperation;
 import org.craftercms.studio.model.rest.content.DetailedItem;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.time.ZonedDateTime;
 import java.util.List;
@@ -68,6 +69,34 @@ public interface ContentRepository {
      */
     List<RepoOperation> getOperationsFromDelta(String site, String commitIdFrom, String commitIdTo);
 
+    /**
+     * Stream the operations between two commits in batches instead of loading all of them in memory. The commits
+     * are diffed in segments of at most {@code checkpointInterval} commits, once all the operations of a segment
+     * have been processed the handler gets a checkpoint with the last commit of the segment.
+     *
+     * @param site               site to use
+     * @param commitIdFrom       commit ID to start at, empty to start from an empty repository
+     * @param commitIdTo         commit ID to end at
+     * @param batchSize          max number of operations in each batch
+     * @param checkpointInterval max number of commits in each segment
+     * @param handler            handler for the operations
+     * @throws IOException if there is any error reading the repository or processing the operations
+     */
+    void streamOperationsFromDelta(String site, String commitIdFrom, String commitIdTo, int batchSize,
+                                   int checkpointInterval, RepoOperationsHandler handler) throws IOException;
+
+    /**
+     * Get the operations of each one of the given commits compared to its first parent, using a single walk of the
+     * repository. Commits that don't exist in the repository are not included in the result.
+     *
+     * @param site      site to use
+     * @param commitIds commit IDs to diff
+     * @return operations keyed by commit ID, in the same order as the given commit IDs
+     * @throws IOException if there is any error reading the repository
+     */
+    Map<String, List<RepoOperation>> getOperationsFromCommits(String site, List<String> commitIds)
+            throws IOException;
+
     /**
      * Get first id from repository for given site
      *
@@ -279,6 +308,14 @@ public interface ContentRepository {
      */
     void markGitLogAudited(String siteId, String commitId);
 
+    /**
+     * Mark multiple Git logs as audited
+     *
+     * @param siteId    site identifier
+     * @param commitIds commit ids
+     */
+    void markGitLogAuditedBulk(String siteId, List<String> commitIds);
+
     /**
      * Update gitlog table with commit ids from repository
      * @param siteId site identifier
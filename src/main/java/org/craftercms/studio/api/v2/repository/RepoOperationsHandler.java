@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.repository;
+
+import org.craftercms.studio.api.v2.dal.RepoOperation;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives the operations streamed by {@link ContentRepository#streamOperationsFromDelta}
+ */
+public interface RepoOperationsHandler {
+
+    /**
+     * Process a batch of operations
+     * @param operations the operations in the batch
+     * @throws IOException if there is any error processing the operations
+     */
+    void processBatch(List<RepoOperation> operations) throws IOException;
+
+    /**
+     * Called once all the operations up to the given commit have been processed
+     * @param commitId the id of the last commit processed
+     */
+    void checkpoint(String commitId);
+
+}
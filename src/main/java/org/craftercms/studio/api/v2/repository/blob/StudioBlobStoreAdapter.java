@@ -24,6 +24,7 @@ import org.craftercms.studio.api.v1.to.VersionTO;
 import org.craftercms.studio.api.v2.dal.GitLog;
 import org.craftercms.studio.api.v2.dal.PublishingHistoryItem;
 import org.craftercms.studio.api.v2.dal.RepoOperation;
+import org.craftercms.studio.api.v2.repository.RepoOperationsHandler;
 import org.craftercms.studio.model.rest.content.DetailedItem;
 
 import java.io.InputStream;
@@ -49,6 +50,18 @@ public interface StudioBlobStoreAdapter extends StudioBlobStore {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    default String getContentId(String site, String path) {
+        // This should be handled by the local repository
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    default InputStream getContentById(String site, String contentId) {
+        // This should be handled by the local repository
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     default VersionTO[] getContentVersionHistory(String site, String path) {
         // This should be handled by the local repository
@@ -270,6 +283,19 @@ public interface StudioBlobStoreAdapter extends StudioBlobStore {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    default void streamOperationsFromDelta(String site, String commitIdFrom, String commitIdTo, int batchSize,
+                                           int checkpointInterval, RepoOperationsHandler handler) {
+        // This should be handled by the local repository
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    default Map<String, List<RepoOperation>> getOperationsFromCommits(String site, List<String> commitIds) {
+        // This should be handled by the local repository
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     default GitLog getGitLog(String siteId, String commitId) {
         // This should be handled by the local repository
@@ -326,6 +352,12 @@ public interface StudioBlobStoreAdapter extends StudioBlobStore {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    default void markGitLogAuditedBulk(String siteId, List<String> commitIds) {
+        // This should be handled by the local repository
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     default void updateGitlog(String siteId, String lastProcessedCommitId, int batchSize) throws SiteNotFoundException {
         // This should be handled by the local repository
@@ -19,6 +19,9 @@ package org.craftercms.studio.api.v2.security;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface AvailableActionsResolver {
 
     /**
@@ -30,4 +33,14 @@ public interface AvailableActionsResolver {
      */
     long getContentItemAvailableActions(String username, String siteId, String path)
             throws ServiceLayerException, UserNotFoundException;
+
+    /**
+     * Get content item available actions for given site and paths, the user groups and roles are resolved only once
+     * @param username username of user to validate permissions
+     * @param siteId site identifier
+     * @param paths paths of the content
+     * @return bitmap representing available actions for each path
+     */
+    Map<String, Long> getContentItemAvailableActions(String username, String siteId, Collection<String> paths)
+            throws ServiceLayerException, UserNotFoundException;
 }
@@ -21,6 +21,8 @@ import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v2.dal.Item;
 import org.craftercms.studio.model.rest.content.DetailedItem;
 
+import java.util.List;
+
 public interface SemanticsAvailableActionsResolver {
 
     /**
@@ -33,6 +35,17 @@ public interface SemanticsAvailableActionsResolver {
     long calculateContentItemAvailableActions(String username, String siteId, Item item)
             throws ServiceLayerException, UserNotFoundException;
 
+    /**
+     * Calculate available actions for several content items at once, the user permissions are resolved once for
+     * all the items
+     * @param username user name to apply permissions
+     * @param siteId site identifier
+     * @param items list of items
+     * @return bitmaps representing available actions, in the same order as the items
+     */
+    long[] calculateContentItemAvailableActions(String username, String siteId, List<Item> items)
+            throws ServiceLayerException, UserNotFoundException;
+
     /**
      * Calculate available actions for given content item
      * @param username user name to apply permissions
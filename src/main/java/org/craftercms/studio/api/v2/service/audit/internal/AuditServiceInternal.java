@@ -126,6 +126,13 @@ public interface AuditServiceInternal {
      */
     boolean insertAuditLog(AuditLog auditLog);
 
+    /**
+     * Insert multiple log audit entries using multi-row inserts, the entries can't have parameters
+     *
+     * @param auditLogs Audit logs to insert
+     */
+    void insertAuditLogs(List<AuditLog> auditLogs);
+
     /**
      * Create Audit log entry and populate common properties
      *
@@ -112,6 +112,26 @@ public interface ContentService {
                                         List<String> excludes, String sortStrategy, String order, int offset, int limit)
             throws ServiceLayerException, UserNotFoundException, ContentNotFoundException;
 
+    /**
+     * Get a page of children for given path using keyset pagination
+     *
+     * @param siteId site identifier
+     * @param path item path to children for
+     * @param locale filter children by locale
+     * @param keyword filter children by keyword
+     * @param excludes exclude items by regular expression patterns
+     * @param sortStrategy sort order
+     * @param order ascending or descending
+     * @param cursor token returned by the previous page, empty for the first page
+     * @param approximateTotal if true the total is only computed for the first page
+     * @param limit number of children to return
+     * @return list of children, including the cursor for the next page
+     */
+    GetChildrenResult getChildrenByPath(String siteId, String path, String locale, String keyword,
+                                        List<String> excludes, String sortStrategy, String order, String cursor,
+                                        boolean approximateTotal, int limit)
+            throws ServiceLayerException, UserNotFoundException, ContentNotFoundException;
+
     /**
      * Get list of children for given item id
      *
@@ -130,6 +150,26 @@ public interface ContentService {
                                       String sortStrategy, String order, int offset, int limit)
             throws ServiceLayerException, UserNotFoundException;
 
+    /**
+     * Get a page of children for given item id using keyset pagination
+     *
+     * @param siteId site identifier
+     * @param id item id to get children for
+     * @param locale filter children by locale
+     * @param keyword filter children by keyword
+     * @param excludes exclude items by regular expression patterns
+     * @param sortStrategy sort order
+     * @param order ascending or descending
+     * @param cursor token returned by the previous page, empty for the first page
+     * @param approximateTotal if true the total is only computed for the first page
+     * @param limit number of children to return
+     * @return list of children, including the cursor for the next page
+     */
+    GetChildrenResult getChildrenById(String siteId, String id, String locale, String keyword, List<String> excludes,
+                                      String sortStrategy, String order, String cursor, boolean approximateTotal,
+                                      int limit)
+            throws ServiceLayerException, UserNotFoundException;
+
 
     Item getItem(String siteId, String path, boolean flatten);
 
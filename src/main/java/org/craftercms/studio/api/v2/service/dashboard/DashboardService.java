@@ -17,6 +17,8 @@
 package org.craftercms.studio.api.v2.service.dashboard;
 
 import org.craftercms.studio.api.v2.dal.AuditLog;
+import org.craftercms.studio.api.v2.dal.ItemPage;
+import org.craftercms.studio.api.v2.exception.InvalidParametersException;
 import org.craftercms.studio.model.rest.dashboard.ContentDashboardItem;
 import org.craftercms.studio.model.rest.dashboard.PublishingDashboardItem;
 
@@ -96,6 +98,29 @@ public interface DashboardService {
                                                    long state, ZonedDateTime dateFrom, ZonedDateTime dateTo,
                                                    String sortBy, String order, int offset, int limit);
 
+    /**
+     * Get a page of the content dashboard sorted by last modified date using keyset pagination
+     *
+     * @param siteId site identifier
+     * @param path path regular expression to apply as filter
+     * @param modifier filter by user (modifier)
+     * @param contentType filter by content type
+     * @param state filter by state
+     * @param dateFrom lower boundary for modified date
+     * @param dateTo upper boundary for modified date
+     * @param order order results
+     * @param cursor token returned by the previous page, empty for the first page
+     * @param approximateTotal if true the total is only computed for the first page
+     * @param limit number of records to return as result set
+     * @return page of items for content dashboard
+     * @throws InvalidParametersException if the cursor is not valid
+     */
+    ItemPage<ContentDashboardItem> getContentDashboard(String siteId, String path, String modifier,
+                                                       String contentType, long state, ZonedDateTime dateFrom,
+                                                       ZonedDateTime dateTo, String order, String cursor,
+                                                       boolean approximateTotal, int limit)
+            throws InvalidParametersException;
+
     /**
      * Get total number of publishing history items for given search parameters
      *
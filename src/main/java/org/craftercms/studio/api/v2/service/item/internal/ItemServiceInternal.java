@@ -19,7 +19,9 @@ package org.craftercms.studio.api.v2.service.item.internal;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v2.dal.Item;
+import org.craftercms.studio.api.v2.dal.ItemPage;
 import org.craftercms.studio.api.v2.dal.PublishingHistoryItem;
+import org.craftercms.studio.api.v2.exception.InvalidParametersException;
 import org.craftercms.studio.model.rest.dashboard.ContentDashboardItem;
 import org.craftercms.studio.model.rest.dashboard.PublishingDashboardItem;
 
@@ -51,6 +53,13 @@ public interface ItemServiceInternal {
      */
     void updateParentIds(String siteId, String rootPath);
 
+    /**
+     * Update parent ids for the items with the given paths
+     * @param siteId site identifier
+     * @param paths list of paths
+     */
+    void updateParentIds(String siteId, List<String> paths);
+
     /**
      * Get item by given id
      * @param id item id
@@ -308,6 +317,29 @@ public interface ItemServiceInternal {
                                                    long state, ZonedDateTime dateFrom, ZonedDateTime dateTo,
                                                    String sortBy, String order, int offset, int limit);
 
+    /**
+     * Get a page of the content dashboard sorted by last modified date using keyset pagination
+     *
+     * @param siteId site identifier
+     * @param path path regular expression to apply as filter for result set
+     * @param modifier filter results by user
+     * @param contentType filter results by content type
+     * @param state filter results by state
+     * @param dateFrom lower boundary for modified date
+     * @param dateTo upper boundary for modified date
+     * @param order order of results
+     * @param cursor token returned by the previous page, empty for the first page
+     * @param approximateTotal if true the total is only computed for the first page and carried in the cursor
+     * @param limit number of records to return
+     * @return page of item metadata records
+     * @throws InvalidParametersException if the cursor is not valid
+     */
+    ItemPage<ContentDashboardItem> getContentDashboard(String siteId, String path, String modifier,
+                                                       String contentType, long state, ZonedDateTime dateFrom,
+                                                       ZonedDateTime dateTo, String order, String cursor,
+                                                       boolean approximateTotal, int limit)
+            throws InvalidParametersException;
+
     /**
      * Get browser url for given repository item
      * @param site site identifier
@@ -19,7 +19,9 @@ package org.craftercms.studio.api.v2.service.security;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 public interface SecurityService {
@@ -34,6 +36,16 @@ public interface SecurityService {
     long getAvailableActions(String username, String site, String path)
             throws ServiceLayerException, UserNotFoundException;
 
+    /**
+     * Get available actions for given user over several contents from site
+     * @param username user to get allowed actions for
+     * @param site site identifier
+     * @param paths paths of the contents/objects
+     * @return bitmap representing available actions for each path
+     */
+    Map<String, Long> getAvailableActions(String username, String site, Collection<String> paths)
+            throws ServiceLayerException, UserNotFoundException;
+
     /**
      * Get user permissions for given site
      * @param username user
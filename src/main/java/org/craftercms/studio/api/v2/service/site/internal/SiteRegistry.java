@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.service.site.internal;
+
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+
+/**
+ * In memory registry of the sites, used to resolve a site id into its database record without a query for every
+ * request.
+ *
+ * <p>The identity of the sites (database id, uuid, name and sandbox branch) is always accurate, other values like
+ * the state can be stale if they were changed in a different cluster node. Values that change constantly, like the
+ * publishing status or lock, should always be read using the site service.</p>
+ *
+ * @since 4.0.0
+ */
+public interface SiteRegistry {
+
+    /**
+     * Get the record of a site. The returned object is shared and should not be modified.
+     *
+     * @param siteId site identifier
+     * @return the site record or null if the site doesn't exist
+     */
+    SiteFeed getSite(String siteId);
+
+    /**
+     * Discard the cached record of a site, this must be called every time the site is created, deleted or updated
+     *
+     * @param siteId site identifier
+     */
+    void invalidate(String siteId);
+
+    /**
+     * Discard all the cached records
+     */
+    void invalidateAll();
+
+}
@@ -151,6 +151,7 @@ public class GitRepositoryHelper {
     private UserServiceInternal userServiceInternal;
     private GeneralLockService generalLockService;
     private RetryingRepositoryOperationFacade retryingRepositoryOperationFacade;
+    private GitTreeCache treeCache;
 
     private Map<String, Repository> sandboxes = new HashMap<>();
     private Map<String, Repository> published = new HashMap<>();
@@ -433,27 +434,22 @@ public class GitRepositoryHelper {
 
     public RevTree getTreeForCommit(Repository repository, String commitId) throws IOException {
         ObjectId commitObjectId = repository.resolve(commitId);
-
-        try (RevWalk revWalk = new RevWalk(repository)) {
-            RevCommit commit = revWalk.parseCommit(commitObjectId);
-
-            // and using commit's tree find the path
-            RevTree tree = commit.getTree();
-            return tree;
-        }
+        return treeCache.getTree(repository, commitObjectId);
     }
 
     public RevTree getTreeForLastCommit(Repository repository) throws IOException {
-        ObjectId lastCommitId = repository.resolve(HEAD);
-
-        // a RevWalk allows to walk over commits based on some filtering
-        try (RevWalk revWalk = new RevWalk(repository)) {
-            RevCommit commit = revWalk.parseCommit(lastCommitId);
+        return treeCache.getHeadTree(repository);
+    }
 
-            // and using commit's tree find the path
-            RevTree tree = commit.getTree();
-            return tree;
-        }
+    /**
+     * Finds the object for the given path in the last commit of the repository
+     * @param repository the repository
+     * @param path the path of the item
+     * @return the id of the object or null if the path doesn't exist
+     * @throws IOException if the tree can't be read
+     */
+    public ObjectId getObjectIdForLastCommit(Repository repository, String path) throws IOException {
+        return treeCache.getObjectId(repository, getGitPath(path));
     }
 
     public List<String> getFilesInCommit(Repository repository, RevCommit commit) {
@@ -1264,4 +1260,12 @@ public class GitRepositoryHelper {
     public void setRetryingRepositoryOperationFacade(RetryingRepositoryOperationFacade retryingRepositoryOperationFacade) {
         this.retryingRepositoryOperationFacade = retryingRepositoryOperationFacade;
     }
+
+    public GitTreeCache getTreeCache() {
+        return treeCache;
+    }
+
+    public void setTreeCache(GitTreeCache treeCache) {
+        this.treeCache = treeCache;
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.IOException;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_TREE_CACHE_MAX_COMMITS;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_TREE_CACHE_MAX_PATHS;
+import static org.eclipse.jgit.lib.Constants.HEAD;
+
+/**
+ * Memoizes the trees of parsed commits and the path lookups done against the HEAD of each repository, so repeated
+ * reads for the same commit don't need to parse the commit or walk the tree again.
+ *
+ * <p>Path lookups are kept per repository only for the current HEAD, they are discarded as soon as HEAD moves.
+ * Commit trees are keyed by commit id which makes them valid for any repository containing that commit.</p>
+ */
+public class GitTreeCache {
+
+    /**
+     * Marker for paths that don't exist in the tree
+     */
+    protected static final ObjectId MISSING = ObjectId.zeroId();
+
+    protected StudioConfiguration studioConfiguration;
+
+    /**
+     * Snapshot of the HEAD of each repository, weak keys so closed repositories can be collected
+     */
+    protected Cache<Repository, HeadSnapshot> heads;
+
+    /**
+     * Trees of already parsed commits
+     */
+    protected Cache<ObjectId, RevTree> commitTrees;
+
+    protected int maxPaths;
+
+    public void init() {
+        maxPaths = studioConfiguration.getProperty(REPO_TREE_CACHE_MAX_PATHS, Integer.class);
+        heads = CacheBuilder.newBuilder().weakKeys().build();
+        commitTrees = CacheBuilder.newBuilder()
+                .maximumSize(studioConfiguration.getProperty(REPO_TREE_CACHE_MAX_COMMITS, Integer.class))
+                .build();
+    }
+
+    /**
+     * Returns the tree for the given commit
+     * @param repository the repository
+     * @param commitId the id of the commit
+     * @return the tree of the commit
+     * @throws IOException if the commit can't be parsed
+     */
+    public RevTree getTree(Repository repository, ObjectId commitId) throws IOException {
+        RevTree tree = commitTrees.getIfPresent(commitId);
+        if (tree == null) {
+            try (RevWalk revWalk = new RevWalk(repository)) {
+                RevCommit commit = revWalk.parseCommit(commitId);
+                tree = commit.getTree();
+            }
+            commitTrees.put(commitId.copy(), tree);
+        }
+        return tree;
+    }
+
+    /**
+     * Returns the tree for the current HEAD of the repository
+     * @param repository the repository
+     * @return the tree or null if the repository has no commits
+     * @throws IOException if HEAD can't be resolved
+     */
+    public RevTree getHeadTree(Repository repository) throws IOException {
+        HeadSnapshot snapshot = getHeadSnapshot(repository);
+        return snapshot == null ? null : snapshot.tree;
+    }
+
+    /**
+     * Finds the id of the object at the given path in the current HEAD of the repository
+     * @param repository the repository
+     * @param gitPath the path relative to the root of the repository
+     * @return the object id or null if the path doesn't exist
+     * @throws IOException if HEAD can't be resolved or the tree can't be read
+     */
+    public ObjectId getObjectId(Repository repository, String gitPath) throws IOException {
+        HeadSnapshot snapshot = getHeadSnapshot(repository);
+        if (snapshot == null) {
+            return null;
+        }
+        ObjectId objectId = snapshot.paths.getIfPresent(gitPath);
+        if (objectId == null) {
+            try (TreeWalk tw = TreeWalk.forPath(repository, gitPath, snapshot.tree)) {
+                objectId = tw != null && tw.getObjectId(0) != null ? tw.getObjectId(0) : MISSING;
+            }
+            snapshot.paths.put(gitPath, objectId);
+        }
+        return MISSING.equals(objectId) ? null : objectId;
+    }
+
+    /**
+     * Returns the snapshot for the current HEAD, replacing the cached one if HEAD has moved
+     */
+    protected HeadSnapshot getHeadSnapshot(Repository repository) throws IOException {
+        ObjectId headId = repository.resolve(HEAD);
+        if (headId == null) {
+            return null;
+        }
+        HeadSnapshot snapshot = heads.getIfPresent(repository);
+        if (snapshot == null || !snapshot.commitId.equals(headId)) {
+            snapshot = new HeadSnapshot(headId, getTree(repository, headId), maxPaths);
+            heads.put(repository, snapshot);
+        }
+        return snapshot;
+    }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    protected static class HeadSnapshot {
+
+        protected final ObjectId commitId;
+        protected final RevTree tree;
+        protected final Cache<String, ObjectId> paths;
+
+        protected HeadSnapshot(ObjectId commitId, RevTree tree, int maxPaths) {
+            this.commitId = commitId.copy();
+            this.tree = tree;
+            this.paths = CacheBuilder.newBuilder().maximumSize(maxPaths).build();
+        }
+
+    }
+
+}
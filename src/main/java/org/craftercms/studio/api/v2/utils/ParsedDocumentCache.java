@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.io.IOUtils;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.dom4j.Document;
+import org.dom4j.DocumentException;
+import org.dom4j.io.SAXReader;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_DOCUMENT_CACHE_MAX_DOCUMENT_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_DOCUMENT_CACHE_MAX_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_DOCUMENT_CACHE_READER_POOL_SIZE;
+
+/**
+ * Memoizes the XML documents parsed from the repositories, keyed by the id of the git object that holds the content.
+ * The id changes every time the content changes, so entries never need to be invalidated and can be shared across
+ * commits and repositories.
+ *
+ * <p>Cached documents are never handed to callers, each call returns its own copy so callers are free to modify it.
+ * Copying a document is still much cheaper than reading and parsing the file again. Files bigger than the configured
+ * limit are parsed every time.</p>
+ *
+ * <p>Documents are parsed using a pool of readers configured to reject doctype declarations and external
+ * entities.</p>
+ */
+public class ParsedDocumentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParsedDocumentCache.class);
+
+    protected StudioConfiguration studioConfiguration;
+
+    /**
+     * Parsed documents, weighted by the size of the original file
+     */
+    protected Cache<String, CachedDocument> documents;
+
+    /**
+     * Idle readers available for reuse, {@link SAXReader} is not thread safe so each one is used by a single thread
+     * at a time
+     */
+    protected BlockingQueue<SAXReader> readers;
+
+    protected int maxDocumentSize;
+
+    protected final LongAdder hits = new LongAdder();
+    protected final LongAdder misses = new LongAdder();
+
+    public void init() {
+        maxDocumentSize = studioConfiguration.getProperty(REPO_DOCUMENT_CACHE_MAX_DOCUMENT_SIZE, Integer.class);
+        readers = new ArrayBlockingQueue<>(
+                studioConfiguration.getProperty(REPO_DOCUMENT_CACHE_READER_POOL_SIZE, Integer.class));
+        documents = CacheBuilder.newBuilder()
+                .maximumWeight(studioConfiguration.getProperty(REPO_DOCUMENT_CACHE_MAX_SIZE, Long.class))
+                .weigher((String id, CachedDocument document) -> document.size)
+                .build();
+    }
+
+    /**
+     * Returns the parsed document for the given content, the content is only read if the document is not cached
+     * @param contentId the id of the object holding the content, if null the document is parsed but not cached
+     * @param content supplies the stream of the content, it can return null if the content doesn't exist
+     * @return a copy of the document owned by the caller or null if the content doesn't exist
+     * @throws DocumentException if the content can't be read or parsed
+     */
+    public Document getDocument(String contentId, Supplier<InputStream> content) throws DocumentException {
+        if (contentId == null) {
+            try (InputStream is = content.get()) {
+                return is != null ? parse(is) : null;
+            } catch (IOException e) {
+                throw new DocumentException("Error closing content stream", e);
+            }
+        }
+
+        CachedDocument cached = documents.getIfPresent(contentId);
+        if (cached != null) {
+            hits.increment();
+            return (Document) cached.document.clone();
+        }
+
+        misses.increment();
+        byte[] bytes;
+        try (InputStream is = content.get()) {
+            if (is == null) {
+                return null;
+            }
+            bytes = IOUtils.toByteArray(is);
+        } catch (IOException e) {
+            throw new DocumentException("Error reading content " + contentId, e);
+        }
+        Document document = parse(new ByteArrayInputStream(bytes));
+        if (bytes.length <= maxDocumentSize) {
+            documents.put(contentId, new CachedDocument(document, bytes.length));
+            return (Document) document.clone();
+        } else {
+            logger.debug("Content {0} is too big to be cached ({1} bytes)", contentId, bytes.length);
+        }
+        return document;
+    }
+
+    /**
+     * Parses the given stream using one of the pooled readers, the document is not cached
+     * @param is the stream to parse, it is not closed
+     * @return the parsed document
+     * @throws DocumentException if the content can't be parsed
+     */
+    public Document parse(InputStream is) throws DocumentException {
+        SAXReader reader = readers.poll();
+        if (reader == null) {
+            reader = createReader();
+        }
+        Document document = reader.read(is);
+        // Readers are only reused after a successful parse so they are never left in an unknown state
+        readers.offer(reader);
+        return document;
+    }
+
+    protected SAXReader createReader() {
+        SAXReader reader = new SAXReader();
+        try {
+            reader.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            reader.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            reader.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        } catch (SAXException e) {
+            logger.error("Unable to turn off external entity loading, this could be a security risk.", e);
+        }
+        return reader;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getSize() {
+        return documents.size();
+    }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    protected static class CachedDocument {
+
+        protected final Document document;
+        protected final int size;
+
+        protected CachedDocument(Document document, int size) {
+            this.document = document;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -70,9 +70,6 @@ public final class SqlStatementGeneratorUtils {
                     "UPDATE item SET parent_id = @parentId WHERE id = @itemId ;\n\nSET @itemId = NULL ;\n\n" +
                     "SET @parentId = NULL ;" ;
 
-    public static final String ITEM_UPDATE_PARENT_ID_SIMPLE =
-            "UPDATE item SET parent_id = #{parentId} WHERE id = #{itemId} ;" ;
-
     public static final String DEPENDENCIES_INSERT =
             "INSERT INTO dependency (site, source_path, target_path, type) " +
                     "VALUES ('#{site}', '#{sourcePath}', '#{targetPath}', '#{type}') ;";
@@ -194,12 +191,6 @@ public final class SqlStatementGeneratorUtils {
         return sql;
     }
 
-    public static String updateParentIdSimple(long parentId, long itemId) {
-        String sql = StringUtils.replace(ITEM_UPDATE_PARENT_ID_SIMPLE, "#{parentId}", Long.toString(parentId));
-        sql = StringUtils.replace(sql,"#{itemId}", Long.toString(itemId));
-        return sql;
-    }
-
     public static String insertDependencyRow(String siteId, String sourcePath, String targetPath, String type) {
         String sql = StringUtils.replace(DEPENDENCIES_INSERT, "#{site}", StringUtils.replace(siteId, "'", "''"));
         sql = StringUtils.replace(sql, "#{sourcePath}", StringUtils.replace(sourcePath, "'", "''"));
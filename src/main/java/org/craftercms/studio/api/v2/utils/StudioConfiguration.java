@@ -45,6 +45,8 @@ public interface StudioConfiguration {
     String REPO_PUBLISHED_LIVE = "studio.repo.published.live";
     String REPO_PUBLISHED_STAGING = "studio.repo.published.staging";
     String REPO_SYNC_DB_COMMIT_MESSAGE_NO_PROCESSING = "studio.repo.syncDB.commitMessage.noProcessing";
+    String REPO_SYNC_DB_BATCH_SIZE = "studio.repo.syncDB.batchSize";
+    String REPO_SYNC_DB_CHECKPOINT_INTERVAL = "studio.repo.syncDB.checkpointInterval";
     String REPO_CLEANUP_CRON = "studio.repo.cleanup.cron";
     String REPO_CREATE_REPOSITORY_COMMIT_MESSAGE = "studio.repo.createRepository.commitMessage";
     String REPO_CREATE_SANDBOX_BRANCH_COMMIT_MESSAGE = "studio.repo.createSandboxBranch.commitMessage";
@@ -60,6 +62,35 @@ public interface StudioConfiguration {
     String REPO_DEFAULT_IGNORE_FILE = "studio.repo.defaultIgnoreFile";
     String REPO_RETRYING_OPERATION_MAX_ATTEMPTS = "studio.repo.retryingOperation.maxAttempts";
     String REPO_RETRYING_OPERATION_MAX_SLEEP = "studio.repo.retryingOperation.maxSleep";
+    String REPO_RETRYING_OPERATION_BASE_SLEEP = "studio.repo.retryingOperation.baseSleep";
+    String REPO_RETRYING_OPERATION_MAX_RETRY_TIME = "studio.repo.retryingOperation.maxRetryTime";
+    String REPO_RETRYING_OPERATION_CIRCUIT_BREAKER_THRESHOLD =
+            "studio.repo.retryingOperation.circuitBreaker.threshold";
+    String REPO_RETRYING_OPERATION_CIRCUIT_BREAKER_WINDOW = "studio.repo.retryingOperation.circuitBreaker.window";
+    String REPO_RETRYING_OPERATION_CIRCUIT_BREAKER_COOLDOWN =
+            "studio.repo.retryingOperation.circuitBreaker.cooldown";
+    String REPO_SANDBOX_GROUP_COMMIT_ENABLED = "studio.repo.sandbox.groupCommit.enabled";
+    String REPO_SANDBOX_GROUP_COMMIT_WINDOW = "studio.repo.sandbox.groupCommit.window";
+    String REPO_SANDBOX_GROUP_COMMIT_MAX_ITEMS = "studio.repo.sandbox.groupCommit.maxItems";
+    String REPO_TREE_CACHE_MAX_PATHS = "studio.repo.treeCache.maxPaths";
+    String REPO_TREE_CACHE_MAX_COMMITS = "studio.repo.treeCache.maxCommits";
+    String REPO_DOCUMENT_CACHE_MAX_SIZE = "studio.repo.documentCache.maxSize";
+    String REPO_DOCUMENT_CACHE_MAX_DOCUMENT_SIZE = "studio.repo.documentCache.maxDocumentSize";
+    String REPO_DOCUMENT_CACHE_READER_POOL_SIZE = "studio.repo.documentCache.readerPoolSize";
+
+    /** Blob Store */
+    String BLOB_CACHE_ENABLED = "studio.blob.cache.enabled";
+    String BLOB_CACHE_PATH = "studio.blob.cache.path";
+    String BLOB_CACHE_MAX_SIZE = "studio.blob.cache.maxSize";
+    String BLOB_CACHE_METADATA_MAX_ENTRIES = "studio.blob.cache.metadata.maxEntries";
+    String BLOB_CACHE_METADATA_TTL = "studio.blob.cache.metadata.ttl";
+    String BLOB_PROMOTION_POOL_SIZE = "studio.blob.promotion.poolSize";
+    String BLOB_PROMOTION_MULTIPART_THRESHOLD = "studio.blob.promotion.multipartThreshold";
+    String BLOB_PROMOTION_PART_SIZE = "studio.blob.promotion.partSize";
+    String BLOB_PROMOTION_MAX_RETRIES = "studio.blob.promotion.maxRetries";
+    String BLOB_PROMOTION_RETRY_DELAY = "studio.blob.promotion.retryDelay";
+    String BLOB_PROMOTION_STATUS_INTERVAL = "studio.blob.promotion.status.interval";
+    String BLOB_PROMOTION_STATUS_MESSAGE = "studio.blob.promotion.status.message";
 
     /** Database */
     String DB_DRIVER = "studio.db.driver";
@@ -86,8 +117,20 @@ public interface StudioConfiguration {
     String DB_SOCKET = "studio.db.socket";
     String DB_RETRYING_OPERATION_MAX_ATTEMPTS = "studio.db.retryingOperation.maxAttempts";
     String DB_RETRYING_OPERATION_MAX_SLEEP = "studio.db.retryingOperation.maxSleep";
+    String DB_RETRYING_OPERATION_BASE_SLEEP = "studio.db.retryingOperation.baseSleep";
+    String DB_RETRYING_OPERATION_MAX_RETRY_TIME = "studio.db.retryingOperation.maxRetryTime";
+    String DB_RETRYING_OPERATION_CIRCUIT_BREAKER_THRESHOLD =
+            "studio.db.retryingOperation.circuitBreaker.threshold";
+    String DB_RETRYING_OPERATION_CIRCUIT_BREAKER_WINDOW = "studio.db.retryingOperation.circuitBreaker.window";
+    String DB_RETRYING_OPERATION_CIRCUIT_BREAKER_COOLDOWN =
+            "studio.db.retryingOperation.circuitBreaker.cooldown";
     String DB_SCRIPT_RUNNER_BUFFER_SIZE = "studio.db.scriptRunner.bufferSize";
     String DB_BULK_OPERATIONS_BATCH_SIZE = "studio.db.bulkOperations.batchSize";
+    String DB_PARENT_IDS_PAGE_SIZE = "studio.db.parentIds.pageSize";
+
+    /** Site Registry */
+    String SITE_REGISTRY_MAX_SIZE = "studio.site.registry.maxSize";
+    String SITE_REGISTRY_TTL = "studio.site.registry.ttl";
 
 
     /** Configuration */
@@ -126,6 +169,8 @@ public interface StudioConfiguration {
     String CONFIGURATION_SITE_WEBDAV_CONFIGURATION_MODULE = "studio.configuration.site.webdav.configurationModule";
     String CONFIGURATION_SITE_WEBDAV_CONFIGURATION_PATH = "studio.configuration.site.webdav.configurationPath";
     String CONFIGURATION_DEPENDENCY_ITEM_SPECIFIC_PATTERNS = "studio.configuration.dependency.itemSpecificPatterns";
+    String DEPENDENCY_INDEX_ENABLED = "studio.dependency.index.enabled";
+    String DEPENDENCY_INDEX_MAX_AGE = "studio.dependency.index.maxAge";
     String CONFIGURATION_SITE_ASSET_PROCESSING_CONFIGURATION_PATH =
             "studio.configuration.site.asset.processing.configurationPath";
 
@@ -149,6 +194,7 @@ public interface StudioConfiguration {
     /** Notification Service */
     String NOTIFICATION_CONFIGURATION_FILE = "studio.notification.configurationFile";
     String NOTIFICATION_TIMEZONE = "studio.notification.timezone";
+    String NOTIFICATION_RENDER_QUEUE_CAPACITY = "studio.notification.render.queueCapacity";
 
     /** Workflow Service */
     String WORKFLOW_PUBLISHING_WITHOUT_DEPENDENCIES_ENABLED = "studio.workflow.publishingWithoutDependencies.enabled";
@@ -173,6 +219,7 @@ public interface StudioConfiguration {
     String SECURITY_RESET_PASSWORD_SERVICE_URL = "studio.security.resetPassword.serviceUrl";
     String SECURITY_PASSWORD_REQUIREMENTS_VALIDATION_REGEX = "studio.security.passwordRequirements.validationRegex";
     String SECURITY_SET_PASSWORD_DELAY = "studio.security.setPasswordDelay";
+    String SECURITY_PERMISSIONS_CACHE_MAX_SIZE = "studio.security.permissions.cache.maxSize";
 
     /** Authentication headers **/
     String AUTHENTICATION_HEADERS_LOGOUT_ENABLED = "studio.authentication.headers.logout.enabled";
@@ -183,6 +230,7 @@ public interface StudioConfiguration {
     /** Content Processors */
     String CONTENT_PROCESSOR_CONTENT_LIFE_CYCLE_SCRIPT_LOCATION =
             "studio.contentProcessor.contentLifeCycle.scriptLocation";
+    String CONTENT_PROCESSOR_METRICS_ENABLED = "studio.contentProcessor.metrics.enabled";
 
     /** Email Service */
     String MAIL_FROM_DEFAULT = "studio.mail.from.default";
@@ -217,6 +265,11 @@ public interface StudioConfiguration {
     String CONTENT_TYPES_FILTER_COMPONENTS_INCLUDE_PATTERN = "studio.contentTypes.filter.components.includePattern";
     String CONTENT_TYPES_FILTER_DOCUMENTS_INCLUDE_PATTERN = "studio.contentTypes.filter.documents.includePattern";
 
+    /** Event Bus */
+    String EVENT_BUS_ASYNC_EVENTS = "studio.eventBus.async.events";
+    String EVENT_BUS_ASYNC_LANES = "studio.eventBus.async.lanes";
+    String EVENT_BUS_ASYNC_QUEUE_CAPACITY = "studio.eventBus.async.queueCapacity";
+
     /** Preview Deployer **/
     String PREVIEW_DEFAULT_PREVIEW_DEPLOYER_URL = "studio.preview.defaultPreviewDeployerUrl";
     String PREVIEW_DEFAULT_CREATE_TARGET_URL = "studio.preview.createTargetUrl";
@@ -225,6 +278,9 @@ public interface StudioConfiguration {
     String PREVIEW_DISABLE_DEPLOY_CRON = "studio.preview.disableDeployCron";
     String PREVIEW_TEMPLATE_NAME = "studio.preview.templateName";
     String PREVIEW_REPO_URL = "studio.preview.repoUrl";
+    String PREVIEW_SYNC_WINDOW = "studio.preview.sync.window";
+    String PREVIEW_SYNC_POOL_SIZE = "studio.preview.sync.poolSize";
+    String PREVIEW_SYNC_QUEUE_CAPACITY = "studio.preview.sync.queueCapacity";
 
     /** Authoring Deployer **/
     String AUTHORING_REPLACE = "studio.authoring.replace";
@@ -326,6 +382,7 @@ public interface StudioConfiguration {
     String CLOCK_JOB_TASK_EXECUTOR_CORE_POOL_SIZE = "studio.clockJob.taskExecutor.corePoolSize";
     String CLOCK_JOB_TASK_EXECUTOR_MAX_POOL_SIZE = "studio.clockJob.taskExecutor.maxPoolSize";
     String CLOCK_JOB_TASK_EXECUTOR_QUEUE_CAPACITY = "studio.clockJob.taskExecutor.queueCapacity";
+    String CLOCK_JOB_SCHEDULER_MAX_WORKERS = "studio.clockJob.scheduler.maxWorkers";
     String CLOCK_JOB_TASK_CLUSTER_RANDOM_OFFSET =
             "studio.clockJob.task.cluster.randomOffset";
     String CLOCK_JOB_TASK_CLUSTER_GLOBAL_REPO_SYNC_EXECUTE_EVERY_N_CYCLES =
@@ -342,10 +399,16 @@ public interface StudioConfiguration {
             "studio.clockJob.task.auditLogProcessing.executeEveryNCycles";
     String CLOCK_JOB_TASK_PUBLISHER_MAX_RETRY_COUNT =
             "studio.clockJob.task.publisher.maxRetryCount";
+    String CLOCK_JOB_TASK_PUBLISHER_MAX_CONCURRENT_ENVIRONMENTS =
+            "studio.clockJob.task.publisher.maxConcurrentEnvironments";
+    String CLOCK_JOB_TASK_PUBLISHER_EXECUTOR_POOL_SIZE =
+            "studio.clockJob.task.publisher.taskExecutor.poolSize";
     String CLOCK_JOB_TASK_AUDIT_LOG_PROCESSING_BATCH_SIZE_GITLOG =
             "studio.clockJob.task.auditLogProcessing.batchSizeGitLog";
     String CLOCK_JOB_TASK_AUDIT_LOG_PROCESSING_BATCH_SIZE_AUDITED =
             "studio.clockJob.task.auditLogProcessing.batchSizeAudited";
+    String CLOCK_JOB_TASK_AUDIT_LOG_PROCESSING_MAX_BATCHES =
+            "studio.clockJob.task.auditLogProcessing.maxBatches";
 
     String PLUGIN_BASE_PATTERN = "studio.configuration.plugin.base.pattern";
 
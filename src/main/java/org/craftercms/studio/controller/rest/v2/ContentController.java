@@ -158,10 +158,18 @@ public class ContentController {
     @PostMapping(value = GET_CHILDREN_BY_PATH, produces = APPLICATION_JSON_VALUE)
     public ResponseBody getChildrenByPath(@RequestBody @Valid GetChildrenByPathRequest request)
             throws ServiceLayerException, UserNotFoundException {
-        GetChildrenResult result = contentService.getChildrenByPath(
-                request.getSiteId(), request.getPath(), request.getLocaleCode(), request.getKeyword(),
-                request.getExcludes(), request.getSortStrategy(), request.getOrder(), request.getOffset(),
-                request.getLimit());
+        GetChildrenResult result;
+        if (request.getCursor() != null) {
+            result = contentService.getChildrenByPath(
+                    request.getSiteId(), request.getPath(), request.getLocaleCode(), request.getKeyword(),
+                    request.getExcludes(), request.getSortStrategy(), request.getOrder(), request.getCursor(),
+                    request.isApproximateTotal(), request.getLimit());
+        } else {
+            result = contentService.getChildrenByPath(
+                    request.getSiteId(), request.getPath(), request.getLocaleCode(), request.getKeyword(),
+                    request.getExcludes(), request.getSortStrategy(), request.getOrder(), request.getOffset(),
+                    request.getLimit());
+        }
         ResponseBody responseBody = new ResponseBody();
         result.setResponse(OK);
         responseBody.setResult(result);
@@ -171,11 +179,18 @@ public class ContentController {
     @PostMapping(value = GET_CHILDREN_BY_ID, produces = APPLICATION_JSON_VALUE)
     public ResponseBody getChildrenById(@RequestBody @Valid GetChildrenByIdRequest request)
             throws ServiceLayerException, UserNotFoundException {
-        GetChildrenResult result =
-                contentService.getChildrenById(
-                        request.getSiteId(), request.getId(), request.getLocaleCode(), request.getKeyword(),
-                        request.getExcludes(), request.getSortStrategy(), request.getOrder(), request.getOffset(),
-                        request.getLimit());
+        GetChildrenResult result;
+        if (request.getCursor() != null) {
+            result = contentService.getChildrenById(
+                    request.getSiteId(), request.getId(), request.getLocaleCode(), request.getKeyword(),
+                    request.getExcludes(), request.getSortStrategy(), request.getOrder(), request.getCursor(),
+                    request.isApproximateTotal(), request.getLimit());
+        } else {
+            result = contentService.getChildrenById(
+                    request.getSiteId(), request.getId(), request.getLocaleCode(), request.getKeyword(),
+                    request.getExcludes(), request.getSortStrategy(), request.getOrder(), request.getOffset(),
+                    request.getLimit());
+        }
         ResponseBody responseBody = new ResponseBody();
         result.setResponse(OK);
         responseBody.setResult(result);
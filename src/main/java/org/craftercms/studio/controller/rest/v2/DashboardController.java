@@ -17,8 +17,12 @@
 package org.craftercms.studio.controller.rest.v2;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v2.dal.AuditLog;
+import org.craftercms.studio.api.v2.dal.ItemPage;
+import org.craftercms.studio.api.v2.exception.InvalidParametersException;
 import org.craftercms.studio.api.v2.service.dashboard.DashboardService;
+import org.craftercms.studio.model.rest.KeysetPaginatedResultList;
 import org.craftercms.studio.model.rest.PaginatedResultList;
 import org.craftercms.studio.model.rest.ResponseBody;
 import org.craftercms.studio.model.rest.dashboard.AuditDashboardItem;
@@ -36,6 +40,7 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.craftercms.studio.api.v2.dal.ItemCursor.SORT_LAST_MODIFIED_ON;
 import static org.craftercms.studio.controller.rest.v2.RequestMappingConstants.API_2;
 import static org.craftercms.studio.controller.rest.v2.RequestMappingConstants.AUDIT_DASHBOARD;
 import static org.craftercms.studio.controller.rest.v2.RequestMappingConstants.CONTENT_DASHBOARD;
@@ -138,7 +143,8 @@ public class DashboardController {
     }
 
     @GetMapping(value = CONTENT_DASHBOARD, produces = APPLICATION_JSON_VALUE)
-    public ResponseBody getContentDashboard(@Valid ContentDashboardRequestParameters requestParameters) {
+    public ResponseBody getContentDashboard(@Valid ContentDashboardRequestParameters requestParameters)
+            throws InvalidParametersException {
         String modifier = null;
         String path = null;
         ZonedDateTime dateFrom = null;
@@ -155,6 +161,28 @@ public class DashboardController {
             state = requestParameters.getFilters().getState();
         }
 
+        if (requestParameters.getCursor() != null) {
+            if (StringUtils.isNotEmpty(requestParameters.getSortBy()) &&
+                    !StringUtils.equals(requestParameters.getSortBy(), SORT_LAST_MODIFIED_ON)) {
+                throw new InvalidParametersException("Sorting by '" + requestParameters.getSortBy() +
+                        "' is not supported with a cursor, only '" + SORT_LAST_MODIFIED_ON + "' is supported");
+            }
+            ItemPage<ContentDashboardItem> page = dashboardService.getContentDashboard(requestParameters.getSiteId(),
+                    path, modifier, contentType, state, dateFrom, dateTo, requestParameters.getOrder(),
+                    requestParameters.getCursor(), requestParameters.isApproximateTotal(),
+                    requestParameters.getLimit());
+
+            ResponseBody responseBody = new ResponseBody();
+            KeysetPaginatedResultList<ContentDashboardItem> result = new KeysetPaginatedResultList<>();
+            result.setTotal(page.getTotal());
+            result.setLimit(CollectionUtils.isEmpty(page.getItems()) ? 0 : page.getItems().size());
+            result.setNextCursor(page.getNextCursor());
+            result.setEntities(RESULT_KEY_ITEMS, page.getItems());
+            result.setResponse(OK);
+            responseBody.setResult(result);
+            return responseBody;
+        }
+
         int total = dashboardService.getContentDashboardTotal(requestParameters.getSiteId(), path, modifier, contentType,
                 state, dateFrom, dateTo);
         List<ContentDashboardItem> contentDashboardItems =
@@ -22,8 +22,14 @@ import org.craftercms.commons.monitoring.StatusInfo;
 import org.craftercms.commons.monitoring.VersionInfo;
 import org.craftercms.engine.util.logging.CircularQueueLogAppender;
 import org.craftercms.studio.api.v1.service.security.SecurityService;
+import org.craftercms.studio.api.v2.annotation.RetryingOperationMetrics;
 import org.craftercms.studio.api.v2.exception.InvalidParametersException;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v1.content.pipeline.ContentProcessorMetrics;
+import org.craftercms.studio.impl.v2.job.SiteTaskScheduler;
+import org.craftercms.studio.impl.v1.service.event.EventServiceImpl;
+import org.craftercms.studio.impl.v2.job.StudioAuditLogProcessingTask;
+import org.craftercms.studio.impl.v2.job.StudioPublisherTask;
 import org.craftercms.studio.model.rest.ApiResponse;
 import org.craftercms.studio.model.rest.ResultList;
 import org.craftercms.studio.model.rest.ResultOne;
@@ -34,6 +40,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.beans.ConstructorProperties;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.craftercms.commons.monitoring.rest.MonitoringRestControllerBase.MEMORY_URL;
@@ -43,6 +51,8 @@ import static org.craftercms.commons.monitoring.rest.MonitoringRestControllerBas
 import static org.craftercms.engine.controller.rest.MonitoringController.LOG_URL;
 import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_EVENTS;
 import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_MEMORY;
+import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_METRICS;
+import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_SCHEDULER;
 import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_STAUS;
 import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_VERSION;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -55,6 +65,20 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 @RequestMapping("/api/2")
 public class MonitoringController extends ManagementTokenAware {
 
+    public static final String SCHEDULER_URL = "/scheduler";
+    public static final String CONTENT_PROCESSOR_URL = "/content_processor";
+    public static final String RETRYING_OPERATIONS_URL = "/retrying_operations";
+    public static final String PUBLISHER_URL = "/publisher";
+    public static final String AUDIT_URL = "/audit";
+    public static final String EVENT_BUS_URL = "/event_bus";
+
+    protected SiteTaskScheduler siteTaskScheduler;
+    protected ContentProcessorMetrics contentProcessorMetrics;
+    protected List<RetryingOperationMetrics> retryingOperationMetrics;
+    protected StudioPublisherTask studioPublisherTask;
+    protected StudioAuditLogProcessingTask studioAuditLogProcessingTask;
+    protected EventServiceImpl eventService;
+
     @ConstructorProperties({"studioConfiguration", "securityService"})
     public MonitoringController(StudioConfiguration studioConfiguration, SecurityService securityService) {
         super(studioConfiguration, securityService);
@@ -101,4 +125,96 @@ public class MonitoringController extends ManagementTokenAware {
         return result;
     }
 
+    @GetMapping(value = ROOT_URL + SCHEDULER_URL, produces = APPLICATION_JSON_VALUE)
+    public ResultOne<Map<String, Object>> getSchedulerStatus(
+            @RequestParam(name = "token", required = false) String token)
+        throws InvalidManagementTokenException, InvalidParametersException {
+        validateToken(token);
+        ResultOne<Map<String, Object>> result = new ResultOne<>();
+        result.setResponse(ApiResponse.OK);
+        result.setEntity(RESULT_KEY_SCHEDULER, siteTaskScheduler.getSummary());
+        return result;
+    }
+
+    @GetMapping(value = ROOT_URL + CONTENT_PROCESSOR_URL, produces = APPLICATION_JSON_VALUE)
+    public ResultOne<Map<String, Object>> getContentProcessorMetrics(
+            @RequestParam(name = "token", required = false) String token)
+        throws InvalidManagementTokenException, InvalidParametersException {
+        validateToken(token);
+        ResultOne<Map<String, Object>> result = new ResultOne<>();
+        result.setResponse(ApiResponse.OK);
+        result.setEntity(RESULT_KEY_METRICS, contentProcessorMetrics.getSummary());
+        return result;
+    }
+
+    @GetMapping(value = ROOT_URL + RETRYING_OPERATIONS_URL, produces = APPLICATION_JSON_VALUE)
+    public ResultOne<Map<String, Object>> getRetryingOperationMetrics(
+            @RequestParam(name = "token", required = false) String token)
+        throws InvalidManagementTokenException, InvalidParametersException {
+        validateToken(token);
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        retryingOperationMetrics.forEach(m -> metrics.put(m.getName(), m.getSummary()));
+        ResultOne<Map<String, Object>> result = new ResultOne<>();
+        result.setResponse(ApiResponse.OK);
+        result.setEntity(RESULT_KEY_METRICS, metrics);
+        return result;
+    }
+
+    @GetMapping(value = ROOT_URL + PUBLISHER_URL, produces = APPLICATION_JSON_VALUE)
+    public ResultOne<Map<String, Object>> getPublisherMetrics(
+            @RequestParam(name = "token", required = false) String token)
+        throws InvalidManagementTokenException, InvalidParametersException {
+        validateToken(token);
+        ResultOne<Map<String, Object>> result = new ResultOne<>();
+        result.setResponse(ApiResponse.OK);
+        result.setEntity(RESULT_KEY_METRICS, studioPublisherTask.getSummary());
+        return result;
+    }
+
+    @GetMapping(value = ROOT_URL + AUDIT_URL, produces = APPLICATION_JSON_VALUE)
+    public ResultOne<Map<String, Object>> getAuditMetrics(
+            @RequestParam(name = "token", required = false) String token)
+        throws InvalidManagementTokenException, InvalidParametersException {
+        validateToken(token);
+        ResultOne<Map<String, Object>> result = new ResultOne<>();
+        result.setResponse(ApiResponse.OK);
+        result.setEntity(RESULT_KEY_METRICS, studioAuditLogProcessingTask.getSummary());
+        return result;
+    }
+
+    @GetMapping(value = ROOT_URL + EVENT_BUS_URL, produces = APPLICATION_JSON_VALUE)
+    public ResultOne<Map<String, Object>> getEventBusMetrics(
+            @RequestParam(name = "token", required = false) String token)
+        throws InvalidManagementTokenException, InvalidParametersException {
+        validateToken(token);
+        ResultOne<Map<String, Object>> result = new ResultOne<>();
+        result.setResponse(ApiResponse.OK);
+        result.setEntity(RESULT_KEY_METRICS, eventService.getSummary());
+        return result;
+    }
+
+    public void setSiteTaskScheduler(SiteTaskScheduler siteTaskScheduler) {
+        this.siteTaskScheduler = siteTaskScheduler;
+    }
+
+    public void setContentProcessorMetrics(ContentProcessorMetrics contentProcessorMetrics) {
+        this.contentProcessorMetrics = contentProcessorMetrics;
+    }
+
+    public void setRetryingOperationMetrics(List<RetryingOperationMetrics> retryingOperationMetrics) {
+        this.retryingOperationMetrics = retryingOperationMetrics;
+    }
+
+    public void setStudioPublisherTask(StudioPublisherTask studioPublisherTask) {
+        this.studioPublisherTask = studioPublisherTask;
+    }
+
+    public void setStudioAuditLogProcessingTask(StudioAuditLogProcessingTask studioAuditLogProcessingTask) {
+        this.studioAuditLogProcessingTask = studioAuditLogProcessingTask;
+    }
+
+    public void setEventService(EventServiceImpl eventService) {
+        this.eventService = eventService;
+    }
+
 }
@@ -57,6 +57,8 @@ public final class ResultConstants {
     public static final String RESULT_KEY_VERSION = "version";
     public static final String RESULT_KEY_MEMORY = "memory";
     public static final String RESULT_KEY_EVENTS = "events";
+    public static final String RESULT_KEY_SCHEDULER = "scheduler";
+    public static final String RESULT_KEY_METRICS = "metrics";
 
     /* Repository management controller */
     public static final String RESULT_KEY_REMOTES = "remotes";
@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.content.pipeline;
+
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONTENT_PROCESSOR_METRICS_ENABLED;
+
+/**
+ * Records the latency, errors and payload size of the content processor chains and of every processor in them,
+ * tagged by site and content type.
+ *
+ * <p>Nothing is recorded while disabled, callers are expected to check {@link #isEnabled()} before taking any
+ * measurement so the pipeline runs as usual. The metrics can be enabled at runtime using the JMX bean registered
+ * as {@link #OBJECT_NAME}.</p>
+ */
+public class ContentProcessorMetrics implements ContentProcessorMetricsMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentProcessorMetrics.class);
+
+    public static final String OBJECT_NAME = "org.craftercms.studio:type=ContentProcessorMetrics";
+
+    /**
+     * Value used for the tags that are missing in the processed content (for example the content type of assets)
+     */
+    public static final String UNKNOWN_TAG = "unknown";
+
+    /**
+     * Upper bounds in milliseconds of the latency histogram buckets, the last bucket has no bound
+     */
+    protected static final long[] LATENCY_BUCKETS = { 1, 5, 10, 50, 100, 500, 1000, 5000 };
+
+    protected StudioConfiguration studioConfiguration;
+
+    protected volatile boolean enabled;
+    protected final Map<StatsKey, Stats> chainStats = new ConcurrentHashMap<>();
+    protected final Map<StatsKey, Stats> processorStats = new ConcurrentHashMap<>();
+
+    public void init() {
+        enabled = studioConfiguration.getProperty(CONTENT_PROCESSOR_METRICS_ENABLED, Boolean.class, false);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to register the content processor metrics in JMX", e);
+        }
+    }
+
+    public void destroy() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to unregister the content processor metrics from JMX", e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void reset() {
+        chainStats.clear();
+        processorStats.clear();
+    }
+
+    /**
+     * Records a single run of a processor
+     * @param processor name of the processor
+     * @param site the site of the content
+     * @param contentType the content type of the content
+     * @param time execution time in nanoseconds
+     * @param failed true if the processor threw an exception
+     */
+    public void recordProcessor(String processor, String site, String contentType, long time, boolean failed) {
+        processorStats.computeIfAbsent(new StatsKey(processor, site, contentType), key -> new Stats())
+                .record(time, -1, failed);
+    }
+
+    /**
+     * Records a complete run of a processor chain
+     * @param chain name of the chain
+     * @param site the site of the content
+     * @param contentType the content type of the content
+     * @param time execution time in nanoseconds
+     * @param payloadSize number of bytes read from the content
+     * @param failed true if any of the processors threw an exception
+     */
+    public void recordChain(String chain, String site, String contentType, long time, long payloadSize,
+                            boolean failed) {
+        chainStats.computeIfAbsent(new StatsKey(chain, site, contentType), key -> new Stats())
+                .record(time, payloadSize, failed);
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> getChainStats() {
+        return toFlatMap(chainStats);
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> getProcessorStats() {
+        return toFlatMap(processorStats);
+    }
+
+    /**
+     * Returns the timings collected for chains and processors, sorted by name, site & content type
+     * @return map with the enabled flag, the chain stats and the processor stats including their histograms
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("enabled", isEnabled());
+        summary.put("chains", toList(chainStats));
+        summary.put("processors", toList(processorStats));
+        return summary;
+    }
+
+    protected Map<String, Map<String, Long>> toFlatMap(Map<StatsKey, Stats> stats) {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        stats.forEach((key, value) -> {
+            Map<String, Long> map = value.toMap();
+            value.getHistogram().forEach((bucket, count) -> map.put("histogram" + bucket, count));
+            result.put(key.toString(), map);
+        });
+        return result;
+    }
+
+    protected List<Map<String, Object>> toList(Map<StatsKey, Stats> stats) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        new TreeMap<>(stats).forEach((key, value) -> {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", key.name);
+            map.put("site", key.site);
+            map.put("contentType", key.contentType);
+            map.putAll(value.toMap());
+            map.put("histogram", value.getHistogram());
+            result.add(map);
+        });
+        return result;
+    }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    protected static class StatsKey implements Comparable<StatsKey> {
+
+        protected final String name;
+        protected final String site;
+        protected final String contentType;
+
+        protected StatsKey(String name, String site, String contentType) {
+            this.name = name;
+            this.site = StringUtils.defaultIfEmpty(site, UNKNOWN_TAG);
+            this.contentType = StringUtils.defaultIfEmpty(contentType, UNKNOWN_TAG);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            StatsKey other = (StatsKey) o;
+            return name.equals(other.name) && site.equals(other.site) && contentType.equals(other.contentType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, site, contentType);
+        }
+
+        @Override
+        public int compareTo(StatsKey other) {
+            return toString().compareTo(other.toString());
+        }
+
+        @Override
+        public String toString() {
+            return name + ":" + site + ":" + contentType;
+        }
+
+    }
+
+    /**
+     * Execution statistics for a single processor or chain, times are in microseconds and sizes in bytes
+     */
+    public static class Stats {
+
+        protected final LongAdder executions = new LongAdder();
+        protected final LongAdder failures = new LongAdder();
+        protected final LongAdder totalTime = new LongAdder();
+        protected final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+        protected final LongAdder totalPayloadSize = new LongAdder();
+        protected final LongAccumulator maxPayloadSize = new LongAccumulator(Math::max, 0);
+        protected final LongAdder[] histogram = new LongAdder[LATENCY_BUCKETS.length + 1];
+
+        public Stats() {
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        protected void record(long time, long payloadSize, boolean failed) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(time);
+            executions.increment();
+            if (failed) {
+                failures.increment();
+            }
+            totalTime.add(micros);
+            maxTime.accumulate(micros);
+            if (payloadSize >= 0) {
+                totalPayloadSize.add(payloadSize);
+                maxPayloadSize.accumulate(payloadSize);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(time);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS.length && millis >= LATENCY_BUCKETS[bucket]) {
+                bucket++;
+            }
+            histogram[bucket].increment();
+        }
+
+        public long getExecutions() {
+            return executions.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getTotalTime() {
+            return totalTime.sum();
+        }
+
+        public long getMaxTime() {
+            return maxTime.get();
+        }
+
+        public long getTotalPayloadSize() {
+            return totalPayloadSize.sum();
+        }
+
+        public long getMaxPayloadSize() {
+            return maxPayloadSize.get();
+        }
+
+        /**
+         * @return number of executions per latency bucket, keyed by the upper bound in milliseconds
+         */
+        public Map<String, Long> getHistogram() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+                result.put("<" + LATENCY_BUCKETS[i], histogram[i].sum());
+            }
+            result.put(">=" + LATENCY_BUCKETS[LATENCY_BUCKETS.length - 1],
+                    histogram[LATENCY_BUCKETS.length].sum());
+            return result;
+        }
+
+        protected Map<String, Long> toMap() {
+            Map<String, Long> map = new LinkedHashMap<>();
+            map.put("executions", getExecutions());
+            map.put("failures", getFailures());
+            map.put("totalTime", getTotalTime());
+            map.put("maxTime", getMaxTime());
+            map.put("totalPayloadSize", getTotalPayloadSize());
+            map.put("maxPayloadSize", getMaxPayloadSize());
+            return map;
+        }
+
+    }
+
+}
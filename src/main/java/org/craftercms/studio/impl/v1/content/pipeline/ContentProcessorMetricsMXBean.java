@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.content.pipeline;
+
+import java.util.Map;
+
+/**
+ * JMX view of the {@link ContentProcessorMetrics}
+ */
+public interface ContentProcessorMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Discard all the statistics recorded so far
+     */
+    void reset();
+
+    /**
+     * @return statistics of each processor chain, keyed by {@code chain:site:contentType}
+     */
+    Map<String, Map<String, Long>> getChainStats();
+
+    /**
+     * @return statistics of each processor, keyed by {@code processor:site:contentType}
+     */
+    Map<String, Map<String, Long>> getProcessorStats();
+
+}
@@ -42,12 +42,22 @@ public class ContentProcessorPipelineImpl implements ContentProcessorPipeline {
 	 */
 	protected List<ContentProcessor> _chain = null;
 
+	/**
+	 * optional metrics, only used when enabled
+	 */
+	protected ContentProcessorMetrics metrics = null;
+
 	public void processContent(PipelineContent content, ResultTO result) throws ContentProcessException, SiteNotFoundException {
 		if (_chain != null && _chain.size() > 0) {
+			boolean recordMetrics = metrics != null && metrics.isEnabled();
 			for (ContentProcessor processor : _chain) {
 				logger.debug("Running " + content.getId() + " through " + processor.getName());
 				if (processor.isProcessable(content)) {
-					processor.process(content, result);
+					if (recordMetrics) {
+						processWithMetrics(processor, content, result);
+					} else {
+						processor.process(content, result);
+					}
 				} else {
 					logger.debug(content.getId() + " was not processed by " + processor.getName());
 				}
@@ -57,6 +67,19 @@ public class ContentProcessorPipelineImpl implements ContentProcessorPipeline {
 		}
 	}
 
+	protected void processWithMetrics(ContentProcessor processor, PipelineContent content, ResultTO result)
+			throws ContentProcessException, SiteNotFoundException {
+		boolean failed = true;
+		long start = System.nanoTime();
+		try {
+			processor.process(content, result);
+			failed = false;
+		} finally {
+			metrics.recordProcessor(processor.getName(), content.getProperty(PipelineContent.KEY_SITE),
+					content.getProperty(PipelineContent.KEY_CONTENT_TYPE), System.nanoTime() - start, failed);
+		}
+	}
+
 	/**
 	 * @param chain the chain to set
 	 */
@@ -64,4 +87,8 @@ public class ContentProcessorPipelineImpl implements ContentProcessorPipeline {
 		this._chain = chain;
 	}
 
+	public void setMetrics(ContentProcessorMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 }
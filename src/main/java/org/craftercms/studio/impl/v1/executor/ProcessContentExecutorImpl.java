@@ -16,6 +16,7 @@
 
 package org.craftercms.studio.impl.v1.executor;
 
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v1.constant.StudioConstants;
 import org.craftercms.studio.api.v1.constant.DmConstants;
@@ -27,6 +28,7 @@ import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.content.pipeline.ContentProcessorPipeline;
 import org.craftercms.studio.api.v1.content.pipeline.PipelineContent;
 import org.craftercms.studio.api.v1.to.ResultTO;
+import org.craftercms.studio.impl.v1.content.pipeline.ContentProcessorMetrics;
 import org.craftercms.studio.impl.v1.content.pipeline.PipelineContentImpl;
 import org.craftercms.studio.impl.v1.util.ContentUtils;
 import org.craftercms.studio.api.v1.service.security.SecurityService;
@@ -53,10 +55,20 @@ public class ProcessContentExecutorImpl implements ProcessContentExecutor {
                 }
 
                 final ResultTO result = new ResultTO();
+                // only count the bytes read when the metrics are enabled
+                CountingInputStream countingInput = null;
+                long start = 0;
+                boolean failed = true;
+                if (metrics != null && metrics.isEnabled() && input != null) {
+                    countingInput = new CountingInputStream(input);
+                    start = System.nanoTime();
+                }
                 try {
-                    final PipelineContent content = new PipelineContentImpl(id, input, isXml, null,
+                    final PipelineContent content = new PipelineContentImpl(id,
+                        countingInput != null ? countingInput : input, isXml, null,
                         StudioConstants.CONTENT_ENCODING, params);
                     chain.processContent(content, result);
+                    failed = false;
 
                 } catch (ContentProcessException e) {
                     logger.error("Error in chain for write content", e);
@@ -66,6 +78,11 @@ public class ProcessContentExecutorImpl implements ProcessContentExecutor {
                     throw e;
                 }finally{
                     ContentUtils.release(input);
+                    if (countingInput != null) {
+                        metrics.recordChain(chainName, params.get(DmConstants.KEY_SITE),
+                                params.get(DmConstants.KEY_CONTENT_TYPE), System.nanoTime() - start,
+                                countingInput.getByteCount(), failed);
+                    }
                 }
                 return result;
 
@@ -81,8 +98,10 @@ public class ProcessContentExecutorImpl implements ProcessContentExecutor {
 
     protected Map<String, ContentProcessorPipeline> processorChains;
     protected SecurityService securityService;
+    protected ContentProcessorMetrics metrics;
     public SecurityService getSecurityService() {return securityService; }
     public void setSecurityService(SecurityService securityService) { this.securityService = securityService; }
+    public void setMetrics(ContentProcessorMetrics metrics) { this.metrics = metrics; }
 
     public Map<String, ContentProcessorPipeline> getProcessorChains() { return processorChains; }
     public void setProcessorChains(Map<String, ContentProcessorPipeline> processorChains) { this.processorChains = processorChains; }
@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -42,6 +43,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import javax.servlet.ServletContext;
 
@@ -216,6 +218,7 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
     protected GitRepositoryHelper helper;
     protected RetryingRepositoryOperationFacade retryingRepositoryOperationFacade;
     protected RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    protected GitGroupCommitter groupCommitter;
 
     @Override
     public boolean contentExists(String site, String path) {
@@ -223,14 +226,10 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         try {
             Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
             if (repo != null) {
-                RevTree tree = helper.getTreeForLastCommit(repo);
-                try (TreeWalk tw = TreeWalk.forPath(repo, helper.getGitPath(path), tree)) {
-                    // Check if the array of items is not null, and since we have an absolute path to the item,
-                    // pick the first item in the list
-                    if (tw != null && tw.getObjectId(0) != null) {
+                try {
+                    if (helper.getObjectIdForLastCommit(repo, path) != null) {
                         toReturn = true;
-                        tw.close();
-                    } else if (tw == null) {
+                    } else {
                         String gitPath = helper.getGitPath(path);
                         if (StringUtils.isEmpty(gitPath) || gitPath.equals(".")) {
                             toReturn = true;
@@ -254,30 +253,53 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
             if (repo == null) {
                 throw new ContentNotFoundException("Repository not found for site " + site);
             }
-            RevTree tree = helper.getTreeForLastCommit(repo);
-            try (TreeWalk tw = TreeWalk.forPath(repo, helper.getGitPath(path), tree)) {
-                // Check if the array of items is not null, and since we have an absolute path to the item,
-                // pick the first item in the list
-                if (tw != null && tw.getObjectId(0) != null) {
-                    ObjectId id = tw.getObjectId(0);
-                    ObjectLoader objectLoader = repo.open(id);
-                    toReturn = objectLoader.openStream();
-                    tw.close();
-                }
-            } catch (IOException e) {
-                logger.error("Error while getting content for file at site: " + site + " path: " + path, e);
+            ObjectId id = helper.getObjectIdForLastCommit(repo, path);
+            if (id != null) {
+                ObjectLoader objectLoader = repo.open(id);
+                toReturn = objectLoader.openStream();
             }
         } catch (IOException e) {
-            logger.error("Failed to create RevTree for site: " + site + " path: " + path, e);
+            logger.error("Error while getting content for file at site: " + site + " path: " + path, e);
         }
 
         return toReturn;
     }
 
+    @Override
+    public String getContentId(String site, String path) {
+        try {
+            Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+            if (repo != null) {
+                ObjectId id = helper.getObjectIdForLastCommit(repo, path);
+                if (id != null) {
+                    return id.name();
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error while getting content id for file at site: " + site + " path: " + path, e);
+        }
+        return null;
+    }
+
+    @Override
+    public InputStream getContentById(String site, String contentId) {
+        try {
+            Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+            if (repo != null) {
+                return repo.open(ObjectId.fromString(contentId)).openStream();
+            }
+        } catch (IOException e) {
+            logger.error("Error while getting content for object " + contentId + " at site: " + site, e);
+        }
+        return null;
+    }
+
     @Override
     public String writeContent(String site, String path, InputStream content) {
         // Write content to git and commit it
         String commitId = null;
+        CompletableFuture<String> pendingCommit = null;
+        boolean groupCommit = groupCommitter.isEnabled(site);
         String gitLockKey = SITE_SANDBOX_REPOSITORY_GIT_LOCK.replaceAll(PATTERN_SITE, site);
         generalLockService.lock(gitLockKey);
         synchronized (helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX)) {
@@ -290,7 +312,11 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
                     String comment = helper.getCommitMessage(REPO_SANDBOX_WRITE_COMMIT_MESSAGE)
                             .replace(REPO_COMMIT_MESSAGE_USERNAME_VAR, username)
                             .replace(REPO_COMMIT_MESSAGE_PATH_VAR, path);
-                    commitId = helper.commitFile(repo, site, path, comment, user);
+                    if (groupCommit) {
+                        pendingCommit = groupCommitter.submit(repo, site, path, comment, user);
+                    } else {
+                        commitId = helper.commitFile(repo, site, path, comment, user);
+                    }
                 } else {
                     logger.error("Failed to write content site: " + site + " path: " + path);
                 }
@@ -305,6 +331,10 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
 
         }
 
+        if (pendingCommit != null) {
+            commitId = groupCommitter.await(pendingCommit);
+        }
+
         return commitId;
     }
 
@@ -312,6 +342,8 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
     public String createFolder(String site, String path, String name) {
         // SJ: Git doesn't care about empty folders, so we will create the folders and put a 0 byte file in them
         String commitId = null;
+        CompletableFuture<String> pendingCommit = null;
+        boolean groupCommit = groupCommitter.isEnabled(site);
         boolean result;
         String gitLockKey = SITE_SANDBOX_REPOSITORY_GIT_LOCK.replaceAll(PATTERN_SITE, site);
         generalLockService.lock(gitLockKey);
@@ -357,11 +389,16 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
 
                 if (result) {
                     try {
-                        commitId = helper.commitFile(repo, site, emptyFilePath.toString(),
-                                helper.getCommitMessage(REPO_CREATE_FOLDER_COMMIT_MESSAGE)
-                                        .replaceAll(PATTERN_SITE, site)
-                                        .replaceAll(PATTERN_PATH, path + FILE_SEPARATOR + name),
-                                helper.getCurrentUserIdent());
+                        String comment = helper.getCommitMessage(REPO_CREATE_FOLDER_COMMIT_MESSAGE)
+                                .replaceAll(PATTERN_SITE, site)
+                                .replaceAll(PATTERN_PATH, path + FILE_SEPARATOR + name);
+                        if (groupCommit) {
+                            pendingCommit = groupCommitter.submit(repo, site, emptyFilePath.toString(), comment,
+                                    helper.getCurrentUserIdent());
+                        } else {
+                            commitId = helper.commitFile(repo, site, emptyFilePath.toString(), comment,
+                                    helper.getCurrentUserIdent());
+                        }
                     } catch (ServiceLayerException | UserNotFoundException e) {
                         logger.error("Unknown service error during commit for site: " + site + " path: "
                                 + emptyFilePath, e);
@@ -371,12 +408,17 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         } finally {
             generalLockService.unlock(gitLockKey);
         }
+        if (pendingCommit != null) {
+            commitId = groupCommitter.await(pendingCommit);
+        }
         return commitId;
     }
 
     @Override
     public String deleteContent(String site, String path, String approver) {
         String commitId = null;
+        CompletableFuture<String> pendingCommit = null;
+        boolean groupCommit = groupCommitter.isEnabled(site);
         boolean isPage = path.endsWith(FILE_SEPARATOR + INDEX_FILE);
         String gitLockKey = SITE_SANDBOX_REPOSITORY_GIT_LOCK.replaceAll(PATTERN_SITE, site);
         generalLockService.lock(gitLockKey);
@@ -396,10 +438,15 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
                     }
 
                     // TODO: SJ: we need to define messages in a string table of sorts
-                    commitId = helper.commitFile(repo, site, pathToCommit,
-                            helper.getCommitMessage(REPO_DELETE_CONTENT_COMMIT_MESSAGE)
-                                    .replaceAll(PATTERN_PATH, path),
-                            StringUtils.isEmpty(approver) ? helper.getCurrentUserIdent() : helper.getAuthorIdent(approver));
+                    String comment = helper.getCommitMessage(REPO_DELETE_CONTENT_COMMIT_MESSAGE)
+                            .replaceAll(PATTERN_PATH, path);
+                    PersonIdent user = StringUtils.isEmpty(approver) ?
+                            helper.getCurrentUserIdent() : helper.getAuthorIdent(approver);
+                    if (groupCommit) {
+                        pendingCommit = groupCommitter.submit(repo, site, pathToCommit, comment, user);
+                    } else {
+                        commitId = helper.commitFile(repo, site, pathToCommit, comment, user);
+                    }
 
                 } catch (GitAPIException | UserNotFoundException | IOException e) {
                     logger.error("Error while deleting content for site: " + site + " path: " + path, e);
@@ -411,6 +458,10 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
             generalLockService.unlock(gitLockKey);
         }
 
+        if (pendingCommit != null) {
+            commitId = groupCommitter.await(pendingCommit);
+        }
+
         return commitId;
     }
 
@@ -514,6 +565,23 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
                     Status gitStatus = retryingRepositoryOperationFacade.call(statusCommand);
                     Set<String> changeSet = gitStatus.getAdded();
 
+                    if (groupCommitter.isEnabled(site) && !changeSet.isEmpty()) {
+                        // Commit the whole change set at once, every moved path gets the same commit id
+                        CommitCommand commitCommand = git.commit()
+                                .setAuthor(helper.getCurrentUserIdent())
+                                .setCommitter(helper.getCurrentUserIdent())
+                                .setMessage(helper.getCommitMessage(REPO_MOVE_CONTENT_COMMIT_MESSAGE)
+                                        .replaceAll(PATTERN_FROM_PATH, fromPath)
+                                        .replaceAll(PATTERN_TO_PATH, toPath +
+                                                (StringUtils.isNotEmpty(newName) ? newName : EMPTY)));
+                        for (String pathToCommit : changeSet) {
+                            commitCommand.setOnly(pathToCommit).setOnly(pathToCommit.replace(gitToPath, gitFromPath));
+                        }
+                        RevCommit commit = retryingRepositoryOperationFacade.call(commitCommand);
+                        changeSet.forEach(pathToCommit -> toRet.put(pathToCommit, commit.getName()));
+                        changeSet = Collections.emptySet();
+                    }
+
                     for (String pathToCommit : changeSet) {
                         String pathRemoved = pathToCommit.replace(gitToPath, gitFromPath);
                         CommitCommand commitCommand = git.commit()
@@ -1997,4 +2065,12 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
     public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
         this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
     }
+
+    public GitGroupCommitter getGroupCommitter() {
+        return groupCommitter;
+    }
+
+    public void setGroupCommitter(GitGroupCommitter groupCommitter) {
+        this.groupCommitter = groupCommitter;
+    }
 }
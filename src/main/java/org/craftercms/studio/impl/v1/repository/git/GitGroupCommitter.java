@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.repository.git;
+
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v1.service.GeneralLockService;
+import org.craftercms.studio.api.v2.repository.RetryingRepositoryOperationFacade;
+import org.craftercms.studio.api.v2.utils.GitRepositoryHelper;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.CommitCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.StatusCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.PATTERN_SITE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.SITE_SANDBOX_REPOSITORY_GIT_LOCK;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SANDBOX_GROUP_COMMIT_ENABLED;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SANDBOX_GROUP_COMMIT_MAX_ITEMS;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SANDBOX_GROUP_COMMIT_WINDOW;
+
+/**
+ * Coalesces the sandbox commits for the same site and author that arrive within a short window (or until a
+ * maximum number of items is reached) into a single git commit.
+ *
+ * <p>Callers stage their changes in the index while holding the repository lock, then {@link #submit} the path
+ * to commit and release the lock before waiting for the result, so other writers can stage their changes in the
+ * meantime. Every caller gets the id of the commit that included its path, or null if the path had no changes.</p>
+ */
+public class GitGroupCommitter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitGroupCommitter.class);
+
+    protected StudioConfiguration studioConfiguration;
+    protected GitRepositoryHelper helper;
+    protected GeneralLockService generalLockService;
+    protected RetryingRepositoryOperationFacade retryingRepositoryOperationFacade;
+
+    protected ScheduledExecutorService executor;
+
+    /**
+     * Batches that are still accepting items, keyed by site and author
+     */
+    protected final Map<String, Batch> openBatches = new HashMap<>();
+
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "studio-git-group-commit-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void destroy() {
+        executor.shutdown();
+        synchronized (openBatches) {
+            openBatches.values().forEach(this::flush);
+            openBatches.clear();
+        }
+    }
+
+    /**
+     * Indicates if the sandbox commits for the given site should be grouped. Threads that already hold the sandbox
+     * lock (for example during upgrades) always commit directly because the batch can't be flushed until they
+     * release it.
+     * @param site the site id
+     * @return true if group commit should be used
+     */
+    public boolean isEnabled(String site) {
+        return StringUtils.isNotEmpty(site) &&
+                Boolean.parseBoolean(studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_ENABLED)) &&
+                !generalLockService.isHeldByCurrentThread(
+                        SITE_SANDBOX_REPOSITORY_GIT_LOCK.replaceAll(PATTERN_SITE, site));
+    }
+
+    /**
+     * Adds an already staged path to the next commit for the site, the caller should not hold the repository lock
+     * while waiting for the returned future
+     * @param repo the sandbox repository
+     * @param site the site id
+     * @param path the path to commit, folders include all their children
+     * @param comment the commit message for this path
+     * @param user the author of the change
+     * @return future completed with the commit id once the batch is committed
+     */
+    public CompletableFuture<String> submit(Repository repo, String site, String path, String comment,
+                                            PersonIdent user) {
+        PendingCommit pending = new PendingCommit(helper.getGitPath(path), comment);
+        String key = site + ":" + user.getName() + " <" + user.getEmailAddress() + ">";
+        synchronized (openBatches) {
+            Batch batch = openBatches.get(key);
+            if (batch == null) {
+                batch = new Batch(repo, site, user);
+                openBatches.put(key, batch);
+                Batch scheduled = batch;
+                executor.schedule(() -> closeAndFlush(key, scheduled), getWindow(), TimeUnit.MILLISECONDS);
+            }
+            batch.items.add(pending);
+            if (batch.items.size() >= getMaxItems()) {
+                Batch full = batch;
+                executor.execute(() -> closeAndFlush(key, full));
+            }
+        }
+        return pending.result;
+    }
+
+    /**
+     * Waits for the commit id of a submitted path
+     * @param pending the future returned by {@link #submit}
+     * @return the commit id or null if it could not be committed
+     */
+    public String await(CompletableFuture<String> pending) {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for group commit", e);
+        } catch (ExecutionException e) {
+            logger.error("Error waiting for group commit", e.getCause());
+        }
+        return null;
+    }
+
+    protected void closeAndFlush(String key, Batch batch) {
+        synchronized (openBatches) {
+            // the batch could have been already flushed because it was full
+            if (!openBatches.remove(key, batch)) {
+                return;
+            }
+        }
+        flush(batch);
+    }
+
+    protected void flush(Batch batch) {
+        String gitLockKey = SITE_SANDBOX_REPOSITORY_GIT_LOCK.replaceAll(PATTERN_SITE, batch.site);
+        generalLockService.lock(gitLockKey);
+        try {
+            synchronized (batch.repo) {
+                try (Git git = new Git(batch.repo)) {
+                    StatusCommand statusCommand = git.status();
+                    batch.items.forEach(item -> statusCommand.addPath(item.gitPath));
+                    Status status = retryingRepositoryOperationFacade.call(statusCommand);
+
+                    // Same check as a regular commit (hasUncommittedChanges || !isClean) but for each item
+                    Set<String> changes = new HashSet<>(status.getUncommittedChanges());
+                    Set<String> untracked = new HashSet<>(status.getUntracked());
+                    untracked.addAll(status.getUntrackedFolders());
+                    changes.addAll(untracked);
+                    changes.addAll(status.getConflicting());
+
+                    List<PendingCommit> changed = new ArrayList<>();
+                    List<PendingCommit> toAdd = new ArrayList<>();
+                    for (PendingCommit item : batch.items) {
+                        if (hasChanges(changes, item.gitPath)) {
+                            changed.add(item);
+                            if (hasChanges(untracked, item.gitPath)) {
+                                toAdd.add(item);
+                            }
+                        } else {
+                            item.result.complete(null);
+                        }
+                    }
+
+                    if (!toAdd.isEmpty()) {
+                        // untracked files need to be in the index to be included in the commit
+                        AddCommand addCommand = git.add();
+                        toAdd.forEach(item -> addCommand.addFilepattern(item.gitPath));
+                        retryingRepositoryOperationFacade.call(addCommand);
+                    }
+
+                    if (!changed.isEmpty()) {
+                        CommitCommand commitCommand = git.commit()
+                                .setAuthor(batch.user)
+                                .setCommitter(batch.user)
+                                .setMessage(buildMessage(changed));
+                        changed.forEach(item -> commitCommand.setOnly(item.gitPath));
+                        RevCommit commit = retryingRepositoryOperationFacade.call(commitCommand);
+                        logger.debug("Group commit " + commit.getName() + " for site " + batch.site +
+                                " included " + changed.size() + " items");
+                        changed.forEach(item -> item.result.complete(commit.getName()));
+                    }
+                }
+            }
+        } catch (GitAPIException | RuntimeException e) {
+            logger.error("Error during group commit for site: " + batch.site, e);
+            batch.items.forEach(item -> item.result.completeExceptionally(e));
+        } finally {
+            generalLockService.unlock(gitLockKey);
+        }
+    }
+
+    protected boolean hasChanges(Set<String> changes, String gitPath) {
+        if (changes.contains(gitPath)) {
+            return true;
+        }
+        String prefix = gitPath + FILE_SEPARATOR;
+        return changes.stream().anyMatch(change -> change.startsWith(prefix));
+    }
+
+    protected String buildMessage(List<PendingCommit> items) {
+        StringBuilder sb = new StringBuilder();
+        for (PendingCommit item : items) {
+            if (sb.length() > 0) {
+                sb.append("\n");
+            }
+            sb.append(item.comment);
+        }
+        return sb.toString();
+    }
+
+    protected long getWindow() {
+        return Long.parseLong(studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_WINDOW));
+    }
+
+    protected int getMaxItems() {
+        return Integer.parseInt(studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_MAX_ITEMS));
+    }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    public void setHelper(GitRepositoryHelper helper) {
+        this.helper = helper;
+    }
+
+    public void setGeneralLockService(GeneralLockService generalLockService) {
+        this.generalLockService = generalLockService;
+    }
+
+    public void setRetryingRepositoryOperationFacade(
+            RetryingRepositoryOperationFacade retryingRepositoryOperationFacade) {
+        this.retryingRepositoryOperationFacade = retryingRepositoryOperationFacade;
+    }
+
+    protected static class Batch {
+
+        protected final Repository repo;
+        protected final String site;
+        protected final PersonIdent user;
+        protected final List<PendingCommit> items = new ArrayList<>();
+
+        protected Batch(Repository repo, String site, PersonIdent user) {
+            this.repo = repo;
+            this.site = site;
+            this.user = user;
+        }
+
+    }
+
+    protected static class PendingCommit {
+
+        protected final String gitPath;
+        protected final String comment;
+        protected final CompletableFuture<String> result = new CompletableFuture<>();
+
+        protected PendingCommit(String gitPath, String comment) {
+            this.gitPath = gitPath;
+            this.comment = comment;
+        }
+
+    }
+
+}
@@ -22,15 +22,42 @@ import org.craftercms.studio.api.v1.service.GeneralLockService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Lock registry backed by a concurrent map of reference counted locks. Every caller that is holding or waiting
+ * for a lock keeps a reference to it, once the last reference is released the lock is evicted from the map so
+ * the registry only contains the locks that are currently in use.
+ */
 public class GeneralLockServiceImpl extends AbstractRegistrableService implements GeneralLockService {
 
     private static final Logger logger = LoggerFactory.getLogger(GeneralLockServiceImpl.class);
 
-    protected Map<String, ReentrantLock> nodeLocks = new HashMap<String, ReentrantLock>();
+    protected ConcurrentMap<String, LockEntry> nodeLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Number of lock requests that were served without waiting
+     */
+    protected LongAdder uncontendedCount = new LongAdder();
+
+    /**
+     * Number of lock requests that had to wait for another thread
+     */
+    protected LongAdder contendedCount = new LongAdder();
+
+    /**
+     * Number of timed lock requests that expired or were interrupted before getting the lock
+     */
+    protected LongAdder timeoutCount = new LongAdder();
+
+    /**
+     * Total time spent waiting for contended locks, in nanoseconds
+     */
+    protected LongAdder waitTimeNanos = new LongAdder();
 
     @Override
     public void register() {
@@ -40,89 +67,139 @@ public class GeneralLockServiceImpl extends AbstractRegistrableService implement
     @Override
     @ValidateParams
     public void lock(@ValidateStringParam(name = "objectId") String objectId) {
-        ReentrantLock nodeLock;
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Obtaining lock for id " + objectId);
-        }
-        synchronized (this) {
-            if (nodeLocks.containsKey(objectId)) {
-                nodeLock = nodeLocks.get(objectId);
-            } else {
-                nodeLock = new ReentrantLock();
-                nodeLocks.put(objectId, nodeLock);
-            }
-        }
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Lock hold count " + nodeLock.getHoldCount() + " for id " + objectId + " (before lock)");
-        }
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Lock: " + nodeLock.toString());
-        }
-        nodeLock.lock();
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Lock hold count " + nodeLock.getHoldCount() + " for id " + objectId + " (after lock)");
-        }
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Locked all threads for id " + objectId);
-        }
+        logger.debug("[{}] Obtaining lock for id {}", Thread.currentThread().getName(), objectId);
+        ReentrantLock nodeLock = acquireEntry(objectId).lock;
+        if (nodeLock.tryLock()) {
+            uncontendedCount.increment();
+        } else {
+            long start = System.nanoTime();
+            nodeLock.lock();
+            recordWait(start);
+        }
+        logger.debug("[{}] Lock hold count {} for id {} (after lock)", Thread.currentThread().getName(),
+                nodeLock.getHoldCount(), objectId);
     }
 
     @Override
     @ValidateParams
     public boolean tryLock(@ValidateStringParam(name = "objectId") String objectId) {
-        ReentrantLock nodeLock;
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Trying to get lock for id " + objectId);
+        logger.debug("[{}] Trying to get lock for id {}", Thread.currentThread().getName(), objectId);
+        ReentrantLock nodeLock = acquireEntry(objectId).lock;
+        boolean toRet = nodeLock.tryLock();
+        if (toRet) {
+            uncontendedCount.increment();
+        } else {
+            releaseEntry(objectId);
         }
-        synchronized (this) {
-            if (nodeLocks.containsKey(objectId)) {
-                nodeLock = nodeLocks.get(objectId);
+        logger.debug("[{}] Result for tryLock on id {} : {}", Thread.currentThread().getName(), objectId, toRet);
+        return toRet;
+    }
+
+    @Override
+    @ValidateParams
+    public boolean tryLock(@ValidateStringParam(name = "objectId") String objectId, long timeout, TimeUnit unit) {
+        logger.debug("[{}] Trying to get lock for id {} waiting up to {} {}", Thread.currentThread().getName(),
+                objectId, timeout, unit);
+        ReentrantLock nodeLock = acquireEntry(objectId).lock;
+        boolean toRet = nodeLock.tryLock();
+        if (toRet) {
+            uncontendedCount.increment();
+        } else {
+            long start = System.nanoTime();
+            try {
+                toRet = nodeLock.tryLock(timeout, unit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (toRet) {
+                recordWait(start);
             } else {
-                nodeLock = new ReentrantLock();
-                nodeLocks.put(objectId, nodeLock);
+                timeoutCount.increment();
+                waitTimeNanos.add(System.nanoTime() - start);
+                releaseEntry(objectId);
             }
         }
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Lock hold count " + nodeLock.getHoldCount() + " for id " + objectId + " (before tryLock)");
-        }
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Lock: " + nodeLock.toString());
-        }
-        boolean toRet = nodeLock.tryLock();
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Lock hold count " + nodeLock.getHoldCount() + " for id " + objectId + " (after tryLock)");
-        }
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Result for tryLock on id " + objectId + " : " + toRet);
-        }
+        logger.debug("[{}] Result for tryLock on id {} : {}", Thread.currentThread().getName(), objectId, toRet);
         return toRet;
     }
 
     @Override
     @ValidateParams
     public void unlock(@ValidateStringParam(name = "objectId") String objectId) {
-        ReentrantLock nodeLock = null;
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Unlocking id " + objectId);
-        }
-        synchronized (this) {
-            nodeLock = nodeLocks.get(objectId);
-        }
-        if (nodeLock != null) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("[" + Thread.currentThread().getName() + "]" + " Lock hold count " + nodeLock.getHoldCount() + " for id " + objectId + " (before unlock)");
-            }
-            if (logger.isDebugEnabled()) {
-                logger.debug("[" + Thread.currentThread().getName() + "]" + " Lock: " + nodeLock.toString());
-            }
-            nodeLock.unlock();
-            if (logger.isDebugEnabled()) {
-                logger.debug("[" + Thread.currentThread().getName() + "]" + " Lock hold count " + nodeLock.getHoldCount() + " for id " + objectId + " (after unlock)");
+        logger.debug("[{}] Unlocking id {}", Thread.currentThread().getName(), objectId);
+        LockEntry entry = nodeLocks.get(objectId);
+        if (entry != null) {
+            entry.lock.unlock();
+            releaseEntry(objectId);
+            logger.debug("[{}] Lock hold count {} for id {} (after unlock)", Thread.currentThread().getName(),
+                    entry.lock.getHoldCount(), objectId);
+        }
+        logger.debug("[{}] Finished unlocking id {}", Thread.currentThread().getName(), objectId);
+    }
+
+    @Override
+    public boolean isHeldByCurrentThread(String objectId) {
+        LockEntry entry = nodeLocks.get(objectId);
+        return entry != null && entry.lock.isHeldByCurrentThread();
+    }
+
+    /**
+     * Returns the entry for the given id, creating it if needed, and adds a reference to it
+     */
+    protected LockEntry acquireEntry(String objectId) {
+        return nodeLocks.compute(objectId, (id, entry) -> {
+            if (entry == null) {
+                entry = new LockEntry();
             }
-        }
-        if (logger.isDebugEnabled()) {
-            logger.debug("[" + Thread.currentThread().getName() + "]" + " Finished unlocking id " + objectId);
-        }
+            entry.references++;
+            return entry;
+        });
+    }
+
+    /**
+     * Removes a reference from the entry for the given id, evicting it once it is no longer used
+     */
+    protected void releaseEntry(String objectId) {
+        nodeLocks.computeIfPresent(objectId, (id, entry) -> --entry.references == 0 ? null : entry);
+    }
+
+    protected void recordWait(long start) {
+        contendedCount.increment();
+        waitTimeNanos.add(System.nanoTime() - start);
+    }
 
+    /**
+     * @return the number of locks currently held or waited for
+     */
+    public int getActiveLockCount() {
+        return nodeLocks.size();
     }
+
+    public long getUncontendedCount() {
+        return uncontendedCount.sum();
+    }
+
+    public long getContendedCount() {
+        return contendedCount.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    public long getWaitTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitTimeNanos.sum());
+    }
+
+    /**
+     * Lock with the number of threads holding or waiting for it, only modified inside the map's compute methods
+     */
+    protected static class LockEntry {
+
+        protected final ReentrantLock lock = new ReentrantLock();
+
+        protected int references;
+
+    }
+
 }
@@ -26,6 +26,7 @@ import org.craftercms.studio.api.v1.service.GeneralLockService;
 import org.craftercms.studio.api.v1.service.configuration.ContentTypesConfig;
 import org.craftercms.studio.api.v1.service.content.ContentService;
 import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
+import org.craftercms.studio.api.v1.to.ContentTypeClassifierTO;
 import org.craftercms.studio.api.v1.to.ContentTypeConfigTO;
 import org.craftercms.studio.api.v1.to.CopyDependencyConfigTO;
 import org.craftercms.studio.api.v1.to.DeleteDependencyConfigTO;
@@ -74,6 +75,7 @@ import static org.craftercms.studio.api.v1.constant.StudioConstants.SITE_CONFIG_
 import static org.craftercms.studio.api.v1.constant.StudioConstants.SITE_CONFIG_ELEMENT_SANDBOX_BRANCH;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.SITE_CONFIG_XML_ELEMENT_WORKFLOW;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_ENVIRONMENT_ACTIVE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_SITE_CONTENT_TYPES_CONFIG_BASE_PATH;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_SITE_GENERAL_CONFIG_FILE_NAME;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_PUBLISHED_LIVE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_PUBLISHED_STAGING;
@@ -274,6 +276,16 @@ public class ServicesConfigImpl implements ServicesConfig {
 		return null;
 	}
 
+	@Override
+    @ValidateParams
+	public ContentTypeClassifierTO getContentTypeClassifier(@ValidateStringParam(name = "site") String site) {
+		SiteConfigTO config = getSiteConfig(site);
+		if (config != null && config.getRepositoryConfig() != null) {
+			return config.getRepositoryConfig().getContentTypeClassifier();
+		}
+		return null;
+	}
+
 	@Override
     @ValidateParams
 	public List<String> getDisplayInWidgetPathPatterns(@ValidateStringParam(name = "site") String site) {
@@ -477,6 +489,8 @@ public class ServicesConfigImpl implements ServicesConfig {
         List<String> displayPatterns =
                 getStringList(node.selectNodes("display-in-widget-patterns/display-in-widget-pattern"));
         repoConfigTO.setDisplayPatterns(displayPatterns);
+        repoConfigTO.setContentTypeClassifier(new ContentTypeClassifierTO(repoConfigTO,
+                studioConfiguration.getProperty(CONFIGURATION_SITE_CONTENT_TYPES_CONFIG_BASE_PATH)));
         siteConfig.setRepositoryConfig(repoConfigTO);
     }
 
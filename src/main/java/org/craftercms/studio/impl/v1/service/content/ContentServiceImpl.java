@@ -18,7 +18,7 @@ package org.craftercms.studio.impl.v1.service.content;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -71,6 +71,7 @@ import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v1.service.site.SiteService;
 import org.craftercms.studio.api.v1.to.ContentAssetInfoTO;
 import org.craftercms.studio.api.v1.to.ContentItemTO;
+import org.craftercms.studio.api.v1.to.ContentTypeClassifierTO;
 import org.craftercms.studio.api.v1.to.ContentTypeConfigTO;
 import org.craftercms.studio.api.v1.to.CopyDependencyConfigTO;
 import org.craftercms.studio.api.v1.to.DeleteDependencyConfigTO;
@@ -94,6 +95,7 @@ import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
 import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
 import org.craftercms.studio.api.v2.service.security.UserService;
 import org.craftercms.studio.api.v2.service.workflow.internal.WorkflowServiceInternal;
+import org.craftercms.studio.api.v2.utils.ParsedDocumentCache;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.api.v2.utils.StudioUtils;
 import org.craftercms.studio.impl.v1.util.ContentFormatUtils;
@@ -103,26 +105,17 @@ import org.craftercms.studio.impl.v1.util.ContentUtils;
 import org.craftercms.studio.impl.v2.utils.spring.ContentResource;
 import org.craftercms.studio.model.policy.Type;
 import org.dom4j.Node;
-import org.dom4j.io.SAXReader;
 import org.dom4j.Document;
 import org.dom4j.Element;
 import org.dom4j.DocumentException;
 
 import org.apache.commons.io.IOUtils;
 import org.springframework.core.io.Resource;
-import org.xml.sax.SAXException;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_ENCODING;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_ASSET;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_COMPONENT;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_CONTENT_TYPE;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_DOCUMENT;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FILE;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FOLDER;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_LEVEL_DESCRIPTOR;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_PAGE;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_RENDERING_TEMPLATE;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_SCRIPT;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_TAXONOMY;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_TAXONOMY_REGEX;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_UNKNOWN;
@@ -183,6 +176,7 @@ public class ContentServiceImpl implements ContentService {
     protected UserService userService;
     protected ItemServiceInternal itemServiceInternal;
     protected WorkflowServiceInternal workflowServiceInternal;
+    protected ParsedDocumentCache documentCache;
 
     /**
      * file and folder name patterns for copied files and folders
@@ -260,40 +254,25 @@ public class ContentServiceImpl implements ContentService {
     public Document getContentAsDocument(@ValidateStringParam(name = "site") String site,
                                          @ValidateSecurePathParam(name = "path") String path)
             throws DocumentException {
-        // TODO: SJ: Refactor in 4.x as this already exists in Crafter Core (which is part of the new Studio)
-        Document retDocument = null;
-        InputStream is = null;
-        try {
-            is = this.getContent(site, path);
-        } catch (ContentNotFoundException e) {
-            logger.debug("Content not found for path {0}", e, path);
+        String repoSite = site;
+        if (StringUtils.equals(site, studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE))) {
+            repoSite = StringUtils.EMPTY;
         }
-
-        if(is != null) {
+        // The content is only read from the repository when the document for its current version is not cached
+        String contentId = _contentRepository.getContentId(repoSite, path);
+        if (contentId != null) {
+            String contentSite = repoSite;
+            return documentCache.getDocument(contentId,
+                    () -> _contentRepository.getContentById(contentSite, contentId));
+        }
+        return documentCache.getDocument(null, () -> {
             try {
-                SAXReader saxReader = new SAXReader();
-                try {
-                    saxReader.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-                    saxReader.setFeature("http://xml.org/sax/features/external-general-entities", false);
-                    saxReader.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-                }catch (SAXException ex){
-                    logger.error("Unable to turn off external entity loading, This could be a security risk.", ex);
-                }
-                retDocument = saxReader.read(is);
+                return getContent(site, path);
+            } catch (ContentNotFoundException e) {
+                logger.debug("Content not found for path {0}", e, path);
+                return null;
             }
-            finally {
-                try {
-                    if (is != null) {
-                        is.close();
-                    }
-                }
-                catch (IOException err) {
-                    logger.debug("Error closing stream for path {0}", err, path);
-                }
-            }
-        }
-
-        return retDocument;
+        });
     }
 
     @Override
@@ -2065,38 +2044,23 @@ public class ContentServiceImpl implements ContentService {
     @ValidateParams
     public String getContentTypeClass(@ValidateStringParam(name = "site") String site, String uri) {
         // TODO: SJ: This reads: if can't guess what it is, it's a page. This is to be replaced in 3.1+
-        if (uri.endsWith(FILE_SEPARATOR + servicesConfig.getLevelDescriptorName(site))) {
-            return CONTENT_TYPE_LEVEL_DESCRIPTOR;
-        } else if (matchesPatterns(uri, servicesConfig.getPagePatterns(site))) {
-            return CONTENT_TYPE_PAGE;
-        } else if (matchesPatterns(uri, servicesConfig.getComponentPatterns(site))) {
-            return CONTENT_TYPE_COMPONENT;
-        } else if (matchesPatterns(uri, servicesConfig.getDocumentPatterns(site))) {
-            return CONTENT_TYPE_DOCUMENT;
-        } else if (matchesPatterns(uri, servicesConfig.getAssetPatterns(site))) {
-            return CONTENT_TYPE_ASSET;
-        } else if (matchesPatterns(uri, servicesConfig.getRenderingTemplatePatterns(site))) {
-            return CONTENT_TYPE_RENDERING_TEMPLATE;
-        } else if (StringUtils.startsWith(uri, contentTypeService.getConfigPath())) {
-            return CONTENT_TYPE_CONTENT_TYPE;
-        } else if (matchesPatterns(uri, Arrays.asList(CONTENT_TYPE_TAXONOMY_REGEX))) {
-            return CONTENT_TYPE_TAXONOMY;
-        } else if (matchesPatterns(uri, servicesConfig.getScriptsPatterns(site))) {
-            return CONTENT_TYPE_SCRIPT;
-        }
-
-        return CONTENT_TYPE_FILE;
-    }
-
-    protected boolean matchesPatterns(String uri, List<String> patterns) {
-        if (patterns != null) {
-            for (String pattern : patterns) {
-                if (uri.matches(pattern)) {
-                    return true;
-                }
-            }
+        return getContentTypeClassifier(site).classify(uri);
+    }
+
+    @Override
+    @ValidateParams
+    public Map<String, String> getContentTypeClasses(@ValidateStringParam(name = "site") String site,
+                                                     Collection<String> uris) {
+        return getContentTypeClassifier(site).classify(uris);
+    }
+
+    protected ContentTypeClassifierTO getContentTypeClassifier(String site) {
+        ContentTypeClassifierTO classifier = servicesConfig.getContentTypeClassifier(site);
+        if (classifier == null) {
+            // The site has no configuration, only the built-in patterns apply
+            classifier = new ContentTypeClassifierTO(null, contentTypeService.getConfigPath());
         }
-        return false;
+        return classifier;
     }
 
     @Override
@@ -2683,4 +2647,8 @@ public class ContentServiceImpl implements ContentService {
     public void setWorkflowServiceInternal(WorkflowServiceInternal workflowServiceInternal) {
         this.workflowServiceInternal = workflowServiceInternal;
     }
-}
\ No newline at end of file
+
+    public void setDocumentCache(ParsedDocumentCache documentCache) {
+        this.documentCache = documentCache;
+    }
+}
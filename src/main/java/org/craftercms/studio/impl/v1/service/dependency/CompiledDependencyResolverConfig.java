@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.dependency;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.MapUtils;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v1.to.DependencyResolverConfigTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * Compiled version of a {@link DependencyResolverConfigTO}, all regular expressions are compiled once so the
+ * configuration can be cached and shared between threads.
+ *
+ * <p>The find expressions of each item type are also combined in a single expression used to locate the positions
+ * where at least one of them matches, so the content is scanned once no matter how many dependency types are
+ * configured. The individual expressions are only evaluated in those positions, which gives the same results as
+ * running each one of them over the whole content.</p>
+ *
+ * @since 4.0.0
+ */
+public class CompiledDependencyResolverConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompiledDependencyResolverConfig.class);
+
+    /**
+     * Backreferences can't be combined in a single expression because the group numbers change
+     */
+    protected static final Pattern BACKREFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+
+    protected final List<ItemType> itemTypes;
+
+    public CompiledDependencyResolverConfig(DependencyResolverConfigTO config) {
+        if (MapUtils.isEmpty(config.getItemTypes())) {
+            itemTypes = Collections.emptyList();
+        } else {
+            itemTypes = config.getItemTypes().values().stream()
+                    .map(ItemType::new)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Finds the item type for the given path
+     * @param path the path of the item
+     * @return the first item type that includes the path, null if none does
+     */
+    public ItemType getItemType(String path) {
+        for (ItemType itemType : itemTypes) {
+            if (itemType.includes(path)) {
+                return itemType;
+            }
+        }
+        return null;
+    }
+
+    public static class ItemType {
+
+        protected final List<Pattern> includes;
+        protected final Set<String> dependencyTypes = new LinkedHashSet<>();
+        protected final List<ExtractionPattern> patterns = new ArrayList<>();
+        protected final Pattern candidates;
+
+        protected ItemType(DependencyResolverConfigTO.ItemType itemType) {
+            includes = CollectionUtils.emptyIfNull(itemType.getIncludes()).stream()
+                    .map(Pattern::compile)
+                    .collect(Collectors.toList());
+            Map<String, DependencyResolverConfigTO.DependencyType> types = itemType.getDependencyTypes();
+            if (types != null) {
+                for (DependencyResolverConfigTO.DependencyType type : types.values()) {
+                    dependencyTypes.add(type.getName());
+                    for (DependencyResolverConfigTO.DependencyExtractionPattern pattern :
+                            CollectionUtils.emptyIfNull(type.getIncludes())) {
+                        patterns.add(new ExtractionPattern(type.getName(), pattern));
+                    }
+                }
+            }
+            candidates = compileCandidates(patterns);
+        }
+
+        protected static Pattern compileCandidates(List<ExtractionPattern> patterns) {
+            if (patterns.isEmpty()) {
+                return null;
+            }
+            StringBuilder regex = new StringBuilder("(?=");
+            for (int i = 0; i < patterns.size(); i++) {
+                String find = patterns.get(i).find.pattern();
+                if (BACKREFERENCE.matcher(find).find()) {
+                    return null;
+                }
+                if (i > 0) {
+                    regex.append('|');
+                }
+                regex.append("(?:").append(find).append(')');
+            }
+            regex.append(')');
+            try {
+                return Pattern.compile(regex.toString());
+            } catch (PatternSyntaxException e) {
+                logger.debug("Unable to combine the dependency patterns, each one will be used separately", e);
+                return null;
+            }
+        }
+
+        public boolean includes(String path) {
+            for (Pattern include : includes) {
+                if (include.matcher(path).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the names of all dependency types for this item type
+         */
+        public Set<String> getDependencyTypes() {
+            return dependencyTypes;
+        }
+
+        /**
+         * Finds all the references in the given content
+         * @param content the content to scan
+         * @param consumer receives the dependency type and the transformed path of each reference
+         */
+        public void scan(String content, BiConsumer<String, String> consumer) {
+            if (patterns.isEmpty()) {
+                return;
+            }
+            if (candidates == null) {
+                for (ExtractionPattern pattern : patterns) {
+                    Matcher matcher = pattern.find.matcher(content);
+                    while (matcher.find()) {
+                        consumer.accept(pattern.dependencyType, pattern.transform(matcher.group()));
+                    }
+                }
+                return;
+            }
+
+            int length = content.length();
+            Matcher[] matchers = new Matcher[patterns.size()];
+            // Same as Matcher.find, a pattern can't match again before the end of its previous match
+            int[] nextStart = new int[patterns.size()];
+            for (int i = 0; i < matchers.length; i++) {
+                matchers[i] = patterns.get(i).find.matcher(content)
+                        .useTransparentBounds(true)
+                        .useAnchoringBounds(false);
+            }
+            Matcher candidateMatcher = candidates.matcher(content);
+            while (candidateMatcher.find()) {
+                int start = candidateMatcher.start();
+                for (int i = 0; i < matchers.length; i++) {
+                    if (start < nextStart[i]) {
+                        continue;
+                    }
+                    Matcher matcher = matchers[i].region(start, length);
+                    if (matcher.lookingAt()) {
+                        ExtractionPattern pattern = patterns.get(i);
+                        consumer.accept(pattern.dependencyType, pattern.transform(matcher.group()));
+                        nextStart[i] = matcher.end() > start ? matcher.end() : start + 1;
+                    }
+                }
+            }
+        }
+
+    }
+
+    protected static class ExtractionPattern {
+
+        protected final String dependencyType;
+        protected final Pattern find;
+        protected final List<Pattern> transformMatches = new ArrayList<>();
+        protected final List<String> transformReplaces = new ArrayList<>();
+
+        protected ExtractionPattern(String dependencyType,
+                                    DependencyResolverConfigTO.DependencyExtractionPattern pattern) {
+            this.dependencyType = dependencyType;
+            this.find = Pattern.compile(pattern.getFindRegex());
+            for (DependencyResolverConfigTO.DependencyExtractionTransform transform :
+                    CollectionUtils.emptyIfNull(pattern.getTransforms())) {
+                transformMatches.add(Pattern.compile(transform.getMatch()));
+                transformReplaces.add(transform.getReplace());
+            }
+        }
+
+        protected String transform(String matchedPath) {
+            String result = matchedPath;
+            for (int i = 0; i < transformMatches.size(); i++) {
+                result = transformMatches.get(i).matcher(result).replaceAll(transformReplaces.get(i));
+            }
+            return result;
+        }
+
+    }
+
+}
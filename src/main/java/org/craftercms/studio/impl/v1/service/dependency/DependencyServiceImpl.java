@@ -41,17 +41,23 @@ import org.craftercms.studio.api.v2.dal.ItemDAO;
 import org.craftercms.studio.api.v2.dal.ItemState;
 import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v2.service.dependency.internal.DependencyGraph;
+import org.craftercms.studio.impl.v2.service.dependency.internal.DependencyGraphIndex;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.INDEX_FILE;
@@ -84,6 +90,7 @@ public class DependencyServiceImpl implements DependencyService {
     protected ItemDAO itemDao;
     protected GeneralLockService generalLockService;
     protected RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    protected DependencyGraphIndex dependencyGraphIndex;
 
     @Override
     public Set<String> upsertDependencies(String site, String path)
@@ -113,9 +120,11 @@ public class DependencyServiceImpl implements DependencyService {
                 insertDependenciesIntoDatabase(dependencyEntities);
                 logger.debug("Committing transaction.");
                 transactionManager.commit(txStatus);
+                updateDependencyIndex(site, Collections.singletonList(path), dependencyEntities);
             } catch (Exception e) {
                 logger.debug("Rolling back transaction.", e);
                 transactionManager.rollback(txStatus);
+                dependencyGraphIndex.invalidate(site);
                 throw new ServiceLayerException("Failed to upsert dependencies for site: " + site + " path: " + path, e);
             } finally {
                 generalLockService.unlock(lock);
@@ -160,9 +169,11 @@ public class DependencyServiceImpl implements DependencyService {
             insertDependenciesIntoDatabase(dependencyEntities);
             logger.debug("Committing transaction.");
             transactionManager.commit(txStatus);
+            updateDependencyIndex(site, paths, dependencyEntities);
         } catch (Exception e) {
             logger.debug("Rolling back transaction.", e);
             transactionManager.rollback(txStatus);
+            dependencyGraphIndex.invalidate(site);
             throw new ServiceLayerException("Failed to upsert dependencies for site: " + site + " paths: " +
                     sbPaths.toString(), e);
         } finally {
@@ -171,6 +182,22 @@ public class DependencyServiceImpl implements DependencyService {
         return toRet;
     }
 
+    /**
+     * Replaces the dependencies of the given paths in the dependency index with the given entities
+     */
+    protected void updateDependencyIndex(String site, List<String> paths, List<DependencyEntity> dependencyEntities) {
+        Map<String, Set<String>> dependencies = new HashMap<String, Set<String>>();
+        for (String path : paths) {
+            dependencies.put(path, new HashSet<String>());
+        }
+        for (DependencyEntity dependencyEntity : dependencyEntities) {
+            dependencies.computeIfAbsent(dependencyEntity.getSourcePath(), key -> new HashSet<String>())
+                    .add(dependencyEntity.getTargetPath());
+        }
+        dependencies.forEach((sourcePath, targetPaths) ->
+                dependencyGraphIndex.setDependencies(site, sourcePath, targetPaths));
+    }
+
     public void deleteAllSourceDependencies(String site, String path) {
         logger.debug("Delete all source dependencies for site: " + site + " path: " + path);
         Map<String, String> params = new HashMap<String, String>();
@@ -238,6 +265,12 @@ public class DependencyServiceImpl implements DependencyService {
             throw new ContentNotFoundException();
         }
 
+        DependencyGraph graph = dependencyGraphIndex.getGraph(site);
+        if (graph != null) {
+            return graph.getClosure(Collections.singletonList(path), false, depth,
+                    getItemSpecificDependenciesFilter());
+        }
+
         Set<String> toRet = new HashSet<String>();
         Set<String> paths = new HashSet<String>();
         boolean exitCondition = false;
@@ -262,6 +295,14 @@ public class DependencyServiceImpl implements DependencyService {
         return toRet;
     }
 
+    private List<String> findItemSpecificDependencies(String site, Set<String> paths) {
+        DependencyGraph graph = dependencyGraphIndex.getGraph(site);
+        if (graph != null) {
+            return new ArrayList<String>(graph.getClosure(paths, false, 1, getItemSpecificDependenciesFilter()));
+        }
+        return getItemSpecificDependenciesFromDB(site, paths);
+    }
+
     private List<String> getItemSpecificDependenciesFromDB(String site, Set<String> paths) {
         if (CollectionUtils.isEmpty(paths)) {
             return new ArrayList<String>();
@@ -288,6 +329,11 @@ public class DependencyServiceImpl implements DependencyService {
 
         logger.debug("Get dependency items for content " + path + " for site " + site);
 
+        DependencyGraph graph = dependencyGraphIndex.getGraph(site);
+        if (graph != null) {
+            return graph.getClosure(Collections.singletonList(path), false, depth, p -> true);
+        }
+
         Set<String> toRet = new HashSet<String>();
         Set<String> paths = new HashSet<String>();
         paths.add(path);
@@ -310,6 +356,14 @@ public class DependencyServiceImpl implements DependencyService {
         return toRet;
     }
 
+    private List<String> findItemDependencies(String site, Set<String> paths) {
+        DependencyGraph graph = dependencyGraphIndex.getGraph(site);
+        if (graph != null) {
+            return new ArrayList<String>(graph.getDependencies(paths));
+        }
+        return getItemDependenciesFromDB(site, paths);
+    }
+
     private List<String> getItemDependenciesFromDB(String site, Set<String> paths) {
         if (CollectionUtils.isEmpty(paths)) {
             return new ArrayList<String>();
@@ -334,6 +388,11 @@ public class DependencyServiceImpl implements DependencyService {
         }
 
         logger.debug("Get items depending on content " + path + " for site " + site);
+        DependencyGraph graph = dependencyGraphIndex.getGraph(site);
+        if (graph != null) {
+            return graph.getClosure(Collections.singletonList(path), true, depth, p -> true);
+        }
+
         Set<String> toRet = new HashSet<String>();
         Set<String> paths = new HashSet<String>();
         paths.add(path);
@@ -385,6 +444,7 @@ public class DependencyServiceImpl implements DependencyService {
         params.put(OLD_PATH_PARAM, oldPath);
         params.put(NEW_PATH_PARAM, newPath);
         retryingDatabaseOperationFacade.moveDependency(params);
+        dependencyGraphIndex.moveItem(site, oldPath, newPath);
 
         return getItemDependencies(site, newPath, 1);
     }
@@ -401,6 +461,7 @@ public class DependencyServiceImpl implements DependencyService {
         params.put(SITE_PARAM, site);
         params.put(PATH_PARAM, path);
         retryingDatabaseOperationFacade.deleteDependenciesForSiteAndPath(params);
+        dependencyGraphIndex.removeItem(site, path);
     }
 
     @Override
@@ -409,6 +470,7 @@ public class DependencyServiceImpl implements DependencyService {
         Map<String, String> params = new HashMap<String, String>();
         params.put(SITE_PARAM, site);
         retryingDatabaseOperationFacade.deleteDependenciesForSite(params);
+        dependencyGraphIndex.invalidate(site);
     }
 
     @Override
@@ -467,7 +529,7 @@ public class DependencyServiceImpl implements DependencyService {
         depsSource.addAll(children);
         Set<String> dependencies = getContentTypeFilteredDeleteDependencies(site, depsSource);
         toRet.addAll(dependencies);
-        List<String> itemSpecificcDeps = getItemSpecificDependenciesFromDB(site, depsSource);
+        List<String> itemSpecificcDeps = findItemSpecificDependencies(site, depsSource);
         toRet.addAll(itemSpecificcDeps);
         boolean doItAgain = false;
 
@@ -489,7 +551,7 @@ public class DependencyServiceImpl implements DependencyService {
 
     private Set<String> getContentTypeFilteredDeleteDependencies(String site, Set<String> paths) {
         Set<String> toRet = new HashSet<String>();
-        List<String> deps = getItemDependenciesFromDB(site, paths);
+        List<String> deps = findItemDependencies(site, paths);
         for (String dep : deps) {
             ContentItemTO item = contentService.getContentItem(site, dep, 0);
             List<DeleteDependencyConfigTO> deleteDependencyConfigList =
@@ -528,6 +590,16 @@ public class DependencyServiceImpl implements DependencyService {
         return toRet;
     }
 
+    /**
+     * @return filter that matches the paths of item specific dependencies, the same way the database does
+     */
+    protected Predicate<String> getItemSpecificDependenciesFilter() {
+        List<Pattern> patterns = getItemSpecificDependenciesPatterns().stream()
+                .map(Pattern::compile)
+                .collect(Collectors.toList());
+        return path -> patterns.stream().anyMatch(pattern -> pattern.matcher(path).find());
+    }
+
     protected List<String> getItemSpecificDependenciesPatterns() {
         StringTokenizer st = new StringTokenizer(
                 studioConfiguration.getProperty(CONFIGURATION_DEPENDENCY_ITEM_SPECIFIC_PATTERNS), ",");
@@ -753,4 +825,12 @@ public class DependencyServiceImpl implements DependencyService {
     public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
         this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
     }
+
+    public DependencyGraphIndex getDependencyGraphIndex() {
+        return dependencyGraphIndex;
+    }
+
+    public void setDependencyGraphIndex(DependencyGraphIndex dependencyGraphIndex) {
+        this.dependencyGraphIndex = dependencyGraphIndex;
+    }
 }
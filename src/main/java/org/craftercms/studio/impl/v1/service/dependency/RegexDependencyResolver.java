@@ -16,7 +16,7 @@
 
 package org.craftercms.studio.impl.v1.service.dependency;
 
-import org.apache.commons.collections4.CollectionUtils;
+import com.google.common.cache.Cache;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
@@ -25,7 +25,6 @@ import org.craftercms.studio.api.v1.service.dependency.DependencyResolver;
 import org.craftercms.studio.api.v1.to.DependencyResolverConfigTO;
 import org.craftercms.studio.api.v2.service.config.ConfigurationService;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
-import org.craftercms.studio.impl.v1.util.ContentUtils;
 import org.dom4j.Document;
 import org.dom4j.Element;
 
@@ -35,9 +34,9 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.MODULE_STUDIO;
@@ -53,23 +52,22 @@ public class RegexDependencyResolver implements DependencyResolver {
     protected ContentService contentService;
     protected StudioConfiguration studioConfiguration;
     protected ConfigurationService configurationService;
+    protected Cache<String, Optional<CompiledDependencyResolverConfig>> configurationCache;
 
     @Override
     public Map<String, Set<String>> resolve(String site, String path) {
         Map<String, Set<String>> toRet = new HashMap<String, Set<String>>();
         try {
             logger.debug("Get dependency resolver configuration for site " + site);
-            DependencyResolverConfigTO config = getConfiguration(site);
+            CompiledDependencyResolverConfig config = getCompiledConfiguration(site);
             if (config != null) {
                 logger.debug("Determine item type of content for site: " + site + ", path: " + path);
-                DependencyResolverConfigTO.ItemType itemType = getItemTypeResolverConfig(site, path, config);
+                CompiledDependencyResolverConfig.ItemType itemType = config.getItemType(path);
                 if (itemType != null) {
                     String content = contentService.getContentAsString(site, path);
                     if (content != null) {
-                        Map<String, DependencyResolverConfigTO.DependencyType> dependencyTypes =
-                                itemType.getDependencyTypes();
                         logger.debug("Get dependencies of content for site: " + site + ", path: " + path);
-                        toRet = getDependencies(site, path, content, dependencyTypes);
+                        toRet = getDependencies(site, path, content, itemType);
                     } else {
                         logger.error("Failed to extract dependencies. " +
                                 "No content or empty content found for site: " + site + ", path: " + path);
@@ -88,6 +86,21 @@ public class RegexDependencyResolver implements DependencyResolver {
         return toRet;
     }
 
+    /**
+     * Returns the compiled configuration for the given site, it is cached with the rest of the configuration so it
+     * is invalidated when the configuration file changes
+     */
+    private CompiledDependencyResolverConfig getCompiledConfiguration(String site) throws ExecutionException {
+        var environment = studioConfiguration.getProperty(CONFIGURATION_ENVIRONMENT_ACTIVE);
+        var cacheKey = configurationService.getCacheKey(site, MODULE_STUDIO, getConfigFileName(), environment,
+                "object");
+        return configurationCache.get(cacheKey, () -> {
+            logger.debug("Cache miss: {0}", cacheKey);
+            DependencyResolverConfigTO config = getConfiguration(site);
+            return Optional.ofNullable(config != null ? new CompiledDependencyResolverConfig(config) : null);
+        }).orElse(null);
+    }
+
     @SuppressWarnings("unchecked")
     private DependencyResolverConfigTO getConfiguration(String site) {
         DependencyResolverConfigTO config = null;
@@ -186,68 +199,30 @@ public class RegexDependencyResolver implements DependencyResolver {
         return config;
     }
 
-    private DependencyResolverConfigTO.ItemType getItemTypeResolverConfig(String site, String path,
-                                                                          DependencyResolverConfigTO config) {
-        logger.debug("Loop through all item types to match path against include patterns");
-        Map<String, DependencyResolverConfigTO.ItemType> itemTypes = config.getItemTypes();
-        DependencyResolverConfigTO.ItemType itemType = null;
-        if (itemTypes != null) {
-            for (Map.Entry<String, DependencyResolverConfigTO.ItemType> entry : itemTypes.entrySet()) {
-                DependencyResolverConfigTO.ItemType it = entry.getValue();
-                List<String> includes = it.getIncludes();
-                if (ContentUtils.matchesPatterns(path, includes)) {
-                    itemType = it;
-                    break;
-                }
-            }
-        }
-        return itemType;
-    }
-
-    private Map<String, Set<String>> getDependencies(String site, String path, String content, Map<String,
-            DependencyResolverConfigTO.DependencyType> dependencyTypes) {
+    private Map<String, Set<String>> getDependencies(String site, String path, String content,
+                                                     CompiledDependencyResolverConfig.ItemType itemType) {
         Map<String, Set<String>> toRet = new HashMap<String, Set<String>>();
-        logger.debug("Loop through all dependency types");
-        for (Map.Entry<String, DependencyResolverConfigTO.DependencyType> dependencyTypeEntry :
-                dependencyTypes.entrySet()) {
-            Set<String> extractedPaths = new HashSet<String>();
-            DependencyResolverConfigTO.DependencyType dependencyType = dependencyTypeEntry.getValue();
-            List<DependencyResolverConfigTO.DependencyExtractionPattern> extractionPatterns =
-                    dependencyType.getIncludes();
-            logger.debug("Loop through all extraction patterns for " + dependencyTypeEntry.getKey());
-            for (DependencyResolverConfigTO.DependencyExtractionPattern extractionPattern :
-                    extractionPatterns) {
-                Pattern pattern = Pattern.compile(extractionPattern.getFindRegex());
-                Matcher matcher = pattern.matcher(content);
-                logger.debug("Matching content against regular expression " + extractionPattern.getFindRegex());
-                while (matcher.find()) {
-                    String matchedPath = matcher.group();
-                    logger.debug("Matched path: " + matchedPath + ". Apply transformations");
-                    if (CollectionUtils.isNotEmpty(extractionPattern.getTransforms())) {
-                        for (DependencyResolverConfigTO.DependencyExtractionTransform transform :
-                                extractionPattern.getTransforms()) {
-                            Pattern find = Pattern.compile(transform.getMatch());
-                            Matcher replaceMatcher = find.matcher(matchedPath);
-                            matchedPath = replaceMatcher.replaceAll(transform.getReplace());
-                        }
-                    }
-                    if (contentService.contentExists(site, matchedPath)) {
-                        logger.debug("Content exists for matched path " + matchedPath + ". Adding to the result set");
-                        extractedPaths.add(matchedPath);
-                    } else {
-                        String message = "Found reference to " + matchedPath + " in content at " +
-                                path + " but content does not exist in referenced path for site " +
-                                site + ".\n"
-                                + "Regular expression for extracting dependencies matched " +
-                                "string, and after applying transformation rules to get value " +
-                                "for dependency path, that dependency path was not found in" +
-                                " site repository as a content.";
-                        logger.debug(message);
-                    }
-                }
-            }
-            toRet.put(dependencyType.getName(), extractedPaths);
+        for (String dependencyType : itemType.getDependencyTypes()) {
+            toRet.put(dependencyType, new HashSet<String>());
         }
+        // The same path is usually referenced many times in the same content
+        Map<String, Boolean> existingPaths = new HashMap<String, Boolean>();
+        logger.debug("Matching content against all extraction patterns");
+        itemType.scan(content, (dependencyType, matchedPath) -> {
+            if (existingPaths.computeIfAbsent(matchedPath, p -> contentService.contentExists(site, p))) {
+                logger.debug("Content exists for matched path " + matchedPath + ". Adding to the result set");
+                toRet.get(dependencyType).add(matchedPath);
+            } else {
+                String message = "Found reference to " + matchedPath + " in content at " +
+                        path + " but content does not exist in referenced path for site " +
+                        site + ".\n"
+                        + "Regular expression for extracting dependencies matched " +
+                        "string, and after applying transformation rules to get value " +
+                        "for dependency path, that dependency path was not found in" +
+                        " site repository as a content.";
+                logger.debug(message);
+            }
+        });
         return toRet;
     }
 
@@ -291,4 +266,8 @@ public class RegexDependencyResolver implements DependencyResolver {
     public void setConfigurationService(ConfigurationService configurationService) {
         this.configurationService = configurationService;
     }
+
+    public void setConfigurationCache(Cache<String, Optional<CompiledDependencyResolverConfig>> configurationCache) {
+        this.configurationCache = configurationCache;
+    }
 }
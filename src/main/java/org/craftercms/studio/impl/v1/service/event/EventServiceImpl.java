@@ -23,76 +23,339 @@ import org.craftercms.studio.api.v1.ebus.*;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.service.event.EventService;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 
-import java.lang.reflect.InvocationTargetException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
-public class EventServiceImpl implements EventService, ApplicationContextAware {
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.EVENT_BUS_ASYNC_EVENTS;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.EVENT_BUS_ASYNC_LANES;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.EVENT_BUS_ASYNC_QUEUE_CAPACITY;
+
+/**
+ * Default implementation of {@link EventService}.
+ *
+ * <p>Listeners subscribed by bean name are bound to their bean the first time an event is delivered to them, after
+ * that they are invoked through a {@link MethodHandle} without any lookup. Listeners can also be subscribed with a
+ * typed handler.</p>
+ *
+ * <p>Events are delivered on the publishing thread unless they are configured as asynchronous, in that case they
+ * are queued in one of several single threaded lanes chosen by site, so the events of a site are delivered in the
+ * order they were published. When a lane is full the publishing thread waits until there is room, unless it is a
+ * lane thread itself, in that case the event is delivered inline so lanes never wait on each other.</p>
+ *
+ * <p>The inline delivery is the only exception to the ordering: an event published by a listener while the lane of
+ * its site is full can be delivered before the events of the same site still waiting in that lane.</p>
+ */
+public class EventServiceImpl implements EventService, EventServiceImplMXBean, ApplicationContextAware {
 
     private static final Logger logger = LoggerFactory.getLogger(EventServiceImpl.class);
 
+    public static final String OBJECT_NAME = "org.craftercms.studio:type=EventService";
+
+    private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Object[].class);
+
     protected ApplicationContext applicationContext;
+    protected StudioConfiguration studioConfiguration;
+
+    private final Map<String, List<EventSubscriber>> eventListeners = new ConcurrentHashMap<>();
+
+    private final Map<String, EventStats> eventStats = new ConcurrentHashMap<>();
 
-    private Map<String, List<EventSubscriber>> eventListeners = new HashMap<String, List<EventSubscriber>>();
+    private Set<String> asyncEvents = Collections.emptySet();
+
+    private ThreadPoolExecutor[] lanes = new ThreadPoolExecutor[0];
+
+    /**
+     * Indicates if the current thread is one of the lanes
+     */
+    private final ThreadLocal<Boolean> laneThread = ThreadLocal.withInitial(() -> false);
+
+    public void init() {
+        asyncEvents = new HashSet<>(Arrays.asList(StringUtils.split(
+                StringUtils.defaultString(studioConfiguration.getProperty(EVENT_BUS_ASYNC_EVENTS)), ", ")));
+        if (!asyncEvents.isEmpty()) {
+            int laneCount = studioConfiguration.getProperty(EVENT_BUS_ASYNC_LANES, Integer.class);
+            int queueCapacity = studioConfiguration.getProperty(EVENT_BUS_ASYNC_QUEUE_CAPACITY, Integer.class);
+            lanes = new ThreadPoolExecutor[laneCount];
+            for (int i = 0; i < laneCount; i++) {
+                String name = "studio-event-bus-" + (i + 1);
+                lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity), r -> {
+                            Thread thread = new Thread(() -> {
+                                laneThread.set(true);
+                                r.run();
+                            }, name);
+                            thread.setDaemon(true);
+                            return thread;
+                        }, (r, executor) -> {
+                            // Back-pressure: wait for room in the lane instead of dropping or reordering the event
+                            if (executor.isShutdown()) {
+                                throw new RejectedExecutionException("Event bus is shut down");
+                            }
+                            if (laneThread.get()) {
+                                // Waiting from a lane could deadlock if the full lane is waiting on this one
+                                logger.debug("Event bus lane is full, delivering inline in {0}",
+                                        Thread.currentThread().getName());
+                                r.run();
+                                return;
+                            }
+                            try {
+                                executor.getQueue().put(r);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new RejectedExecutionException("Interrupted while waiting for the event bus", e);
+                            }
+                        });
+            }
+            logger.info("Asynchronous delivery enabled for events {0}", asyncEvents);
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to register the event bus metrics in JMX", e);
+        }
+    }
 
+    public void destroy() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to unregister the event bus metrics from JMX", e);
+        }
+    }
 
     @Override
     @ValidateParams
     public void publish(@ValidateStringParam(name = "event") String event, Object... args) {
-        logger.debug(String.format("Publishing %s", event));
-
-        List<EventSubscriber> listenersForEvent = getListenersForEvent(event, false);
-        if (listenersForEvent != null) {
-            for (EventSubscriber listener : listenersForEvent) {
-                Object bean = applicationContext.getBean(listener.getBeanName());
-                Method method = listener.getMethod();
-                try {
-                    method.invoke(bean, args);
-                } catch (IllegalAccessException | InvocationTargetException e) {
-                    logger.error("Error invoking listeners method for Publishing event: " + listener.getBeanName() + " - " + listener.getMethod());
-                }
+        logger.debug("Publishing {0}", event);
+
+        List<EventSubscriber> listenersForEvent = eventListeners.get(event);
+        if (listenersForEvent == null || listenersForEvent.isEmpty()) {
+            return;
+        }
+
+        EventStats stats = eventStats.computeIfAbsent(event, e -> new EventStats());
+        stats.published.increment();
+        if (asyncEvents.contains(event)) {
+            ThreadPoolExecutor lane = getLane(event, args);
+            stats.queued.increment();
+            try {
+                lane.execute(() -> {
+                    stats.queued.decrement();
+                    deliver(event, listenersForEvent, stats, args);
+                });
+            } catch (RejectedExecutionException e) {
+                stats.queued.decrement();
+                logger.warn("Event bus rejected {0}, delivering it synchronously", event);
+                deliver(event, listenersForEvent, stats, args);
             }
+        } else {
+            deliver(event, listenersForEvent, stats, args);
         }
     }
 
-    protected List<EventSubscriber> getListenersForEvent(String event, boolean create) {
-        List<EventSubscriber> listeners = eventListeners.get(event);
-        if (listeners == null && create) {
-            listeners = new ArrayList<EventSubscriber>();
-            eventListeners.put(event, listeners);
+    protected void deliver(String event, List<EventSubscriber> listeners, EventStats stats, Object[] args) {
+        long start = System.nanoTime();
+        for (EventSubscriber listener : listeners) {
+            try {
+                getInvoker(listener).invoke(args);
+            } catch (Throwable e) {
+                stats.errors.increment();
+                logger.error("Error invoking listeners method for Publishing event: " + event + " - " +
+                        listener.getBeanName() + " - " + listener.getMethod(),
+                        e instanceof Exception ? (Exception) e : new RuntimeException(e));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        stats.latency.add(elapsed);
+        stats.maxLatency.accumulate(elapsed);
+    }
+
+    /**
+     * Returns the invoker for the listener, binding it to its bean the first time
+     */
+    protected EventSubscriber.Invoker getInvoker(EventSubscriber listener) throws IllegalAccessException {
+        EventSubscriber.Invoker invoker = listener.getInvoker();
+        if (invoker == null) {
+            Object bean = applicationContext.getBean(listener.getBeanName());
+            Method method = listener.getMethod();
+            MethodHandle handle = MethodHandles.publicLookup()
+                    .unreflect(method)
+                    .bindTo(bean)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(HANDLER_TYPE);
+            invoker = args -> {
+                handle.invokeExact(args);
+            };
+            listener.setInvoker(invoker);
+        }
+        return invoker;
+    }
+
+    protected ThreadPoolExecutor getLane(String event, Object[] args) {
+        String key = event;
+        if (args.length > 0) {
+            String site = getSite(args[0]);
+            if (site != null) {
+                key = site;
+            }
+        }
+        return lanes[Math.floorMod(key.hashCode(), lanes.length)];
+    }
+
+    protected String getSite(Object arg) {
+        if (arg instanceof EventContext) {
+            return ((EventContext) arg).getSite();
+        } else if (arg instanceof DeploymentEventContext) {
+            return ((DeploymentEventContext) arg).getSite();
+        } else if (arg instanceof DeploymentEventMessage) {
+            return ((DeploymentEventMessage) arg).getSite();
+        } else if (arg instanceof RepositoryEventMessage) {
+            return ((RepositoryEventMessage) arg).getSite();
         }
-        return listeners;
+        return null;
     }
 
     @Override
     @ValidateParams
-    public void subscribe(@ValidateStringParam(name = "event") String event, @ValidateStringParam(name = "listener") String listener, Method method) {
-        logger.info(String.format("Subscribing %s to %s", listener, event));
-        EventSubscriber subscriber = new EventSubscriber(listener, method);
-        getListenersForEvent(event, true).add(subscriber);
+    public void subscribe(@ValidateStringParam(name = "event") String event,
+                          @ValidateStringParam(name = "listener") String listener, Method method) {
+        logger.info("Subscribing {0} to {1}", listener, event);
+        eventListeners.computeIfAbsent(event, e -> new CopyOnWriteArrayList<>())
+                .add(new EventSubscriber(listener, method));
     }
 
     @Override
     @ValidateParams
-    public void unSubscribe(@ValidateStringParam(name = "event") String event, @ValidateStringParam(name = "listener") String listener) {
-        logger.debug(String.format("UnSubscribing %s to %s", listener, event));
-        List<EventSubscriber> listeners = getListenersForEvent(event, false);
-        for (EventSubscriber subscriber : listeners) {
-            if (StringUtils.equals(subscriber.getBeanName(), listener)) {
-                listeners.remove(subscriber);
-            }
+    public <T> void subscribe(@ValidateStringParam(name = "event") String event,
+                              @ValidateStringParam(name = "listener") String listener, Class<T> type,
+                              Consumer<T> handler) {
+        logger.info("Subscribing {0} to {1}", listener, event);
+        EventSubscriber subscriber = new EventSubscriber(listener, null);
+        subscriber.setInvoker(args -> handler.accept(type.cast(args[0])));
+        eventListeners.computeIfAbsent(event, e -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    @Override
+    @ValidateParams
+    public void unSubscribe(@ValidateStringParam(name = "event") String event,
+                            @ValidateStringParam(name = "listener") String listener) {
+        logger.debug("UnSubscribing {0} to {1}", listener, event);
+        List<EventSubscriber> listeners = eventListeners.get(event);
+        if (listeners != null) {
+            listeners.removeIf(subscriber -> StringUtils.equals(subscriber.getBeanName(), listener));
         }
     }
 
+    @Override
+    public Map<String, EventStats> getEventStats() {
+        return Collections.unmodifiableMap(new TreeMap<>(eventStats));
+    }
+
+    @Override
+    public List<Integer> getQueueSizes() {
+        List<Integer> sizes = new ArrayList<>(lanes.length);
+        for (ThreadPoolExecutor lane : lanes) {
+            sizes.add(lane.getQueue().size());
+        }
+        return sizes;
+    }
+
+    /**
+     * Returns the delivery stats of every published event and the number of events waiting in each lane
+     * @return map with the stats by event name and the queue size of each lane
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("eventStats", getEventStats());
+        summary.put("queueSizes", getQueueSizes());
+        return summary;
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
     }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    /**
+     * Delivery statistics for a single event
+     */
+    public static class EventStats {
+
+        private final LongAdder published = new LongAdder();
+        private final LongAdder queued = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder latency = new LongAdder();
+        private final LongAccumulator maxLatency = new LongAccumulator(Long::max, 0);
+
+        public long getPublished() {
+            return published.sum();
+        }
+
+        public long getQueued() {
+            return queued.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * Total time in nanoseconds spent running the listeners
+         */
+        public long getTotalLatency() {
+            return latency.sum();
+        }
+
+        /**
+         * Longest time in nanoseconds spent running the listeners for a single event
+         */
+        public long getMaxLatency() {
+            return maxLatency.get();
+        }
+
+    }
+
 }
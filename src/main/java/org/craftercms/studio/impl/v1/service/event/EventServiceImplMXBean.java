@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.event;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of the delivery statistics of the {@link EventServiceImpl}
+ */
+public interface EventServiceImplMXBean {
+
+    /**
+     * @return the delivery statistics for all the events that have been published, keyed by event
+     */
+    Map<String, EventServiceImpl.EventStats> getEventStats();
+
+    /**
+     * @return the number of events waiting in each asynchronous lane
+     */
+    List<Integer> getQueueSizes();
+
+}
@@ -17,6 +17,7 @@
 package org.craftercms.studio.impl.v1.service.security;
 
 import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -39,6 +40,7 @@ import org.craftercms.studio.api.v1.service.content.ContentTypeService;
 import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v1.service.site.SiteService;
 import org.craftercms.studio.api.v1.to.ContentTypeConfigTO;
+import org.craftercms.studio.api.v1.to.PermissionRuleTO;
 import org.craftercms.studio.api.v1.to.PermissionsConfigTO;
 import org.craftercms.studio.api.v2.dal.Group;
 import org.craftercms.studio.api.v2.dal.User;
@@ -72,6 +74,7 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -79,6 +82,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.TreeSet;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -104,6 +108,7 @@ import static org.craftercms.studio.api.v2.utils.StudioConfiguration.MAIL_SMTP_A
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SECURITY_CIPHER_ALGORITHM;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SECURITY_CIPHER_KEY;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SECURITY_CIPHER_TYPE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SECURITY_PERMISSIONS_CACHE_MAX_SIZE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SECURITY_SESSION_TIMEOUT;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SECURITY_TYPE;
 
@@ -114,6 +119,10 @@ public class SecurityServiceImpl implements SecurityService {
 
     private static final Logger logger = LoggerFactory.getLogger(SecurityServiceImpl.class);
 
+    protected static final String GLOBAL_PERMISSIONS_KEY = "###GLOBAL###";
+
+    protected static final long DEFAULT_PERMISSIONS_CACHE_MAX_SIZE = 10000;
+
     protected ContentTypeService contentTypeService;
     protected ContentService contentService;
     protected GeneralLockService generalLockService;
@@ -278,55 +287,7 @@ public class SecurityServiceImpl implements SecurityService {
 
     protected Set<String> populateUserGlobalPermissions(String path, Set<String> roles,
                                                   PermissionsConfigTO permissionsConfig) {
-        Set<String> permissions = new HashSet<String>();
-        if (roles != null && !roles.isEmpty()) {
-            for (String role : roles) {
-                Map<String, Map<String, List<Node>>> permissionsMap = permissionsConfig.getPermissions();
-                Map<String, List<Node>> siteRoles = permissionsMap.get("###GLOBAL###");
-                if (siteRoles == null || siteRoles.isEmpty()) {
-                    siteRoles = permissionsMap.get("*");
-                }
-                if (siteRoles != null && !siteRoles.isEmpty()) {
-                    List<Node> ruleNodes = siteRoles.get(role);
-                    if (ruleNodes == null || ruleNodes.isEmpty()) {
-                        ruleNodes = siteRoles.get("*");
-                    }
-                    if (ruleNodes != null && !ruleNodes.isEmpty()) {
-                        for (Node ruleNode : ruleNodes) {
-                            String regex = ruleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_REGEX);
-                            if (path.matches(regex)) {
-                                logger.debug("Global permissions found by matching " + regex + " for " + role);
-
-                                List<Node> permissionNodes =
-                                        ruleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_ALLOWED_PERMISSIONS);
-                                for (Node permissionNode : permissionNodes) {
-                                    String permission = permissionNode.getText().toLowerCase();
-                                    logger.debug("adding global permissions " + permission + " to " + path
-                                            + " for " + role);
-                                    permissions.add(permission);
-                                }
-                            }
-                        }
-                    } else {
-                        logger.debug("No default role is set. adding default permission: "
-                                + StudioConstants.PERMISSION_VALUE_READ);
-                        // If no default role is set
-                        permissions.add(StudioConstants.PERMISSION_VALUE_READ);
-                    }
-                } else {
-                    logger.debug("No default site is set. adding default permission: "
-                            + StudioConstants.PERMISSION_VALUE_READ);
-                    // If no default site is set
-                    permissions.add(StudioConstants.PERMISSION_VALUE_READ);
-                }
-            }
-        } else {
-            logger.debug("No user or group matching found. adding default permission: "
-                    + StudioConstants.PERMISSION_VALUE_READ);
-            // If user or group did not match the roles-mapping file
-            permissions.add(StudioConstants.PERMISSION_VALUE_READ);
-        }
-        return permissions;
+        return resolvePermissions(GLOBAL_PERMISSIONS_KEY, path, roles, permissionsConfig);
     }
 
     /* Derives a key based off the site and filename */
@@ -443,54 +404,74 @@ public class SecurityServiceImpl implements SecurityService {
      */
     protected Set<String> populateUserPermissions(String site, String path, Set<String> roles,
                                                   PermissionsConfigTO permissionsConfig) {
+        return resolvePermissions(site, path, roles, permissionsConfig);
+    }
+
+    /**
+     * Resolves the permissions for the given path and roles, the result is remembered by the configuration so
+     * listing many items only evaluates the rules once for each path
+     */
+    protected Set<String> resolvePermissions(String site, String path, Set<String> roles,
+                                             PermissionsConfigTO permissionsConfig) {
+        if (roles == null || roles.isEmpty()) {
+            logger.debug("No user or group matching found. adding default permission: "
+                    + StudioConstants.PERMISSION_VALUE_READ);
+            // If user or group did not match the roles-mapping file
+            Set<String> permissions = new HashSet<String>();
+            permissions.add(StudioConstants.PERMISSION_VALUE_READ);
+            return permissions;
+        }
+        if (permissionsConfig == null || permissionsConfig.getDecisions() == null) {
+            return evaluatePermissions(site, path, roles, permissionsConfig);
+        }
+        // roles are sorted so the same set always produces the same key
+        String decisionKey = path + ":" + String.join(",", new TreeSet<String>(roles));
+        try {
+            return new HashSet<String>(permissionsConfig.getDecisions().get(decisionKey,
+                    () -> Collections.unmodifiableSet(evaluatePermissions(site, path, roles, permissionsConfig))));
+        } catch (ExecutionException e) {
+            logger.error("Error resolving permissions for " + path + " in " + site, e);
+            return evaluatePermissions(site, path, roles, permissionsConfig);
+        }
+    }
+
+    protected Set<String> evaluatePermissions(String site, String path, Set<String> roles,
+                                              PermissionsConfigTO permissionsConfig) {
         Set<String> permissions = new HashSet<String>();
-        if (roles != null && !roles.isEmpty()) {
-            for (String role : roles) {
-                Map<String, Map<String, List<Node>>> permissionsMap = permissionsConfig.getPermissions();
-                Map<String, List<Node>> siteRoles = permissionsMap.get(site);
-                if (siteRoles == null || siteRoles.isEmpty()) {
-                    siteRoles = permissionsMap.get("*");
+        Map<String, List<PermissionRuleTO>> siteRoles = null;
+        if (permissionsConfig != null && permissionsConfig.getRules() != null) {
+            Map<String, Map<String, List<PermissionRuleTO>>> rulesMap = permissionsConfig.getRules();
+            siteRoles = rulesMap.get(site);
+            if (siteRoles == null || siteRoles.isEmpty()) {
+                siteRoles = rulesMap.get("*");
+            }
+        }
+        for (String role : roles) {
+            if (siteRoles != null && !siteRoles.isEmpty()) {
+                List<PermissionRuleTO> rules = siteRoles.get(role);
+                if (rules == null || rules.isEmpty()) {
+                    rules = siteRoles.get("*");
                 }
-                if (siteRoles != null && !siteRoles.isEmpty()) {
-                    List<Node> ruleNodes = siteRoles.get(role);
-                    if (ruleNodes == null || ruleNodes.isEmpty()) {
-                        ruleNodes = siteRoles.get("*");
-                    }
-                    if (ruleNodes != null && !ruleNodes.isEmpty()) {
-                        for (Node ruleNode : ruleNodes) {
-                            String regex = ruleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_REGEX);
-                            if (path.matches(regex)) {
-                                logger.debug("Permissions found by matching " + regex + " for " + role
-                                        + " in " + site);
-
-                                List<Node> permissionNodes = ruleNode.selectNodes(
-                                        StudioXmlConstants.DOCUMENT_ELM_ALLOWED_PERMISSIONS);
-                                for (Node permissionNode : permissionNodes) {
-                                    String permission = permissionNode.getText().toLowerCase();
-                                    logger.debug("adding permissions " + permission + " to " + path + " for "
-                                            + role + " in " + site);
-                                    permissions.add(permission);
-                                }
-                            }
+                if (rules != null && !rules.isEmpty()) {
+                    for (PermissionRuleTO rule : rules) {
+                        if (rule.matches(path)) {
+                            logger.debug("Permissions found by matching " + rule.getRegex() + " for " + role
+                                    + " in " + site + ": " + rule.getAllowedPermissions());
+                            permissions.addAll(rule.getAllowedPermissions());
                         }
-                    } else {
-                        logger.debug("No default role is set. adding default permission: "
-                                + StudioConstants.PERMISSION_VALUE_READ);
-                        // If no default role is set
-                        permissions.add(StudioConstants.PERMISSION_VALUE_READ);
                     }
                 } else {
-                    logger.debug("No default site is set. adding default permission: "
+                    logger.debug("No default role is set. adding default permission: "
                             + StudioConstants.PERMISSION_VALUE_READ);
-                    // If no default site is set
+                    // If no default role is set
                     permissions.add(StudioConstants.PERMISSION_VALUE_READ);
                 }
+            } else {
+                logger.debug("No default site is set. adding default permission: "
+                        + StudioConstants.PERMISSION_VALUE_READ);
+                // If no default site is set
+                permissions.add(StudioConstants.PERMISSION_VALUE_READ);
             }
-        } else {
-            logger.debug("No user or group matching found. adding default permission: "
-                    + StudioConstants.PERMISSION_VALUE_READ);
-            // If user or group did not match the roles-mapping file
-            permissions.add(StudioConstants.PERMISSION_VALUE_READ);
         }
         return permissions;
     }
@@ -573,18 +554,39 @@ public class SecurityServiceImpl implements SecurityService {
 
             List<Node> roleNodes = permissionsRoot.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_ROLE);
             Map<String, List<Node>> rules = new HashMap<String, List<Node>>();
+            Map<String, List<PermissionRuleTO>> compiledRules = new HashMap<String, List<PermissionRuleTO>>();
             for (Node roleNode : roleNodes) {
                 String roleName = roleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_PERMISSIONS_NAME);
                 List<Node> ruleNodes = roleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_RULE);
                 rules.put(roleName, ruleNodes);
+                compiledRules.put(roleName, compileRules(ruleNodes));
             }
             permissionsMap.put(siteId, rules);
 
             config.setPermissions(permissionsMap);
+            config.setRules(Collections.singletonMap(siteId, compiledRules));
+            config.setDecisions(CacheBuilder.newBuilder()
+                    .maximumSize(studioConfiguration.getProperty(SECURITY_PERMISSIONS_CACHE_MAX_SIZE, Long.class,
+                            DEFAULT_PERMISSIONS_CACHE_MAX_SIZE))
+                    .build());
         }
     }
 
 
+    protected List<PermissionRuleTO> compileRules(List<Node> ruleNodes) {
+        List<PermissionRuleTO> compiledRules = new ArrayList<PermissionRuleTO>(ruleNodes.size());
+        for (Node ruleNode : ruleNodes) {
+            Set<String> allowedPermissions = new HashSet<String>();
+            List<Node> permissionNodes = ruleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_ALLOWED_PERMISSIONS);
+            for (Node permissionNode : permissionNodes) {
+                allowedPermissions.add(permissionNode.getText().toLowerCase());
+            }
+            compiledRules.add(new PermissionRuleTO(ruleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_REGEX),
+                    Collections.unmodifiableSet(allowedPermissions)));
+        }
+        return compiledRules;
+    }
+
     protected PermissionsConfigTO loadGlobalPermissionsConfiguration() {
         String globalPermissionsConfigPath = getGlobalConfigPath() + FILE_SEPARATOR + getGlobalPermissionsFileName();
         var cacheKey = configurationService.getCacheKey(null, null, globalPermissionsConfigPath, null, "object");
@@ -598,9 +600,9 @@ public class SecurityServiceImpl implements SecurityService {
                     Element root = document.getRootElement();
 
                     // permissions file
-                    loadPermissions("###GLOBAL###", root, config);
+                    loadPermissions(GLOBAL_PERMISSIONS_KEY, root, config);
 
-                    String globalPermissionsKey = "###GLOBAL###:" + getGlobalPermissionsFileName();
+                    String globalPermissionsKey = GLOBAL_PERMISSIONS_KEY + ":" + getGlobalPermissionsFileName();
                     config.setKey(globalPermissionsKey);
                     config.setLastUpdated(ZonedDateTime.now(ZoneOffset.UTC));
 
@@ -620,29 +622,35 @@ public class SecurityServiceImpl implements SecurityService {
 
     protected PermissionsConfigTO loadGlobalRolesConfiguration() {
         String globalRolesConfigPath = getGlobalConfigPath() + FILE_SEPARATOR + getGlobalRoleMappingsFileName();
-        Document document = null;
-        PermissionsConfigTO config = null;
+        var cacheKey = configurationService.getCacheKey(null, null, globalRolesConfigPath, null, "object");
+
         try {
-            document = configurationService.getGlobalConfigurationAsDocument(globalRolesConfigPath);
-        } catch (ServiceLayerException e) {
-            logger.error("Global roles mapping not found (path: {0})", globalRolesConfigPath);
-        }
-        if (document != null) {
-            config = new PermissionsConfigTO();
-            config.setMapping(document);
-            Element root = document.getRootElement();
+            var roles = cache.get(cacheKey, () -> {
+                Document document = configurationService.getGlobalConfigurationAsDocument(globalRolesConfigPath);
+                if (document != null) {
+                    PermissionsConfigTO config = new PermissionsConfigTO();
+                    config.setMapping(document);
+                    Element root = document.getRootElement();
+
+                    // roles file
+                    loadRoles(root, config);
 
-            // roles file
-            loadRoles(root, config);
+                    String globalRolesKey = GLOBAL_PERMISSIONS_KEY + ":" + getGlobalRoleMappingsFileName();
+                    config.setKey(globalRolesKey);
+                    config.setLastUpdated(ZonedDateTime.now(ZoneOffset.UTC));
 
-            String globalRolesKey = "###GLOBAL###:" + getGlobalRoleMappingsFileName();
-            config.setKey(globalRolesKey);
-            config.setLastUpdated(ZonedDateTime.now(ZoneOffset.UTC));
+                    return Optional.of(config);
+                } else {
+                    logger.error("Global roles mapping not found (path: {0})", globalRolesConfigPath);
+                    return Optional.empty();
+                }
+            });
 
-        } else {
+            return roles.orElse(null);
+        } catch (ExecutionException e) {
             logger.error("Global roles mapping not found (path: {0})", globalRolesConfigPath);
+            return null;
         }
-        return config;
     }
 
     @Override
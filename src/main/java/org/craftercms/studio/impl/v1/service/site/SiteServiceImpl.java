@@ -26,6 +26,7 @@ import java.nio.file.StandardOpenOption;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -34,7 +35,9 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.collections4.CollectionUtils;
@@ -102,12 +105,14 @@ import org.craftercms.studio.api.v2.dal.UserDAO;
 import org.craftercms.studio.api.v2.deployment.Deployer;
 import org.craftercms.studio.api.v2.exception.MissingPluginParameterException;
 import org.craftercms.studio.api.v2.repository.ContentRepository;
+import org.craftercms.studio.api.v2.repository.RepoOperationsHandler;
 import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
 import org.craftercms.studio.api.v2.service.config.ConfigurationService;
 import org.craftercms.studio.api.v2.service.dependency.internal.DependencyServiceInternal;
 import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
 import org.craftercms.studio.api.v2.service.security.internal.GroupServiceInternal;
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
+import org.craftercms.studio.api.v2.service.site.internal.SiteRegistry;
 import org.craftercms.studio.api.v2.service.site.internal.SitesServiceInternal;
 import org.craftercms.studio.api.v2.service.workflow.internal.WorkflowServiceInternal;
 import org.craftercms.studio.api.v2.upgrade.StudioUpgradeManager;
@@ -116,6 +121,7 @@ import org.craftercms.studio.api.v2.utils.StudioUtils;
 import org.craftercms.studio.impl.v1.repository.job.RebuildRepositoryMetadata;
 import org.craftercms.studio.impl.v1.repository.job.SyncDatabaseWithRepository;
 import org.craftercms.studio.impl.v2.service.cluster.StudioClusterUtils;
+import org.craftercms.studio.impl.v2.service.dependency.internal.DependencyGraphIndex;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
 import org.dom4j.Element;
@@ -158,6 +164,8 @@ import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATI
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_GLOBAL_SYSTEM_SITE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_SITE_PREVIEW_DESTROY_CONTEXT_URL;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_DEFAULT;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SYNC_DB_BATCH_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SYNC_DB_CHECKPOINT_INTERVAL;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.GIT_REPO_USER_USERNAME;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.IGNORE_FILES;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.PREVIOUS_COMMIT_SUFFIX;
@@ -212,7 +220,9 @@ public class SiteServiceImpl implements SiteService {
 
     protected StudioDBScriptRunnerFactory studioDBScriptRunnerFactory;
     protected DependencyServiceInternal dependencyServiceInternal;
+    protected DependencyGraphIndex dependencyGraphIndex;
     protected RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    protected SiteRegistry siteRegistry;
 
     /**
      * given a site ID return the configuration as a document
@@ -323,6 +333,7 @@ public class SiteServiceImpl implements SiteService {
                         studioConfiguration.getProperty(JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_DEFAULT));
                 siteFeed.setSandboxBranch(sandboxBranch);
                 retryingDatabaseOperationFacade.createSite(siteFeed);
+                siteRegistry.invalidate(siteId);
 
                 String localeAddress = studioClusterUtils.getClusterNodeLocalAddress();
                 ClusterMember cm = clusterDao.getMemberByLocalAddress(localeAddress);
@@ -489,6 +500,7 @@ public class SiteServiceImpl implements SiteService {
 
             studioDBScriptRunner.execute(createdFileScriptPath.toFile());
             studioDBScriptRunner.execute(updateParentIdScriptPath.toFile());
+            dependencyGraphIndex.invalidate(siteId);
             if (logger.isDebugEnabled()) {
                 logger.debug("Process created files finished in " +
                         (System.currentTimeMillis() - startProcessCreatedFilesMark) + " milliseconds");
@@ -536,6 +548,61 @@ public class SiteServiceImpl implements SiteService {
         }
     }
 
+    /**
+     * Rebuilds the parent ids affected by the given created, moved or deleted paths. This runs once all their rows
+     * have been written, so the order in which the items and their parents were processed doesn't matter.
+     */
+    protected void updateParentIds(String site, Set<String> paths) {
+        if (CollectionUtils.isEmpty(paths)) {
+            return;
+        }
+        Set<String> roots = getParentIdRoots(paths);
+        for (String root : roots) {
+            itemServiceInternal.updateParentIds(site, root);
+        }
+        // The ancestors of those folders could have been created by the same operations
+        List<String> ancestors = getAncestorPaths(roots);
+        if (CollectionUtils.isNotEmpty(ancestors)) {
+            itemServiceInternal.updateParentIds(site, ancestors);
+        }
+    }
+
+    /**
+     * Returns the top most folders containing the given paths. The parent of any item in those folders can change
+     * (e.g. when the folder's index.xml is created after its children), and their subtrees include the rest.
+     */
+    protected Set<String> getParentIdRoots(Set<String> paths) {
+        Set<String> roots = new TreeSet<>();
+        paths.stream()
+                .map(path -> StringUtils.substringBeforeLast(path, FILE_SEPARATOR))
+                .filter(StringUtils::isNotEmpty)
+                .sorted(Comparator.comparingInt(String::length))
+                .forEach(folder -> {
+                    if (getAncestors(folder).stream().noneMatch(roots::contains) && !roots.contains(folder)) {
+                        roots.add(folder);
+                    }
+                });
+        return roots;
+    }
+
+    protected List<String> getAncestorPaths(Set<String> paths) {
+        return paths.stream()
+                .flatMap(path -> getAncestors(path).stream())
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private List<String> getAncestors(String path) {
+        List<String> ancestors = new ArrayList<>();
+        String ancestor = StringUtils.substringBeforeLast(path, FILE_SEPARATOR);
+        while (StringUtils.isNotEmpty(ancestor)) {
+            ancestors.add(ancestor);
+            ancestor = StringUtils.substringBeforeLast(ancestor, FILE_SEPARATOR);
+        }
+        return ancestors;
+    }
+
     private void addDependenciesScriptSnippets(String siteId, String path, String oldPath, Path file) throws IOException {
         long startDependencyResolver = logger.isDebugEnabled() ? System.currentTimeMillis() : 0L;
         Map<String, Set<String>> dependencies = dependencyServiceInternal.resolveDependnecies(siteId, path);
@@ -765,6 +832,7 @@ public class SiteServiceImpl implements SiteService {
                         studioConfiguration.getProperty(JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_DEFAULT));
                 siteFeed.setSandboxBranch(sandboxBranch);
                 retryingDatabaseOperationFacade.createSite(siteFeed);
+                siteRegistry.invalidate(siteId);
 
                 upgradeManager.upgrade(siteId);
 
@@ -868,6 +936,7 @@ public class SiteServiceImpl implements SiteService {
             SiteFeed siteFeed = getSite(siteId);
             workflowServiceInternal.deleteWorkflowEntriesForSite(siteFeed.getId());
             retryingDatabaseOperationFacade.deleteSite(siteId, STATE_DELETED);
+            siteRegistry.invalidate(siteId);
             retryingDatabaseOperationFacade.deleteUserPropertiesBySiteId(siteFeed.getId());
             dependencyService.deleteSiteDependencies(siteId);
             deploymentService.deleteDeploymentDataForSite(siteId);
@@ -1042,8 +1111,7 @@ public class SiteServiceImpl implements SiteService {
         String repoLastCommitId = contentRepository.getRepoLastCommitId(site);
         String repoOperationsScriptFilename = "repoOperations_" + UUID.randomUUID();
         Path repoOperationsScriptPath = Files.createTempFile(repoOperationsScriptFilename, ".sql");
-        String updateParentIdScriptFilename = "updateParentId_" + UUID.randomUUID();
-        Path updateParentIdScriptPath = Files.createTempFile(updateParentIdScriptFilename, ".sql");
+        Set<String> parentIdPaths = new HashSet<>();
         boolean success = true;
         long startUpdateDBMark = 0;
         List<String> cIds = new ArrayList<String>();
@@ -1068,7 +1136,7 @@ public class SiteServiceImpl implements SiteService {
                 startUpdateDBMark = logger.isDebugEnabled() ? System.currentTimeMillis() : 0;
 
                 success = processRepoOperations(site, repoOperationsDelta, repoOperationsScriptPath,
-                        updateParentIdScriptPath);
+                        parentIdPaths);
             }
             toReturn = toReturn && success;
         }
@@ -1076,10 +1144,11 @@ public class SiteServiceImpl implements SiteService {
         try {
             studioDBScriptRunner.openConnection();
             studioDBScriptRunner.execute(repoOperationsScriptPath.toFile());
-            studioDBScriptRunner.execute(updateParentIdScriptPath.toFile());
         } finally {
             studioDBScriptRunner.closeConnection();
+            dependencyGraphIndex.invalidate(site);
         }
+        updateParentIds(site, parentIdPaths);
 
         // At this point we have attempted to process all operations, some may have failed
         // We will update the lastCommitId of the database ignoring errors if any
@@ -1127,15 +1196,7 @@ public class SiteServiceImpl implements SiteService {
         boolean toReturn = true;
 
         String repoLastCommitId = contentRepository.getRepoLastCommitId(site);
-        long startGetOperationsFromDeltaMark = logger.isDebugEnabled() ? System.currentTimeMillis() : 0L;
-        List<RepoOperation> repoOperationsDelta = contentRepositoryV2.getOperationsFromDelta(site, fromCommitId,
-                repoLastCommitId);
-        if (logger.isDebugEnabled()) {
-            logger.debug("Get Repo Operations from Delta finished in " +
-                    (System.currentTimeMillis() - startGetOperationsFromDeltaMark) + " milliseconds");
-            logger.debug("Number of Repo operations from delta " + repoOperationsDelta.size());
-        }
-        if (CollectionUtils.isEmpty(repoOperationsDelta)) {
+        if (StringUtils.equals(fromCommitId, repoLastCommitId)) {
             logger.debug("Database is up to date with repository for site: " + site);
             contentRepositoryV2.markGitLogVerifiedProcessed(site, fromCommitId);
             updateLastCommitId(site, repoLastCommitId);
@@ -1145,25 +1206,20 @@ public class SiteServiceImpl implements SiteService {
 
         logger.info("Syncing database with repository for site: " + site + " fromCommitId = " +
                 (StringUtils.isEmpty(fromCommitId) ? "Empty repo" : fromCommitId));
-        logger.debug("Operations to sync: ");
-        for (RepoOperation repoOperation : repoOperationsDelta) {
-            logger.debug("\tOperation: " + repoOperation.getAction().toString() + " " + repoOperation.getPath());
-        }
 
         long startUpdateDBMark = logger.isDebugEnabled() ? System.currentTimeMillis() : 0L;
+        int batchSize = studioConfiguration.getProperty(REPO_SYNC_DB_BATCH_SIZE, Integer.class);
+        int checkpointInterval = studioConfiguration.getProperty(REPO_SYNC_DB_CHECKPOINT_INTERVAL, Integer.class);
         StudioDBScriptRunner studioDBScriptRunner = studioDBScriptRunnerFactory.getDBScriptRunner();
         try {
             studioDBScriptRunner.openConnection();
-            String repoOperationsScriptFilename = "repoOperations_" + UUID.randomUUID();
-            Path repoOperationsScriptPath = Files.createTempFile(repoOperationsScriptFilename, ".sql");
-            String updateParentIdScriptFilename = "updateParentId_" + UUID.randomUUID();
-            Path updateParentIdScriptPath = Files.createTempFile(updateParentIdScriptFilename, ".sql");
-            toReturn = processRepoOperations(site, repoOperationsDelta, repoOperationsScriptPath,
-                    updateParentIdScriptPath);
-            studioDBScriptRunner.execute(repoOperationsScriptPath.toFile());
-            studioDBScriptRunner.execute(updateParentIdScriptPath.toFile());
+            SyncDatabaseOperationsHandler handler = new SyncDatabaseOperationsHandler(site, studioDBScriptRunner);
+            contentRepositoryV2.streamOperationsFromDelta(site, fromCommitId, repoLastCommitId, batchSize,
+                    checkpointInterval, handler);
+            toReturn = handler.isSuccess();
         } catch (IOException e) {
-            logger.error("Error while creating DB script file for processing created files for site " + site);
+            logger.error("Error while syncing database with repository for site " + site, e);
+            toReturn = false;
         } finally {
             studioDBScriptRunner.closeConnection();
         }
@@ -1201,8 +1257,60 @@ public class SiteServiceImpl implements SiteService {
         return toReturn;
     }
 
+    /**
+     * Applies the operations streamed from the repository to the database one batch at a time, saving the sync
+     * progress on every checkpoint so an interrupted sync can resume from the last processed commit. The parent ids
+     * of each segment are rebuilt on its checkpoint, once all its batches have been applied, because a folder's
+     * index.xml can be processed in a later batch than its children.
+     */
+    private class SyncDatabaseOperationsHandler implements RepoOperationsHandler {
+
+        private final String site;
+        private final StudioDBScriptRunner studioDBScriptRunner;
+        private final Set<String> parentIdPaths = new HashSet<>();
+        private boolean success = true;
+
+        private SyncDatabaseOperationsHandler(String site, StudioDBScriptRunner studioDBScriptRunner) {
+            this.site = site;
+            this.studioDBScriptRunner = studioDBScriptRunner;
+        }
+
+        @Override
+        public void processBatch(List<RepoOperation> operations) throws IOException {
+            logger.debug("Processing batch of " + operations.size() + " operations for site " + site);
+            Path repoOperationsScriptPath = Files.createTempFile("repoOperations_" + UUID.randomUUID(), ".sql");
+            try {
+                success &= processRepoOperations(site, operations, repoOperationsScriptPath, parentIdPaths);
+                studioDBScriptRunner.execute(repoOperationsScriptPath.toFile());
+            } finally {
+                dependencyGraphIndex.invalidate(site);
+                Files.deleteIfExists(repoOperationsScriptPath);
+            }
+        }
+
+        @Override
+        public void checkpoint(String commitId) {
+            logger.debug("Database synced with repository for site " + site + " up to commit " + commitId);
+            // The parent ids must be rebuilt before saving the progress, a resumed sync would never revisit them
+            updateParentIds(site, parentIdPaths);
+            parentIdPaths.clear();
+            updateLastCommitId(site, commitId);
+            updateLastVerifiedGitlogCommitId(site, commitId);
+            GitLog gitLog = contentRepositoryV2.getGitLog(site, commitId);
+            if (Objects.nonNull(gitLog)) {
+                contentRepositoryV2.markGitLogProcessedBeforeMarker(site, gitLog.getId(), 1);
+            }
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+    }
+
     private boolean processRepoOperations(String siteId, List<RepoOperation> repoOperations,
-                                          Path repoOperationsScriptPath, Path updateParentIdScriptPath) throws IOException {
+                                          Path repoOperationsScriptPath, Set<String> parentIdPaths)
+            throws IOException {
         boolean toReturn = true;
         long startProcessRepoOperationMark = logger.isDebugEnabled() ? System.currentTimeMillis() : 0L;
         SiteFeed siteFeed = null;
@@ -1265,8 +1373,7 @@ public class SiteServiceImpl implements SiteService {
                             repoOperation.getDateTime(), repoOperation.getCommitId(), repoOperationsScriptPath);
 
                     if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath()))) {
-                        addUpdateParentIdScriptSnippets(siteFeed.getId(), repoOperation.getPath(),
-                                updateParentIdScriptPath);
+                        parentIdPaths.add(repoOperation.getPath());
                     } else {
                         Files.write(repoOperationsScriptPath, insertItemRow(siteFeed.getId(),
                                 repoOperation.getPath(), previewUrl, NEW.value, null, userObj.getId(),
@@ -1279,8 +1386,7 @@ public class SiteServiceImpl implements SiteService {
                         Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
                         logger.debug("Extract dependencies for site: " + siteId + " path: " +
                                 repoOperation.getPath());
-                        addUpdateParentIdScriptSnippets(siteFeed.getId(), repoOperation.getPath(),
-                                updateParentIdScriptPath);
+                        parentIdPaths.add(repoOperation.getPath());
                         addDependenciesScriptSnippets(siteId, repoOperation.getPath(), null,
                                 repoOperationsScriptPath);
                     }
@@ -1337,6 +1443,10 @@ public class SiteServiceImpl implements SiteService {
                     }
                     break;
                 case DELETE:
+                    if (StringUtils.endsWith(repoOperation.getPath(), "/index.xml")) {
+                        // the children of the page will be moved to its folder
+                        parentIdPaths.add(repoOperation.getPath());
+                    }
                     Files.write(repoOperationsScriptPath,
                             deleteItemRow(siteFeed.getId(), repoOperation.getPath()).getBytes(UTF_8),
                             StandardOpenOption.APPEND);
@@ -1386,8 +1496,7 @@ public class SiteServiceImpl implements SiteService {
                             repoOperation.getDateTime(), repoOperation.getCommitId(), repoOperationsScriptPath);
                     if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath())) ||
                             ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getMoveToPath()))) {
-                        addUpdateParentIdScriptSnippets(siteFeed.getId(), repoOperation.getMoveToPath(),
-                                updateParentIdScriptPath);
+                        parentIdPaths.add(repoOperation.getMoveToPath());
                     } else {
                         Files.write(repoOperationsScriptPath, moveItemRow(siteId, repoOperation.getPath(),
                                 repoOperation.getMoveToPath()).getBytes(UTF_8), StandardOpenOption.APPEND);
@@ -1400,7 +1509,7 @@ public class SiteServiceImpl implements SiteService {
                                 contentRepositoryV2.getContentSize(siteId, repoOperation.getPath()),
                                 repoOperation.getCommitId()).getBytes(UTF_8), StandardOpenOption.APPEND);
                         Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-                        addUpdateParentIdScriptSnippets(siteFeed.getId(), repoOperation.getMoveToPath(), updateParentIdScriptPath);
+                        parentIdPaths.add(repoOperation.getMoveToPath());
                         addDependenciesScriptSnippets(siteId, repoOperation.getMoveToPath(),
                                 repoOperation.getPath(), repoOperationsScriptPath);
                     }
@@ -1523,6 +1632,7 @@ public class SiteServiceImpl implements SiteService {
             params.put("siteId", siteId);
             params.put("enabled", enabled ? 1 : 0);
             retryingDatabaseOperationFacade.enableSitePublishing(params);
+            siteRegistry.invalidate(siteId);
             return true;
         } else {
             throw new SiteNotFoundException();
@@ -1658,6 +1768,7 @@ public class SiteServiceImpl implements SiteService {
     @Override
     public void setSiteState(String siteId, String state) {
         retryingDatabaseOperationFacade.setSiteState(siteId, state);
+        siteRegistry.invalidate(siteId);
         try {
             ClusterMember clusterMember = clusterDao.getMemberByLocalAddress(studioClusterUtils.getClusterNodeLocalAddress());
             if (Objects.nonNull(clusterMember)) {
@@ -1955,4 +2066,16 @@ public class SiteServiceImpl implements SiteService {
     public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
         this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
     }
+
+    public void setSiteRegistry(SiteRegistry siteRegistry) {
+        this.siteRegistry = siteRegistry;
+    }
+
+    public DependencyGraphIndex getDependencyGraphIndex() {
+        return dependencyGraphIndex;
+    }
+
+    public void setDependencyGraphIndex(DependencyGraphIndex dependencyGraphIndex) {
+        this.dependencyGraphIndex = dependencyGraphIndex;
+    }
 }
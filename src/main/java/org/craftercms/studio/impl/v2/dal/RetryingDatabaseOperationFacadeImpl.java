@@ -213,6 +213,11 @@ public class RetryingDatabaseOperationFacadeImpl implements RetryingDatabaseOper
         return auditDao.insertAuditLog(auditLog);
     }
 
+    @Override
+    public int insertAuditLogList(List<AuditLog> auditLogs) {
+        return auditDao.insertAuditLogList(auditLogs);
+    }
+
     @Override
     public void insertAuditLogParams(Map params) {
         auditDao.insertAuditLogParams(params);
@@ -317,6 +322,11 @@ public class RetryingDatabaseOperationFacadeImpl implements RetryingDatabaseOper
         gitLogDao.markGitLogAudited(siteId, commitId, audited);
     }
 
+    @Override
+    public void markGitLogAuditedBulk(String siteId, List<String> commitIds, int audited) {
+        gitLogDao.markGitLogAuditedBulk(siteId, commitIds, audited);
+    }
+
     @Override
     public void insertIgnoreGitLogList(String siteId, List<String> commitIds) {
         gitLogDao.insertIgnoreGitLogList(siteId, commitIds);
@@ -419,6 +429,11 @@ public class RetryingDatabaseOperationFacadeImpl implements RetryingDatabaseOper
         itemDao.updateStatesByIdBulk(itemIds, onStatesBitMap, offStatesBitMap);
     }
 
+    @Override
+    public void updateParentIdBulk(List<Item> items) {
+        itemDao.updateParentIdBulk(items);
+    }
+
     @Override
     public void deleteItemsForSite(long siteId) {
         itemDao.deleteItemsForSite(siteId);
@@ -27,7 +27,6 @@ import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.web.client.RestClientException;
 
-import java.lang.reflect.Method;
 import java.net.URI;
 import java.util.Collections;
 import java.util.Map;
@@ -53,7 +52,8 @@ import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_TEM
  * <ul>
  *     <li>Creates both and authoring and preview target on create</li>
  *     <li>Deletes the authoring and preview target on delete</li>
- *     <li>Issues deployments to the authoring and preview target on a preview sync event</li>
+ *     <li>Issues deployments to the authoring and preview target on a preview sync event, events for the same
+ *     site are coalesced by the {@link PreviewSyncDispatcher}</li>
  * </ul>
  *
  * @author avasquez
@@ -62,11 +62,11 @@ public class PreviewDeployer extends AbstractDeployer implements BeanNameAware {
 
     private final static Logger logger = LoggerFactory.getLogger(PreviewDeployer.class);
 
-    private final static String METHOD_PREVIEW_SYNC_LISTENER = "onPreviewSync";
     private final static String ENV_PREVIEW = "preview";
     private final static String ENV_AUTHORING = "authoring";
 
     protected EventService eventService;
+    protected PreviewSyncDispatcher previewSyncDispatcher;
     protected String beanName;
 
     @Required
@@ -74,25 +74,23 @@ public class PreviewDeployer extends AbstractDeployer implements BeanNameAware {
         this.eventService = eventService;
     }
 
+    @Required
+    public void setPreviewSyncDispatcher(PreviewSyncDispatcher previewSyncDispatcher) {
+        this.previewSyncDispatcher = previewSyncDispatcher;
+    }
+
     @Override
     public void setBeanName(String beanName) {
         this.beanName = beanName;
     }
 
     public void subscribeToPreviewSyncEvents() {
-        try {
-            Method subscribeMethod = PreviewDeployer.class.getMethod(METHOD_PREVIEW_SYNC_LISTENER,
-                                                                     PreviewEventContext.class);
-            eventService.subscribe(EVENT_PREVIEW_SYNC, beanName, subscribeMethod);
-        } catch (NoSuchMethodException e) {
-            logger.error("Could not subscribe to preview sync events", e);
-        }
+        eventService.subscribe(EVENT_PREVIEW_SYNC, beanName, PreviewEventContext.class, this::onPreviewSync);
     }
 
     @EventListener(EVENT_PREVIEW_SYNC)
     public void onPreviewSync(PreviewEventContext context) {
-        doDeployment(context.getSite(), ENV_AUTHORING, false);
-        doDeployment(context.getSite(), ENV_PREVIEW, context.isWaitTillDeploymentIsDone());
+        previewSyncDispatcher.dispatch(context.getSite(), context.isWaitTillDeploymentIsDone(), this::doPreviewSync);
     }
 
     @Override
@@ -103,10 +101,16 @@ public class PreviewDeployer extends AbstractDeployer implements BeanNameAware {
 
     @Override
     public void deleteTargets(String site) throws RestClientException {
+        previewSyncDispatcher.remove(site);
         doDeleteTarget(site, ENV_AUTHORING);
         doDeleteTarget(site, ENV_PREVIEW);
     }
 
+    protected void doPreviewSync(String site, boolean waitTillDone) {
+        doDeployment(site, ENV_AUTHORING, false);
+        doDeployment(site, ENV_PREVIEW, waitTillDone);
+    }
+
     protected void doDeployment(String site, String environment, boolean waitTillDone) {
         String requestUrl = getDeployTargetUrl(site, environment);
         Map<String, Object> requestBody = Collections.singletonMap("wait_till_done", waitTillDone);
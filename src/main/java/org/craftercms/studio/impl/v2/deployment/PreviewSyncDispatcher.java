@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.deployment;
+
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_SYNC_WINDOW;
+
+/**
+ * Coalesces the preview sync requests for the same site that arrive within a short window into a single sync, so
+ * bulk operations only trigger one deployment instead of one per item.
+ *
+ * <p>Syncs run in the background and there is at most one in flight per site, requests that arrive while a sync is
+ * running are grouped into a single follow-up sync. Only callers that need to wait for the deployment are blocked,
+ * and their sync is started without waiting for the window to close.</p>
+ *
+ * <p>The state of each site is kept until {@link #remove(String)} is called when the site is deleted.</p>
+ */
+public class PreviewSyncDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreviewSyncDispatcher.class);
+
+    protected StudioConfiguration studioConfiguration;
+
+    /**
+     * Executor used to run the syncs, it should have a bounded queue
+     */
+    protected TaskExecutor taskExecutor;
+
+    /**
+     * Executor used to close the windows
+     */
+    protected ScheduledExecutorService scheduler;
+
+    protected final Map<String, SiteSync> syncs = new ConcurrentHashMap<>();
+
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "studio-preview-sync-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void destroy() {
+        scheduler.shutdownNow();
+        // Release any caller still waiting for a sync that will never run
+        syncs.values().forEach(this::discard);
+    }
+
+    /**
+     * Discards the pending sync for the given site, should be called when the site is deleted
+     * @param site the site id
+     */
+    public void remove(String site) {
+        SiteSync sync = syncs.remove(site);
+        if (sync != null) {
+            logger.debug("Discarding preview sync for site {0}", site);
+            discard(sync);
+        }
+    }
+
+    protected void discard(SiteSync sync) {
+        synchronized (sync) {
+            sync.removed = true;
+            sync.dirty = false;
+            if (sync.scheduled != null) {
+                sync.scheduled.cancel(false);
+                sync.scheduled = null;
+            }
+            sync.waiters.forEach(waiter -> waiter.complete(null));
+            sync.waiters.clear();
+        }
+    }
+
+    /**
+     * Requests a sync for the given site
+     * @param site the site id
+     * @param waitTillDone if true the call blocks until a sync that includes this request is done
+     * @param handler performs the actual sync, receives the site and if the deployment should be waited for
+     */
+    public void dispatch(String site, boolean waitTillDone, BiConsumer<String, Boolean> handler) {
+        CompletableFuture<Void> waiter = waitTillDone ? new CompletableFuture<>() : null;
+        // The site could be removed concurrently, in that case the request goes to a new sync
+        while (!add(syncs.computeIfAbsent(site, SiteSync::new), waiter, handler)) {
+            logger.debug("Preview sync for site {0} was discarded, retrying", site);
+        }
+
+        if (waiter != null) {
+            try {
+                waiter.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted while waiting for preview sync of site " + site, e);
+            } catch (ExecutionException e) {
+                logger.error("Error waiting for preview sync of site " + site, e);
+            }
+        }
+    }
+
+    protected boolean add(SiteSync sync, CompletableFuture<Void> waiter, BiConsumer<String, Boolean> handler) {
+        synchronized (sync) {
+            if (sync.removed) {
+                return false;
+            }
+            sync.handler = handler;
+            sync.dirty = true;
+            if (waiter != null) {
+                sync.waiters.add(waiter);
+            }
+            if (!sync.running) {
+                if (sync.scheduled == null) {
+                    schedule(sync);
+                } else if (waiter != null && sync.scheduled.cancel(false)) {
+                    // Don't make the caller wait for the window to close
+                    schedule(sync);
+                }
+            }
+            // If a sync is running the follow-up will be scheduled once it's done
+            return true;
+        }
+    }
+
+    protected void schedule(SiteSync sync) {
+        long delay = sync.waiters.isEmpty() ? getWindow() : 0;
+        sync.scheduled = scheduler.schedule(() -> submit(sync), delay, TimeUnit.MILLISECONDS);
+    }
+
+    protected void submit(SiteSync sync) {
+        try {
+            taskExecutor.execute(() -> run(sync));
+        } catch (TaskRejectedException e) {
+            // The queue is full, run it here to slow down new syncs until the executor catches up
+            logger.debug("Preview sync queue is full, running sync for site {0} in the scheduler", sync.site);
+            run(sync);
+        }
+    }
+
+    protected void run(SiteSync sync) {
+        BiConsumer<String, Boolean> handler;
+        List<CompletableFuture<Void>> waiters;
+        synchronized (sync) {
+            if (sync.removed) {
+                return;
+            }
+            sync.scheduled = null;
+            sync.running = true;
+            sync.dirty = false;
+            handler = sync.handler;
+            waiters = new ArrayList<>(sync.waiters);
+            sync.waiters.clear();
+        }
+
+        try {
+            handler.accept(sync.site, !waiters.isEmpty());
+        } catch (Exception e) {
+            logger.error("Error during preview sync for site " + sync.site, e);
+        } finally {
+            waiters.forEach(waiter -> waiter.complete(null));
+            synchronized (sync) {
+                sync.running = false;
+                if (sync.dirty) {
+                    schedule(sync);
+                }
+            }
+        }
+    }
+
+    protected long getWindow() {
+        return studioConfiguration.getProperty(PREVIEW_SYNC_WINDOW, Long.class);
+    }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    public void setTaskExecutor(TaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    protected static class SiteSync {
+
+        protected final String site;
+        protected final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+        protected BiConsumer<String, Boolean> handler;
+        protected ScheduledFuture<?> scheduled;
+        protected boolean running;
+        protected boolean dirty;
+        protected boolean removed;
+
+        protected SiteSync(String site) {
+            this.site = site;
+        }
+
+    }
+
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.job;
+
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v1.service.GeneralLockService;
+import org.craftercms.studio.api.v2.job.SiteJob;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.craftercms.studio.api.v1.constant.StudioConstants.PATTERN_SITE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.STUDIO_CLOCK_EXECUTOR_SITE_LOCK;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CLOCK_JOB_SCHEDULER_MAX_WORKERS;
+
+/**
+ * Runs the {@link SiteJob}s of every site using a bounded number of workers.
+ *
+ * <p>Each site has its own queue of pending jobs, executed in the same order they are scheduled because jobs can
+ * depend on the ones before them (for example the publisher needs the repository to be synced first). Sites with
+ * pending jobs are dispatched round-robin: a worker takes a single job from the next site and puts the site back at
+ * the end of the line, so a long running site can't delay the rest. Sites are ordered by the highest
+ * {@link SiteJob#getPriority()} of their pending jobs. Only one job runs at a time for any given site.</p>
+ *
+ * <p>When a job is scheduled while the previous execution for the same site is still pending or running it is
+ * skipped and counted as an overrun.</p>
+ */
+public class SiteTaskScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteTaskScheduler.class);
+
+    /**
+     * Upper bounds in milliseconds of the latency histogram buckets, the last bucket has no bound
+     */
+    protected static final long[] LATENCY_BUCKETS = { 10, 50, 100, 500, 1000, 5000, 10000, 30000, 60000 };
+
+    protected StudioConfiguration studioConfiguration;
+    protected TaskExecutor taskExecutor;
+    protected GeneralLockService generalLockService;
+
+    /**
+     * All the following fields are guarded by this
+     */
+    protected final Map<String, SiteQueue> siteQueues = new HashMap<>();
+    protected final NavigableMap<Integer, Deque<SiteQueue>> readySites = new TreeMap<>(Comparator.reverseOrder());
+    protected int readyCount;
+    protected int activeWorkers;
+
+    protected final Map<String, TaskStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the given jobs to the queue of the site and starts workers if needed
+     * @param site the site id
+     * @param jobs the jobs to execute for the site
+     */
+    public synchronized void schedule(String site, List<SiteJob> jobs) {
+        SiteQueue queue = siteQueues.computeIfAbsent(site, SiteQueue::new);
+        long now = System.currentTimeMillis();
+        for (SiteJob job : jobs) {
+            if (queue.isScheduled(job)) {
+                logger.debug("Skipping job " + getName(job) + " for site " + site +
+                        " because the previous execution has not finished");
+                getStats(job).overruns.increment();
+            } else {
+                queue.tasks.addLast(new ScheduledTask(job, now));
+            }
+        }
+        if (!queue.ready && queue.running == null && !queue.tasks.isEmpty()) {
+            makeReady(queue);
+        }
+        startWorkers();
+    }
+
+    /**
+     * Discards the queues of sites that no longer exist
+     * @param sites the ids of all existing sites
+     */
+    public synchronized void retainSites(Collection<String> sites) {
+        Iterator<SiteQueue> iterator = siteQueues.values().iterator();
+        while (iterator.hasNext()) {
+            SiteQueue queue = iterator.next();
+            if (!sites.contains(queue.site) && !queue.ready && queue.running == null) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of sites waiting for a worker
+     */
+    public synchronized int getReadySiteCount() {
+        return readyCount;
+    }
+
+    /**
+     * @return the number of workers currently running
+     */
+    public synchronized int getActiveWorkers() {
+        return activeWorkers;
+    }
+
+    /**
+     * @return the number of pending jobs for each site that has any
+     */
+    public synchronized Map<String, Integer> getPendingTasks() {
+        Map<String, Integer> pending = new TreeMap<>();
+        siteQueues.values().stream()
+                .filter(queue -> !queue.tasks.isEmpty())
+                .forEach(queue -> pending.put(queue.site, queue.tasks.size()));
+        return pending;
+    }
+
+    /**
+     * @return the statistics of each job, keyed by job name
+     */
+    public Map<String, TaskStats> getTaskStats() {
+        return new TreeMap<>(stats);
+    }
+
+    /**
+     * Returns the current load of the worker pool and the execution stats of each type of task
+     * @return map with the active & max workers, the ready sites, the pending tasks and the stats by task
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("activeWorkers", getActiveWorkers());
+        summary.put("maxWorkers", getMaxWorkers());
+        summary.put("readySites", getReadySiteCount());
+        summary.put("pendingTasks", getPendingTasks());
+        Map<String, Object> tasks = new LinkedHashMap<>();
+        getTaskStats().forEach((name, taskStats) -> tasks.put(name, taskStats.toMap()));
+        summary.put("tasks", tasks);
+        return summary;
+    }
+
+    protected void makeReady(SiteQueue queue) {
+        queue.ready = true;
+        readySites.computeIfAbsent(queue.getPriority(), key -> new ArrayDeque<>()).addLast(queue);
+        readyCount++;
+    }
+
+    protected SiteQueue pollReady() {
+        Map.Entry<Integer, Deque<SiteQueue>> entry = readySites.firstEntry();
+        if (entry == null) {
+            return null;
+        }
+        SiteQueue queue = entry.getValue().pollFirst();
+        if (entry.getValue().isEmpty()) {
+            readySites.remove(entry.getKey());
+        }
+        queue.ready = false;
+        readyCount--;
+        return queue;
+    }
+
+    protected void startWorkers() {
+        int maxWorkers = getMaxWorkers();
+        while (activeWorkers < maxWorkers && activeWorkers < readyCount) {
+            activeWorkers++;
+            try {
+                taskExecutor.execute(this::work);
+            } catch (TaskRejectedException e) {
+                activeWorkers--;
+                logger.warn("Unable to start site task worker, pending tasks will be executed by current workers", e);
+                break;
+            }
+        }
+    }
+
+    protected void work() {
+        while (true) {
+            SiteQueue queue;
+            ScheduledTask task;
+            synchronized (this) {
+                queue = pollReady();
+                if (queue == null) {
+                    activeWorkers--;
+                    return;
+                }
+                task = queue.tasks.pollFirst();
+                queue.running = task;
+            }
+            try {
+                run(queue.site, task);
+            } finally {
+                synchronized (this) {
+                    queue.running = null;
+                    if (!queue.tasks.isEmpty()) {
+                        makeReady(queue);
+                    }
+                }
+            }
+        }
+    }
+
+    protected void run(String site, ScheduledTask task) {
+        TaskStats taskStats = getStats(task.job);
+        String tasksLock = STUDIO_CLOCK_EXECUTOR_SITE_LOCK.replaceAll(PATTERN_SITE, site);
+        if (!generalLockService.tryLock(tasksLock)) {
+            logger.debug("Skipping job " + getName(task.job) + " for site " + site + " because the site is locked");
+            taskStats.overruns.increment();
+            return;
+        }
+        long start = System.currentTimeMillis();
+        taskStats.waitTime.add(start - task.scheduledOn);
+        try {
+            task.job.execute(site);
+        } catch (RuntimeException e) {
+            taskStats.failures.increment();
+            logger.error("Error executing job " + getName(task.job) + " for site " + site, e);
+        } finally {
+            generalLockService.unlock(tasksLock);
+            taskStats.record(System.currentTimeMillis() - start);
+        }
+    }
+
+    protected TaskStats getStats(SiteJob job) {
+        return stats.computeIfAbsent(getName(job), key -> new TaskStats());
+    }
+
+    protected String getName(SiteJob job) {
+        return job.getClass().getSimpleName();
+    }
+
+    protected int getMaxWorkers() {
+        return studioConfiguration.getProperty(CLOCK_JOB_SCHEDULER_MAX_WORKERS, Integer.class);
+    }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    public void setTaskExecutor(TaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    public void setGeneralLockService(GeneralLockService generalLockService) {
+        this.generalLockService = generalLockService;
+    }
+
+    protected static class SiteQueue {
+
+        protected final String site;
+        protected final Deque<ScheduledTask> tasks = new ArrayDeque<>();
+        protected ScheduledTask running;
+        protected boolean ready;
+
+        protected SiteQueue(String site) {
+            this.site = site;
+        }
+
+        protected boolean isScheduled(SiteJob job) {
+            return (running != null && running.job == job) || tasks.stream().anyMatch(task -> task.job == job);
+        }
+
+        /**
+         * @return the highest priority of the pending jobs
+         */
+        protected int getPriority() {
+            return tasks.stream().mapToInt(task -> task.job.getPriority()).max().orElse(0);
+        }
+
+    }
+
+    protected static class ScheduledTask {
+
+        protected final SiteJob job;
+        protected final long scheduledOn;
+
+        protected ScheduledTask(SiteJob job, long scheduledOn) {
+            this.job = job;
+            this.scheduledOn = scheduledOn;
+        }
+
+    }
+
+    /**
+     * Execution statistics for a single job across all sites
+     */
+    public static class TaskStats {
+
+        protected final LongAdder executions = new LongAdder();
+        protected final LongAdder overruns = new LongAdder();
+        protected final LongAdder failures = new LongAdder();
+        protected final LongAdder totalTime = new LongAdder();
+        protected final LongAdder waitTime = new LongAdder();
+        protected final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+        protected final LongAdder[] histogram = new LongAdder[LATENCY_BUCKETS.length + 1];
+
+        public TaskStats() {
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        protected void record(long time) {
+            executions.increment();
+            totalTime.add(time);
+            maxTime.accumulate(time);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS.length && time > LATENCY_BUCKETS[bucket]) {
+                bucket++;
+            }
+            histogram[bucket].increment();
+        }
+
+        public long getExecutions() {
+            return executions.sum();
+        }
+
+        public long getOverruns() {
+            return overruns.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getTotalTime() {
+            return totalTime.sum();
+        }
+
+        public long getWaitTime() {
+            return waitTime.sum();
+        }
+
+        public long getMaxTime() {
+            return maxTime.get();
+        }
+
+        /**
+         * @return number of executions per latency bucket, keyed by the upper bound in milliseconds
+         */
+        public Map<String, Long> getHistogram() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+                result.put("<=" + LATENCY_BUCKETS[i], histogram[i].sum());
+            }
+            result.put(">" + LATENCY_BUCKETS[LATENCY_BUCKETS.length - 1], histogram[LATENCY_BUCKETS.length].sum());
+            return result;
+        }
+
+        protected Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("executions", getExecutions());
+            map.put("overruns", getOverruns());
+            map.put("failures", getFailures());
+            map.put("totalTime", getTotalTime());
+            map.put("waitTime", getWaitTime());
+            map.put("maxTime", getMaxTime());
+            map.put("histogram", getHistogram());
+            return map;
+        }
+
+    }
+
+}
@@ -16,12 +16,11 @@
 
 package org.craftercms.studio.impl.v2.job;
 
+import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.tika.io.FilenameUtils;
-import org.craftercms.studio.api.v1.constant.DmConstants;
 import org.craftercms.studio.api.v1.dal.SiteFeed;
-import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.service.content.ContentService;
@@ -30,15 +29,30 @@ import org.craftercms.studio.api.v2.dal.GitLog;
 import org.craftercms.studio.api.v2.dal.RepoOperation;
 import org.craftercms.studio.api.v2.repository.ContentRepository;
 import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
+import org.craftercms.studio.api.v2.service.site.internal.SiteRegistry;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+import static java.util.stream.Collectors.toList;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.SITE_UUID_FILENAME;
 import static org.craftercms.studio.api.v1.dal.SiteFeed.STATE_READY;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.OPERATION_CREATE;
@@ -47,19 +61,53 @@ import static org.craftercms.studio.api.v2.dal.AuditLogConstants.OPERATION_MOVE;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.OPERATION_UPDATE;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.ORIGIN_GIT;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.TARGET_TYPE_CONTENT_ITEM;
+import static org.craftercms.studio.api.v2.dal.RepoOperation.Action.MOVE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_BASE_PATH;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SITES_REPOS_PATH;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.IGNORE_FILES;
-import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.PREVIOUS_COMMIT_SUFFIX;
 
-public class StudioAuditLogProcessingTask extends StudioClockTask {
+public class StudioAuditLogProcessingTask extends StudioClockTask implements StudioAuditLogProcessingTaskMXBean {
 
     private static final Logger logger = LoggerFactory.getLogger(StudioAuditLogProcessingTask.class);
+
+    public static final String OBJECT_NAME = "org.craftercms.studio:type=StudioAuditLogProcessingTask";
+
     private AuditServiceInternal auditServiceInternal;
     private ContentRepository contentRepository;
     private int batchSizeGitLog = 1000;
     private int batchSizeAudited = 100;
+    private int maxBatches = 1;
     private ContentService contentService;
+    private SiteRegistry siteRegistry;
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, Long> auditLag = new ConcurrentHashMap<>();
+    private final LongAdder auditedCommitCount = new LongAdder();
+    private final LongAdder auditTimeNanos = new LongAdder();
+
+    public void init() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to register the audit log processing metrics in JMX", e);
+        }
+    }
+
+    public void destroy() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to unregister the audit log processing metrics from JMX", e);
+        }
+    }
 
     @Override
     protected void executeInternal(String site) {
@@ -77,145 +125,159 @@ public class StudioAuditLogProcessingTask extends StudioClockTask {
         }
     }
 
-    private void processAuditLog(String site) throws SiteNotFoundException {
+    private void processAuditLog(String site) throws IOException {
         logger.debug("Getting last verified commit for site: " + site);
-        SiteFeed siteFeed = siteService.getSite(site);
-        if (checkSiteUuid(site, siteFeed.getSiteUuid())) {
+        SiteFeed siteFeed = siteRegistry.getSite(site);
+        if (Objects.nonNull(siteFeed) && checkSiteUuid(site, siteFeed.getSiteUuid())) {
             String lastSyncedCommit = siteService.getLastSyncedGitlogCommitId(site);
             if (StringUtils.isNotEmpty(lastSyncedCommit)) {
                 logger.debug("Update gitlog for site " + site + " from last synced commit " + lastSyncedCommit);
                 contentRepository.updateGitlog(site, lastSyncedCommit, batchSizeGitLog);
-                processAuditLogFromRepo(site, batchSizeAudited);
+                processAuditLogFromRepo(site, siteFeed.getId(), batchSizeAudited);
             }
         }
     }
 
-    private void processAuditLogFromRepo(String siteId, int batchSize) throws SiteNotFoundException {
-        List<GitLog> unauditedGitlogs = contentRepository.getUnauditedCommits(siteId, batchSize);
-        if (unauditedGitlogs != null) {
-            SiteFeed siteFeed = siteService.getSite(siteId);
-            for (GitLog gl : unauditedGitlogs) {
-                if (contentRepository.commitIdExists(siteId, gl.getCommitId())) {
-                    String prevCommitId = gl.getCommitId() + PREVIOUS_COMMIT_SUFFIX;
-                    List<RepoOperation> operations = contentRepository.getOperationsFromDelta(siteId, prevCommitId,
-                            gl.getCommitId());
-                    for (RepoOperation repoOperation : operations) {
-                        if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getMoveToPath())) ||
-                                ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath()))) {
-                            continue;
-                        }
-                        Map<String, String> activityInfo = new HashMap<String, String>();
-                        String contentClass;
-                        AuditLog auditLog;
-                        switch (repoOperation.getAction()) {
-                            case CREATE:
-                            case COPY:
-                                contentClass = contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath());
-                                if (repoOperation.getPath().endsWith(DmConstants.XML_PATTERN)) {
-                                    activityInfo.put(DmConstants.KEY_CONTENT_TYPE, contentClass);
-                                }
-                                logger.debug("Insert audit log for site: " + siteId + " path: " +
-                                        repoOperation.getPath());
-                                auditLog = auditServiceInternal.createAuditLogEntry();
-                                auditLog.setOperation(OPERATION_CREATE);
-                                auditLog.setOperationTimestamp(repoOperation.getDateTime());
-                                auditLog.setSiteId(siteFeed.getId());
-                                auditLog.setActorId(repoOperation.getAuthor());
-                                auditLog.setActorDetails(repoOperation.getAuthor());
-                                auditLog.setPrimaryTargetId(siteId + ":" + repoOperation.getPath());
-                                auditLog.setPrimaryTargetType(TARGET_TYPE_CONTENT_ITEM);
-                                auditLog.setPrimaryTargetValue(repoOperation.getPath());
-                                auditLog.setPrimaryTargetSubtype(contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath()));
-                                auditLog.setOrigin(ORIGIN_GIT);
-                                auditServiceInternal.insertAuditLog(auditLog);
-
-                                break;
-
-                            case UPDATE:
-                                contentClass = contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath());
-                                if (repoOperation.getPath().endsWith(DmConstants.XML_PATTERN)) {
-                                    activityInfo.put(DmConstants.KEY_CONTENT_TYPE, contentClass);
-                                }
-                                logger.debug("Insert audit log for site: " + siteId + " path: " +
-                                        repoOperation.getPath());
-                                auditLog = auditServiceInternal.createAuditLogEntry();
-                                auditLog.setOperation(OPERATION_UPDATE);
-                                auditLog.setOperationTimestamp(repoOperation.getDateTime());
-                                auditLog.setSiteId(siteFeed.getId());
-                                auditLog.setActorId(repoOperation.getAuthor());
-                                auditLog.setActorDetails(repoOperation.getAuthor());
-                                auditLog.setOrigin(ORIGIN_GIT);
-                                auditLog.setPrimaryTargetId(siteId + ":" + repoOperation.getPath());
-                                auditLog.setPrimaryTargetType(TARGET_TYPE_CONTENT_ITEM);
-                                auditLog.setPrimaryTargetValue(repoOperation.getPath());
-                                auditLog.setPrimaryTargetSubtype(contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath()));
-                                auditServiceInternal.insertAuditLog(auditLog);
-                                break;
-
-                            case DELETE:
-                                contentClass = contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath());
-                                if (repoOperation.getPath().endsWith(DmConstants.XML_PATTERN)) {
-                                    activityInfo.put(DmConstants.KEY_CONTENT_TYPE, contentClass);
-                                }
-                                logger.debug("Insert audit log for site: " + siteId + " path: " +
-                                        repoOperation.getPath());
-                                auditLog = auditServiceInternal.createAuditLogEntry();
-                                auditLog.setOperation(OPERATION_DELETE);
-                                auditLog.setOperationTimestamp(repoOperation.getDateTime());
-                                auditLog.setSiteId(siteFeed.getId());
-                                auditLog.setOrigin(ORIGIN_GIT);
-                                auditLog.setActorId(repoOperation.getAuthor());
-                                auditLog.setActorDetails(repoOperation.getAuthor());
-                                auditLog.setPrimaryTargetId(siteId + ":" + repoOperation.getPath());
-                                auditLog.setPrimaryTargetType(TARGET_TYPE_CONTENT_ITEM);
-                                auditLog.setPrimaryTargetValue(repoOperation.getPath());
-                                auditLog.setPrimaryTargetSubtype(contentService.getContentTypeClass(siteId,
-                                        repoOperation.getPath()));
-                                auditServiceInternal.insertAuditLog(auditLog);
-
-                                break;
-
-                            case MOVE:
-                                contentClass = contentService.getContentTypeClass(siteId,
-                                        repoOperation.getMoveToPath());
-                                if (repoOperation.getMoveToPath().endsWith(DmConstants.XML_PATTERN)) {
-                                    activityInfo.put(DmConstants.KEY_CONTENT_TYPE, contentClass);
-                                }
-                                logger.debug("Insert audit log for site: " + siteId + " path: " +
-                                        repoOperation.getMoveToPath());
-                                auditLog = auditServiceInternal.createAuditLogEntry();
-                                auditLog.setOperation(OPERATION_MOVE);
-                                auditLog.setOperationTimestamp(repoOperation.getDateTime());
-                                auditLog.setSiteId(siteFeed.getId());
-                                auditLog.setActorId(repoOperation.getAuthor());
-                                auditLog.setActorDetails(repoOperation.getAuthor());
-                                auditLog.setOrigin(ORIGIN_GIT);
-                                auditLog.setPrimaryTargetId(siteId + ":" + repoOperation.getMoveToPath());
-                                auditLog.setPrimaryTargetType(TARGET_TYPE_CONTENT_ITEM);
-                                auditLog.setPrimaryTargetValue(repoOperation.getMoveToPath());
-                                auditLog.setPrimaryTargetSubtype(contentService.getContentTypeClass(siteId,
-                                        repoOperation.getMoveToPath()));
-                                auditServiceInternal.insertAuditLog(auditLog);
-
-                                break;
-
-                            default:
-                                logger.error("Error: Unknown repo operation for site " + siteId + " operation: " +
-                                        repoOperation.getAction());
-                                break;
-                        }
-                    }
+    private void processAuditLogFromRepo(String siteId, long siteFeedId, int batchSize) throws IOException {
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<GitLog> unauditedGitlogs = contentRepository.getUnauditedCommits(siteId, batchSize);
+            if (CollectionUtils.isEmpty(unauditedGitlogs)) {
+                auditLag.put(siteId, 0L);
+                return;
+            }
+            long start = System.nanoTime();
+            List<String> commitIds = unauditedGitlogs.stream().map(GitLog::getCommitId).collect(toList());
+            // All commits of the batch are diffed in a single walk, commits missing in the repository are skipped
+            Map<String, List<RepoOperation>> commitOperations =
+                    contentRepository.getOperationsFromCommits(siteId, commitIds);
+            List<RepoOperation> operations = commitOperations.values().stream()
+                    .flatMap(List::stream)
+                    .filter(op -> !ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(op.getMoveToPath())) &&
+                            !ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(op.getPath())))
+                    .collect(toList());
+            Map<String, String> contentClasses = contentService.getContentTypeClasses(siteId,
+                    operations.stream()
+                            .map(this::getTargetPath)
+                            .filter(Objects::nonNull)
+                            .collect(toList()));
+
+            List<AuditLog> auditLogs = new ArrayList<>(operations.size());
+            for (RepoOperation repoOperation : operations) {
+                AuditLog auditLog = createAuditLog(siteId, siteFeedId, repoOperation, contentClasses);
+                if (auditLog != null) {
+                    auditLogs.add(auditLog);
                 }
-                contentRepository.markGitLogAudited(siteId, gl.getCommitId());
             }
+            // The commits are marked in the same transaction so a failure never leaves them audited twice
+            DefaultTransactionDefinition transactionDefinition = new DefaultTransactionDefinition();
+            transactionDefinition.setName("auditGitLog");
+            TransactionStatus txStatus = transactionManager.getTransaction(transactionDefinition);
+            try {
+                auditServiceInternal.insertAuditLogs(auditLogs);
+                contentRepository.markGitLogAuditedBulk(siteId, commitIds);
+                transactionManager.commit(txStatus);
+            } catch (Exception e) {
+                logger.debug("Rolling back audit of " + commitIds.size() + " commits for site " + siteId, e);
+                transactionManager.rollback(txStatus);
+                throw e;
+            }
+
+            auditedCommitCount.add(commitIds.size());
+            auditTimeNanos.add(System.nanoTime() - start);
+            logger.debug("Audited " + commitIds.size() + " commits with " + auditLogs.size() +
+                    " operations for site " + siteId);
+
+            if (unauditedGitlogs.size() < batchSize) {
+                auditLag.put(siteId, 0L);
+                return;
+            }
+            // There are more commits waiting, the lag is the age of the newest commit audited so far
+            operations.stream()
+                    .map(RepoOperation::getDateTime)
+                    .filter(Objects::nonNull)
+                    .max(Comparator.naturalOrder())
+                    .ifPresent(dateTime -> auditLag.put(siteId,
+                            Math.max(0, System.currentTimeMillis() - dateTime.toInstant().toEpochMilli())));
         }
     }
 
+    private String getTargetPath(RepoOperation repoOperation) {
+        return repoOperation.getAction() == MOVE ? repoOperation.getMoveToPath() : repoOperation.getPath();
+    }
+
+    private AuditLog createAuditLog(String siteId, long siteFeedId, RepoOperation repoOperation,
+                                    Map<String, String> contentClasses) {
+        String operation;
+        switch (repoOperation.getAction()) {
+            case CREATE:
+            case COPY:
+                operation = OPERATION_CREATE;
+                break;
+            case UPDATE:
+                operation = OPERATION_UPDATE;
+                break;
+            case DELETE:
+                operation = OPERATION_DELETE;
+                break;
+            case MOVE:
+                operation = OPERATION_MOVE;
+                break;
+            default:
+                logger.error("Error: Unknown repo operation for site " + siteId + " operation: " +
+                        repoOperation.getAction());
+                return null;
+        }
+        String path = getTargetPath(repoOperation);
+        logger.debug("Insert audit log for site: " + siteId + " path: " + path);
+        AuditLog auditLog = auditServiceInternal.createAuditLogEntry();
+        auditLog.setOperation(operation);
+        auditLog.setOperationTimestamp(repoOperation.getDateTime());
+        auditLog.setSiteId(siteFeedId);
+        auditLog.setActorId(repoOperation.getAuthor());
+        auditLog.setActorDetails(repoOperation.getAuthor());
+        auditLog.setOrigin(ORIGIN_GIT);
+        auditLog.setPrimaryTargetId(siteId + ":" + path);
+        auditLog.setPrimaryTargetType(TARGET_TYPE_CONTENT_ITEM);
+        auditLog.setPrimaryTargetValue(path);
+        auditLog.setPrimaryTargetSubtype(contentClasses.get(path));
+        return auditLog;
+    }
+
+    /**
+     * @return the time in milliseconds between now and the newest commit audited for the given site, 0 if the site
+     *         has no commits waiting to be audited
+     */
+    public long getAuditLag(String siteId) {
+        return auditLag.getOrDefault(siteId, 0L);
+    }
+
+    @Override
+    public Map<String, Long> getAuditLags() {
+        return new TreeMap<>(auditLag);
+    }
+
+    @Override
+    public long getAuditedCommitCount() {
+        return auditedCommitCount.sum();
+    }
+
+    @Override
+    public long getAuditTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(auditTimeNanos.sum());
+    }
+
+    /**
+     * Returns how far behind the audit log is for each site and how much work has been done to catch up
+     * @return map with the lag by site, the number of audited commits and the total time spent auditing them
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("auditLags", getAuditLags());
+        summary.put("auditedCommitCount", getAuditedCommitCount());
+        summary.put("auditTimeMillis", getAuditTimeMillis());
+        return summary;
+    }
+
     private boolean checkSiteUuid(String siteId, String siteUuid) {
         boolean toRet = false;
         try {
@@ -266,6 +328,14 @@ public class StudioAuditLogProcessingTask extends StudioClockTask {
         this.batchSizeAudited = batchSizeAudited;
     }
 
+    public int getMaxBatches() {
+        return maxBatches;
+    }
+
+    public void setMaxBatches(int maxBatches) {
+        this.maxBatches = maxBatches;
+    }
+
     public ContentService getContentService() {
         return contentService;
     }
@@ -273,4 +343,20 @@ public class StudioAuditLogProcessingTask extends StudioClockTask {
     public void setContentService(ContentService contentService) {
         this.contentService = contentService;
     }
+
+    public SiteRegistry getSiteRegistry() {
+        return siteRegistry;
+    }
+
+    public void setSiteRegistry(SiteRegistry siteRegistry) {
+        this.siteRegistry = siteRegistry;
+    }
+
+    public PlatformTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
 }
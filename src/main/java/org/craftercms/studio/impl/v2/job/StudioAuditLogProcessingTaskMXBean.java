@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.job;
+
+import java.util.Map;
+
+/**
+ * JMX view of the git history ingestion of the {@link StudioAuditLogProcessingTask}
+ */
+public interface StudioAuditLogProcessingTaskMXBean {
+
+    /**
+     * @return the time in milliseconds between now and the newest commit audited, keyed by site
+     */
+    Map<String, Long> getAuditLags();
+
+    long getAuditedCommitCount();
+
+    long getAuditTimeMillis();
+
+}
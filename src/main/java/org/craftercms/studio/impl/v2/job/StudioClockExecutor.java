@@ -29,26 +29,23 @@ import org.craftercms.studio.api.v1.job.Job;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.repository.ContentRepository;
-import org.craftercms.studio.api.v1.service.GeneralLockService;
 import org.craftercms.studio.api.v1.service.site.SiteService;
 import org.craftercms.studio.api.v2.deployment.Deployer;
 import org.craftercms.studio.api.v2.job.SiteJob;
+import org.craftercms.studio.api.v2.service.site.internal.SiteRegistry;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
-import org.springframework.core.task.TaskExecutor;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.PATTERN_SITE;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.SITE_UUID_FILENAME;
-import static org.craftercms.studio.api.v1.constant.StudioConstants.STUDIO_CLOCK_EXECUTOR_SITE_LOCK;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_SITE_PREVIEW_DESTROY_CONTEXT_URL;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_BASE_PATH;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SITES_REPOS_PATH;
@@ -56,10 +53,9 @@ import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SITES_REPOS
 public class StudioClockExecutor implements Job {
 
     private static final Logger logger = LoggerFactory.getLogger(StudioClockExecutor.class);
-    private static final ReentrantLock singleWorkerLock = new ReentrantLock();
-    private static final Map<String, ReentrantLock> singleWorkerSiteTasksLockMap = new HashMap<String, ReentrantLock>();
+    private final ReentrantLock singleWorkerLock = new ReentrantLock();
 
-    private final static Map<String, String> deletedSitesMap = new HashMap<String, String>();
+    private final Map<String, String> deletedSitesMap = new ConcurrentHashMap<String, String>();
 
     private static boolean stopSignaled = false;
     private static boolean running = false;
@@ -81,11 +77,11 @@ public class StudioClockExecutor implements Job {
     }
 
     private StudioConfiguration studioConfiguration;
-    private TaskExecutor taskExecutor;
+    private SiteTaskScheduler siteTaskScheduler;
     private SiteService siteService;
+    private SiteRegistry siteRegistry;
     private ContentRepository contentRepository;
     private Deployer deployer;
-    private GeneralLockService generalLockService;
     private List<Job> globalTasks;
     private List<SiteJob> siteTasks;
     private static int threadCounter = 0;
@@ -117,22 +113,9 @@ public class StudioClockExecutor implements Job {
         cleanupDeletedSites();
 
         List<String> sites = siteService.getAllCreatedSites();
+        siteTaskScheduler.retainSites(sites);
         for (String site : sites) {
-            taskExecutor.execute(new Runnable() {
-                @Override
-                public void run() {
-                    String tasksLock = STUDIO_CLOCK_EXECUTOR_SITE_LOCK.replaceAll(PATTERN_SITE, site);
-                    if (generalLockService.tryLock(tasksLock)) {
-                        try {
-                            for (SiteJob siteTask : siteTasks) {
-                                siteTask.execute(site);
-                            }
-                        } finally {
-                            generalLockService.unlock(tasksLock);
-                        }
-                    }
-                }
-            });
+            siteTaskScheduler.schedule(site, siteTasks);
         }
     }
 
@@ -150,6 +133,8 @@ public class StudioClockExecutor implements Job {
                 }
                 StudioClusterSandboxRepoSyncTask.remotesMap.remove(siteFeed.getSiteId());
                 StudioClusterPublishedRepoSyncTask.remotesMap.remove(siteFeed.getSiteId());
+                // The site could have been deleted in a different cluster node
+                siteRegistry.invalidate(siteFeed.getSiteId());
                 deletedSitesMap.put(key, siteFeed.getName());
             }
         });
@@ -210,12 +195,12 @@ public class StudioClockExecutor implements Job {
         this.studioConfiguration = studioConfiguration;
     }
 
-    public TaskExecutor getTaskExecutor() {
-        return taskExecutor;
+    public SiteTaskScheduler getSiteTaskScheduler() {
+        return siteTaskScheduler;
     }
 
-    public void setTaskExecutor(TaskExecutor taskExecutor) {
-        this.taskExecutor = taskExecutor;
+    public void setSiteTaskScheduler(SiteTaskScheduler siteTaskScheduler) {
+        this.siteTaskScheduler = siteTaskScheduler;
     }
 
     public SiteService getSiteService() {
@@ -226,6 +211,14 @@ public class StudioClockExecutor implements Job {
         this.siteService = siteService;
     }
 
+    public SiteRegistry getSiteRegistry() {
+        return siteRegistry;
+    }
+
+    public void setSiteRegistry(SiteRegistry siteRegistry) {
+        this.siteRegistry = siteRegistry;
+    }
+
     public ContentRepository getContentRepository() {
         return contentRepository;
     }
@@ -242,14 +235,6 @@ public class StudioClockExecutor implements Job {
         this.deployer = deployer;
     }
 
-    public GeneralLockService getGeneralLockService() {
-        return generalLockService;
-    }
-
-    public void setGeneralLockService(GeneralLockService generalLockService) {
-        this.generalLockService = generalLockService;
-    }
-
     public List<Job> getGlobalTasks() {
         return globalTasks;
     }
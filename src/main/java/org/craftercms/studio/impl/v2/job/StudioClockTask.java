@@ -35,6 +35,7 @@ public abstract class StudioClockTask implements SiteJob {
     protected int executeEveryNCycles;
     protected Map<String, Integer> counters = new HashMap<String, Integer>();
     protected int offset;
+    protected int priority;
     protected StudioConfiguration studioConfiguration;
     protected SiteService siteService;
 
@@ -97,6 +98,15 @@ public abstract class StudioClockTask implements SiteJob {
         this.offset = offset;
     }
 
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
     public StudioConfiguration getStudioConfiguration() {
         return studioConfiguration;
     }
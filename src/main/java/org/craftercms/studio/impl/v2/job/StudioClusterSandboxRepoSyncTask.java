@@ -43,16 +43,22 @@ import org.craftercms.studio.api.v2.service.config.ConfigurationService;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.impl.v2.service.cluster.StudioClusterUtils;
 import org.eclipse.jgit.api.CloneCommand;
+import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.PullCommand;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.api.MergeResult;
 import org.eclipse.jgit.api.RemoteAddCommand;
 import org.eclipse.jgit.api.RemoteSetUrlCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.URIish;
 
 import java.io.File;
@@ -61,6 +67,7 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -68,6 +75,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static org.craftercms.studio.api.v1.constant.GitRepositories.SANDBOX;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.PATTERN_SITE;
@@ -81,13 +89,27 @@ import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryC
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.CONFIG_PARAMETER_URL;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.CONFIG_SECTION_REMOTE;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.GIT_ROOT;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static org.craftercms.studio.impl.v2.utils.GitUtils.getChangedFiles;
 import static org.eclipse.jgit.lib.Constants.HEAD;
+import static org.eclipse.jgit.lib.Constants.R_HEADS;
+import static org.eclipse.jgit.lib.Constants.R_REMOTES;
 
+/**
+ * Keeps the local sandbox repositories in sync with the rest of the cluster.
+ *
+ * <p>Every node publishes the head commit of each site sandbox in the {@code cluster_site_sync_repo} table. On each
+ * cycle the task compares those watermarks with its own and only fetches from the members that moved since the last
+ * sync, so sites without changes don't touch git at all.</p>
+ */
 public class StudioClusterSandboxRepoSyncTask extends StudioClockClusterTask {
 
     private static final Logger logger = LoggerFactory.getLogger(StudioClusterSandboxRepoSyncTask.class);
 
+    /**
+     * Remotes added to each site sandbox, mapped to the last watermark already synced from them
+     */
     protected static final Map<String, Map<String, String>> remotesMap = new HashMap<String, Map<String, String>>();
 
     private StudioClusterUtils studioClusterUtils;
@@ -143,27 +165,28 @@ public class StudioClusterSandboxRepoSyncTask extends StudioClockClusterTask {
                 if (success) {
                     syncRemoteRepositories(siteId, localAddress);
 
-                    // Get the site's database last commit ID
-                    //String siteDatabaseLastCommitId = getDatabaseLastCommitId(siteId);
+                    // Check which cluster members published a head the site hasn't been synced with yet
+                    Map<Long, String> watermarks = getUpdatedWatermarks(siteId, localNode.getId(), siteFeed.getId(),
+                            clusterNodes, clusterSiteRecords);
 
-                    // Check if the site needs to be synced
-                    boolean syncRequired = isSyncRequired(siteId, siteFeed.getLastCommitId());
-
-                    if (syncRequired) {
+                    if (!watermarks.isEmpty()) {
+                        List<ClusterMember> nodesAhead = clusterNodes.stream()
+                                .filter(node -> watermarks.containsKey(node.getId()))
+                                .collect(toList());
                         try {
                             // Add the remote repositories to the local repository to sync from if not added already
                             logger.debug("Add remotes for site " + siteId);
-                            addRemotes(siteId, clusterNodes);
+                            addRemotes(siteId, nodesAhead);
 
                         } catch (InvalidRemoteUrlException | ServiceLayerException e) {
                             logger.error("Error while adding remotes on cluster node for site " + siteId);
                         }
 
                         try {
-                            // Sync with remote and update the local cache with the last commit ID to speed things up
+                            // Sync with the members ahead and publish the new head of the local repository
                             logger.debug("Update content for site " + siteId);
                             updateContent(localNode.getId(), siteFeed.getId(), siteId, siteFeed.getSandboxBranch(),
-                                    clusterNodes);
+                                    nodesAhead, watermarks);
                         } catch (IOException | CryptoException | ServiceLayerException e) {
                             logger.error("Error while updating content for site " + siteId + " on cluster node.", e);
                         }
@@ -380,19 +403,41 @@ public class StudioClusterSandboxRepoSyncTask extends StudioClockClusterTask {
         }
     }
 
-    // Check if the site's commit id is behind the database, if so, it means the site on local disk needs to be sync'd
-    private boolean isSyncRequired(String siteId, String siteDatabaseLastCommitId) {
-        boolean syncRequired = true;
-
-        // Get the repo's last commit id and compare it to the database
-        String lastCommitIdRepo = contentRepository.getRepoLastCommitId(siteId);
-
-        if (StringUtils.isNotEmpty(siteDatabaseLastCommitId) &&
-                StringUtils.equals(lastCommitIdRepo, siteDatabaseLastCommitId)) {
-            syncRequired = false;
+    /**
+     * Compares the head watermarks published by the cluster members with the local one and returns the ones that
+     * still need to be synced, indexed by cluster node id
+     */
+    protected Map<Long, String> getUpdatedWatermarks(String siteId, long localNodeId, long sId,
+                                                     List<ClusterMember> clusterNodes,
+                                                     List<ClusterSiteRecord> clusterSiteRecords) {
+        Map<Long, ClusterSiteRecord> records = clusterSiteRecords.stream()
+                .collect(toMap(ClusterSiteRecord::getClusterNodeId, Function.identity(), (r1, r2) -> r1));
+
+        ClusterSiteRecord localRecord = records.get(localNodeId);
+        String localWatermark = Objects.nonNull(localRecord) ? localRecord.getNodeLastCommitId() : null;
+        if (StringUtils.isEmpty(localWatermark)) {
+            // The local head has not been published yet, do it now so the other members can compare against it
+            localWatermark = contentRepository.getRepoLastCommitId(siteId);
+            if (StringUtils.isNotEmpty(localWatermark)) {
+                retryingDatabaseOperationFacade.updateClusterNodeLastCommitId(localNodeId, sId, localWatermark);
+            }
         }
 
-        return syncRequired;
+        Map<String, String> syncedWatermarks = remotesMap.getOrDefault(siteId, Collections.emptyMap());
+        Map<Long, String> watermarks = new HashMap<>();
+        for (ClusterMember remoteNode : clusterNodes) {
+            ClusterSiteRecord csr = records.get(remoteNode.getId());
+            if (Objects.nonNull(csr) && StringUtils.equals(csr.getState(), STATE_READY)) {
+                String watermark = csr.getNodeLastCommitId();
+                if (StringUtils.isNotEmpty(watermark) && !StringUtils.equals(watermark, localWatermark) &&
+                        !StringUtils.equals(watermark, syncedWatermarks.get(remoteNode.getGitRemoteName()))) {
+                    logger.debug("Cluster node " + remoteNode.getLocalAddress() + " moved to " + watermark +
+                            " for site " + siteId);
+                    watermarks.put(remoteNode.getId(), watermark);
+                }
+            }
+        }
+        return watermarks;
     }
 
     protected void addRemotes(String siteId, List<ClusterMember> clusterNodes)
@@ -477,7 +522,7 @@ public class StudioClusterSandboxRepoSyncTask extends StudioClockClusterTask {
     }
 
     protected void updateContent(long localNodeId, long sId, String siteId, String sandboxBranchName,
-                                 List<ClusterMember> clusterNodes)
+                                 List<ClusterMember> clusterNodes, Map<Long, String> watermarks)
             throws IOException, CryptoException, ServiceLayerException {
         logger.debug("Update sandbox for site " + siteId);
 
@@ -490,50 +535,75 @@ public class StudioClusterSandboxRepoSyncTask extends StudioClockClusterTask {
                 .build();
 
         Map<String, String> remoteLastSyncCommits = remotesMap.get(siteId);
-        if (remoteLastSyncCommits == null || remoteLastSyncCommits.isEmpty()) {
+        if (remoteLastSyncCommits == null) {
             remoteLastSyncCommits = new HashMap<String, String>();
             remotesMap.put(siteId, remoteLastSyncCommits);
         }
         try (Git git = new Git(repo)) {
-            logger.debug("Update content from each active cluster member");
+            ObjectId previousCommit = repo.resolve(HEAD);
+
+            logger.debug("Update content from the cluster members ahead of the local node");
             for (ClusterMember remoteNode : clusterNodes) {
-                ClusterSiteRecord csr = clusterDao.getClusterSiteRecord(remoteNode.getId(), sId);
-                if (Objects.nonNull(csr) && StringUtils.equals(csr.getState(), STATE_READY)) {
-                    updateBranch(siteId, git, remoteNode, sandboxBranchName);
+                String watermark = watermarks.get(remoteNode.getId());
+                if (updateBranch(siteId, git, remoteNode, sandboxBranchName, watermark)) {
+                    remoteLastSyncCommits.put(remoteNode.getGitRemoteName(), watermark);
                 }
             }
 
-            String updatedCommitId = contentRepository.getRepoLastCommitId(siteId);
-            retryingDatabaseOperationFacade.updateClusterNodeLastCommitId(localNodeId, sId, updatedCommitId);
+            ObjectId updatedCommit = repo.resolve(HEAD);
+            if (Objects.nonNull(updatedCommit) && !updatedCommit.equals(previousCommit)) {
+                if (Objects.nonNull(previousCommit)) {
+                    // get all changed files that match the config patterns and invalidate the cache
+                    getChangedFiles(git, previousCommit, updatedCommit, configurationPatterns)
+                            .forEach(path -> configurationService.invalidateConfiguration(siteId, path));
+                }
+
+                retryingDatabaseOperationFacade.updateClusterNodeLastCommitId(localNodeId, sId,
+                        updatedCommit.getName());
 
-            PreviewEventContext context = new PreviewEventContext();
-            context.setSite(siteId);
-            eventService.publish(EVENT_PREVIEW_SYNC, context);
+                PreviewEventContext context = new PreviewEventContext();
+                context.setSite(siteId);
+                eventService.publish(EVENT_PREVIEW_SYNC, context);
+            }
         } catch (GitAPIException e) {
-            logger.error("Error while syncing cluster node content for site " + siteId);
+            logger.error("Error while syncing cluster node content for site " + siteId, e);
         }
     }
 
-    private void updateBranch(String siteId, Git git, ClusterMember remoteNode, String sandboxBranchName)
+    private boolean updateBranch(String siteId, Git git, ClusterMember remoteNode, String sandboxBranchName,
+                                 String watermark)
             throws CryptoException, GitAPIException, IOException, ServiceLayerException {
+        boolean synced = false;
         String gitLockKey = SITE_SANDBOX_REPOSITORY_GIT_LOCK.replaceAll(PATTERN_SITE, siteId);
         final Path tempKey = Files.createTempFile(UUID.randomUUID().toString(), ".tmp");
         if (generalLockService.tryLock(gitLockKey)) {
-            var previousCommit = git.getRepository().resolve(HEAD);
             try {
-
-                PullCommand pullCommand = git.pull();
-                pullCommand.setRemote(remoteNode.getGitRemoteName());
-                pullCommand.setRemoteBranchName(sandboxBranchName);
-                pullCommand = studioClusterUtils.configureAuthenticationForCommand(remoteNode, pullCommand, tempKey);
-                var result = retryingRepositoryOperationFacade.call(pullCommand);
-
-                if (result.isSuccessful() && result.getMergeResult() != null) {
-                    // get all changed files that match the config patterns and invalidate the cache
-                    getChangedFiles(git, previousCommit, result.getMergeResult().getNewHead(), configurationPatterns)
-                            .forEach(path -> configurationService.invalidateConfiguration(siteId, path));
+                Repository repo = git.getRepository();
+                if (isMerged(repo, watermark)) {
+                    logger.debug("Site " + siteId + " already contains commit " + watermark + " from " +
+                            remoteNode.getLocalAddress());
+                    synced = true;
+                } else {
+                    // Fetch only the sandbox branch of the remote instead of all of its refs
+                    String trackingRef = R_REMOTES + remoteNode.getGitRemoteName() + "/" + sandboxBranchName;
+                    FetchCommand fetchCommand = git.fetch()
+                            .setRemote(remoteNode.getGitRemoteName())
+                            .setRefSpecs(new RefSpec("+" + R_HEADS + sandboxBranchName + ":" + trackingRef));
+                    fetchCommand = studioClusterUtils.configureAuthenticationForCommand(remoteNode, fetchCommand,
+                            tempKey);
+                    retryingRepositoryOperationFacade.call(fetchCommand);
+
+                    Ref remoteBranch = repo.findRef(trackingRef);
+                    if (Objects.nonNull(remoteBranch)) {
+                        MergeCommand mergeCommand = git.merge().include(remoteBranch);
+                        MergeResult result = retryingRepositoryOperationFacade.call(mergeCommand);
+                        synced = result.getMergeStatus().isSuccessful();
+                        if (!synced) {
+                            logger.error("Merge from " + remoteNode.getLocalAddress() + " failed for site " +
+                                    siteId + " with status " + result.getMergeStatus());
+                        }
+                    }
                 }
-
             } finally {
                 generalLockService.unlock(gitLockKey);
             }
@@ -542,6 +612,21 @@ public class StudioClusterSandboxRepoSyncTask extends StudioClockClusterTask {
         }
 
         Files.delete(tempKey);
+        return synced;
+    }
+
+    private boolean isMerged(Repository repo, String commitId) throws IOException {
+        ObjectId head = repo.resolve(HEAD);
+        if (Objects.isNull(head) || !ObjectId.isId(commitId)) {
+            return false;
+        }
+        ObjectId commit = ObjectId.fromString(commitId);
+        if (!repo.getObjectDatabase().has(commit)) {
+            return false;
+        }
+        try (RevWalk revWalk = new RevWalk(repo)) {
+            return revWalk.isMergedInto(revWalk.parseCommit(commit), revWalk.parseCommit(head));
+        }
     }
 
     public StudioClusterUtils getStudioClusterUtils() {
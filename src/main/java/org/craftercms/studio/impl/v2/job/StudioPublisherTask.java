@@ -39,19 +39,37 @@ import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.impl.v2.service.cluster.StudioClusterUtils;
 import org.springframework.jdbc.UncategorizedSQLException;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.text.SimpleDateFormat;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.craftercms.studio.api.v1.dal.SiteFeed.STATE_READY;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.OPERATION_PUBLISHED;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.TARGET_TYPE_CONTENT_ITEM;
@@ -60,19 +78,27 @@ import static org.craftercms.studio.api.v2.dal.PublishStatus.ERROR;
 import static org.craftercms.studio.api.v2.dal.PublishStatus.PUBLISHING;
 import static org.craftercms.studio.api.v2.dal.PublishStatus.QUEUED;
 import static org.craftercms.studio.api.v2.dal.PublishStatus.READY;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CLOCK_JOB_TASK_PUBLISHER_MAX_CONCURRENT_ENVIRONMENTS;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_MANDATORY_DEPENDENCIES_CHECK_ENABLED;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_ERROR;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_PUBLISHING;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_QUEUED;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_READY;
 
-public class StudioPublisherTask extends StudioClockTask {
+public class StudioPublisherTask extends StudioClockTask implements StudioPublisherTaskMXBean {
 
     private static final Logger logger = LoggerFactory.getLogger(StudioPublisherTask.class);
 
-    protected static final Map<String, Integer> retryCounter = new HashMap<String, Integer>();
+    public static final String OBJECT_NAME = "org.craftercms.studio:type=StudioPublisherTask";
 
-    protected static final Set<String> dbErrorNotifiedSites = new HashSet<String>();
+    /**
+     * How long the publisher waits for a prepared batch before checking if the workers are done, in milliseconds
+     */
+    protected static final long PIPELINE_POLL_INTERVAL = 100;
+
+    protected static final Map<String, Integer> retryCounter = new ConcurrentHashMap<String, Integer>();
+
+    protected static final Set<String> dbErrorNotifiedSites = ConcurrentHashMap.newKeySet();
 
     private StudioConfiguration studioConfiguration;
     private SiteService siteService;
@@ -83,6 +109,41 @@ public class StudioPublisherTask extends StudioClockTask {
     private AuditServiceInternal auditServiceInternal;
     private int maxRetryCounter;
     private StudioClusterUtils studioClusterUtils;
+    private Executor publisherTaskExecutor;
+
+    /**
+     * Pipelines of the sites that are currently publishing
+     */
+    protected final Map<String, PublishingPipeline> activePipelines = new ConcurrentHashMap<>();
+
+    protected final LongAdder preparedBatchCount = new LongAdder();
+    protected final LongAdder deployedBatchCount = new LongAdder();
+    protected final LongAdder preparationTimeNanos = new LongAdder();
+    protected final LongAdder deployTimeNanos = new LongAdder();
+
+    public void init() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to register the publisher metrics in JMX", e);
+        }
+    }
+
+    public void destroy() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to unregister the publisher metrics from JMX", e);
+        }
+    }
 
     @Override
     protected void executeInternal(String siteId) {
@@ -90,7 +151,7 @@ public class StudioPublisherTask extends StudioClockTask {
         if (!StringUtils.equals(siteState, STATE_READY)) {
             return;
         }
-        String env = null;
+        Set<String> environments = new HashSet<String>();
         String lockOwnerId = studioClusterUtils.getLockOwnerId();
         int lockTTL = studioClusterUtils.getLockTTL();
         try {
@@ -102,81 +163,19 @@ public class StudioPublisherTask extends StudioClockTask {
                 if (contentRepository.repositoryExists(siteId) && siteService.isPublishingEnabled(siteId)) {
                     if (!publishingManager.isPublishingBlocked(siteId)) {
                         try {
-                            if (!retryCounter.containsKey(siteId)) {
-                                retryCounter.put(siteId, maxRetryCounter);
-                            }
-                            Set<String> environments = getAllPublishingEnvironments(siteId);
-                            for (String environment : environments) {
-                                env = environment;
-                                logger.debug("Processing content ready for deployment for site \"{0}\"", siteId);
-                                List<PublishRequest> itemsToDeploy =
-                                        publishingManager.getItemsReadyForDeployment(siteId, environment);
-                                while (CollectionUtils.isNotEmpty(itemsToDeploy)) {
-                                    logger.debug("Deploying " + itemsToDeploy.size() + " items for " +
-                                            "site " + siteId);
-                                    publishingManager.markItemsProcessing(siteId, environment, itemsToDeploy);
-                                    List<String> commitIds = itemsToDeploy.stream()
-                                            .map(PublishRequest::getCommitId)
-                                            .distinct().collect(Collectors.toList());
-
-                                    boolean allCommitsPresent = true;
-                                    StringBuilder sbMissingCommits = new StringBuilder();
-                                    for (String commit : commitIds) {
-                                        if (StringUtils.isNotEmpty(commit)) {
-                                            boolean commitPresent = contentRepository.commitIdExists(siteId,
-                                                    commit);
-                                            if (!commitPresent) {
-                                                sbMissingCommits.append(commit).append("; ");
-                                                logger.debug("Commit with ID: " + commit + " is not present in " +
-                                                        "local repo for site " + siteId + ". " +
-                                                        "Publisher task will skip this cycle.");
-                                                allCommitsPresent = false;
-                                            }
-                                        }
-                                    }
-
-                                    if (allCommitsPresent) {
-                                        logger.info("Starting publishing on environment " + environment +
-                                                " for site " + siteId);
-                                        logger.debug("Site \"{0}\" has {1} items ready for deployment",
-                                                siteId, itemsToDeploy.size());
-
-                                        doPublishing(siteId, itemsToDeploy, environment);
-                                        retryCounter.remove(siteId);
-                                        dbErrorNotifiedSites.remove(siteId);
-                                        siteService.updatePublishingLockHeartbeatForSite(siteId);
-                                        itemsToDeploy =
-                                                publishingManager.getItemsReadyForDeployment(siteId, environment);
-                                    } else {
-                                        publishingManager.markItemsReady(siteId, environment, itemsToDeploy);
-                                        int retriesLeft = retryCounter.get(siteId) - 1;
-                                        itemsToDeploy = null;
-                                        if (retriesLeft > 0) {
-                                            retryCounter.put(siteId, retriesLeft);
-                                            logger.info("Following commits are not present in local " +
-                                                    "repository " + sbMissingCommits.toString() + " Publisher task " +
-                                                    "will retry in next cycle. Number of retries left: " + retriesLeft);
-                                        } else {
-                                            retryCounter.remove(siteId);
-                                            siteService.enablePublishing(siteId, false);
-                                            throw new DeploymentException("Deployment failed after " + maxRetryCounter
-                                                    + " retries. Following commits are not present in local " +
-                                                    "repository " + sbMissingCommits.toString());
-                                        }
-                                    }
-
-                                }
-                            }
+                            retryCounter.putIfAbsent(siteId, maxRetryCounter);
+                            environments = getAllPublishingEnvironments(siteId);
+                            publishEnvironments(siteId, environments);
                         } catch (UncategorizedSQLException  dbErr) {
                             logger.error("DB error while executing deployment to environment store", dbErr);
                             if (!dbErrorNotifiedSites.add(siteId)) {
                                 notificationService.notifyDeploymentError(siteId, dbErr);
                             }
-                            publishingManager.resetProcessingQueue(siteId, env);
+                            resetProcessingQueue(siteId, environments);
                         } catch (Exception err) {
                             logger.error("Error while executing deployment to environment store for site: "
                                     + siteId, err);
-                            publishingManager.resetProcessingQueue(siteId, env);
+                            resetProcessingQueue(siteId, environments);
                             notificationService.notifyDeploymentError(siteId, err);
                         }
                     } else {
@@ -191,11 +190,11 @@ public class StudioPublisherTask extends StudioClockTask {
             if (!dbErrorNotifiedSites.add(siteId)) {
                 notificationService.notifyDeploymentError(siteId, dbErr);
             }
-            publishingManager.resetProcessingQueue(siteId, env);
+            resetProcessingQueue(siteId, environments);
         } catch (Exception err) {
             logger.error("Error while executing deployment to environment store", err);
             notificationService.notifyDeploymentError(siteId, err);
-            publishingManager.resetProcessingQueue(siteId, env);
+            resetProcessingQueue(siteId, environments);
         } finally {
             // Unlock publishing if queue does not have packages ready for publishing
             logger.debug("Unlocking publishing for site " + siteId + " by lock owner " + lockOwnerId);
@@ -203,56 +202,241 @@ public class StudioPublisherTask extends StudioClockTask {
         }
     }
 
-    private void doPublishing(String siteId, List<PublishRequest> itemsToDeploy, String environment) throws DeploymentException, ServiceLayerException {
+    /**
+     * Publishes all the environments of the site as a pipeline: the deployment items of each batch are prepared by
+     * up to {@code maxConcurrentEnvironments} workers (one environment per worker) while the current thread
+     * publishes the batches that are already prepared. The preparation of an environment overlaps with the
+     * publishing of the other environments only: the next batch of an environment is prepared once the previous one
+     * has been published successfully, so it never depends on the state of items that could still be rolled back.
+     */
+    protected void publishEnvironments(String siteId, Set<String> environments)
+            throws ServiceLayerException, DeploymentException {
+        PublishingPipeline pipeline = new PublishingPipeline(siteId, environments);
+        int workers = Math.max(1, Math.min(getMaxConcurrentEnvironments(), environments.size()));
+        CompletableFuture<?>[] preparations = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            preparations[i] = CompletableFuture.runAsync(() -> prepareEnvironments(pipeline), publisherTaskExecutor);
+        }
+        CompletableFuture<Void> allPrepared = CompletableFuture.allOf(preparations);
+        activePipelines.put(siteId, pipeline);
+        boolean completed = false;
+        try {
+            while (!pipeline.cancelled.get() && (!allPrepared.isDone() || !pipeline.preparedBatches.isEmpty())) {
+                PublishingBatch batch = pipeline.preparedBatches.poll(PIPELINE_POLL_INTERVAL, MILLISECONDS);
+                if (batch != null) {
+                    boolean deployed = false;
+                    try {
+                        deployBatch(siteId, batch);
+                        deployed = true;
+                    } finally {
+                        batch.deployed.complete(deployed);
+                    }
+                    retryCounter.remove(siteId);
+                    dbErrorNotifiedSites.remove(siteId);
+                    siteService.updatePublishingLockHeartbeatForSite(siteId);
+                }
+            }
+            allPrepared.join();
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeploymentException("Interrupted while publishing site " + siteId, e);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ServiceLayerException) {
+                throw (ServiceLayerException) cause;
+            } else if (cause instanceof DeploymentException) {
+                throw (DeploymentException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        } finally {
+            activePipelines.remove(siteId, pipeline);
+            if (!completed) {
+                // stop the workers and return the batches that will not be published to the queue
+                pipeline.cancelled.set(true);
+                allPrepared.exceptionally(e -> null).join();
+                PublishingBatch batch;
+                while ((batch = pipeline.preparedBatches.poll()) != null) {
+                    batch.deployed.complete(false);
+                    publishingManager.markItemsReady(siteId, batch.environment, batch.items);
+                }
+            }
+        }
+    }
+
+    protected void prepareEnvironments(PublishingPipeline pipeline) {
+        try {
+            String environment;
+            while (!pipeline.cancelled.get() && (environment = pipeline.pendingEnvironments.poll()) != null) {
+                prepareEnvironment(pipeline, environment);
+            }
+        } catch (ServiceLayerException | DeploymentException e) {
+            pipeline.cancelled.set(true);
+            throw new CompletionException(e);
+        } catch (RuntimeException e) {
+            pipeline.cancelled.set(true);
+            throw e;
+        }
+    }
+
+    protected void prepareEnvironment(PublishingPipeline pipeline, String environment)
+            throws ServiceLayerException, DeploymentException {
+        String siteId = pipeline.siteId;
+        logger.debug("Processing content ready for deployment for site \"{0}\"", siteId);
+        List<PublishRequest> itemsToDeploy = publishingManager.getItemsReadyForDeployment(siteId, environment);
+        while (CollectionUtils.isNotEmpty(itemsToDeploy) && !pipeline.cancelled.get()) {
+            logger.debug("Deploying " + itemsToDeploy.size() + " items for " +
+                    "site " + siteId);
+            publishingManager.markItemsProcessing(siteId, environment, itemsToDeploy);
+            if (!checkCommitsPresent(siteId, environment, itemsToDeploy)) {
+                return;
+            }
+            logger.info("Starting publishing on environment " + environment +
+                    " for site " + siteId);
+            logger.debug("Site \"{0}\" has {1} items ready for deployment",
+                    siteId, itemsToDeploy.size());
+
+            long start = System.nanoTime();
+            PublishingBatch batch = prepareBatch(siteId, itemsToDeploy, environment);
+            preparedBatchCount.increment();
+            preparationTimeNanos.add(System.nanoTime() - start);
+            if (!pipeline.add(batch)) {
+                publishingManager.markItemsReady(siteId, environment, itemsToDeploy);
+                return;
+            }
+            // the items of a failed batch are returned to the queue, so the next one needs to be computed again
+            if (!pipeline.awaitDeployment(batch)) {
+                return;
+            }
+            itemsToDeploy = publishingManager.getItemsReadyForDeployment(siteId, environment);
+        }
+    }
+
+    private boolean checkCommitsPresent(String siteId, String environment, List<PublishRequest> itemsToDeploy)
+            throws DeploymentException, SiteNotFoundException {
+        List<String> commitIds = itemsToDeploy.stream()
+                .map(PublishRequest::getCommitId)
+                .distinct().collect(Collectors.toList());
+
+        boolean allCommitsPresent = true;
+        StringBuilder sbMissingCommits = new StringBuilder();
+        for (String commit : commitIds) {
+            if (StringUtils.isNotEmpty(commit)) {
+                boolean commitPresent = contentRepository.commitIdExists(siteId,
+                        commit);
+                if (!commitPresent) {
+                    sbMissingCommits.append(commit).append("; ");
+                    logger.debug("Commit with ID: " + commit + " is not present in " +
+                            "local repo for site " + siteId + ". " +
+                            "Publisher task will skip this cycle.");
+                    allCommitsPresent = false;
+                }
+            }
+        }
+
+        if (!allCommitsPresent) {
+            publishingManager.markItemsReady(siteId, environment, itemsToDeploy);
+            int retriesLeft = retryCounter.merge(siteId, -1, Integer::sum);
+            if (retriesLeft > 0) {
+                logger.info("Following commits are not present in local " +
+                        "repository " + sbMissingCommits.toString() + " Publisher task " +
+                        "will retry in next cycle. Number of retries left: " + retriesLeft);
+            } else {
+                retryCounter.remove(siteId);
+                siteService.enablePublishing(siteId, false);
+                throw new DeploymentException("Deployment failed after " + maxRetryCounter
+                        + " retries. Following commits are not present in local " +
+                        "repository " + sbMissingCommits.toString());
+            }
+        }
+        return allCommitsPresent;
+    }
+
+    private void resetProcessingQueue(String siteId, Set<String> environments) {
+        for (String environment : environments) {
+            publishingManager.resetProcessingQueue(siteId, environment);
+        }
+    }
+
+    private PublishingBatch prepareBatch(String siteId, List<PublishRequest> itemsToDeploy, String environment)
+            throws DeploymentException, ServiceLayerException {
         String statusMessage;
-        String status;
-        String author = itemsToDeploy.get(0).getUser();
+        PublishingBatch batch = new PublishingBatch(environment, itemsToDeploy);
         StringBuilder sbComment = new StringBuilder();
-        List<DeploymentItemTO> completeDeploymentItemList = new ArrayList<DeploymentItemTO>();
         Set<String> processedPaths = new HashSet<String>();
         SimpleDateFormat sdf =
                 new SimpleDateFormat(StudioConstants.DATE_PATTERN_WORKFLOW_WITH_TZ);
-        String currentPackageId = StringUtils.EMPTY;
         try {
             logger.debug("Mark items as processing for site \"{0}\"", siteId);
-            Set<String> packageIds = new HashSet<String>();
             int idx = 0;
             for (PublishRequest item : itemsToDeploy) {
                 idx++;
-                if (!StringUtils.equals(currentPackageId, item.getPackageId())) {
-                    currentPackageId = item.getPackageId();
+                if (!StringUtils.equals(batch.packageId, item.getPackageId())) {
+                    batch.packageId = item.getPackageId();
                 }
                 statusMessage = studioConfiguration
                         .getProperty(JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_PUBLISHING);
                 statusMessage =
-                        statusMessage.replace("{package_id}", currentPackageId)
+                        statusMessage.replace("{package_id}", batch.packageId)
                                 .replace("{datetime}", ZonedDateTime.now(ZoneOffset.UTC)
                                         .format(DateTimeFormatter.ofPattern(sdf.toPattern())))
                                 .replace("{x}", Integer.toString(idx))
                                 .replace("{y}", Integer.toString(itemsToDeploy.size()));
                 siteService.updatePublishingStatusMessage(siteId, PUBLISHING, statusMessage);
 
-                processPublishingRequest(siteId, environment, item, completeDeploymentItemList, processedPaths);
-                if (packageIds.add(item.getPackageId())) {
+                processPublishingRequest(siteId, environment, item, batch.deploymentItems, processedPaths);
+                if (batch.packageIds.add(item.getPackageId())) {
                     sbComment.append(item.getSubmissionComment()).append("\n");
                 }
             }
-            deploy(siteId, environment, completeDeploymentItemList, author,
-                    sbComment.toString());
-            StringBuilder sbPackIds = new StringBuilder("Package(s): ");
-            for (String packageId : packageIds) {
-                sbPackIds.append(packageId).append(";");
-            }
-            generateWorkflowActivity(siteId, environment, packageIds,  author, OPERATION_PUBLISHED);
+            batch.comment = sbComment.toString();
+            return batch;
+        } catch (DeploymentException err) {
+            logger.error("Error while executing deployment to environment store " +
+                            "for site \"{0}\", number of items \"{1}\"", err, siteId,
+                    itemsToDeploy.size());
+            publishingManager.markItemsReady(siteId, environment, itemsToDeploy);
+            siteService.enablePublishing(siteId, false);
+            statusMessage = studioConfiguration.getProperty(JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_ERROR);
+            siteService.updatePublishingStatusMessage(siteId, ERROR, statusMessage);
+            throw err;
+        } catch (Exception err) {
+            logger.error("Unexpected error while executing deployment to environment " +
+                            "store for site \"{0}\", number of items \"{1}\"", err, siteId,
+                    itemsToDeploy.size());
+            publishingManager.markItemsReady(siteId, environment, itemsToDeploy);
+            siteService.enablePublishing(siteId, false);
+            statusMessage = studioConfiguration.getProperty(JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_ERROR);
+            siteService.updatePublishingStatusMessage(siteId, ERROR, statusMessage);
+            throw err;
+        }
+    }
+
+    private void deployBatch(String siteId, PublishingBatch batch) throws DeploymentException, ServiceLayerException {
+        String statusMessage;
+        String status;
+        String environment = batch.environment;
+        List<PublishRequest> itemsToDeploy = batch.items;
+        String author = itemsToDeploy.get(0).getUser();
+        SimpleDateFormat sdf =
+                new SimpleDateFormat(StudioConstants.DATE_PATTERN_WORKFLOW_WITH_TZ);
+        long start = System.nanoTime();
+        try {
+            deploy(siteId, environment, batch.deploymentItems, author, batch.comment);
+            generateWorkflowActivity(siteId, environment, batch.packageIds,  author, OPERATION_PUBLISHED);
             publishingManager.markItemsCompleted(siteId, environment, itemsToDeploy);
             logger.debug("Mark deployment completed for processed items for site \"{0}\"", siteId);
             logger.info("Finished publishing environment " + environment + " for site " + siteId);
+            deployedBatchCount.increment();
+            deployTimeNanos.add(System.nanoTime() - start);
 
             if (publishingManager.isPublishingQueueEmpty(siteId)) {
                 status = READY;
                 statusMessage = studioConfiguration.getProperty
                         (JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_STATUS_MESSAGE_READY);
-                statusMessage = statusMessage.replace("{package_id}", currentPackageId)
+                statusMessage = statusMessage.replace("{package_id}", batch.packageId)
                         .replace("{datetime}", ZonedDateTime.now(ZoneOffset.UTC)
                                 .format(DateTimeFormatter.ofPattern(sdf.toPattern())))
                         .replace("{package_size}",
@@ -383,6 +567,67 @@ public class StudioPublisherTask extends StudioClockTask {
         return environments;
     }
 
+    protected int getMaxConcurrentEnvironments() {
+        return studioConfiguration.getProperty(CLOCK_JOB_TASK_PUBLISHER_MAX_CONCURRENT_ENVIRONMENTS, Integer.class);
+    }
+
+    /**
+     * @param siteId the site id
+     * @return the number of prepared batches waiting to be published for the site
+     */
+    public int getQueueDepth(String siteId) {
+        PublishingPipeline pipeline = activePipelines.get(siteId);
+        return pipeline == null ? 0 : pipeline.preparedBatches.size();
+    }
+
+    @Override
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new TreeMap<>();
+        activePipelines.forEach((siteId, pipeline) -> depths.put(siteId, pipeline.preparedBatches.size()));
+        return depths;
+    }
+
+    @Override
+    public int getTotalQueueDepth() {
+        return activePipelines.values().stream().mapToInt(pipeline -> pipeline.preparedBatches.size()).sum();
+    }
+
+    @Override
+    public long getPreparedBatchCount() {
+        return preparedBatchCount.sum();
+    }
+
+    @Override
+    public long getDeployedBatchCount() {
+        return deployedBatchCount.sum();
+    }
+
+    @Override
+    public long getPreparationTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(preparationTimeNanos.sum());
+    }
+
+    @Override
+    public long getDeployTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deployTimeNanos.sum());
+    }
+
+    /**
+     * Returns the prepared batches waiting to be deployed for each site and the time spent preparing and deploying
+     * them
+     * @return map with the queue depths, the batch counters and the preparation and deployment times
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("queueDepths", getQueueDepths());
+        summary.put("totalQueueDepth", getTotalQueueDepth());
+        summary.put("preparedBatchCount", getPreparedBatchCount());
+        summary.put("deployedBatchCount", getDeployedBatchCount());
+        summary.put("preparationTimeMillis", getPreparationTimeMillis());
+        summary.put("deployTimeMillis", getDeployTimeMillis());
+        return summary;
+    }
+
     public StudioConfiguration getStudioConfiguration() {
         return studioConfiguration;
     }
@@ -454,4 +699,83 @@ public class StudioPublisherTask extends StudioClockTask {
     public void setStudioClusterUtils(StudioClusterUtils studioClusterUtils) {
         this.studioClusterUtils = studioClusterUtils;
     }
+
+    public Executor getPublisherTaskExecutor() {
+        return publisherTaskExecutor;
+    }
+
+    public void setPublisherTaskExecutor(Executor publisherTaskExecutor) {
+        this.publisherTaskExecutor = publisherTaskExecutor;
+    }
+
+    /**
+     * Environments of a site waiting to be prepared and the batches waiting to be published
+     */
+    protected static class PublishingPipeline {
+
+        protected final String siteId;
+        protected final Queue<String> pendingEnvironments;
+        protected final BlockingQueue<PublishingBatch> preparedBatches;
+        protected final AtomicBoolean cancelled = new AtomicBoolean();
+
+        protected PublishingPipeline(String siteId, Set<String> environments) {
+            this.siteId = siteId;
+            this.pendingEnvironments = new ConcurrentLinkedQueue<>(environments);
+            // Each worker waits for its batch to be published, so there is at most one batch per worker
+            this.preparedBatches = new LinkedBlockingQueue<>();
+        }
+
+        /**
+         * Adds the batch to the pipeline
+         * @return false if the pipeline was cancelled before the batch could be added
+         */
+        protected boolean add(PublishingBatch batch) {
+            return !cancelled.get() && preparedBatches.offer(batch);
+        }
+
+        /**
+         * Waits until the batch has been published
+         * @return false if the batch could not be published or the pipeline was cancelled before
+         */
+        protected boolean awaitDeployment(PublishingBatch batch) {
+            try {
+                while (!cancelled.get()) {
+                    try {
+                        return batch.deployed.get(PIPELINE_POLL_INTERVAL, MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        // check again if the pipeline was cancelled
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                logger.debug("Error waiting for the deployment of a batch", e);
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * Deployment items of a group of publish requests for the same environment that are ready to be published
+     */
+    protected static class PublishingBatch {
+
+        protected final String environment;
+        protected final List<PublishRequest> items;
+        protected final List<DeploymentItemTO> deploymentItems = new ArrayList<DeploymentItemTO>();
+        protected final Set<String> packageIds = new HashSet<String>();
+        protected String packageId = StringUtils.EMPTY;
+        protected String comment;
+        /**
+         * Completed by the publisher with the result of the deployment
+         */
+        protected final CompletableFuture<Boolean> deployed = new CompletableFuture<>();
+
+        protected PublishingBatch(String environment, List<PublishRequest> items) {
+            this.environment = environment;
+            this.items = items;
+        }
+
+    }
 }
@@ -44,6 +44,7 @@ import org.craftercms.studio.api.v1.service.deployment.DeploymentException;
 import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v1.service.site.SiteService;
 import org.craftercms.studio.api.v1.to.DeploymentItemTO;
+import org.craftercms.studio.api.v1.util.ListUtils;
 import org.craftercms.studio.api.v2.core.ContextManager;
 import org.craftercms.studio.api.v2.dal.ClusterDAO;
 import org.craftercms.studio.api.v2.dal.ClusterMember;
@@ -57,6 +58,7 @@ import org.craftercms.studio.api.v2.dal.RepoOperation;
 import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
 import org.craftercms.studio.api.v2.dal.User;
 import org.craftercms.studio.api.v2.repository.ContentRepository;
+import org.craftercms.studio.api.v2.repository.RepoOperationsHandler;
 import org.craftercms.studio.api.v2.repository.RetryingRepositoryOperationFacade;
 import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
@@ -83,6 +85,8 @@ import org.eclipse.jgit.api.TagCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.RefNotFoundException;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.internal.storage.file.LockFile;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
@@ -92,6 +96,7 @@ import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.filter.AndRevFilter;
@@ -101,8 +106,10 @@ import org.eclipse.jgit.revwalk.filter.MessageRevFilter;
 import org.eclipse.jgit.revwalk.filter.NotRevFilter;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.springframework.dao.DuplicateKeyException;
 
 import java.io.File;
@@ -115,10 +122,13 @@ import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -505,6 +515,177 @@ public class GitContentRepository implements ContentRepository {
         return operations;
     }
 
+    @Override
+    public void streamOperationsFromDelta(String site, String commitIdFrom, String commitIdTo, int batchSize,
+                                          int checkpointInterval, RepoOperationsHandler handler)
+            throws IOException {
+        Repository repo = helper.getRepository(site, SANDBOX);
+        if (repo == null) {
+            return;
+        }
+        ObjectId objCommitIdFrom = StringUtils.isEmpty(commitIdFrom) ? null : repo.resolve(commitIdFrom);
+        ObjectId objCommitIdTo = repo.resolve(commitIdTo);
+        if (Objects.isNull(objCommitIdTo) || (StringUtils.isNotEmpty(commitIdFrom) && Objects.isNull(objCommitIdFrom))) {
+            logger.error("Error getting operations for site " + site + " from commit ID: " + commitIdFrom +
+                    " to commit ID: " + commitIdTo + ", commit not found");
+            return;
+        }
+
+        try (RevWalk walk = new RevWalk(repo)) {
+            walk.markStart(walk.parseCommit(objCommitIdTo));
+            RevTree fromTree = null;
+            if (objCommitIdFrom != null) {
+                RevCommit fromCommit = walk.parseCommit(objCommitIdFrom);
+                fromTree = fromCommit.getTree();
+                walk.markUninteresting(fromCommit);
+            }
+
+            // Flag every commit in the range so the first parent chain can be followed until it leaves it
+            RevFlag inRange = walk.newFlag("inRange");
+            for (RevCommit commit : walk) {
+                commit.add(inRange);
+            }
+
+            // Segments end on commits of the first parent chain of the target commit, so every segment is diffed
+            // against an ancestor of it and commits merged from other branches never produce spurious operations
+            Deque<RevCommit> chain = new ArrayDeque<>();
+            RevCommit current = walk.parseCommit(objCommitIdTo);
+            while (current.has(inRange)) {
+                chain.push(current);
+                if (current.getParentCount() == 0) {
+                    break;
+                }
+                current = walk.parseCommit(current.getParent(0));
+            }
+            if (chain.isEmpty()) {
+                return;
+            }
+            RevCommit first = chain.peek();
+            RevTree baseTree = fromTree;
+            if (first.getParentCount() > 0) {
+                baseTree = walk.parseCommit(first.getParent(0)).getTree();
+            }
+
+            // Diff the trees at the boundaries of each segment instead of every single commit, so a file changed
+            // many times inside a segment only produces one operation
+            int commitsInSegment = 0;
+            RevCommit segmentEnd = null;
+            for (RevCommit commit : chain) {
+                segmentEnd = commit;
+                if (++commitsInSegment >= checkpointInterval) {
+                    streamOperationsFromDiff(repo, baseTree, segmentEnd, batchSize, handler);
+                    handler.checkpoint(segmentEnd.getName());
+                    baseTree = segmentEnd.getTree();
+                    commitsInSegment = 0;
+                }
+            }
+            if (commitsInSegment > 0) {
+                streamOperationsFromDiff(repo, baseTree, segmentEnd, batchSize, handler);
+                handler.checkpoint(segmentEnd.getName());
+            }
+        }
+    }
+
+    private void streamOperationsFromDiff(Repository repo, RevTree fromTree, RevCommit toCommit, int batchSize,
+                                          RepoOperationsHandler handler) throws IOException {
+        ZonedDateTime commitTime = Instant.ofEpochSecond(toCommit.getCommitTime()).atZone(UTC);
+        String author = toCommit.getAuthorIdent().getName();
+        List<RepoOperation> batch = new ArrayList<>(batchSize);
+        try (TreeWalk treeWalk = new TreeWalk(repo)) {
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            if (fromTree == null) {
+                treeWalk.addTree(new EmptyTreeIterator());
+            } else {
+                treeWalk.addTree(fromTree);
+            }
+            treeWalk.addTree(toCommit.getTree());
+            while (treeWalk.next()) {
+                RepoOperation repoOperation = getRepoOperation(treeWalk, commitTime, author, toCommit.getName());
+                if (repoOperation == null) {
+                    continue;
+                }
+                batch.add(repoOperation);
+                if (batch.size() >= batchSize) {
+                    handler.processBatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            handler.processBatch(batch);
+        }
+    }
+
+    /**
+     * Builds the operation for the current entry of a tree walk comparing two trees
+     * @return the operation, or null if the entry should be ignored
+     */
+    private RepoOperation getRepoOperation(TreeWalk treeWalk, ZonedDateTime commitTime, String author,
+                                           String commitId) {
+        String path = FILE_SEPARATOR + treeWalk.getPathString();
+        if (path.endsWith(EMPTY_FILE)) {
+            return null;
+        }
+        RepoOperation.Action action;
+        if (treeWalk.getRawMode(0) == 0) {
+            action = CREATE;
+        } else if (treeWalk.getRawMode(1) == 0) {
+            action = DELETE;
+        } else {
+            action = UPDATE;
+        }
+        RepoOperation repoOperation = new RepoOperation(action, path, commitTime, null, commitId);
+        repoOperation.setAuthor(StringUtils.isEmpty(author) ? "N/A" : author);
+        return repoOperation;
+    }
+
+    @Override
+    public Map<String, List<RepoOperation>> getOperationsFromCommits(String site, List<String> commitIds)
+            throws IOException {
+        Map<String, List<RepoOperation>> operations = new LinkedHashMap<>();
+        Repository repo = helper.getRepository(site, SANDBOX);
+        if (repo == null) {
+            return operations;
+        }
+        try (ObjectReader reader = repo.newObjectReader();
+             RevWalk walk = new RevWalk(reader);
+             TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            for (String commitId : commitIds) {
+                RevCommit commit;
+                try {
+                    ObjectId objCommitId = repo.resolve(commitId);
+                    if (objCommitId == null) {
+                        logger.debug("Commit ID " + commitId + " does not exist in sandbox for site " + site);
+                        continue;
+                    }
+                    commit = walk.parseCommit(objCommitId);
+                } catch (MissingObjectException | IncorrectObjectTypeException e) {
+                    logger.debug("Commit ID " + commitId + " does not exist in sandbox for site " + site);
+                    continue;
+                }
+                List<RepoOperation> commitOperations = new ArrayList<>();
+                // The first commit has nothing to compare with, same as diffing against commitId~
+                if (commit.getParentCount() > 0) {
+                    RevCommit parent = walk.parseCommit(commit.getParent(0));
+                    ZonedDateTime commitTime = Instant.ofEpochSecond(commit.getCommitTime()).atZone(UTC);
+                    String author = commit.getAuthorIdent().getName();
+                    treeWalk.reset(parent.getTree(), commit.getTree());
+                    while (treeWalk.next()) {
+                        RepoOperation repoOperation = getRepoOperation(treeWalk, commitTime, author, commit.getName());
+                        if (repoOperation != null) {
+                            commitOperations.add(repoOperation);
+                        }
+                    }
+                }
+                operations.put(commitId, commitOperations);
+            }
+        }
+        return operations;
+    }
+
     @Override
     public String getRepoFirstCommitId(final String site) {
         String toReturn = EMPTY;
@@ -660,6 +841,12 @@ public class GitContentRepository implements ContentRepository {
         try {
             retryingDatabaseOperationFacade.insertGitLog(params);
         } catch (DuplicateKeyException e) {
+            GitLog existing = getGitLog(siteId, commitId);
+            if (existing != null && existing.getProcessed() == processed && existing.getAudited() == audited) {
+                // Commits shared by several items (group commits) are inserted once per item
+                logger.debug("Commit id: " + commitId + " for site: " + siteId + " is already in the gitlog table");
+                return;
+            }
             logger.debug("Failed to insert commit id: " + commitId + " for site: " + siteId + " into" +
                     " gitlog table, because it is duplicate entry. Marking it as not processed so it can be" +
                     " processed by sync database task.");
@@ -1309,15 +1496,10 @@ public class GitContentRepository implements ContentRepository {
         try {
             Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
             if (repo != null ) {
-
-                RevTree tree = helper.getTreeForLastCommit(repo);
-                try (TreeWalk tw = TreeWalk.forPath(repo, helper.getGitPath(path), tree)) {
-                    // Check if the array of items is not null, and since we have an absolute path to the item,
-                    // pick the first item in the list
-                    if (tw != null && tw.getObjectId(0) != null) {
+                try {
+                    if (helper.getObjectIdForLastCommit(repo, path) != null) {
                         toReturn = true;
-                        tw.close();
-                    } else if (tw == null) {
+                    } else {
                         String gitPath = helper.getGitPath(path);
                         if (StringUtils.isEmpty(gitPath) || gitPath.equals(".")) {
                             toReturn = true;
@@ -1363,13 +1545,10 @@ public class GitContentRepository implements ContentRepository {
     public long getContentSize(final String site, final String path) {
         try {
             Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
-            RevTree tree = helper.getTreeForLastCommit(repo);
-            try (TreeWalk tw = TreeWalk.forPath(repo, helper.getGitPath(path), tree)) {
-                if (tw != null && tw.getObjectId(0) != null) {
-                    ObjectId id = tw.getObjectId(0);
-                    ObjectLoader objectLoader = repo.open(id);
-                    return objectLoader.getSize();
-                }
+            ObjectId id = helper.getObjectIdForLastCommit(repo, path);
+            if (id != null) {
+                ObjectLoader objectLoader = repo.open(id);
+                return objectLoader.getSize();
             }
         } catch (IOException e) {
             logger.error("Error while getting content for file at site: " + site + " path: " + path, e);
@@ -1528,6 +1707,21 @@ public class GitContentRepository implements ContentRepository {
         }
     }
 
+    @Override
+    public void markGitLogAuditedBulk(String siteId, List<String> commitIds) {
+        if (CollectionUtils.isNotEmpty(commitIds)) {
+            String lockKey = "GitLogLock:" + siteId;
+            generalLockService.lock(lockKey);
+            try {
+                for (List<String> part : ListUtils.partition(commitIds, studioUtils.getBulkOperationsBatchSize())) {
+                    retryingDatabaseOperationFacade.markGitLogAuditedBulk(siteId, part, 1);
+                }
+            } finally {
+                generalLockService.unlock(lockKey);
+            }
+        }
+    }
+
     @Override
     public void updateGitlog(String siteId, String lastProcessedCommitId, int batchSize) throws SiteNotFoundException {
         RingBuffer<RevCommit> commitIds = new RingBuffer<RevCommit>(batchSize);
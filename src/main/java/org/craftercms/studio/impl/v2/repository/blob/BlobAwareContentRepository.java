@@ -18,6 +18,7 @@ package org.craftercms.studio.impl.v2.repository.blob;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.crypto.CryptoException;
@@ -45,6 +46,7 @@ import org.craftercms.studio.api.v2.dal.GitLog;
 import org.craftercms.studio.api.v2.dal.PublishingHistoryItem;
 import org.craftercms.studio.api.v2.dal.RepoOperation;
 import org.craftercms.studio.api.v2.exception.RepositoryLockedException;
+import org.craftercms.studio.api.v2.repository.RepoOperationsHandler;
 import org.craftercms.studio.api.v2.repository.blob.StudioBlobStore;
 import org.craftercms.studio.api.v2.repository.blob.StudioBlobStoreResolver;
 import org.craftercms.studio.impl.v1.repository.git.GitContentRepository;
@@ -53,6 +55,7 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Paths;
 import java.time.ZonedDateTime;
@@ -93,6 +96,8 @@ public class BlobAwareContentRepository implements ContentRepository,
 
     protected StudioBlobStoreResolver blobStoreResolver;
 
+    protected BlobContentCache contentCache;
+
     protected final ObjectMapper objectMapper = new XmlMapper().enable(SerializationFeature.INDENT_OUTPUT);
 
     public void setFileExtension(String fileExtension) {
@@ -111,6 +116,10 @@ public class BlobAwareContentRepository implements ContentRepository,
         this.blobStoreResolver = blobStoreResolver;
     }
 
+    public void setContentCache(BlobContentCache contentCache) {
+        this.contentCache = contentCache;
+    }
+
     protected String getOriginalPath(String path) {
         return StringUtils.removeEnd(path, "." + fileExtension);
     }
@@ -145,6 +154,23 @@ public class BlobAwareContentRepository implements ContentRepository,
                 allMatch(path -> localRepositoryV1.contentExists(siteId, getPointerPath(siteId, path)));
     }
 
+    /**
+     * Returns the key used to cache the blob, derived from the reference in the pointer file so it changes every time
+     * a new version of the blob is written
+     * @return the key or null if the cache is disabled or the pointer can't be read
+     */
+    protected String getCacheKey(String site, String path) {
+        if (contentCache == null || !contentCache.isEnabled()) {
+            return null;
+        }
+        try (InputStream pointer = localRepositoryV1.getContent(site, getPointerPath(site, path))) {
+            return pointer != null ? DigestUtils.sha256Hex(pointer) : null;
+        } catch (Exception e) {
+            logger.debug("Error reading the pointer for {0} in site {1}", e, path, site);
+            return null;
+        }
+    }
+
     // Start API 1
 
     @Override
@@ -154,6 +180,11 @@ public class BlobAwareContentRepository implements ContentRepository,
             if (!isFolder(site, path) && pointersExists(site, path)) {
                 StudioBlobStore store = getBlobStore(site, path);
                 if (store != null) {
+                    String cacheKey = getCacheKey(site, path);
+                    if (cacheKey != null) {
+                        return contentCache.contentExists(cacheKey,
+                                () -> store.contentExists(site, normalize(path)));
+                    }
                     return store.contentExists(site, normalize(path));
                 }
             }
@@ -171,6 +202,10 @@ public class BlobAwareContentRepository implements ContentRepository,
             if (!isFolder(site, path) && pointersExists(site, path)) {
                 StudioBlobStore store = getBlobStore(site, path);
                 if (store != null) {
+                    String cacheKey = getCacheKey(site, path);
+                    if (cacheKey != null) {
+                        return contentCache.getContent(cacheKey, () -> store.getContent(site, normalize(path)));
+                    }
                     return store.getContent(site, normalize(path));
                 }
             }
@@ -181,6 +216,28 @@ public class BlobAwareContentRepository implements ContentRepository,
         }
     }
 
+    @Override
+    public String getContentId(String site, String path) {
+        logger.debug("Getting id of {0} in site {1}", path, site);
+        try {
+            if (!isFolder(site, path) && pointersExists(site, path)) {
+                // The content of blobs is not stored in the local repository
+                return null;
+            }
+            return localRepositoryV1.getContentId(site, path);
+        } catch (Exception e) {
+            logger.error("Error getting id of {0} in site {1}", e, path, site);
+            return null;
+        }
+    }
+
+    @Override
+    public InputStream getContentById(String site, String contentId) {
+        logger.debug("Getting content of object {0} in site {1}", contentId, site);
+        // Only the objects of the local repository have an id
+        return localRepositoryV1.getContentById(site, contentId);
+    }
+
     @Override
     public long getContentSize(String site, String path) {
         logger.debug("Getting size of {0} in site {1}", path, site);
@@ -188,6 +245,11 @@ public class BlobAwareContentRepository implements ContentRepository,
             if (pointersExists(site, path)) {
                 StudioBlobStore store = getBlobStore(site, path);
                 if (store != null) {
+                    String cacheKey = getCacheKey(site, path);
+                    if (cacheKey != null) {
+                        return contentCache.getContentSize(cacheKey,
+                                () -> store.getContentSize(site, normalize(path)));
+                    }
                     return store.getContentSize(site, normalize(path));
                 }
             }
@@ -614,6 +676,39 @@ public class BlobAwareContentRepository implements ContentRepository,
                 .collect(toList());
     }
 
+    @Override
+    public void streamOperationsFromDelta(String site, String commitIdFrom, String commitIdTo, int batchSize,
+                                          int checkpointInterval, RepoOperationsHandler handler)
+            throws IOException {
+        localRepositoryV2.streamOperationsFromDelta(site, commitIdFrom, commitIdTo, batchSize, checkpointInterval,
+                new RepoOperationsHandler() {
+                    @Override
+                    public void processBatch(List<RepoOperation> operations) throws IOException {
+                        operations.forEach(operation -> {
+                            operation.setPath(getOriginalPath(operation.getPath()));
+                            operation.setMoveToPath(getOriginalPath(operation.getMoveToPath()));
+                        });
+                        handler.processBatch(operations);
+                    }
+
+                    @Override
+                    public void checkpoint(String commitId) {
+                        handler.checkpoint(commitId);
+                    }
+                });
+    }
+
+    @Override
+    public Map<String, List<RepoOperation>> getOperationsFromCommits(String site, List<String> commitIds)
+            throws IOException {
+        Map<String, List<RepoOperation>> operations = localRepositoryV2.getOperationsFromCommits(site, commitIds);
+        operations.values().forEach(list -> list.forEach(operation -> {
+            operation.setPath(getOriginalPath(operation.getPath()));
+            operation.setMoveToPath(getOriginalPath(operation.getMoveToPath()));
+        }));
+        return operations;
+    }
+
     @Override
     public List<PublishingHistoryItem> getPublishingHistory(String siteId, String environment, String path,
                                                             String publisher, ZonedDateTime fromDate,
@@ -650,6 +745,11 @@ public class BlobAwareContentRepository implements ContentRepository,
         localRepositoryV2.markGitLogAudited(siteId, commitId);
     }
 
+    @Override
+    public void markGitLogAuditedBulk(String siteId, List<String> commitIds) {
+        localRepositoryV2.markGitLogAuditedBulk(siteId, commitIds);
+    }
+
     @Override
     public void updateGitlog(String siteId, String lastProcessedCommitId, int batchSize) throws SiteNotFoundException {
         localRepositoryV2.updateGitlog(siteId, lastProcessedCommitId, batchSize);
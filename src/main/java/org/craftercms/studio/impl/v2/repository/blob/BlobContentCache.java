@@ -0,0 +1,413 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository.blob;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_CACHE_ENABLED;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_CACHE_MAX_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_CACHE_METADATA_MAX_ENTRIES;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_CACHE_METADATA_TTL;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_CACHE_PATH;
+
+/**
+ * Local disk cache for the content and metadata of the blob stores.
+ *
+ * <p>Entries are content addressed, the key is derived from the blob reference stored in the pointer file, so a new
+ * version of a blob always gets a new key and the content never needs to be invalidated. The metadata expires after
+ * the configured time, so blobs deleted outside Studio are eventually reported as missing. The content is written to
+ * disk while it is being read by the caller and it is only added to the cache once it has been read completely. The
+ * least recently used files are removed when the total size goes above the configured limit.</p>
+ *
+ * @since 4.0.0
+ */
+public class BlobContentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobContentCache.class);
+
+    /**
+     * Prefix for the files being written, they are discarded on startup
+     */
+    protected static final String TEMP_FILE_PREFIX = "fill-";
+
+    /**
+     * Marker for blobs known to exist but with unknown size
+     */
+    protected static final long UNKNOWN_SIZE = -1;
+
+    protected StudioConfiguration studioConfiguration;
+
+    protected boolean enabled;
+    protected Path directory;
+    protected long maxSize;
+
+    /**
+     * Size of the cached files in access order, guarded by the cache itself
+     */
+    protected final LinkedHashMap<String, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+    protected long currentSize;
+
+    /**
+     * Size of the blobs, {@link #UNKNOWN_SIZE} for blobs that exist but have not been measured yet
+     */
+    protected Cache<String, Long> metadata;
+
+    /**
+     * Time source for the expiration of the metadata
+     */
+    protected Ticker ticker = Ticker.systemTicker();
+
+    protected final LongAdder contentHits = new LongAdder();
+    protected final LongAdder contentMisses = new LongAdder();
+    protected final LongAdder metadataHits = new LongAdder();
+    protected final LongAdder metadataMisses = new LongAdder();
+    protected final LongAdder evictions = new LongAdder();
+
+    public void init() throws IOException {
+        enabled = studioConfiguration.getProperty(BLOB_CACHE_ENABLED, Boolean.class, false);
+        if (!enabled) {
+            return;
+        }
+        directory = Paths.get(studioConfiguration.getProperty(BLOB_CACHE_PATH));
+        maxSize = studioConfiguration.getProperty(BLOB_CACHE_MAX_SIZE, Long.class);
+        metadata = CacheBuilder.newBuilder()
+                .maximumSize(studioConfiguration.getProperty(BLOB_CACHE_METADATA_MAX_ENTRIES, Long.class))
+                .expireAfterWrite(studioConfiguration.getProperty(BLOB_CACHE_METADATA_TTL, Long.class),
+                        TimeUnit.SECONDS)
+                .ticker(ticker)
+                .build();
+
+        Files.createDirectories(directory);
+        // Keep the files from previous runs, oldest first so they are the first to be evicted
+        List<Path> existing;
+        try (Stream<Path> stream = Files.list(directory)) {
+            existing = stream.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(this::getLastModified))
+                    .collect(Collectors.toList());
+        }
+        synchronized (files) {
+            for (Path file : existing) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(TEMP_FILE_PREFIX)) {
+                    Files.deleteIfExists(file);
+                } else {
+                    long size = Files.size(file);
+                    files.put(name, size);
+                    currentSize += size;
+                }
+            }
+            evict();
+        }
+        logger.info("Blob content cache at {0} loaded with {1} files ({2} bytes)", directory, files.size(),
+                currentSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the content of the blob, using the loader to fetch it when it is not cached
+     * @param key the key of the blob
+     * @param loader provides the content from the blob store
+     * @return the content of the blob
+     */
+    public InputStream getContent(String key, Callable<InputStream> loader) throws Exception {
+        Path file = directory.resolve(key);
+        synchronized (files) {
+            if (files.get(key) != null) {
+                try {
+                    InputStream content = Files.newInputStream(file);
+                    contentHits.increment();
+                    return content;
+                } catch (IOException e) {
+                    logger.warn("Cached file for blob {0} could not be opened: {1}", key, e.getMessage());
+                    removeFile(key);
+                }
+            }
+        }
+        contentMisses.increment();
+        InputStream content = loader.call();
+        if (content == null) {
+            return null;
+        }
+        return new FillingInputStream(key, content);
+    }
+
+    /**
+     * Returns the size of the blob, using the loader to fetch it when it is not cached
+     * @param key the key of the blob
+     * @param loader provides the size from the blob store
+     * @return the size of the blob
+     */
+    public long getContentSize(String key, LongSupplier loader) {
+        Long size = metadata.getIfPresent(key);
+        if (size == null || size == UNKNOWN_SIZE) {
+            synchronized (files) {
+                size = files.get(key);
+            }
+        }
+        if (size != null && size != UNKNOWN_SIZE) {
+            metadataHits.increment();
+            return size;
+        }
+        metadataMisses.increment();
+        long loaded = loader.getAsLong();
+        if (loaded >= 0) {
+            metadata.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Indicates if the blob exists, using the loader to check the blob store when it is not cached
+     * @param key the key of the blob
+     * @param loader checks the blob store
+     * @return true if the blob exists
+     */
+    public boolean contentExists(String key, BooleanSupplier loader) {
+        // Cached files are not checked, they are kept even if the blob is deleted from the store
+        if (metadata.getIfPresent(key) != null) {
+            metadataHits.increment();
+            return true;
+        }
+        metadataMisses.increment();
+        boolean exists = loader.getAsBoolean();
+        if (exists) {
+            metadata.asMap().putIfAbsent(key, UNKNOWN_SIZE);
+        }
+        return exists;
+    }
+
+    /**
+     * Returns the hit ratios of the content and metadata caches, and the disk usage of the cached files
+     * @return map with the hit, miss & eviction counters, the number of files and their total and max size
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("contentHits", contentHits.sum());
+        stats.put("contentMisses", contentMisses.sum());
+        stats.put("metadataHits", metadataHits.sum());
+        stats.put("metadataMisses", metadataMisses.sum());
+        stats.put("evictions", evictions.sum());
+        synchronized (files) {
+            stats.put("files", files.size());
+            stats.put("size", currentSize);
+        }
+        stats.put("maxSize", maxSize);
+        return stats;
+    }
+
+    protected void addFile(String key, Path tempFile, long size) throws IOException {
+        synchronized (files) {
+            Files.move(tempFile, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            Long previous = files.put(key, size);
+            if (previous != null) {
+                currentSize -= previous;
+            }
+            currentSize += size;
+            evict();
+        }
+        metadata.put(key, size);
+    }
+
+    /**
+     * Removes the least recently used files until the cache fits the max size, must hold the lock
+     */
+    protected void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = files.entrySet().iterator();
+        while (currentSize > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            currentSize -= eldest.getValue();
+            deleteFile(eldest.getKey());
+            evictions.increment();
+        }
+    }
+
+    protected void removeFile(String key) {
+        Long size = files.remove(key);
+        if (size != null) {
+            currentSize -= size;
+        }
+        deleteFile(key);
+    }
+
+    protected void deleteFile(String key) {
+        try {
+            Files.deleteIfExists(directory.resolve(key));
+        } catch (IOException e) {
+            logger.warn("Error deleting cached file for blob {0}: {1}", key, e.getMessage());
+        }
+    }
+
+    protected long getLastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    /**
+     * Copies the content to a temporary file while it is being read, the file is added to the cache only if the
+     * content was read completely
+     */
+    protected class FillingInputStream extends FilterInputStream {
+
+        protected final String key;
+        protected Path tempFile;
+        protected OutputStream output;
+        protected long size;
+        protected boolean complete;
+
+        protected FillingInputStream(String key, InputStream in) {
+            super(in);
+            this.key = key;
+            try {
+                tempFile = Files.createTempFile(directory, TEMP_FILE_PREFIX, null);
+                output = Files.newOutputStream(tempFile);
+            } catch (IOException e) {
+                logger.warn("Error creating cache file for blob {0}, it will not be cached: {1}", key,
+                        e.getMessage());
+                discard();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                complete = true;
+            } else if (output != null) {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count < 0) {
+                complete = true;
+            } else if (output != null) {
+                write(b, off, count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes are not copied, the file can't be cached
+            discard();
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (output != null) {
+                    try {
+                        output.close();
+                        output = null;
+                        if (complete) {
+                            addFile(key, tempFile, size);
+                            tempFile = null;
+                        }
+                    } catch (IOException e) {
+                        logger.warn("Error adding blob {0} to the cache: {1}", key, e.getMessage());
+                    }
+                }
+                discard();
+            }
+        }
+
+        protected void write(byte[] b, int off, int len) {
+            size += len;
+            if (size > maxSize) {
+                logger.debug("Blob {0} is bigger than the cache, it will not be cached", key);
+                discard();
+                return;
+            }
+            try {
+                output.write(b, off, len);
+            } catch (IOException e) {
+                logger.warn("Error writing cache file for blob {0}, it will not be cached: {1}", key, e.getMessage());
+                discard();
+            }
+        }
+
+        protected void discard() {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    logger.debug("Error closing cache file for blob {0}", e, key);
+                }
+                output = null;
+            }
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    logger.debug("Error deleting cache file for blob {0}", e, key);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository.blob.s3;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.SSEAlgorithm;
+import com.amazonaws.services.s3.model.SSEAwsKeyManagementParams;
+import com.amazonaws.services.s3.model.StorageClass;
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.commons.file.blob.exception.BlobStoreException;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v1.util.ListUtils;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.craftercms.studio.api.v2.dal.PublishStatus.PUBLISHING;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_MAX_RETRIES;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_MULTIPART_THRESHOLD;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_PART_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_RETRY_DELAY;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_STATUS_INTERVAL;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_STATUS_MESSAGE;
+
+/**
+ * Copies, moves & deletes objects in S3 for a list of {@link Promotion}s using a shared executor.
+ *
+ * <p>The promotions are executed in waves: all copies in a wave run in parallel and then the deletes of the wave are
+ * sent in batches. A new wave is started every time a promotion touches an object already used by another promotion
+ * of the current wave, so the final state of the buckets is the same as executing them one by one.</p>
+ *
+ * <p>Objects bigger than the multipart threshold are copied in parts, every request is retried with exponential
+ * backoff when S3 returns a transient error. When the size of an object is not known a single copy is attempted
+ * first and the object is only copied in parts if S3 rejects it for being too large.</p>
+ *
+ * @since 4.0.0
+ */
+public class AwsS3BlobPromoter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AwsS3BlobPromoter.class);
+
+    /**
+     * Max number of keys allowed by S3 in a single delete request
+     */
+    public static final int MAX_DELETE_KEYS = 1000;
+
+    /**
+     * Status code returned by S3 when requests are being throttled
+     */
+    public static final int STATUS_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Status code & error returned by S3 when a single request can't copy the object
+     */
+    public static final int STATUS_BAD_REQUEST = 400;
+    public static final String ERROR_CODE_INVALID_REQUEST = "InvalidRequest";
+    public static final String COPY_SOURCE_TOO_LARGE_MESSAGE = "copy source is larger than the maximum allowable size";
+
+    protected StudioConfiguration studioConfiguration;
+    protected SiteService siteService;
+    protected Executor executor;
+
+    protected long multipartThreshold;
+    protected long partSize;
+    protected int maxRetries;
+    protected long retryDelay;
+    protected long statusInterval;
+
+    public void init() {
+        multipartThreshold = studioConfiguration.getProperty(BLOB_PROMOTION_MULTIPART_THRESHOLD, Long.class);
+        partSize = studioConfiguration.getProperty(BLOB_PROMOTION_PART_SIZE, Long.class);
+        maxRetries = studioConfiguration.getProperty(BLOB_PROMOTION_MAX_RETRIES, Integer.class);
+        retryDelay = studioConfiguration.getProperty(BLOB_PROMOTION_RETRY_DELAY, Long.class);
+        statusInterval = studioConfiguration.getProperty(BLOB_PROMOTION_STATUS_INTERVAL, Long.class);
+    }
+
+    /**
+     * Executes the given promotions, returns once all of them have been completed
+     * @param site the site
+     * @param client the client to use for all requests
+     * @param promotions the promotions to execute, in order
+     * @param reportProgress indicates if the publishing status of the site should be updated
+     * @throws BlobStoreException if any of the promotions fails, the remaining waves are not executed
+     */
+    public void promote(String site, AmazonS3 client, List<Promotion> promotions, boolean reportProgress) {
+        Progress progress = new Progress(site, promotions.size(), reportProgress);
+        List<Promotion> wave = new ArrayList<>();
+        Set<String> touched = new HashSet<>();
+        for (Promotion promotion : promotions) {
+            if (promotion.getObjects().stream().anyMatch(touched::contains)) {
+                executeWave(client, wave, progress);
+                wave.clear();
+                touched.clear();
+            }
+            wave.add(promotion);
+            touched.addAll(promotion.getObjects());
+        }
+        if (!wave.isEmpty()) {
+            executeWave(client, wave, progress);
+        }
+    }
+
+    protected void executeWave(AmazonS3 client, List<Promotion> wave, Progress progress) {
+        logger.debug("Executing {0} blob promotions", wave.size());
+        CompletableFuture<?>[] copies = wave.stream()
+                .filter(promotion -> promotion.sourceKey != null)
+                .map(promotion -> CompletableFuture.runAsync(() -> {
+                    copy(client, promotion);
+                    if (promotion.deleteKeys.isEmpty()) {
+                        progress.increment(1);
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(copies).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BlobStoreException) {
+                throw (BlobStoreException) e.getCause();
+            }
+            throw new BlobStoreException("Error copying blobs", e.getCause());
+        }
+
+        Map<String, List<String>> deletes = new LinkedHashMap<>();
+        int deleteCount = 0;
+        for (Promotion promotion : wave) {
+            if (!promotion.deleteKeys.isEmpty()) {
+                deletes.computeIfAbsent(promotion.deleteBucket, bucket -> new ArrayList<>())
+                        .addAll(promotion.deleteKeys);
+                deleteCount++;
+            }
+        }
+        deletes.forEach((bucket, keys) -> {
+            for (List<String> batch : ListUtils.partition(keys, MAX_DELETE_KEYS)) {
+                logger.debug("Deleting contents at {0} from bucket {1}", batch, bucket);
+                retry("Error deleting contents at " + batch + " from bucket " + bucket, () ->
+                        client.deleteObjects(new DeleteObjectsRequest(bucket)
+                                .withKeys(batch.toArray(new String[0]))
+                                .withQuiet(true)));
+            }
+        });
+        progress.increment(deleteCount);
+    }
+
+    protected void copy(AmazonS3 client, Promotion promotion) {
+        String source = promotion.sourceBucket + "/" + promotion.sourceKey;
+        String target = promotion.targetBucket + "/" + promotion.targetKey;
+        logger.debug("Copying content from {0} to {1}", source, target);
+
+        if (promotion.size < 0) {
+            // Most objects can be copied with a single request, so the size is only fetched when S3 rejects it
+            try {
+                singleCopy(client, promotion, source, target);
+            } catch (BlobStoreException e) {
+                if (!isCopySourceTooLarge(e.getCause())) {
+                    throw e;
+                }
+                logger.debug("Content at {0} is too large for a single copy request", source);
+                multipartCopy(client, promotion, getMetadata(client, promotion, source), source, target);
+            }
+        } else if (promotion.size > multipartThreshold) {
+            multipartCopy(client, promotion, getMetadata(client, promotion, source), source, target);
+        } else {
+            singleCopy(client, promotion, source, target);
+        }
+    }
+
+    protected void singleCopy(AmazonS3 client, Promotion promotion, String source, String target) {
+        retry("Error copying content from " + source + " to " + target, () ->
+                client.copyObject(promotion.sourceBucket, promotion.sourceKey,
+                        promotion.targetBucket, promotion.targetKey));
+    }
+
+    protected ObjectMetadata getMetadata(AmazonS3 client, Promotion promotion, String source) {
+        return retry("Error getting metadata for content at " + source,
+                () -> client.getObjectMetadata(promotion.sourceBucket, promotion.sourceKey));
+    }
+
+    protected void multipartCopy(AmazonS3 client, Promotion promotion, ObjectMetadata metadata, String source,
+                                 String target) {
+        long size = metadata.getContentLength();
+        logger.debug("Copying {0} bytes from {1} to {2} in parts", size, source, target);
+
+        String error = "Error copying content from " + source + " to " + target;
+        InitiateMultipartUploadRequest initRequest = createMultipartCopyRequest(promotion, metadata);
+        InitiateMultipartUploadResult initResult = retry(error, () -> client.initiateMultipartUpload(initRequest));
+        try {
+            List<PartETag> etags = new ArrayList<>();
+            int partNumber = 1;
+            for (long position = 0; position < size; position += partSize, partNumber++) {
+                CopyPartRequest request = new CopyPartRequest()
+                        .withSourceBucketName(promotion.sourceBucket)
+                        .withSourceKey(promotion.sourceKey)
+                        .withDestinationBucketName(promotion.targetBucket)
+                        .withDestinationKey(promotion.targetKey)
+                        .withUploadId(initResult.getUploadId())
+                        .withFirstByte(position)
+                        .withLastByte(Math.min(position + partSize, size) - 1)
+                        .withPartNumber(partNumber);
+                etags.add(retry(error, () -> client.copyPart(request)).getPartETag());
+            }
+            retry(error, () -> client.completeMultipartUpload(new CompleteMultipartUploadRequest(
+                    promotion.targetBucket, promotion.targetKey, initResult.getUploadId(), etags)));
+        } catch (RuntimeException e) {
+            try {
+                client.abortMultipartUpload(new AbortMultipartUploadRequest(promotion.targetBucket,
+                        promotion.targetKey, initResult.getUploadId()));
+            } catch (Exception abortError) {
+                logger.warn("Error aborting multipart copy to {0}: {1}", target, abortError.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the request to start a multipart copy. A regular copy request keeps the metadata, encryption and
+     * storage class of the source object, the multipart copy needs them explicitly
+     */
+    protected InitiateMultipartUploadRequest createMultipartCopyRequest(Promotion promotion,
+                                                                        ObjectMetadata metadata) {
+        ObjectMetadata targetMetadata = new ObjectMetadata();
+        targetMetadata.setContentType(metadata.getContentType());
+        targetMetadata.setContentEncoding(metadata.getContentEncoding());
+        targetMetadata.setContentDisposition(metadata.getContentDisposition());
+        targetMetadata.setContentLanguage(metadata.getContentLanguage());
+        targetMetadata.setCacheControl(metadata.getCacheControl());
+        targetMetadata.setHttpExpiresDate(metadata.getHttpExpiresDate());
+        targetMetadata.setUserMetadata(metadata.getUserMetadata());
+
+        InitiateMultipartUploadRequest request =
+                new InitiateMultipartUploadRequest(promotion.targetBucket, promotion.targetKey, targetMetadata);
+        if (SSEAlgorithm.KMS.getAlgorithm().equals(metadata.getSSEAlgorithm())) {
+            request.setSSEAwsKeyManagementParams(new SSEAwsKeyManagementParams(metadata.getSSEAwsKmsKeyId()));
+        } else if (metadata.getSSEAlgorithm() != null) {
+            targetMetadata.setSSEAlgorithm(metadata.getSSEAlgorithm());
+        }
+        if (metadata.getStorageClass() != null) {
+            request.setStorageClass(StorageClass.fromValue(metadata.getStorageClass()));
+        }
+        return request;
+    }
+
+    /**
+     * Executes the given operation, retrying it with exponential backoff while it fails with a transient error
+     */
+    protected <T> T retry(String error, Supplier<T> operation) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (Exception e) {
+                if (attempt >= maxRetries || !isRetryable(e)) {
+                    throw new BlobStoreException(error, e);
+                }
+                long delay = retryDelay << attempt;
+                // Add some jitter so parallel requests don't retry at the same time
+                long wait = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+                logger.debug("{0}, retrying in {1}ms: {2}", error, wait, e.getMessage());
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new BlobStoreException(error, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Indicates if S3 rejected a copy request because the source is bigger than the max size of a single copy
+     */
+    protected boolean isCopySourceTooLarge(Throwable e) {
+        if (e instanceof AmazonServiceException) {
+            AmazonServiceException error = (AmazonServiceException) e;
+            return error.getStatusCode() == STATUS_BAD_REQUEST &&
+                    ERROR_CODE_INVALID_REQUEST.equals(error.getErrorCode()) &&
+                    StringUtils.containsIgnoreCase(error.getErrorMessage(), COPY_SOURCE_TOO_LARGE_MESSAGE);
+        }
+        return false;
+    }
+
+    protected boolean isRetryable(Exception e) {
+        if (e instanceof AmazonServiceException) {
+            int status = ((AmazonServiceException) e).getStatusCode();
+            return status >= 500 || status == STATUS_TOO_MANY_REQUESTS;
+        }
+        return e instanceof AmazonClientException && ((AmazonClientException) e).isRetryable();
+    }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    public void setSiteService(SiteService siteService) {
+        this.siteService = siteService;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Updates the publishing status of the site, at most once per status interval
+     */
+    protected class Progress {
+
+        protected final String site;
+        protected final int total;
+        protected final boolean enabled;
+        protected final AtomicInteger completed = new AtomicInteger();
+        protected final AtomicLong lastUpdate = new AtomicLong(System.currentTimeMillis());
+
+        protected Progress(String site, int total, boolean enabled) {
+            this.site = site;
+            this.total = total;
+            this.enabled = enabled;
+        }
+
+        protected void increment(int count) {
+            int current = completed.addAndGet(count);
+            if (!enabled || count == 0) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            long last = lastUpdate.get();
+            if ((now - last >= statusInterval || current == total) && lastUpdate.compareAndSet(last, now)) {
+                String message = studioConfiguration.getProperty(BLOB_PROMOTION_STATUS_MESSAGE)
+                        .replace("{datetime}", ZonedDateTime.now(ZoneOffset.UTC)
+                                .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
+                        .replace("{x}", Integer.toString(current))
+                        .replace("{y}", Integer.toString(total));
+                try {
+                    siteService.updatePublishingStatusMessage(site, PUBLISHING, message);
+                } catch (Exception e) {
+                    logger.debug("Error updating the publishing status for site {0}", e, site);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Copy and/or delete operations that need to be executed in order
+     */
+    public static class Promotion {
+
+        protected String sourceBucket;
+        protected String sourceKey;
+        protected String targetBucket;
+        protected String targetKey;
+        protected long size = -1;
+        protected String deleteBucket;
+        protected List<String> deleteKeys = Collections.emptyList();
+
+        /**
+         * Copies an object
+         * @param size the size of the object if already known, or -1
+         */
+        public static Promotion copy(String sourceBucket, String sourceKey, String targetBucket, String targetKey,
+                                     long size) {
+            Promotion promotion = new Promotion();
+            promotion.sourceBucket = sourceBucket;
+            promotion.sourceKey = sourceKey;
+            promotion.targetBucket = targetBucket;
+            promotion.targetKey = targetKey;
+            promotion.size = size;
+            return promotion;
+        }
+
+        /**
+         * Copies an object to a new key in the same bucket and then deletes the original
+         * @param size the size of the object if already known, or -1
+         */
+        public static Promotion move(String bucket, String sourceKey, String targetKey, long size) {
+            Promotion promotion = copy(bucket, sourceKey, bucket, targetKey, size);
+            promotion.deleteBucket = bucket;
+            promotion.deleteKeys = Collections.singletonList(sourceKey);
+            return promotion;
+        }
+
+        /**
+         * Deletes one or more objects
+         */
+        public static Promotion delete(String bucket, String... keys) {
+            Promotion promotion = new Promotion();
+            promotion.deleteBucket = bucket;
+            promotion.deleteKeys = Arrays.asList(keys);
+            return promotion;
+        }
+
+        /**
+         * @return all the objects read or written by this promotion, as {@code bucket/key}
+         */
+        protected Set<String> getObjects() {
+            Set<String> objects = new HashSet<>();
+            if (sourceKey != null) {
+                objects.add(sourceBucket + "/" + sourceKey);
+                objects.add(targetBucket + "/" + targetKey);
+            }
+            deleteKeys.forEach(key -> objects.add(deleteBucket + "/" + key));
+            return objects;
+        }
+
+    }
+
+}
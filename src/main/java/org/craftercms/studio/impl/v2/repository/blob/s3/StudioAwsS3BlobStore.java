@@ -25,9 +25,11 @@ import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.to.DeploymentItemTO;
 import org.craftercms.studio.api.v2.repository.blob.StudioBlobStoreAdapter;
 import org.craftercms.studio.api.v2.repository.blob.StudioBlobStore;
+import org.craftercms.studio.impl.v2.repository.blob.s3.AwsS3BlobPromoter.Promotion;
 
 import java.io.InputStream;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -51,6 +53,8 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
 
     public static final String OK = "OK";
 
+    protected AwsS3BlobPromoter promoter;
+
     protected boolean isFolder(String path) {
         return isEmpty(getExtension(path));
     }
@@ -59,6 +63,14 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         return mapping.target + "/" + getKey(mapping,path);
     }
 
+    protected String getRelativePath(Mapping mapping, String folderPath, String key) {
+        return Paths.get(getKey(mapping, folderPath)).relativize(Paths.get(key)).toString();
+    }
+
+    public void setPromoter(AwsS3BlobPromoter promoter) {
+        this.promoter = promoter;
+    }
+
     @Override
     public Blob getReference(String path) {
         Mapping mapping = getMapping(publishingTargetResolver.getPublishingTarget());
@@ -179,39 +191,22 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
                         .withBucketName(previewMapping.target)
                         .withPrefix(appendIfMissing(getKey(previewMapping, fromPath), "/"));
                 do {
+                    ListObjectsV2Result result;
                     try {
-                        ListObjectsV2Result result = getClient().listObjectsV2(request);
-                        request.setContinuationToken(result.getContinuationToken());
-
-                        String[] keys = result.getObjectSummaries().stream()
-                                .map(S3ObjectSummary::getKey)
-                                .collect(toList())
-                                .toArray(new String[]{});
-
-                        for (String key : keys) {
-                            String filePath =
-                                    Paths.get(getKey(previewMapping, fromPath)).relativize(Paths.get(key)).toString();
-                            logger.debug("Moving content from {0} to {1}",
-                                    getFullKey(previewMapping, key), getFullKey(previewMapping, toPath + "/" + filePath));
-                            try {
-                                getClient().copyObject(previewMapping.target, key, previewMapping.target,
-                                        getKey(previewMapping, toPath + "/" + filePath));
-                            } catch (Exception e) {
-                                throw new BlobStoreException("Error copying content from " +
-                                        getFullKey(previewMapping, key) + " to " +
-                                        getFullKey(previewMapping, toPath + "/" + filePath), e);
-                            }
-                        }
-                        try {
-                            getClient().deleteObjects(new DeleteObjectsRequest(previewMapping.target).withKeys(keys));
-                        } catch (Exception e) {
-                            throw new BlobStoreException("Error deleting content at " + Arrays.toString(keys) +
-                                    " from bucket " + previewMapping.target, e);
-                        }
+                        result = getClient().listObjectsV2(request);
                     } catch (Exception e) {
                         throw new BlobStoreException("Error listing content at " +
                                 getFullKey(previewMapping, fromPath), e);
                     }
+                    request.setContinuationToken(result.getContinuationToken());
+
+                    List<Promotion> promotions = result.getObjectSummaries().stream()
+                            .map(summary -> Promotion.move(previewMapping.target, summary.getKey(),
+                                    getKey(previewMapping, toPath + "/" + getRelativePath(previewMapping,
+                                            fromPath, summary.getKey())), summary.getSize()))
+                            .collect(toList());
+                    // the promoter already reports which object failed
+                    promoter.promote(site, getClient(), promotions, false);
                 } while(isNotEmpty(request.getContinuationToken()));
             } else {
                 try {
@@ -240,32 +235,22 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
                     .withBucketName(previewMapping.target)
                     .withPrefix(appendIfMissing(getKey(previewMapping, fromPath), "/"));
             do {
+                ListObjectsV2Result result;
                 try {
-                    ListObjectsV2Result result = getClient().listObjectsV2(request);
-                    request.setContinuationToken(result.getContinuationToken());
-
-                    String[] keys = result.getObjectSummaries().stream()
-                            .map(S3ObjectSummary::getKey)
-                            .collect(toList())
-                            .toArray(new String[]{});
-
-                    for (String key : keys) {
-                        String filePath =
-                                Paths.get(getKey(previewMapping, fromPath)).relativize(Paths.get(key)).toString();
-                        logger.debug("Copying content from {0} to {1}",
-                                getFullKey(previewMapping, key), getFullKey(previewMapping, toPath + "/" + filePath));
-                        try {
-                            getClient().copyObject(previewMapping.target, key, previewMapping.target,
-                                    getKey(previewMapping, toPath + "/" + filePath));
-                        } catch (Exception e) {
-                            throw new BlobStoreException("Error copying content from " +
-                                    getFullKey(previewMapping, key) + " to " +
-                                    getFullKey(previewMapping, toPath + "/" + filePath), e);
-                        }
-                    }
+                    result = getClient().listObjectsV2(request);
                 } catch (Exception e) {
                     throw new BlobStoreException("Error listing content at " + getFullKey(previewMapping, fromPath), e);
                 }
+                request.setContinuationToken(result.getContinuationToken());
+
+                List<Promotion> promotions = result.getObjectSummaries().stream()
+                        .map(summary -> Promotion.copy(previewMapping.target, summary.getKey(),
+                                previewMapping.target, getKey(previewMapping, toPath + "/" +
+                                        getRelativePath(previewMapping, fromPath, summary.getKey())),
+                                summary.getSize()))
+                        .collect(toList());
+                // the promoter already reports which object failed
+                promoter.promote(site, getClient(), promotions, false);
             } while(isNotEmpty(request.getContinuationToken()));
         } else {
             try {
@@ -285,44 +270,30 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         Mapping previewMapping = getMapping(publishingTargetResolver.getPublishingTarget());
         Mapping envMapping = getMapping(environment);
         logger.debug("Publishing content from bucket {0} to bucket {1}", previewMapping.target, envMapping.target);
-        for(DeploymentItemTO item : deploymentItems) {
+        List<Promotion> promotions = new ArrayList<>(deploymentItems.size());
+        for (DeploymentItemTO item : deploymentItems) {
             if (item.isDelete()) {
                 logger.debug("Deleting content at {0}", getFullKey(envMapping, item.getPath()));
-                try {
-                    getClient().deleteObject(envMapping.target, getKey(envMapping, item.getPath()));
-                    if (isNotEmpty(item.getOldPath())) {
-                        logger.debug("Deleting content at {0}", getFullKey(envMapping, item.getOldPath()));
-                        getClient().deleteObject(envMapping.target, getKey(envMapping, item.getOldPath()));
-                    }
-                } catch (Exception e) {
-                    throw new BlobStoreException("Error deleting content at " +
-                            getFullKey(previewMapping, item.getPath()), e);
+                if (isNotEmpty(item.getOldPath())) {
+                    logger.debug("Deleting content at {0}", getFullKey(envMapping, item.getOldPath()));
+                    promotions.add(Promotion.delete(envMapping.target, getKey(envMapping, item.getPath()),
+                            getKey(envMapping, item.getOldPath())));
+                } else {
+                    promotions.add(Promotion.delete(envMapping.target, getKey(envMapping, item.getPath())));
                 }
             } else if (item.isMove()) {
                 logger.debug("Moving content from {0} to {1}",
                         getFullKey(envMapping, item.getOldPath()), getFullKey(envMapping, item.getPath()));
-                try {
-                    getClient().copyObject(envMapping.target, getKey(envMapping, item.getOldPath()),
-                            envMapping.target, getKey(envMapping, item.getPath()));
-                    getClient().deleteObject(envMapping.target, getKey(envMapping, item.getOldPath()));
-                } catch (Exception e) {
-                    throw new BlobStoreException("Error moving content from " +
-                            getFullKey(envMapping, item.getOldPath()) + " to " +
-                            getFullKey(envMapping, item.getPath()), e);
-                }
+                promotions.add(Promotion.move(envMapping.target, getKey(envMapping, item.getOldPath()),
+                        getKey(envMapping, item.getPath()), -1));
             } else {
                 logger.debug("Copying content from {0} to {1}",
                         getFullKey(previewMapping, item.getPath()), getFullKey(envMapping, item.getPath()));
-                try {
-                    getClient().copyObject(previewMapping.target, getKey(previewMapping, item.getPath()),
-                            envMapping.target, getKey(envMapping, item.getPath()));
-                } catch (Exception e) {
-                    throw new BlobStoreException("Error copying content from " +
-                            getFullKey(previewMapping, item.getPath()) + " to " +
-                            getFullKey(envMapping, item.getPath()), e);
-                }
+                promotions.add(Promotion.copy(previewMapping.target, getKey(previewMapping, item.getPath()),
+                        envMapping.target, getKey(envMapping, item.getPath()), -1));
             }
         }
+        promoter.promote(site, getClient(), promotions, true);
     }
 
 }
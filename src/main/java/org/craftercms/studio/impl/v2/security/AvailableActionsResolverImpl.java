@@ -36,6 +36,7 @@ import org.dom4j.Element;
 import org.dom4j.Node;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -184,6 +185,33 @@ public class AvailableActionsResolverImpl implements AvailableActionsResolver {
         return calculateAvailableActions(username, path, sitePermissionMappings);
     }
 
+    @Override
+    public Map<String, Long> getContentItemAvailableActions(String username, String siteId,
+                                                            Collection<String> paths)
+            throws ServiceLayerException, UserNotFoundException {
+        SitePermissionMappings sitePermissionMappings = null;
+        try {
+            sitePermissionMappings = findSitePermissionMappings(siteId);
+        } catch (ExecutionException e) {
+            throw new ServiceLayerException("Error fetching available actions from cache for site " + siteId, e);
+        }
+        Map<String, Long> toReturn = new HashMap<String, Long>();
+        List<Group> groups = userServiceInternal.getUserGroups(-1, username);
+        if (CollectionUtils.isEmpty(groups)) {
+            paths.forEach(path -> toReturn.put(path, 0L));
+        } else if (groups.stream().anyMatch(g -> StringUtils.equals(g.getGroupName(), SYSTEM_ADMIN_GROUP))) {
+            paths.forEach(path -> toReturn.put(path, -1L));
+        } else {
+            List<String> roles = sitePermissionMappings.getRoles(username, groups);
+            for (String path : paths) {
+                if (!toReturn.containsKey(path)) {
+                    toReturn.put(path, sitePermissionMappings.getAvailableActions(roles, path));
+                }
+            }
+        }
+        return toReturn;
+    }
+
     private SitePermissionMappings findSitePermissionMappings(final String site) throws ExecutionException {
         var cacheKey = site + CACHE_KEY;
         return cache.get(cacheKey, () -> {
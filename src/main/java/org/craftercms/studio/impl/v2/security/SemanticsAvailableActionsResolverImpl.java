@@ -36,6 +36,8 @@ import org.craftercms.studio.impl.v1.util.ContentUtils;
 import org.craftercms.studio.model.rest.content.DetailedItem;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FOLDER;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.HOME_PAGE_PATH;
@@ -68,12 +70,38 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
     public long calculateContentItemAvailableActions(String username, String siteId, Item item)
             throws ServiceLayerException, UserNotFoundException {
         long userPermissionsBitmap = securityService.getAvailableActions(username, siteId, item.getPath());
+        long result = calculatePossibleActions(username, item, userPermissionsBitmap);
+        long toReturn = applySpecialUseCaseFilters(username, siteId, item, result, new SiteFilters(siteId));
+        return toReturn;
+    }
+
+    @Override
+    public long[] calculateContentItemAvailableActions(String username, String siteId, List<Item> items)
+            throws ServiceLayerException, UserNotFoundException {
+        long[] result = new long[items.size()];
+        if (result.length == 0) {
+            return result;
+        }
+
+        Map<String, Long> userPermissions = securityService.getAvailableActions(username, siteId,
+                items.stream().map(Item::getPath).collect(Collectors.toSet()));
+        for (int i = 0; i < result.length; i++) {
+            Item item = items.get(i);
+            result[i] = calculatePossibleActions(username, item, userPermissions.getOrDefault(item.getPath(), 0L));
+        }
+
+        SiteFilters siteFilters = new SiteFilters(siteId);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = applySpecialUseCaseFilters(username, siteId, items.get(i), result[i], siteFilters);
+        }
+        return result;
+    }
+
+    private long calculatePossibleActions(String username, Item item, long userPermissionsBitmap) {
         long systemTypeBitmap = getPossibleActionsForObject(item.getSystemType());
         long workflowStateBitmap = getPossibleActionsForItemState(item.getState(), username == item.getOwner());
 
-        long result = (userPermissionsBitmap & systemTypeBitmap) & workflowStateBitmap;
-        long toReturn = applySpecialUseCaseFilters(username, siteId, item, result);
-        return toReturn;
+        return (userPermissionsBitmap & systemTypeBitmap) & workflowStateBitmap;
     }
 
     @Override
@@ -89,7 +117,8 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
         return toReturn;
     }
 
-    private long applySpecialUseCaseFilters(String username, String siteId, Item item, long availableActions)
+    private long applySpecialUseCaseFilters(String username, String siteId, Item item, long availableActions,
+                                            SiteFilters siteFilters)
             throws ServiceLayerException, UserNotFoundException {
         long result = availableActions;
 
@@ -99,7 +128,7 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
             result = result & ~CONTENT_RENAME;
         }
 
-        List<String> protectedFolderPatterns = servicesConfig.getProtectedFolderPatterns(siteId);
+        List<String> protectedFolderPatterns = siteFilters.protectedFolderPatterns;
         if (CollectionUtils.isNotEmpty(protectedFolderPatterns) &&
                 ContentUtils.matchesPatterns(item.getPath(), protectedFolderPatterns)) {
             result = result & ~CONTENT_DELETE;
@@ -118,11 +147,11 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
 
         if ((result & CONTENT_UPLOAD) > 0 &&
                 (StringUtils.equals(item.getSystemType(), CONTENT_TYPE_FOLDER) ||
-                        !StudioUtils.matchesPatterns(item.getPath(), servicesConfig.getAssetPatterns(siteId)))) {
+                        !StudioUtils.matchesPatterns(item.getPath(), siteFilters.assetPatterns))) {
             result = result & ~CONTENT_UPLOAD;
         }
 
-        if (servicesConfig.isRequirePeerReview(siteId)) {
+        if (siteFilters.requirePeerReview) {
             if (StringUtils.equals(username, item.getModifier())) {
                 result = result & ~PUBLISH_SCHEDULE;
                 result = result & ~PUBLISH;
@@ -130,7 +159,7 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
 
             if (isInWorkflow(item.getState())) {
                 WorkflowItem workflow = workflowServiceInternal.getWorkflowEntry(siteId, item.getPath());
-                User user = userServiceInternal.getUserByIdOrUsername(-1, username);
+                User user = siteFilters.getUser(username);
                 if (user.getId() == workflow.getId()) {
                     result = result & ~PUBLISH_APPROVE;
                     result = result & ~PUBLISH_SCHEDULE;
@@ -198,6 +227,32 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
         return result;
     }
 
+    /**
+     * Site configuration used by the special use case filters, loaded only once when calculating the available
+     * actions of several items
+     */
+    private class SiteFilters {
+
+        private final List<String> protectedFolderPatterns;
+        private final List<String> assetPatterns;
+        private final boolean requirePeerReview;
+        private User user;
+
+        private SiteFilters(String siteId) {
+            protectedFolderPatterns = servicesConfig.getProtectedFolderPatterns(siteId);
+            assetPatterns = servicesConfig.getAssetPatterns(siteId);
+            requirePeerReview = servicesConfig.isRequirePeerReview(siteId);
+        }
+
+        private User getUser(String username) throws ServiceLayerException, UserNotFoundException {
+            if (user == null) {
+                user = userServiceInternal.getUserByIdOrUsername(-1, username);
+            }
+            return user;
+        }
+
+    }
+
     public SecurityService getSecurityService() {
         return securityService;
     }
@@ -23,6 +23,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.log.Logger;
 import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v1.util.ListUtils;
 import org.craftercms.studio.api.v2.dal.AuditDAO;
 import org.craftercms.studio.api.v2.dal.AuditLog;
 import org.craftercms.studio.api.v2.dal.ItemState;
@@ -61,6 +62,7 @@ import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SORT;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.TARGET;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.USERNAME;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CLUSTERING_NODE_REGISTRATION;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DB_BULK_OPERATIONS_BATCH_SIZE;
 
 public class AuditServiceInternalImpl implements AuditServiceInternal {
 
@@ -298,6 +300,16 @@ public class AuditServiceInternalImpl implements AuditServiceInternal {
         return result > 0;
     }
 
+    @Override
+    public void insertAuditLogs(List<AuditLog> auditLogs) {
+        if (CollectionUtils.isNotEmpty(auditLogs)) {
+            int batchSize = Integer.parseInt(studioConfiguration.getProperty(DB_BULK_OPERATIONS_BATCH_SIZE));
+            for (List<AuditLog> part : ListUtils.partition(auditLogs, batchSize)) {
+                retryingDatabaseOperationFacade.insertAuditLogList(part);
+            }
+        }
+    }
+
     @Override
     public AuditLog createAuditLogEntry() {
         AuditLog auditLog = new AuditLog();
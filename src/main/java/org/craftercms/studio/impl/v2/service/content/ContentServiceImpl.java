@@ -170,6 +170,17 @@ public class ContentServiceImpl implements ContentService {
                 offset, limit);
     }
 
+    @Override
+    @HasPermission(type = DefaultPermission.class, action = "get_children")
+    public GetChildrenResult getChildrenByPath(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId,
+                                               @ProtectedResourceId(PATH_RESOURCE_ID) String path, String locale,
+                                               String keyword, List<String> excludes, String sortStrategy, String order,
+                                               String cursor, boolean approximateTotal, int limit)
+            throws ServiceLayerException, UserNotFoundException, ContentNotFoundException {
+        return contentServiceInternal.getChildrenByPath(siteId, path, locale, keyword, excludes, sortStrategy, order,
+                cursor, approximateTotal, limit);
+    }
+
     @Override
     @HasPermission(type = DefaultPermission.class, action = "get_children")
     public GetChildrenResult getChildrenById(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId, String id,
@@ -180,6 +191,16 @@ public class ContentServiceImpl implements ContentService {
                 offset, limit);
     }
 
+    @Override
+    @HasPermission(type = DefaultPermission.class, action = "get_children")
+    public GetChildrenResult getChildrenById(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId, String id,
+                                             String locale, String keyword, List<String> excludes, String sortStrategy,
+                                             String order, String cursor, boolean approximateTotal, int limit)
+            throws ServiceLayerException, UserNotFoundException {
+        return contentServiceInternal.getChildrenById(siteId, id, locale, keyword, excludes, sortStrategy, order,
+                cursor, approximateTotal, limit);
+    }
+
     @Override
     public Item getItem(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId,
                         @ValidateSecurePathParam String path, boolean flatten) {
@@ -21,7 +21,6 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v1.constant.GitRepositories;
 import org.craftercms.studio.api.v1.dal.SiteFeed;
-import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
@@ -30,8 +29,11 @@ import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
 import org.craftercms.studio.api.v1.service.security.SecurityService;
 import org.craftercms.studio.api.v2.dal.Item;
+import org.craftercms.studio.api.v2.dal.ItemCursor;
 import org.craftercms.studio.api.v2.dal.ItemDAO;
+import org.craftercms.studio.api.v2.exception.InvalidParametersException;
 import org.craftercms.studio.api.v2.security.SemanticsAvailableActionsResolver;
+import org.craftercms.studio.api.v2.service.site.internal.SiteRegistry;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.api.v2.utils.StudioUtils;
 import org.craftercms.studio.model.rest.content.DetailedItem;
@@ -45,14 +47,16 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.function.IntSupplier;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.INDEX_FILE;
-import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
+import static org.craftercms.studio.api.v2.dal.ItemCursor.ORDER_ASC;
+import static org.craftercms.studio.api.v2.dal.ItemCursor.SORT_STRATEGY_FOLDERS_FIRST;
+import static org.craftercms.studio.api.v2.dal.ItemCursor.UNKNOWN_TOTAL;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONTENT_ITEM_EDITABLE_TYPES;
 
 public class ContentServiceInternalImpl implements ContentServiceInternal {
@@ -62,7 +66,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
     private ContentRepository contentRepository;
     private ItemDAO itemDao;
     private ServicesConfig servicesConfig;
-    private SiteFeedMapper siteFeedMapper;
+    private SiteRegistry siteRegistry;
     private SecurityService securityService;
     private org.craftercms.studio.api.v2.service.security.SecurityService securityServiceV2;
     private StudioConfiguration studioConfiguration;
@@ -93,9 +97,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         String parentFolderPath = StringUtils.replace(path, FILE_SEPARATOR + INDEX_FILE, "");
         String ldName = servicesConfig.getLevelDescriptorName(siteId);
         String ldPath = parentFolderPath + FILE_SEPARATOR + ldName;
-        Map<String, String> params = new HashMap<String, String>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         List<Item> resultSet = itemDao.getChildrenByPath(siteFeed.getId(), ldPath, ldName, parentFolderPath,
                 locale, keyword, excludes, sortStrategy, order, offset, limit);
         GetChildrenResult toRet = processResultSet(siteId, resultSet);
@@ -106,15 +108,123 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         return toRet;
     }
 
+    @Override
+    public GetChildrenResult getChildrenByPath(String siteId, String path, String locale, String keyword,
+                                               List<String> excludes, String sortStrategy, String order,
+                                               String cursor, boolean approximateTotal, int limit)
+            throws ServiceLayerException, UserNotFoundException, ContentNotFoundException {
+        if (!contentRepository.contentExists(siteId, path)) {
+            throw new ContentNotFoundException(path, siteId, "Content not found at path " + path + " site " + siteId);
+        }
+        ItemCursor itemCursor = decodeCursor(cursor);
+        String keysetOrder = ItemCursor.normalizeOrder(order, ORDER_ASC);
+        String parentFolderPath = StringUtils.replace(path, FILE_SEPARATOR + INDEX_FILE, "");
+        String ldName = servicesConfig.getLevelDescriptorName(siteId);
+        String ldPath = parentFolderPath + FILE_SEPARATOR + ldName;
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
+        // children point to the index of the folder when there is one, same as the parent ids
+        Item parent = itemDao.getItemBySiteIdAndPath(siteFeed.getId(), parentFolderPath + FILE_SEPARATOR + INDEX_FILE);
+        if (parent == null) {
+            parent = itemDao.getItemBySiteIdAndPath(siteFeed.getId(), parentFolderPath);
+        }
+        List<Item> resultSet;
+        if (parent == null) {
+            resultSet = Collections.emptyList();
+        } else {
+            long parentId = parent.getId();
+            resultSet = getChildrenPage(itemCursor, sortStrategy, ldName, limit + 1,
+                    (includeLevelDescriptor, folders, cursorValue, cursorId, max) ->
+                            itemDao.getChildrenByPathAfter(siteFeed.getId(), ldPath, ldName, parentId, locale,
+                                    keyword, excludes, keysetOrder, includeLevelDescriptor, folders, cursorValue,
+                                    cursorId, max));
+        }
+        boolean hasMore = removeExtraChild(resultSet, ldName, limit);
+        GetChildrenResult toRet = processResultSet(siteId, resultSet);
+        toRet.setLimit(limit);
+        toRet.setTotal(getKeysetTotal(itemCursor, approximateTotal, () ->
+                itemDao.getChildrenByPathTotal(siteFeed.getId(), parentFolderPath, ldName, locale, keyword,
+                        excludes)));
+        toRet.setNextCursor(getNextCursor(toRet, resultSet, sortStrategy, approximateTotal, hasMore));
+        return toRet;
+    }
+
+    private ItemCursor decodeCursor(String cursor) throws InvalidParametersException {
+        try {
+            return ItemCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParametersException("Invalid cursor '" + cursor + "'");
+        }
+    }
+
+    /**
+     * Gets a page of children starting after the cursor. When folders go first they are queried apart from the rest
+     * of the children, so the queries only need to seek by label and id, and the page is filled with the rest of
+     * the children once there are no more folders
+     */
+    private List<Item> getChildrenPage(ItemCursor itemCursor, String sortStrategy, String ldName, int limit,
+                                       ChildrenQuery query) {
+        boolean firstPage = itemCursor == null;
+        String cursorValue = firstPage ? null : itemCursor.getValue();
+        Long cursorId = firstPage ? null : itemCursor.getId();
+        if (!StringUtils.equals(sortStrategy, SORT_STRATEGY_FOLDERS_FIRST)) {
+            return new ArrayList<>(query.find(firstPage, null, cursorValue, cursorId, limit));
+        }
+        if (!firstPage && itemCursor.getRank() != 0) {
+            return new ArrayList<>(query.find(false, false, cursorValue, cursorId, limit));
+        }
+        List<Item> items = new ArrayList<>(query.find(firstPage, true, cursorValue, cursorId, limit));
+        long folders = items.stream()
+                .filter(item -> !StringUtils.endsWith(item.getPath(), FILE_SEPARATOR + ldName))
+                .count();
+        if (folders < limit) {
+            items.addAll(query.find(false, false, null, null, limit - (int) folders));
+        }
+        return items;
+    }
+
+    private int getKeysetTotal(ItemCursor itemCursor, boolean approximateTotal, IntSupplier counter) {
+        if (approximateTotal && itemCursor != null && itemCursor.getTotal() != UNKNOWN_TOTAL) {
+            return itemCursor.getTotal();
+        }
+        return counter.getAsInt();
+    }
+
+    /**
+     * Pages are queried with one more child than the limit to know if there is a next page without requesting it,
+     * the extra child is always the last item and is removed from the page
+     * @return true if there are more children after the page
+     */
+    private boolean removeExtraChild(List<Item> resultSet, String ldName, int limit) {
+        long children = resultSet.stream()
+                .filter(item -> !StringUtils.endsWith(item.getPath(), FILE_SEPARATOR + ldName))
+                .count();
+        if (children > limit) {
+            resultSet.remove(resultSet.size() - 1);
+            return true;
+        }
+        return false;
+    }
+
+    private String getNextCursor(GetChildrenResult result, List<Item> resultSet, String sortStrategy,
+                                 boolean approximateTotal, boolean hasMore) {
+        if (!hasMore || CollectionUtils.isEmpty(result.getChildren())) {
+            return null;
+        }
+        Item last = resultSet.get(resultSet.size() - 1);
+        return ItemCursor.forChild(last, sortStrategy, approximateTotal ? result.getTotal() : UNKNOWN_TOTAL)
+                .encode();
+    }
+
     private GetChildrenResult processResultSet(String siteId, List<Item> resultSet)
             throws ServiceLayerException, UserNotFoundException {
         GetChildrenResult toRet = new GetChildrenResult();
         String user = securityService.getCurrentUser();
         if (resultSet != null && resultSet.size() > 0) {
+            long[] availableActions =
+                    semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId, resultSet);
             int idx = 0;
             Item item = resultSet.get(idx);
-            item.setAvailableActions(
-                    semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId, item));
+            item.setAvailableActions(availableActions[idx]);
             if (StringUtils.endsWith(item.getPath(), FILE_SEPARATOR +
                     servicesConfig.getLevelDescriptorName(siteId))) {
                 toRet.setLevelDescriptor(SandboxItem.getInstance(item));
@@ -123,8 +233,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
             List<SandboxItem> children = new ArrayList<SandboxItem>();
             while (idx < resultSet.size()) {
                 Item child = resultSet.get(idx);
-                child.setAvailableActions(
-                        semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId, child));
+                child.setAvailableActions(availableActions[idx]);
                 children.add(SandboxItem.getInstance(child));
                 idx++;
             }
@@ -137,9 +246,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
     public int getChildrenByPathTotal(String siteId, String path, String locale, String keyword,
                                       List<String> excludes) {
         String parentFolderPath = StringUtils.replace(path, FILE_SEPARATOR + INDEX_FILE, "");
-        Map<String, String> params = new HashMap<String, String>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         return itemDao.getChildrenByPathTotal(siteFeed.getId(), parentFolderPath,
                 servicesConfig.getLevelDescriptorName(siteId), locale, keyword, excludes);
     }
@@ -149,9 +256,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
                                              List<String> excludes, String sortStrategy, String order, int offset,
                                              int limit)
             throws ServiceLayerException, UserNotFoundException {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         List<Item> resultSet = itemDao.getChildrenById(siteFeed.getId(), parentId,
                 servicesConfig.getLevelDescriptorName(siteId), locale, keyword, excludes, sortStrategy,
                 order, offset, limit);
@@ -162,12 +267,32 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         return toRet;
     }
 
+    @Override
+    public GetChildrenResult getChildrenById(String siteId, String parentId, String locale, String keyword,
+                                             List<String> excludes, String sortStrategy, String order,
+                                             String cursor, boolean approximateTotal, int limit)
+            throws ServiceLayerException, UserNotFoundException {
+        ItemCursor itemCursor = decodeCursor(cursor);
+        String keysetOrder = ItemCursor.normalizeOrder(order, ORDER_ASC);
+        String ldName = servicesConfig.getLevelDescriptorName(siteId);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
+        List<Item> resultSet = getChildrenPage(itemCursor, sortStrategy, ldName, limit + 1,
+                (includeLevelDescriptor, folders, cursorValue, cursorId, max) ->
+                        itemDao.getChildrenByIdAfter(siteFeed.getId(), parentId, ldName, locale, keyword, excludes,
+                                keysetOrder, includeLevelDescriptor, folders, cursorValue, cursorId, max));
+        boolean hasMore = removeExtraChild(resultSet, ldName, limit);
+        GetChildrenResult toRet = processResultSet(siteId, resultSet);
+        toRet.setLimit(limit);
+        toRet.setTotal(getKeysetTotal(itemCursor, approximateTotal, () ->
+                itemDao.getChildrenByIdTotal(siteFeed.getId(), parentId, ldName, locale, keyword, excludes)));
+        toRet.setNextCursor(getNextCursor(toRet, resultSet, sortStrategy, approximateTotal, hasMore));
+        return toRet;
+    }
+
     @Override
     public int getChildrenByIdTotal(String siteId, String parentId, String ldName, String locale, String keyword,
                                     List<String> excludes) {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         return itemDao.getChildrenByIdTotal(siteFeed.getId(), parentId, servicesConfig.getLevelDescriptorName(siteId),
                 locale, keyword, excludes);
     }
@@ -188,9 +313,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         if (!contentRepository.contentExists(siteId, path)) {
             throw new ContentNotFoundException(path, siteId, "Content not found at path " + path + " site " + siteId);
         }
-        Map<String, String> params = new HashMap<String, String>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         Item item = null;
         if (preferContent) {
             item = itemDao.getItemByPathPreferContent(siteFeed.getId(), path);
@@ -236,9 +359,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
     @Override
     public List<SandboxItem> getSandboxItemsByPath(String siteId, List<String> paths, boolean preferContent)
             throws ServiceLayerException, UserNotFoundException {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         List<Item> items = null;
         if (preferContent) {
             items = itemDao.getSandboxItemsByPathPreferContent(siteFeed.getId(), paths);
@@ -265,15 +386,21 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         List<SandboxItem> toRet = new ArrayList<SandboxItem>();
         if (CollectionUtils.isNotEmpty(items)) {
             String user = securityService.getCurrentUser();
+            List<Item> existingItems = new ArrayList<Item>(items.size());
             for (Item item : items) {
                 if (!contentRepository.contentExists(siteId, item.getPath())) {
                     logger.warn("Content not found at path " + item.getPath() + " site " + siteId);
                 } else {
-                    item.setAvailableActions(
-                            semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId, item));
-                    toRet.add(SandboxItem.getInstance(item));
+                    existingItems.add(item);
                 }
             }
+            long[] availableActions =
+                    semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId, existingItems);
+            for (int i = 0; i < existingItems.size(); i++) {
+                Item item = existingItems.get(i);
+                item.setAvailableActions(availableActions[i]);
+                toRet.add(SandboxItem.getInstance(item));
+            }
         }
         return toRet;
     }
@@ -342,12 +469,12 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         this.servicesConfig = servicesConfig;
     }
 
-    public SiteFeedMapper getSiteFeedMapper() {
-        return siteFeedMapper;
+    public SiteRegistry getSiteRegistry() {
+        return siteRegistry;
     }
 
-    public void setSiteFeedMapper(SiteFeedMapper siteFeedMapper) {
-        this.siteFeedMapper = siteFeedMapper;
+    public void setSiteRegistry(SiteRegistry siteRegistry) {
+        this.siteRegistry = siteRegistry;
     }
 
     public SecurityService getSecurityService() {
@@ -381,4 +508,16 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
     public void setSemanticsAvailableActionsResolver(SemanticsAvailableActionsResolver semanticsAvailableActionsResolver) {
         this.semanticsAvailableActionsResolver = semanticsAvailableActionsResolver;
     }
+
+    /**
+     * Query for a page of children using keyset pagination
+     */
+    @FunctionalInterface
+    private interface ChildrenQuery {
+
+        List<Item> find(boolean includeLevelDescriptor, Boolean folders, String cursorValue, Long cursorId,
+                        int limit);
+
+    }
+
 }
@@ -18,7 +18,9 @@ package org.craftercms.studio.impl.v2.service.dashboard;
 
 import org.craftercms.commons.security.permissions.annotations.ProtectedResourceId;
 import org.craftercms.studio.api.v2.dal.AuditLog;
+import org.craftercms.studio.api.v2.dal.ItemPage;
 import org.craftercms.studio.api.v2.dal.PublishingHistoryItem;
+import org.craftercms.studio.api.v2.exception.InvalidParametersException;
 import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
 import org.craftercms.studio.api.v2.service.dashboard.DashboardService;
 import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
@@ -70,6 +72,17 @@ public class DashboardServiceImpl implements DashboardService {
                 sortBy, order, offset, limit);
     }
 
+    @Override
+    public ItemPage<ContentDashboardItem> getContentDashboard(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId,
+                                                              String path, String modifier, String contentType,
+                                                              long state, ZonedDateTime dateFrom, ZonedDateTime dateTo,
+                                                              String order, String cursor, boolean approximateTotal,
+                                                              int limit)
+            throws InvalidParametersException {
+        return itemServiceInternal.getContentDashboard(siteId, path, modifier, contentType, state, dateFrom, dateTo,
+                order, cursor, approximateTotal, limit);
+    }
+
     @Override
     public int getPublishingHistoryTotal(@ProtectedResourceId(SITE_ID_RESOURCE_ID) String siteId, String environment,
                                          String path, String publisher, ZonedDateTime dateFrom, ZonedDateTime dateTo,
@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.dependency.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * In-memory copy of the dependency table for a single site. Paths are interned into int ids and the forward
+ * (source to target) and reverse (target to source) edges are stored as arrays of ids per node.
+ *
+ * <p>All methods are thread safe, queries can run concurrently while updates are exclusive.</p>
+ */
+public class DependencyGraph {
+
+    private static final int[] EMPTY = new int[0];
+
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Path to id, sorted so items can be found by path prefix
+     */
+    protected final NavigableMap<String, Integer> ids = new TreeMap<>();
+    protected final List<String> paths = new ArrayList<>();
+
+    protected int[][] forward = new int[16][];
+    protected int[] forwardSize = new int[16];
+    protected int[][] reverse = new int[16][];
+    protected int[] reverseSize = new int[16];
+
+    protected final long createdOn = System.currentTimeMillis();
+
+    /**
+     * Adds a dependency from source to target, duplicated dependencies are ignored
+     * @param sourcePath the path of the item that has the dependency
+     * @param targetPath the path of the item it depends on
+     */
+    public void addDependency(String sourcePath, String targetPath) {
+        lock.writeLock().lock();
+        try {
+            addEdge(intern(sourcePath), intern(targetPath));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces all the dependencies of the given item
+     * @param sourcePath the path of the item
+     * @param targetPaths the paths of the items it now depends on
+     */
+    public void setDependencies(String sourcePath, Collection<String> targetPaths) {
+        lock.writeLock().lock();
+        try {
+            int source = intern(sourcePath);
+            removeOutgoing(source);
+            for (String targetPath : targetPaths) {
+                addEdge(source, intern(targetPath));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all dependencies from and to the given item
+     * @param path the path of the item
+     */
+    public void removeItem(String path) {
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.get(path);
+            if (id != null) {
+                removeOutgoing(id);
+                removeIncoming(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves all dependencies from and to an item to a new path
+     * @param oldPath the current path of the item
+     * @param newPath the new path of the item
+     */
+    public void moveItem(String oldPath, String newPath) {
+        lock.writeLock().lock();
+        try {
+            Integer oldId = ids.get(oldPath);
+            if (oldId == null) {
+                return;
+            }
+            int[] targets = Arrays.copyOf(forward[oldId], forwardSize[oldId]);
+            int[] sources = Arrays.copyOf(reverse[oldId], reverseSize[oldId]);
+            removeOutgoing(oldId);
+            removeIncoming(oldId);
+            int newId = intern(newPath);
+            for (int target : targets) {
+                addEdge(newId, target == oldId ? newId : target);
+            }
+            for (int source : sources) {
+                addEdge(source == oldId ? newId : source, newId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Calls the consumer for each dependency of the given items
+     * @param sourcePaths the paths of the items
+     * @param consumer receives the source and target paths of each dependency
+     */
+    public void forEachDependency(Collection<String> sourcePaths, BiConsumer<String, String> consumer) {
+        lock.readLock().lock();
+        try {
+            for (String sourcePath : sourcePaths) {
+                Integer source = ids.get(sourcePath);
+                if (source != null) {
+                    for (int i = 0; i < forwardSize[source]; i++) {
+                        consumer.accept(sourcePath, paths.get(forward[source][i]));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param sourcePaths the paths of the items
+     * @return the paths of the items the given items depend on directly
+     */
+    public Set<String> getDependencies(Collection<String> sourcePaths) {
+        return getClosure(sourcePaths, false, 1, path -> true);
+    }
+
+    /**
+     * @param targetPaths the paths of the items
+     * @return the paths of the items that depend directly on the given items
+     */
+    public Set<String> getDependents(Collection<String> targetPaths) {
+        return getClosure(targetPaths, true, 1, path -> true);
+    }
+
+    /**
+     * @param prefixes the path prefixes
+     * @return the paths of the items that depend directly on any item starting with one of the given prefixes
+     */
+    public Set<String> getDependentsByPrefix(Collection<String> prefixes) {
+        Set<String> result = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            for (String prefix : prefixes) {
+                for (int target : ids.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                    for (int i = 0; i < reverseSize[target]; i++) {
+                        result.add(paths.get(reverse[target][i]));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Walks the graph breadth first starting from the given items
+     * @param startPaths the paths of the items to start from, they are only included if they are reached again
+     * @param dependents true to follow the edges backwards (items depending on), false for dependencies
+     * @param depth max number of levels to walk, negative for no limit
+     * @param filter only the items accepted by the filter are included and walked through
+     * @return the paths of all reached items
+     */
+    public Set<String> getClosure(Collection<String> startPaths, boolean dependents, int depth,
+                                  Predicate<String> filter) {
+        Set<String> result = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            int[][] edges = dependents ? reverse : forward;
+            int[] sizes = dependents ? reverseSize : forwardSize;
+            boolean[] visited = new boolean[paths.size()];
+            int[] frontier = new int[startPaths.size()];
+            int frontierSize = 0;
+            for (String path : startPaths) {
+                Integer id = ids.get(path);
+                if (id != null) {
+                    frontier[frontierSize++] = id;
+                }
+            }
+            int level = 0;
+            while (frontierSize > 0 && (depth < 0 || level++ < depth)) {
+                int[] next = new int[Math.max(16, frontierSize)];
+                int nextSize = 0;
+                for (int f = 0; f < frontierSize; f++) {
+                    int node = frontier[f];
+                    for (int i = 0; i < sizes[node]; i++) {
+                        int target = edges[node][i];
+                        if (!visited[target]) {
+                            visited[target] = true;
+                            String targetPath = paths.get(target);
+                            if (filter.test(targetPath)) {
+                                result.add(targetPath);
+                                if (nextSize == next.length) {
+                                    next = Arrays.copyOf(next, next.length * 2);
+                                }
+                                next[nextSize++] = target;
+                            }
+                        }
+                    }
+                }
+                frontier = next;
+                frontierSize = nextSize;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of dependencies in the graph
+     */
+    public int getDependencyCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (int i = 0; i < paths.size(); i++) {
+                count += forwardSize[i];
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getCreatedOn() {
+        return createdOn;
+    }
+
+    protected int intern(String path) {
+        Integer id = ids.get(path);
+        if (id == null) {
+            id = paths.size();
+            paths.add(path);
+            ids.put(path, id);
+            if (id == forward.length) {
+                int capacity = forward.length * 2;
+                forward = Arrays.copyOf(forward, capacity);
+                forwardSize = Arrays.copyOf(forwardSize, capacity);
+                reverse = Arrays.copyOf(reverse, capacity);
+                reverseSize = Arrays.copyOf(reverseSize, capacity);
+            }
+            forward[id] = EMPTY;
+            reverse[id] = EMPTY;
+        }
+        return id;
+    }
+
+    protected void addEdge(int source, int target) {
+        if (indexOf(forward[source], forwardSize[source], target) < 0) {
+            forward[source] = append(forward[source], forwardSize[source]++, target);
+            reverse[target] = append(reverse[target], reverseSize[target]++, source);
+        }
+    }
+
+    protected void removeOutgoing(int source) {
+        for (int i = 0; i < forwardSize[source]; i++) {
+            int target = forward[source][i];
+            reverseSize[target] = remove(reverse[target], reverseSize[target], source);
+        }
+        forward[source] = EMPTY;
+        forwardSize[source] = 0;
+    }
+
+    protected void removeIncoming(int target) {
+        for (int i = 0; i < reverseSize[target]; i++) {
+            int source = reverse[target][i];
+            forwardSize[source] = remove(forward[source], forwardSize[source], target);
+        }
+        reverse[target] = EMPTY;
+        reverseSize[target] = 0;
+    }
+
+    protected static int[] append(int[] array, int size, int value) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, Math.max(4, size * 2));
+        }
+        array[size] = value;
+        return array;
+    }
+
+    protected static int remove(int[] array, int size, int value) {
+        int idx = indexOf(array, size, value);
+        if (idx < 0) {
+            return size;
+        }
+        array[idx] = array[size - 1];
+        return size - 1;
+    }
+
+    protected static int indexOf(int[] array, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
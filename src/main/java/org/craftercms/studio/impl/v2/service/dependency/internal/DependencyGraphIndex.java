@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.dependency.internal;
+
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v2.dal.Dependency;
+import org.craftercms.studio.api.v2.dal.DependencyDAO;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DEPENDENCY_INDEX_ENABLED;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DEPENDENCY_INDEX_MAX_AGE;
+
+/**
+ * Keeps a {@link DependencyGraph} per site, loaded lazily from the dependency table and updated by the dependency
+ * services every time they modify the table. Graphs are reloaded once they reach the configured max age to pick
+ * up changes done by other cluster members.
+ *
+ * <p>{@link #getGraph(String)} returns null when the index is disabled or the graph can't be loaded, callers
+ * should fall back to querying the database in that case.</p>
+ */
+public class DependencyGraphIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGraphIndex.class);
+
+    protected StudioConfiguration studioConfiguration;
+    protected DependencyDAO dependencyDao;
+
+    protected final Map<String, DependencyGraph> graphs = new ConcurrentHashMap<>();
+
+    /**
+     * Number of modifications per site, used to discard graphs that were modified while being loaded. Also used
+     * as the monitor to install or modify the graph of the site.
+     */
+    protected final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return Boolean.parseBoolean(studioConfiguration.getProperty(DEPENDENCY_INDEX_ENABLED));
+    }
+
+    /**
+     * Returns the dependency graph for the given site, loading it if needed
+     * @param site the site id
+     * @return the graph or null if the index is disabled or the graph could not be loaded
+     */
+    public DependencyGraph getGraph(String site) {
+        if (!isEnabled()) {
+            return null;
+        }
+        DependencyGraph graph = graphs.get(site);
+        if (graph != null && System.currentTimeMillis() - graph.getCreatedOn() > getMaxAge()) {
+            graphs.remove(site, graph);
+            graph = null;
+        }
+        if (graph == null) {
+            AtomicLong version = getVersion(site);
+            long loadedVersion = version.get();
+            try {
+                graph = loadGraph(site);
+            } catch (RuntimeException e) {
+                logger.error("Error loading the dependency graph for site " + site, e);
+                return null;
+            }
+            synchronized (version) {
+                // if the site was modified while loading the graph it will be loaded again on the next call
+                if (version.get() == loadedVersion) {
+                    DependencyGraph existing = graphs.putIfAbsent(site, graph);
+                    if (existing != null) {
+                        graph = existing;
+                    }
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Replaces the dependencies of an item, must be called after the changes are committed to the database
+     * @param site the site id
+     * @param sourcePath the path of the item
+     * @param targetPaths the paths of the items it depends on
+     */
+    public void setDependencies(String site, String sourcePath, Collection<String> targetPaths) {
+        AtomicLong version = getVersion(site);
+        synchronized (version) {
+            version.incrementAndGet();
+            DependencyGraph graph = graphs.get(site);
+            if (graph != null) {
+                graph.setDependencies(sourcePath, targetPaths);
+            }
+        }
+    }
+
+    /**
+     * Moves the dependencies of an item, must be called after the changes are committed to the database
+     * @param site the site id
+     * @param oldPath the old path of the item
+     * @param newPath the new path of the item
+     */
+    public void moveItem(String site, String oldPath, String newPath) {
+        AtomicLong version = getVersion(site);
+        synchronized (version) {
+            version.incrementAndGet();
+            DependencyGraph graph = graphs.get(site);
+            if (graph != null) {
+                graph.moveItem(oldPath, newPath);
+            }
+        }
+    }
+
+    /**
+     * Removes all dependencies from and to an item, must be called after the changes are committed to the database
+     * @param site the site id
+     * @param path the path of the item
+     */
+    public void removeItem(String site, String path) {
+        AtomicLong version = getVersion(site);
+        synchronized (version) {
+            version.incrementAndGet();
+            DependencyGraph graph = graphs.get(site);
+            if (graph != null) {
+                graph.removeItem(path);
+            }
+        }
+    }
+
+    /**
+     * Discards the graph for the given site, it will be loaded again when needed. Should be used when the
+     * dependency table is modified directly (for example when syncing the database with the repository)
+     * @param site the site id
+     */
+    public void invalidate(String site) {
+        AtomicLong version = getVersion(site);
+        synchronized (version) {
+            version.incrementAndGet();
+            graphs.remove(site);
+        }
+    }
+
+    protected DependencyGraph loadGraph(String site) {
+        logger.debug("Loading dependency graph for site " + site);
+        List<Dependency> dependencies = dependencyDao.getAllDependencies(site);
+        DependencyGraph graph = new DependencyGraph();
+        for (Dependency dependency : dependencies) {
+            graph.addDependency(dependency.getSourcePath(), dependency.getTargetPath());
+        }
+        logger.debug("Loaded " + dependencies.size() + " dependencies for site " + site);
+        return graph;
+    }
+
+    protected AtomicLong getVersion(String site) {
+        return versions.computeIfAbsent(site, key -> new AtomicLong());
+    }
+
+    protected long getMaxAge() {
+        return TimeUnit.SECONDS.toMillis(studioConfiguration.getProperty(DEPENDENCY_INDEX_MAX_AGE, Long.class));
+    }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+    public void setDependencyDao(DependencyDAO dependencyDao) {
+        this.dependencyDao = dependencyDao;
+    }
+
+}
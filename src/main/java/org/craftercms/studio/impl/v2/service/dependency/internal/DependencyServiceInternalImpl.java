@@ -17,6 +17,7 @@
 package org.craftercms.studio.impl.v2.service.dependency.internal;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v1.constant.DmConstants;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
@@ -41,11 +42,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.INDEX_FILE;
+import static org.craftercms.studio.api.v2.dal.DependencyDAO.PATH_COLUMN_NAME;
 import static org.craftercms.studio.api.v2.dal.DependencyDAO.SORUCE_PATH_COLUMN_NAME;
+import static org.craftercms.studio.api.v2.dal.DependencyDAO.STATE_COLUMN_NAME;
 import static org.craftercms.studio.api.v2.dal.DependencyDAO.TARGET_PATH_COLUMN_NAME;
 import static org.craftercms.studio.api.v2.dal.ItemState.MODIFIED_MASK;
 import static org.craftercms.studio.api.v2.dal.ItemState.NEW_MASK;
@@ -55,12 +60,15 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
 
     private static final Logger logger = LoggerFactory.getLogger(DependencyServiceInternalImpl.class);
 
+    private static final int ITEM_STATES_BATCH_SIZE = 1000;
+
     private SiteService siteService;
     private StudioConfiguration studioConfiguration;
     private DependencyDAO dependencyDao;
     private ItemServiceInternal itemServiceInternal;
     private DependencyResolver dependencyResolver;
     private ServicesConfig servicesConfig;
+    private DependencyGraphIndex dependencyGraphIndex;
 
     @Override
     public List<String> getSoftDependencies(String site, String path) throws ServiceLayerException {
@@ -95,8 +103,12 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
         for (String p : paths) {
             softDeps.put(p, p);
         }
+        DependencyGraph graph = dependencyGraphIndex.getGraph(site);
+        Predicate<String> softFilter = graph != null ? getSoftDependencyFilter(site, graph, pathsParams) : null;
         do {
-            List<Map<String, String>> deps = getSoftDependenciesForListFromDB(site, pathsParams);
+            List<Map<String, String>> deps = graph != null ?
+                    getDependenciesForListFromGraph(graph, pathsParams, softFilter) :
+                    getSoftDependenciesForListFromDB(site, pathsParams);
             List<String> targetPaths = new ArrayList<String>();
             for (Map<String, String> d : deps) {
                 String srcPath = d.get(SORUCE_PATH_COLUMN_NAME);
@@ -180,8 +192,12 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
             }
 
         }
+        DependencyGraph graph = dependencyGraphIndex.getGraph(site);
+        Predicate<String> hardFilter = graph != null ? getHardDependencyFilter(site, graph, pathsParams) : null;
         do {
-            List<Map<String, String>> deps = calculateHardDependenciesForListFromDB(site, pathsParams);
+            List<Map<String, String>> deps = graph != null ?
+                    getDependenciesForListFromGraph(graph, pathsParams, hardFilter) :
+                    calculateHardDependenciesForListFromDB(site, pathsParams);
             List<String> targetPaths = new ArrayList<String>();
             for (Map<String, String> d : deps) {
                 String srcPath = d.get(SORUCE_PATH_COLUMN_NAME);
@@ -230,6 +246,70 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
                 MODIFIED_MASK, NEW_MASK);
     }
 
+    /**
+     * Returns the dependencies of the given paths in the same format used by the database queries
+     */
+    private List<Map<String, String>> getDependenciesForListFromGraph(DependencyGraph graph, Set<String> paths,
+                                                                      Predicate<String> targetFilter) {
+        List<Map<String, String>> deps = new ArrayList<Map<String, String>>();
+        graph.forEachDependency(paths, (sourcePath, targetPath) -> {
+            if (targetFilter.test(targetPath)) {
+                Map<String, String> dep = new HashMap<String, String>();
+                dep.put(SORUCE_PATH_COLUMN_NAME, sourcePath);
+                dep.put(TARGET_PATH_COLUMN_NAME, targetPath);
+                deps.add(dep);
+            }
+        });
+        return deps;
+    }
+
+    /**
+     * Same conditions as {@link DependencyDAO#getSoftDependenciesForList}: the target is modified (not new) and
+     * doesn't match some of the item specific patterns
+     */
+    private Predicate<String> getSoftDependencyFilter(String site, DependencyGraph graph, Set<String> paths) {
+        Map<String, Long> states = getReachableItemStates(site, graph, paths);
+        List<Pattern> patterns = getItemSpecificDependenciesCompiledPatterns();
+        return path -> {
+            Long state = states.get(path);
+            return state != null && (state & MODIFIED_MASK) > 0 && (state & NEW_MASK) == 0 &&
+                    patterns.stream().anyMatch(pattern -> !pattern.matcher(path).find());
+        };
+    }
+
+    /**
+     * Same conditions as {@link DependencyDAO#getHardDependenciesForList}: the target is new, or it is modified
+     * and matches any of the item specific patterns
+     */
+    private Predicate<String> getHardDependencyFilter(String site, DependencyGraph graph, Set<String> paths) {
+        Map<String, Long> states = getReachableItemStates(site, graph, paths);
+        List<Pattern> patterns = getItemSpecificDependenciesCompiledPatterns();
+        return path -> {
+            Long state = states.get(path);
+            return state != null && ((state & NEW_MASK) > 0 || ((state & MODIFIED_MASK) > 0 &&
+                    patterns.stream().anyMatch(pattern -> pattern.matcher(path).find())));
+        };
+    }
+
+    /**
+     * Loads the state of every item reachable from the given paths, so the whole walk needs a single query
+     * instead of one per level
+     */
+    private Map<String, Long> getReachableItemStates(String site, DependencyGraph graph, Set<String> paths) {
+        List<String> reachable = new ArrayList<String>(graph.getClosure(paths, false, -1, path -> true));
+        Map<String, Long> states = new HashMap<String, Long>();
+        for (List<String> batch : ListUtils.partition(reachable, ITEM_STATES_BATCH_SIZE)) {
+            for (Map<String, Object> row : dependencyDao.getItemStates(site, batch)) {
+                states.put((String) row.get(PATH_COLUMN_NAME), ((Number) row.get(STATE_COLUMN_NAME)).longValue());
+            }
+        }
+        return states;
+    }
+
+    protected List<Pattern> getItemSpecificDependenciesCompiledPatterns() {
+        return getItemSpecificDependenciesPatterns().stream().map(Pattern::compile).collect(Collectors.toList());
+    }
+
     @Override
     public List<String> getDependentItems(String siteId, String path) {
         List<String> paths = new ArrayList<String>(1);
@@ -242,6 +322,10 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
         if (CollectionUtils.isEmpty(paths)) {
             return new ArrayList<String>();
         }
+        DependencyGraph graph = dependencyGraphIndex.getGraph(siteId);
+        if (graph != null) {
+            return new ArrayList<String>(graph.getDependentsByPrefix(paths));
+        }
         List<String> result = dependencyDao.getDependentItems(siteId, paths);
         return result.stream().distinct().collect(Collectors.toList());
     }
@@ -256,6 +340,17 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     @Override
     public List<String> getItemSpecificDependencies(String siteId, List<String> paths) {
         if (CollectionUtils.isNotEmpty(paths)) {
+            DependencyGraph graph = dependencyGraphIndex.getGraph(siteId);
+            if (graph != null) {
+                List<Pattern> patterns = getItemSpecificDependenciesCompiledPatterns();
+                List<String> result = new ArrayList<String>();
+                graph.forEachDependency(paths, (sourcePath, targetPath) -> {
+                    if (patterns.stream().anyMatch(pattern -> pattern.matcher(targetPath).find())) {
+                        result.add(targetPath);
+                    }
+                });
+                return result;
+            }
             return dependencyDao.getItemSpecificDependencies(siteId, paths, getItemSpecificDependenciesPatterns());
         } else {
             return new ArrayList<String>();
@@ -322,4 +417,12 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     public void setServicesConfig(ServicesConfig servicesConfig) {
         this.servicesConfig = servicesConfig;
     }
+
+    public DependencyGraphIndex getDependencyGraphIndex() {
+        return dependencyGraphIndex;
+    }
+
+    public void setDependencyGraphIndex(DependencyGraphIndex dependencyGraphIndex) {
+        this.dependencyGraphIndex = dependencyGraphIndex;
+    }
 }
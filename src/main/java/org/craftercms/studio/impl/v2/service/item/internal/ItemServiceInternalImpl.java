@@ -21,7 +21,6 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v1.constant.DmConstants;
 import org.craftercms.studio.api.v1.dal.SiteFeed;
-import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v1.log.Logger;
@@ -29,42 +28,45 @@ import org.craftercms.studio.api.v1.log.LoggerFactory;
 import org.craftercms.studio.api.v1.service.GeneralLockService;
 import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
 import org.craftercms.studio.api.v1.service.content.ContentService;
+import org.craftercms.studio.api.v1.util.ListUtils;
 import org.craftercms.studio.api.v2.dal.Item;
+import org.craftercms.studio.api.v2.dal.ItemCursor;
 import org.craftercms.studio.api.v2.dal.ItemDAO;
+import org.craftercms.studio.api.v2.dal.ItemPage;
 import org.craftercms.studio.api.v2.dal.ItemState;
 import org.craftercms.studio.api.v2.dal.PublishingHistoryItem;
 import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
-import org.craftercms.studio.api.v2.dal.StudioDBScriptRunner;
-import org.craftercms.studio.api.v2.dal.StudioDBScriptRunnerFactory;
 import org.craftercms.studio.api.v2.dal.User;
+import org.craftercms.studio.api.v2.exception.InvalidParametersException;
 import org.craftercms.studio.api.v2.service.content.internal.ContentServiceInternal;
 import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
+import org.craftercms.studio.api.v2.service.site.internal.SiteRegistry;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.api.v2.utils.StudioUtils;
 import org.craftercms.studio.impl.v1.util.ContentUtils;
 import org.craftercms.studio.model.rest.dashboard.ContentDashboardItem;
 import org.craftercms.studio.model.rest.dashboard.PublishingDashboardItem;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.UUID;
+import java.util.Set;
 import java.util.stream.Collectors;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FOLDER;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_UNKNOWN;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+import static org.craftercms.studio.api.v2.dal.ItemCursor.ORDER_DESC;
+import static org.craftercms.studio.api.v2.dal.ItemCursor.UNKNOWN_TOTAL;
 import static org.craftercms.studio.api.v2.dal.ItemState.IN_PROGRESS_MASK;
 import static org.craftercms.studio.api.v2.dal.ItemState.LIVE;
 import static org.craftercms.studio.api.v2.dal.ItemState.MODIFIED_MASK;
@@ -75,9 +77,9 @@ import static org.craftercms.studio.api.v2.dal.ItemState.STAGED;
 import static org.craftercms.studio.api.v2.dal.ItemState.SUBMITTED_MASK;
 import static org.craftercms.studio.api.v2.dal.ItemState.SYSTEM_PROCESSING;
 import static org.craftercms.studio.api.v2.dal.ItemState.USER_LOCKED;
-import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
 import static org.craftercms.studio.api.v2.dal.ItemState.NEW;
-import static org.craftercms.studio.api.v2.utils.SqlStatementGeneratorUtils.updateParentIdSimple;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DB_BULK_OPERATIONS_BATCH_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DB_PARENT_IDS_PAGE_SIZE;
 
 public class ItemServiceInternalImpl implements ItemServiceInternal {
 
@@ -89,14 +91,14 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
     public final static String LOCALE_CODE = "//locale-code";
 
     private UserServiceInternal userServiceInternal;
-    private SiteFeedMapper siteFeedMapper;
+    private SiteRegistry siteRegistry;
     private ItemDAO itemDao;
     private ServicesConfig servicesConfig;
     private ContentServiceInternal contentServiceInternal;
     private ContentService contentService;
     private GeneralLockService generalLockService;
     private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
-    private StudioDBScriptRunnerFactory studioDBScriptRunnerFactory;
+    private StudioConfiguration studioConfiguration;
 
     @Override
     public boolean upsertEntry(Item item) {
@@ -113,43 +115,97 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     @Override
     public void updateParentIds(String siteId, String rootPath) {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
+        int pageSize = studioConfiguration.getProperty(DB_PARENT_IDS_PAGE_SIZE, Integer.class);
+        int batchSize = studioConfiguration.getProperty(DB_BULK_OPERATIONS_BATCH_SIZE, Integer.class);
+
+        // The subtree is loaded in pages ordered by id, so at most pageSize items (and their parents) are kept in
+        // memory. When the whole subtree fits in a single page this is just one scan of the table.
+        long lastId = 0;
+        int updated = 0;
+        List<Item> page;
+        do {
+            page = itemDao.getSubtreeParentIds(siteFeed.getId(), rootPath, lastId, pageSize);
+            if (CollectionUtils.isEmpty(page)) {
+                break;
+            }
 
-        try {
-            String updateParentIdScriptFilename = "updateParentId_" + UUID.randomUUID();
-            Path updateParentIdScriptPath = Files.createTempFile(updateParentIdScriptFilename, ".sql");
-
-            Item rootItem = getItem(siteId, rootPath, true);
-            Queue<Item> queue = new LinkedList<Item>();
-            queue.add(rootItem);
-
-            while (!queue.isEmpty()) {
-                Item parentItem = queue.poll();
-                List<Item> children = itemDao.getAllChildrenByPath(siteFeed.getId(),
-                        parentItem.getPath());
-                if (CollectionUtils.isNotEmpty(children)) {
-                    for (Item item : children) {
-                        queue.add(item);
-                        Files.write(updateParentIdScriptPath, updateParentIdSimple(parentItem.getId(),
-                                item.getId()).getBytes(UTF_8), StandardOpenOption.APPEND);
-                        Files.write(updateParentIdScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-                    }
+            updated += updateParentIds(siteFeed.getId(), page, batchSize);
+
+            lastId = page.get(page.size() - 1).getId();
+        } while (page.size() == pageSize);
+
+        logger.debug("Updated parent ids of {0} items for site {1} and subtree of path {2}", updated, siteId,
+                rootPath);
+    }
+
+    @Override
+    public void updateParentIds(String siteId, List<String> paths) {
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
+        int batchSize = studioConfiguration.getProperty(DB_BULK_OPERATIONS_BATCH_SIZE, Integer.class);
+
+        int updated = 0;
+        for (List<String> batch : ListUtils.partition(paths, batchSize)) {
+            updated += updateParentIds(siteFeed.getId(), itemDao.getItemIdsByPaths(siteFeed.getId(), batch),
+                                       batchSize);
+        }
+
+        logger.debug("Updated parent ids of {0} items for site {1}", updated, siteId);
+    }
+
+    /**
+     * Updates the parent id of the given items that don't match the one resolved from their path
+     * @return the number of items updated
+     */
+    protected int updateParentIds(long siteId, List<Item> items, int batchSize) {
+        Map<String, Long> ids = new HashMap<>();
+        items.forEach(item -> ids.put(item.getPath(), item.getId()));
+
+        Set<String> missingPaths = new HashSet<>();
+        for (Item item : items) {
+            String parentPath = getParentPath(item.getPath());
+            if (StringUtils.isNotEmpty(parentPath)) {
+                String parentIndexPath = parentPath + FILE_SEPARATOR + DmConstants.INDEX_FILE;
+                if (!ids.containsKey(parentIndexPath)) {
+                    missingPaths.add(parentIndexPath);
+                }
+                if (!ids.containsKey(parentPath)) {
+                    missingPaths.add(parentPath);
                 }
             }
+        }
+        for (List<String> paths : ListUtils.partition(new ArrayList<>(missingPaths), batchSize)) {
+            itemDao.getItemIdsByPaths(siteId, paths).forEach(item -> ids.put(item.getPath(), item.getId()));
+        }
 
-            StudioDBScriptRunner studioDBScriptRunner = studioDBScriptRunnerFactory.getDBScriptRunner();
-            studioDBScriptRunner.openConnection();
-            try {
-                studioDBScriptRunner.execute(updateParentIdScriptPath.toFile());
-            } finally {
-                studioDBScriptRunner.closeConnection();
+        List<Item> changes = new ArrayList<>();
+        for (Item item : items) {
+            String parentPath = getParentPath(item.getPath());
+            if (StringUtils.isNotEmpty(parentPath)) {
+                // Same as the repository sync, pages are children of the parent page instead of its folder
+                Long parentId = ids.getOrDefault(parentPath + FILE_SEPARATOR + DmConstants.INDEX_FILE,
+                                                 ids.get(parentPath));
+                if (!Objects.equals(parentId, item.getParentId())) {
+                    Item change = new Item();
+                    change.setId(item.getId());
+                    change.setParentId(parentId);
+                    changes.add(change);
+                }
             }
-        } catch (IOException e) {
-            logger.error("Error while executing update parents ids script for site " + siteId + " and subtree of " +
-                    "path " + rootPath);
         }
+        for (List<Item> batch : ListUtils.partition(changes, batchSize)) {
+            retryingDatabaseOperationFacade.updateParentIdBulk(batch);
+        }
+        return changes.size();
+    }
+
+    /**
+     * Returns the path of the folder that contains the given item, for level descriptors this is the parent of the
+     * folder they describe
+     */
+    protected String getParentPath(String path) {
+        String folderPath = StringUtils.removeEnd(path, FILE_SEPARATOR + DmConstants.INDEX_FILE);
+        return StringUtils.substringBeforeLast(folderPath, FILE_SEPARATOR);
     }
 
     @Override
@@ -164,9 +220,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     @Override
     public Item getItem(String siteId, String path, boolean preferContent) {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         Item item = null;
         if (preferContent) {
             item = itemDao.getItemBySiteIdAndPathPreferContent(siteFeed.getId(), path);
@@ -186,9 +240,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     @Override
     public void deleteItem(String siteId, String path) {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         retryingDatabaseOperationFacade.deleteBySiteAndPath(siteFeed.getId(), path);
     }
 
@@ -215,9 +267,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     private void setStatesBySiteAndPathBulk(String siteId, List<String> paths, long statesBitMap) {
         if (CollectionUtils.isNotEmpty(paths)) {
-            Map<String, String> params = new HashMap<String, String>();
-            params.put(SITE_ID, siteId);
-            SiteFeed siteFeed = siteFeedMapper.getSite(params);
+            SiteFeed siteFeed = siteRegistry.getSite(siteId);
             retryingDatabaseOperationFacade.setStatesBySiteAndPathBulk(siteFeed.getId(), paths, statesBitMap);
         }
     }
@@ -230,9 +280,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     private void resetStatesBySiteAndPathBulk(String siteId, List<String> paths, long statesBitMap) {
         if (CollectionUtils.isNotEmpty(paths)) {
-            Map<String, String> params = new HashMap<String, String>();
-            params.put(SITE_ID, siteId);
-            SiteFeed siteFeed = siteFeedMapper.getSite(params);
+            SiteFeed siteFeed = siteRegistry.getSite(siteId);
             retryingDatabaseOperationFacade.resetStatesBySiteAndPathBulk(siteFeed.getId(), paths, statesBitMap);
         }
     }
@@ -310,9 +358,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
     private void updateStatesBySiteAndPathBulk(String siteId, List<String> paths, long onStateBitMap,
                                                long offStateBitMap) {
         if (CollectionUtils.isNotEmpty(paths)) {
-            Map<String, String> params = new HashMap<String, String>();
-            params.put(SITE_ID, siteId);
-            SiteFeed siteFeed = siteFeedMapper.getSite(params);
+            SiteFeed siteFeed = siteRegistry.getSite(siteId);
             retryingDatabaseOperationFacade.updateStatesBySiteAndPathBulk(siteFeed.getId(), paths, onStateBitMap,
                     offStateBitMap);
         }
@@ -323,9 +369,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
         Item item = getItem(siteName, path);
         if (Objects.isNull(item))  {
             item = new Item();
-            Map<String, String> params = new HashMap<String, String>();
-            params.put(SITE_ID, siteName);
-            SiteFeed siteFeed = siteFeedMapper.getSite(params);
+            SiteFeed siteFeed = siteRegistry.getSite(siteName);
             item.setSiteId(siteFeed.getId());
             item.setSiteName(siteName);
             item.setPath(path);
@@ -413,6 +457,50 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public ItemPage<ContentDashboardItem> getContentDashboard(String siteId, String path, String modifier,
+                                                              String contentType, long state, ZonedDateTime dateFrom,
+                                                              ZonedDateTime dateTo, String order, String cursor,
+                                                              boolean approximateTotal, int limit)
+            throws InvalidParametersException {
+        ItemCursor itemCursor;
+        ZonedDateTime cursorDate = null;
+        try {
+            itemCursor = ItemCursor.decode(cursor);
+            if (itemCursor != null) {
+                cursorDate = StringUtils.isEmpty(itemCursor.getValue()) ?
+                        Instant.EPOCH.atZone(ZoneOffset.UTC) : ZonedDateTime.parse(itemCursor.getValue());
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidParametersException("Invalid cursor '" + cursor + "'");
+        }
+        String keysetOrder = ItemCursor.normalizeOrder(order, ORDER_DESC);
+        // one more item than the limit is requested to know if there is a next page
+        List<Item> items = itemDao.getContentDashboardAfter(siteId, path, modifier, contentType, state, dateFrom,
+                dateTo, keysetOrder, cursorDate, itemCursor == null ? null : itemCursor.getId(), limit + 1);
+        boolean hasMore = items.size() > limit;
+        if (hasMore) {
+            items = items.subList(0, limit);
+        }
+
+        int total;
+        if (approximateTotal && itemCursor != null && itemCursor.getTotal() != UNKNOWN_TOTAL) {
+            total = itemCursor.getTotal();
+        } else {
+            total = itemDao.getContentDashboardTotal(siteId, path, modifier, contentType, state, dateFrom, dateTo);
+        }
+
+        String nextCursor = null;
+        if (hasMore && !items.isEmpty()) {
+            Item last = items.get(items.size() - 1);
+            String value = last.getLastModifiedOn() == null ? StringUtils.EMPTY : last.getLastModifiedOn().toString();
+            nextCursor = new ItemCursor(0, value, last.getId(), approximateTotal ? total : UNKNOWN_TOTAL).encode();
+        }
+        return new ItemPage<>(items.stream()
+                .map(i -> convertItemToContentDashboardItem(siteId, i))
+                .collect(Collectors.toList()), total, nextCursor);
+    }
+
     @Override
     public String getBrowserUrl(String site, String path) {
         String replacePattern;
@@ -743,9 +831,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
                 resetStatesMask = resetStatesMask | STAGED.value;
             }
 
-            Map<String, String> params = new HashMap<String, String>();
-            params.put(SITE_ID, siteId);
-            SiteFeed siteFeed = siteFeedMapper.getSite(params);
+            SiteFeed siteFeed = siteRegistry.getSite(siteId);
             retryingDatabaseOperationFacade.updateStatesBySiteAndPathBulk(siteFeed.getId(), paths, setStatesMask,
                     resetStatesMask);
         }
@@ -788,12 +874,12 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
         this.userServiceInternal = userServiceInternal;
     }
 
-    public SiteFeedMapper getSiteFeedMapper() {
-        return siteFeedMapper;
+    public SiteRegistry getSiteRegistry() {
+        return siteRegistry;
     }
 
-    public void setSiteFeedMapper(SiteFeedMapper siteFeedMapper) {
-        this.siteFeedMapper = siteFeedMapper;
+    public void setSiteRegistry(SiteRegistry siteRegistry) {
+        this.siteRegistry = siteRegistry;
     }
 
     public ItemDAO getItemDao() {
@@ -836,12 +922,12 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
         this.generalLockService = generalLockService;
     }
 
-    public StudioDBScriptRunnerFactory getStudioDBScriptRunnerFactory() {
-        return studioDBScriptRunnerFactory;
+    public StudioConfiguration getStudioConfiguration() {
+        return studioConfiguration;
     }
 
-    public void setStudioDBScriptRunnerFactory(StudioDBScriptRunnerFactory studioDBScriptRunnerFactory) {
-        this.studioDBScriptRunnerFactory = studioDBScriptRunnerFactory;
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
     }
 
     public RetryingDatabaseOperationFacade getRetryingDatabaseOperationFacade() {
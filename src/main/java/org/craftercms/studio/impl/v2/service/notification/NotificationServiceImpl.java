@@ -31,9 +31,11 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 
 import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import freemarker.template.Configuration;
 import freemarker.template.DefaultObjectWrapperBuilder;
 import freemarker.template.Template;
@@ -67,6 +69,7 @@ import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.dom4j.Document;
 import org.dom4j.Element;
 import org.dom4j.Node;
+import org.springframework.core.task.TaskExecutor;
 
 import static java.util.Collections.singletonList;
 import static org.craftercms.studio.api.v1.constant.SecurityConstants.KEY_EMAIL;
@@ -95,6 +98,18 @@ public class NotificationServiceImpl implements NotificationService {
 
     protected Cache<String, Map<String, NotificationConfigTO>> cache;
 
+    /**
+     * Executor used to render the email notifications and add them to the queue
+     */
+    protected TaskExecutor taskExecutor;
+
+    /**
+     * Compiled templates for each loaded notification configuration. The configuration objects are replaced when
+     * the configuration changes, so the templates of the previous version are discarded with them.
+     */
+    protected Cache<NotificationConfigTO, Map<Pair<String, String>, Template>> templates =
+            CacheBuilder.newBuilder().weakKeys().build();
+
     public void init() {
         configuration = new Configuration(Configuration.VERSION_2_3_23);
         configuration.setTimeZone(TimeZone.getTimeZone(getTemplateTimezone()));
@@ -179,7 +194,7 @@ public class NotificationServiceImpl implements NotificationService {
                     model.put(param.getKey(), param.getValue());
                 }
                 model.put(StudioConstants.SITE_NAME, site);
-                return processMessage(key, message, model);
+                return processMessage(notificationConfig, key, message, model);
             }
         } catch (Throwable ex) {
             logger.error("Unable to get notification message from notification configuration for site: {0} type: {1}"
@@ -244,9 +259,14 @@ public class NotificationServiceImpl implements NotificationService {
                 for (Pair<String, Object> param : params) {
                     templateModel.put(param.getKey(), param.getValue());
                 }
-                final String messageBody = processMessage(key, emailTemplate.getMessage(), templateModel);
-                final String subject = processMessage(key, emailTemplate.getSubject(), templateModel);
-                sendEmail(messageBody, subject, toUsers);
+                // Render and queue the email in the background so the caller doesn't wait for the templates
+                taskExecutor.execute(() -> {
+                    final String messageBody =
+                            processMessage(notificationConfig, key, emailTemplate.getMessage(), templateModel);
+                    final String subject =
+                            processMessage(notificationConfig, key, emailTemplate.getSubject(), templateModel);
+                    sendEmail(messageBody, subject, toUsers);
+                });
             } else {
                 logger.error("Unable to find " + key + " for language " + locale.getLanguage());
             }
@@ -457,11 +477,11 @@ public class NotificationServiceImpl implements NotificationService {
         emailMessages.addEmailMessage(emailMessage);
     }
 
-    protected String processMessage(final String templateName, final String message, final Map<String, Object>
-        templateModel) {
+    protected String processMessage(final NotificationConfigTO notificationConfig, final String templateName,
+                                    final String message, final Map<String, Object> templateModel) {
         StringWriter out = new StringWriter();
         try {
-            Template t = new Template(templateName, new StringReader(message), configuration);
+            Template t = getTemplate(notificationConfig, templateName, message);
             t.process(templateModel, out);
             return out.toString();
         } catch (TemplateException | IOException ex) {
@@ -470,6 +490,28 @@ public class NotificationServiceImpl implements NotificationService {
         return null;
     }
 
+    /**
+     * Returns the compiled template for the given message, compiling it only the first time it is used with the
+     * current version of the configuration
+     */
+    protected Template getTemplate(final NotificationConfigTO notificationConfig, final String templateName,
+                                   final String message) throws IOException {
+        Map<Pair<String, String>, Template> configTemplates;
+        try {
+            configTemplates = templates.get(notificationConfig, ConcurrentHashMap::new);
+        } catch (ExecutionException e) {
+            throw new IOException("Error getting templates for notification configuration", e);
+        }
+        Pair<String, String> templateKey = ImmutablePair.of(templateName, message);
+        Template template = configTemplates.get(templateKey);
+        if (template == null) {
+            logger.debug("Compiling notification template {0}", templateName);
+            template = new Template(templateName, new StringReader(message), configuration);
+            configTemplates.put(templateKey, template);
+        }
+        return template;
+    }
+
     protected Set<ContentItemTO> convertPathsToContent(final String site, final List<String> listOfPaths) {
         Set<ContentItemTO> files = new HashSet<>(listOfPaths.size());
         for (String path : listOfPaths) {
@@ -544,5 +586,9 @@ public class NotificationServiceImpl implements NotificationService {
     public void setCache(Cache<String, Map<String, NotificationConfigTO>> cache) {
         this.cache = cache;
     }
+
+    public void setTaskExecutor(TaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
 }
 
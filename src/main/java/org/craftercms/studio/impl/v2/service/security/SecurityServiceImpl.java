@@ -33,8 +33,10 @@ import org.dom4j.Element;
 import org.dom4j.Node;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -63,6 +65,12 @@ public class SecurityServiceImpl implements SecurityService {
         return availableActionsResolver.getContentItemAvailableActions(username, site, path);
     }
 
+    @Override
+    public Map<String, Long> getAvailableActions(String username, String site, Collection<String> paths)
+            throws ServiceLayerException, UserNotFoundException {
+        return availableActionsResolver.getContentItemAvailableActions(username, site, paths);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public List<String> getUserPermission(String siteId, String username, List<String> roles)
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.site.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
+import org.craftercms.studio.api.v1.log.Logger;
+import org.craftercms.studio.api.v1.log.LoggerFactory;
+import org.craftercms.studio.api.v2.service.site.internal.SiteRegistry;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SITE_REGISTRY_MAX_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SITE_REGISTRY_TTL;
+
+/**
+ * Default implementation of {@link SiteRegistry}, keeps the site records in a cache that expires after a fixed time
+ * so changes done by other cluster nodes are eventually picked up.
+ *
+ * @since 4.0.0
+ */
+public class SiteRegistryImpl implements SiteRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteRegistryImpl.class);
+
+    protected SiteFeedMapper siteFeedMapper;
+    protected StudioConfiguration studioConfiguration;
+
+    protected Cache<String, SiteFeed> cache;
+
+    /**
+     * Incremented on every invalidation, used to avoid caching a record that was loaded before the site changed
+     */
+    protected final AtomicLong generation = new AtomicLong();
+
+    protected final LongAdder hits = new LongAdder();
+    protected final LongAdder misses = new LongAdder();
+
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(studioConfiguration.getProperty(SITE_REGISTRY_MAX_SIZE, Long.class))
+                .expireAfterWrite(studioConfiguration.getProperty(SITE_REGISTRY_TTL, Long.class), TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public SiteFeed getSite(String siteId) {
+        SiteFeed siteFeed = cache.getIfPresent(siteId);
+        if (siteFeed != null) {
+            hits.increment();
+            return siteFeed;
+        }
+
+        misses.increment();
+        long currentGeneration = generation.get();
+        Map<String, String> params = new HashMap<>();
+        params.put(SITE_ID, siteId);
+        siteFeed = siteFeedMapper.getSite(params);
+        // Missing sites are not cached so new sites are visible right away
+        if (siteFeed != null && generation.get() == currentGeneration) {
+            logger.debug("Caching record for site {0}", siteId);
+            cache.put(siteId, siteFeed);
+        }
+        return siteFeed;
+    }
+
+    @Override
+    public void invalidate(String siteId) {
+        logger.debug("Invalidating record for site {0}", siteId);
+        generation.incrementAndGet();
+        cache.invalidate(siteId);
+    }
+
+    @Override
+    public void invalidateAll() {
+        logger.debug("Invalidating records for all sites");
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public void setSiteFeedMapper(SiteFeedMapper siteFeedMapper) {
+        this.siteFeedMapper = siteFeedMapper;
+    }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
+
+}
@@ -33,6 +33,7 @@ import org.craftercms.studio.api.v1.repository.RepositoryItem;
 import org.craftercms.studio.api.v2.dal.PublishStatus;
 import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
 import org.craftercms.studio.api.v2.exception.MissingPluginParameterException;
+import org.craftercms.studio.api.v2.service.site.internal.SiteRegistry;
 import org.craftercms.studio.api.v2.service.site.internal.SitesServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 
@@ -60,6 +61,7 @@ public class SitesServiceInternalImpl implements SitesServiceInternal {
     private StudioConfiguration studioConfiguration;
     private SiteFeedMapper siteFeedMapper;
     private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    private SiteRegistry siteRegistry;
 
     @Override
     public List<PluginDescriptor> getAvailableBlueprints() {
@@ -182,6 +184,7 @@ public class SitesServiceInternalImpl implements SitesServiceInternal {
         if (updated != 1) {
             throw new SiteNotFoundException();
         }
+        siteRegistry.invalidate(siteId);
     }
 
     @Override
@@ -234,4 +237,12 @@ public class SitesServiceInternalImpl implements SitesServiceInternal {
     public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
         this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
     }
+
+    public SiteRegistry getSiteRegistry() {
+        return siteRegistry;
+    }
+
+    public void setSiteRegistry(SiteRegistry siteRegistry) {
+        this.siteRegistry = siteRegistry;
+    }
 }
@@ -43,6 +43,17 @@ public abstract class GetChildrenRequest extends SiteAwareRequest {
 
     protected int limit = 10;
 
+    /**
+     * Token returned by the previous page to use keyset pagination, an empty value requests the first page.
+     * If null the offset is used instead
+     */
+    protected String cursor;
+
+    /**
+     * Indicates if the total can be computed only for the first page when using keyset pagination
+     */
+    protected boolean approximateTotal = false;
+
     public String getLocaleCode() {
         return localeCode;
     }
@@ -99,4 +110,20 @@ public abstract class GetChildrenRequest extends SiteAwareRequest {
         this.limit = limit;
     }
 
-}
\ No newline at end of file
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isApproximateTotal() {
+        return approximateTotal;
+    }
+
+    public void setApproximateTotal(boolean approximateTotal) {
+        this.approximateTotal = approximateTotal;
+    }
+
+}
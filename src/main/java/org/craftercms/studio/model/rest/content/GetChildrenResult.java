@@ -27,6 +27,7 @@ public class GetChildrenResult extends Result {
     protected int limit;
     private SandboxItem levelDescriptor;
     private List<SandboxItem> children;
+    private String nextCursor;
 
     public int getTotal() {
         return total;
@@ -67,4 +68,12 @@ public class GetChildrenResult extends Result {
     public void setChildren(List<SandboxItem> children) {
         this.children = children;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
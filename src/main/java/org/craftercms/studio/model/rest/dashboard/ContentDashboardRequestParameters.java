@@ -26,6 +26,8 @@ public class ContentDashboardRequestParameters {
     private String order;
     private int offset = 0;
     private int limit = 10;
+    private String cursor;
+    private boolean approximateTotal = false;
     ContentDashboardFilters filters;
 
     public String getSiteId() {
@@ -68,6 +70,22 @@ public class ContentDashboardRequestParameters {
         this.limit = limit;
     }
 
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isApproximateTotal() {
+        return approximateTotal;
+    }
+
+    public void setApproximateTotal(boolean approximateTotal) {
+        this.approximateTotal = approximateTotal;
+    }
+
     public ContentDashboardFilters getFilters() {
         return filters;
     }
@@ -197,7 +197,7 @@ CREATE TABLE _meta (
   PRIMARY KEY (`version`)
 ) ;
 
-INSERT INTO _meta (version, studio_id) VALUES ('4.0.0.27', UUID()) ;
+INSERT INTO _meta (version, studio_id) VALUES ('4.0.0.28', UUID()) ;
 
 CREATE TABLE IF NOT EXISTS `audit` (
   `id`                        BIGINT(20)    NOT NULL AUTO_INCREMENT,
@@ -489,7 +489,9 @@ CREATE TABLE IF NOT EXISTS `item` (
   FOREIGN KEY item_ix_owned_by(`owned_by`) REFERENCES `user` (`id`),
   FOREIGN KEY item_ix_site_id(`site_id`) REFERENCES `site` (`id`),
   FOREIGN KEY item_ix_parent(`parent_id`) REFERENCES `item` (`id`) ON DELETE CASCADE ,
-  UNIQUE uq_i_site_path (`site_id`, `path`(900))
+  UNIQUE uq_i_site_path (`site_id`, `path`(900)),
+  INDEX item_ix_parent_label (`parent_id`, `label`, `id`),
+  INDEX item_ix_site_last_modified_on (`site_id`, `last_modified_on`, `id`)
 )
     ENGINE = InnoDB
     DEFAULT CHARSET = utf8
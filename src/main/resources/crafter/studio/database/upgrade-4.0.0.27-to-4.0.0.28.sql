@@ -0,0 +1,20 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+CREATE INDEX IF NOT EXISTS `item_ix_parent_label` ON `item` (`parent_id`, `label`, `id`) ;
+
+CREATE INDEX IF NOT EXISTS `item_ix_site_last_modified_on` ON `item` (`site_id`, `last_modified_on`, `id`) ;
+
+UPDATE _meta SET version = '4.0.0.28' ;
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v1.to;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_ASSET;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_COMPONENT;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_CONTENT_TYPE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_FILE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_LEVEL_DESCRIPTOR;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_PAGE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_RENDERING_TEMPLATE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_SCRIPT;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.CONTENT_TYPE_TAXONOMY;
+import static org.testng.Assert.assertEquals;
+
+public class ContentTypeClassifierTOTest {
+
+    private static final String CONTENT_TYPES_PATH = "/config/studio/content-types";
+
+    private ContentTypeClassifierTO classifier;
+
+    @BeforeMethod
+    public void setUp() {
+        RepositoryConfigTO repositoryConfig = new RepositoryConfigTO();
+        repositoryConfig.setLevelDescriptorName("crafter-level-descriptor.level.xml");
+        repositoryConfig.setPagePatterns(List.of("/site/website/([^<]+)\\.xml"));
+        repositoryConfig.setComponentPatterns(List.of("/site/components/([^<]+)\\.xml", "/site/website/.*\\.cmp"));
+        repositoryConfig.setAssetPatterns(List.of("/static-assets/([^<]+)"));
+        repositoryConfig.setRenderingTemplatePatterns(List.of("/templates/([^<]+)\\.ftl"));
+        repositoryConfig.setScriptsPatterns(List.of("/scripts/([^<]+)\\.groovy", "(invalid"));
+
+        classifier = new ContentTypeClassifierTO(repositoryConfig, CONTENT_TYPES_PATH);
+    }
+
+    @Test
+    public void testClassify() {
+        assertEquals(classifier.classify("/site/website/crafter-level-descriptor.level.xml"),
+                CONTENT_TYPE_LEVEL_DESCRIPTOR);
+        assertEquals(classifier.classify("/site/website/index.xml"), CONTENT_TYPE_PAGE);
+        assertEquals(classifier.classify("/site/components/header.xml"), CONTENT_TYPE_COMPONENT);
+        assertEquals(classifier.classify("/site/website/shared.cmp"), CONTENT_TYPE_COMPONENT);
+        assertEquals(classifier.classify("/static-assets/images/logo.png"), CONTENT_TYPE_ASSET);
+        assertEquals(classifier.classify("/templates/web/page.ftl"), CONTENT_TYPE_RENDERING_TEMPLATE);
+        assertEquals(classifier.classify(CONTENT_TYPES_PATH + "/page/home/form-definition.xml"),
+                CONTENT_TYPE_CONTENT_TYPE);
+        assertEquals(classifier.classify("/site/taxonomy/categories.xml"), CONTENT_TYPE_TAXONOMY);
+        assertEquals(classifier.classify("/scripts/rest/hello.get.groovy"), CONTENT_TYPE_SCRIPT);
+        assertEquals(classifier.classify("/config/studio/site-config.xml"), CONTENT_TYPE_FILE);
+    }
+
+    @Test
+    public void testClassifyWithoutConfiguration() {
+        ContentTypeClassifierTO defaultClassifier = new ContentTypeClassifierTO(null, CONTENT_TYPES_PATH);
+
+        assertEquals(defaultClassifier.classify("/site/website/index.xml"), CONTENT_TYPE_FILE);
+        assertEquals(defaultClassifier.classify("/site/taxonomy/categories.xml"), CONTENT_TYPE_TAXONOMY);
+        assertEquals(defaultClassifier.classify(CONTENT_TYPES_PATH + "/page/home/config.xml"),
+                CONTENT_TYPE_CONTENT_TYPE);
+    }
+
+    @Test
+    public void testClassifyBatch() {
+        Map<String, String> result = classifier.classify(List.of("/site/website/index.xml",
+                "/static-assets/css/main.css", "/site/website/index.xml"));
+
+        assertEquals(result.size(), 2);
+        assertEquals(result.get("/site/website/index.xml"), CONTENT_TYPE_PAGE);
+        assertEquals(result.get("/static-assets/css/main.css"), CONTENT_TYPE_ASSET);
+    }
+
+}
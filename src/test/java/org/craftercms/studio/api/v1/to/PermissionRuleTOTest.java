@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v1.to;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class PermissionRuleTOTest {
+
+    @Test
+    public void testLiteralPrefix() {
+        assertEquals(PermissionRuleTO.getLiteralPrefix("/site/website/.*"), "/site/website/");
+        assertEquals(PermissionRuleTO.getLiteralPrefix("^/site/components(/.*)?"), "/site/components");
+        assertEquals(PermissionRuleTO.getLiteralPrefix("/static-assets/images?/.*"), "/static-assets/image");
+        assertEquals(PermissionRuleTO.getLiteralPrefix("/site/a{2}"), "/site/");
+        assertEquals(PermissionRuleTO.getLiteralPrefix("/site/website|/site/components"), "");
+        assertEquals(PermissionRuleTO.getLiteralPrefix("(?i)/site/.*"), "");
+        assertEquals(PermissionRuleTO.getLiteralPrefix(".*"), "");
+    }
+
+    @Test
+    public void testMatches() {
+        PermissionRuleTO rule = new PermissionRuleTO("/static-assets/images?/.*", Collections.singleton("read"));
+        assertTrue(rule.matches("/static-assets/image/logo.png"));
+        assertTrue(rule.matches("/static-assets/images/logo.png"));
+        assertFalse(rule.matches("/static-assets/js/main.js"));
+        assertFalse(rule.matches("/site/website/index.xml"));
+
+        PermissionRuleTO any = new PermissionRuleTO("~DASHBOARD~|/.*", Collections.singleton("read"));
+        assertTrue(any.matches("~DASHBOARD~"));
+        assertTrue(any.matches("/site/website/index.xml"));
+    }
+
+}
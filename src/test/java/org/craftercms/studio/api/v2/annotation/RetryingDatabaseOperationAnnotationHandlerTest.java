@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.annotation;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.craftercms.studio.api.v2.exception.RetryingOperationErrorException;
+import org.mockito.Mock;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class RetryingDatabaseOperationAnnotationHandlerTest {
+
+    private static final String OPERATION = "RetryingDatabaseOperationAnnotationHandlerTest.operation";
+
+    @Mock
+    private ProceedingJoinPoint pjp;
+
+    @Mock
+    private MethodSignature signature;
+
+    private RetryingDatabaseOperationAnnotationHandler handler;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        initMocks(this);
+        when(pjp.getSignature()).thenReturn(signature);
+        when(pjp.getTarget()).thenReturn(this);
+        when(signature.getMethod()).thenReturn(getClass().getMethod("operation"));
+
+        handler = new RetryingDatabaseOperationAnnotationHandler();
+        handler.setMaxRetries(5);
+        handler.setMaxSleep(20);
+        handler.setBaseSleep(1);
+        handler.setMaxRetryTime(1000);
+        handler.setCircuitBreakerThreshold(10);
+        handler.setCircuitBreakerWindow(60000);
+        handler.setCircuitBreakerCooldown(60000);
+    }
+
+    @Test
+    public void testConflictsAreRetried() throws Throwable {
+        when(pjp.proceed())
+                .thenThrow(new DeadlockLoserDataAccessException("test", null))
+                .thenThrow(new DeadlockLoserDataAccessException("test", null))
+                .thenReturn("result");
+
+        assertEquals(handler.doRetryingOperation(pjp), "result");
+
+        Map<String, Long> stats = handler.getMetrics().getOperationStats().get(OPERATION);
+        assertEquals(stats.get("invocations").longValue(), 1);
+        assertEquals(stats.get("attempts").longValue(), 3);
+        assertEquals(stats.get("conflicts").longValue(), 2);
+        assertEquals(stats.get("failures").longValue(), 0);
+    }
+
+    @Test
+    public void testRetriesAreLimited() throws Throwable {
+        when(pjp.proceed()).thenThrow(new DeadlockLoserDataAccessException("test", null));
+
+        try {
+            handler.doRetryingOperation(pjp);
+            fail("The operation should fail");
+        } catch (RetryingOperationErrorException e) {
+            Map<String, Long> stats = handler.getMetrics().getOperationStats().get(OPERATION);
+            assertEquals(stats.get("attempts").longValue(), 6);
+            assertEquals(stats.get("failures").longValue(), 1);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testOtherErrorsAreNotRetried() throws Throwable {
+        when(pjp.proceed()).thenThrow(new IllegalStateException("test"));
+
+        handler.doRetryingOperation(pjp);
+    }
+
+    @Test
+    public void testCircuitBreakerStopsRetries() throws Throwable {
+        when(pjp.proceed()).thenThrow(new DeadlockLoserDataAccessException("test", null));
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                handler.doRetryingOperation(pjp);
+            } catch (RetryingOperationErrorException e) {
+                // expected
+            }
+        }
+
+        assertTrue(handler.isCircuitBreakerOpen());
+        assertEquals(handler.getMetrics().getCircuitBreakerOpenings(), 1);
+        Map<String, Long> stats = handler.getMetrics().getOperationStats().get(OPERATION);
+        // 6 attempts for the first operation, 5 for the second before the breaker opened and 1 for the last one
+        assertEquals(stats.get("attempts").longValue(), 12);
+        assertEquals(stats.get("rejections").longValue(), 2);
+    }
+
+    @Test
+    public void testBackoffIsCapped() {
+        for (int attempt = 1; attempt < 40; attempt++) {
+            long backoff = handler.getBackoff(attempt);
+            assertTrue(backoff >= 0 && backoff <= 20);
+        }
+        assertFalse(handler.isCircuitBreakerOpen());
+    }
+
+    public void operation() {
+        // Used only to build the join point
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.dal;
+
+import org.testng.annotations.Test;
+
+import static org.craftercms.studio.api.v2.dal.ItemCursor.ORDER_ASC;
+import static org.craftercms.studio.api.v2.dal.ItemCursor.ORDER_DESC;
+import static org.craftercms.studio.api.v2.dal.ItemCursor.UNKNOWN_TOTAL;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class ItemCursorTest {
+
+    @Test
+    public void testRoundTrip() {
+        ItemCursor cursor = ItemCursor.decode(new ItemCursor(1, "Label with\nnew lines", 42, 1000).encode());
+        assertEquals(cursor.getRank(), 1);
+        assertEquals(cursor.getValue(), "Label with\nnew lines");
+        assertEquals(cursor.getId(), 42);
+        assertEquals(cursor.getTotal(), 1000);
+
+        cursor = ItemCursor.decode(new ItemCursor(0, null, 7, UNKNOWN_TOTAL).encode());
+        assertNull(cursor.getValue());
+        assertEquals(cursor.getTotal(), UNKNOWN_TOTAL);
+
+        cursor = ItemCursor.decode(new ItemCursor(0, "", 7, UNKNOWN_TOTAL).encode());
+        assertEquals(cursor.getValue(), "");
+    }
+
+    @Test
+    public void testFirstPage() {
+        assertNull(ItemCursor.decode(null));
+        assertNull(ItemCursor.decode(""));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidToken() {
+        ItemCursor.decode("not a cursor");
+    }
+
+    @Test
+    public void testForChild() {
+        Item folder = new Item();
+        folder.setId(3);
+        folder.setLabel("About");
+        folder.setSystemType("folder");
+
+        assertEquals(ItemCursor.forChild(folder, "foldersFirst", UNKNOWN_TOTAL).getRank(), 0);
+        assertEquals(ItemCursor.forChild(folder, "alphabetical", UNKNOWN_TOTAL).getRank(), 0);
+
+        folder.setSystemType("page");
+        assertEquals(ItemCursor.forChild(folder, "foldersFirst", UNKNOWN_TOTAL).getRank(), 1);
+    }
+
+    @Test
+    public void testNormalizeOrder() {
+        assertEquals(ItemCursor.normalizeOrder("desc", ORDER_ASC), ORDER_DESC);
+        assertEquals(ItemCursor.normalizeOrder("anything", ORDER_DESC), ORDER_ASC);
+        assertEquals(ItemCursor.normalizeOrder(null, ORDER_DESC), ORDER_DESC);
+    }
+
+}
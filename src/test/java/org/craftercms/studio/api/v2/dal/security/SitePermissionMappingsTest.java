@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.dal.security;
+
+import org.craftercms.studio.api.v2.dal.Group;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+public class SitePermissionMappingsTest {
+
+    private static final long READ = 1L;
+    private static final long WRITE = 2L;
+    private static final long PUBLISH = 4L;
+
+    private SitePermissionMappings mappings;
+
+    @BeforeMethod
+    public void setUp() {
+        mappings = new SitePermissionMappings();
+        mappings.addGroupToRolesMapping("author", List.of("author"));
+        mappings.addGroupToRolesMapping("publisher", List.of("publisher", "undefined"));
+        mappings.addGroupToRolesMapping("jane", List.of("reviewer"));
+
+        RolePermissionMappings author = new RolePermissionMappings();
+        author.addRuleContentItemPermissionsMapping("/site/.*", READ);
+        author.addRuleContentItemPermissionsMapping("/site/website/.*", WRITE);
+        mappings.addRolePermissionMapping("author", author);
+
+        RolePermissionMappings publisher = new RolePermissionMappings();
+        publisher.addRuleContentItemPermissionsMapping("/site/website/.*", PUBLISH);
+        mappings.addRolePermissionMapping("publisher", publisher);
+
+        RolePermissionMappings reviewer = new RolePermissionMappings();
+        reviewer.addRuleContentItemPermissionsMapping("/site/components/.*", READ | WRITE);
+        mappings.addRolePermissionMapping("reviewer", reviewer);
+    }
+
+    @Test
+    public void testGetRoles() {
+        List<String> roles = mappings.getRoles("jane", List.of(group("author"), group("publisher")));
+
+        assertEquals(roles, List.of("reviewer", "author", "publisher", "undefined"));
+    }
+
+    @Test
+    public void testGetAvailableActions() {
+        List<Group> groups = List.of(group("author"), group("publisher"));
+
+        assertEquals(mappings.getAvailableActions("john", groups, "/site/website/index.xml"), READ | WRITE | PUBLISH);
+        assertEquals(mappings.getAvailableActions("john", groups, "/site/components/header.xml"), READ);
+        assertEquals(mappings.getAvailableActions("jane", groups, "/site/components/header.xml"), READ | WRITE);
+        assertEquals(mappings.getAvailableActions("john", groups, "/static-assets/logo.png"), 0L);
+    }
+
+    @Test
+    public void testGetAvailableActionsForRoles() {
+        List<String> roles = mappings.getRoles("john", List.of(group("author")));
+
+        assertEquals(mappings.getAvailableActions(roles, "/site/website/index.xml"), READ | WRITE);
+        assertEquals(mappings.getAvailableActions(roles, "/site/website/about/index.xml"), READ | WRITE);
+        assertEquals(mappings.getAvailableActions(List.of("undefined"), "/site/website/index.xml"), 0L);
+    }
+
+    private Group group(String name) {
+        Group group = new Group();
+        group.setGroupName(name);
+        return group;
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_TREE_CACHE_MAX_COMMITS;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_TREE_CACHE_MAX_PATHS;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class GitTreeCacheTest {
+
+    private static final String PATH = "site/website/index.xml";
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    private GitTreeCache treeCache;
+
+    private File repoDir;
+
+    private Git git;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        initMocks(this);
+        when(studioConfiguration.getProperty(REPO_TREE_CACHE_MAX_PATHS, Integer.class)).thenReturn(100);
+        when(studioConfiguration.getProperty(REPO_TREE_CACHE_MAX_COMMITS, Integer.class)).thenReturn(10);
+
+        treeCache = new GitTreeCache();
+        treeCache.setStudioConfiguration(studioConfiguration);
+        treeCache.init();
+
+        repoDir = Files.createTempDirectory("tree-cache").toFile();
+        git = Git.init().setDirectory(repoDir).call();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        git.close();
+        FileUtils.deleteDirectory(repoDir);
+    }
+
+    @Test
+    public void testLookupsFollowHead() throws Exception {
+        assertNull(treeCache.getObjectId(git.getRepository(), PATH));
+
+        commit("v1");
+        ObjectId first = treeCache.getObjectId(git.getRepository(), PATH);
+        assertNotNull(first);
+        assertNull(treeCache.getObjectId(git.getRepository(), "site/website/missing.xml"));
+
+        commit("v2");
+        ObjectId second = treeCache.getObjectId(git.getRepository(), PATH);
+        assertNotNull(second);
+        assertNotEquals(second, first);
+    }
+
+    @Test
+    public void testTreesAreReused() throws Exception {
+        RevCommit commit = commit("v1");
+
+        assertEquals(treeCache.getTree(git.getRepository(), commit), commit.getTree());
+        assertEquals(treeCache.getHeadTree(git.getRepository()), commit.getTree());
+    }
+
+    private RevCommit commit(String content) throws Exception {
+        File file = new File(repoDir, PATH);
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        git.add().addFilepattern(PATH).call();
+        return git.commit().setMessage(content).call();
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.dom4j.Document;
+import org.dom4j.DocumentException;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_DOCUMENT_CACHE_MAX_DOCUMENT_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_DOCUMENT_CACHE_MAX_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_DOCUMENT_CACHE_READER_POOL_SIZE;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+
+public class ParsedDocumentCacheTest {
+
+    private static final String XML = "<page><internal-name>Home</internal-name></page>";
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    private ParsedDocumentCache documentCache;
+
+    private AtomicInteger reads;
+
+    @BeforeMethod
+    public void setUp() {
+        initMocks(this);
+        when(studioConfiguration.getProperty(REPO_DOCUMENT_CACHE_MAX_SIZE, Long.class)).thenReturn(1024L);
+        when(studioConfiguration.getProperty(REPO_DOCUMENT_CACHE_MAX_DOCUMENT_SIZE, Integer.class)).thenReturn(100);
+        when(studioConfiguration.getProperty(REPO_DOCUMENT_CACHE_READER_POOL_SIZE, Integer.class)).thenReturn(2);
+
+        documentCache = new ParsedDocumentCache();
+        documentCache.setStudioConfiguration(studioConfiguration);
+        documentCache.init();
+
+        reads = new AtomicInteger();
+    }
+
+    @Test
+    public void testDocumentsAreCachedById() throws Exception {
+        Document first = documentCache.getDocument("id1", content(XML));
+        Document second = documentCache.getDocument("id1", content(XML));
+
+        assertNotSame(second, first);
+        assertEquals(first.getRootElement().valueOf("internal-name"), "Home");
+        assertEquals(second.getRootElement().valueOf("internal-name"), "Home");
+        assertEquals(reads.get(), 1);
+        assertEquals(documentCache.getHitCount(), 1);
+        assertEquals(documentCache.getMissCount(), 1);
+
+        Document other = documentCache.getDocument("id2", content(XML));
+        assertNotSame(other, first);
+        assertEquals(reads.get(), 2);
+    }
+
+    @Test
+    public void testChangesAreNotShared() throws Exception {
+        Document first = documentCache.getDocument("id1", content(XML));
+        first.getRootElement().element("internal-name").setText("Changed");
+        first.getRootElement().addElement("disabled").setText("true");
+
+        Document second = documentCache.getDocument("id1", content(XML));
+        assertEquals(second.getRootElement().valueOf("internal-name"), "Home");
+        assertNull(second.getRootElement().element("disabled"));
+        assertEquals(reads.get(), 1);
+    }
+
+    @Test
+    public void testDocumentsWithoutIdAreNotCached() throws Exception {
+        Document first = documentCache.getDocument(null, content(XML));
+        Document second = documentCache.getDocument(null, content(XML));
+
+        assertNotSame(second, first);
+        assertEquals(reads.get(), 2);
+        assertEquals(documentCache.getSize(), 0);
+    }
+
+    @Test
+    public void testBigDocumentsAreNotCached() throws Exception {
+        String xml = "<page><content>" + StringUtils.repeat("a", 200) + "</content></page>";
+
+        documentCache.getDocument("id1", content(xml));
+        documentCache.getDocument("id1", content(xml));
+
+        assertEquals(reads.get(), 2);
+        assertEquals(documentCache.getSize(), 0);
+    }
+
+    @Test
+    public void testMissingContent() throws Exception {
+        assertNull(documentCache.getDocument("id1", () -> null));
+        assertNull(documentCache.getDocument(null, () -> null));
+        assertEquals(documentCache.getSize(), 0);
+    }
+
+    @Test(expectedExceptions = DocumentException.class)
+    public void testDoctypesAreRejected() throws Exception {
+        documentCache.getDocument("id1", content("<!DOCTYPE page [<!ENTITY e SYSTEM \"file:///etc/passwd\">]>" +
+                "<page>&e;</page>"));
+    }
+
+    private Supplier<InputStream> content(String xml) {
+        return () -> {
+            reads.incrementAndGet();
+            return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+}
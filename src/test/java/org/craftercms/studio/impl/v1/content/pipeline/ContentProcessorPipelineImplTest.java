@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.impl.v1.content.pipeline;
+
+import org.craftercms.studio.api.v1.content.pipeline.ContentProcessor;
+import org.craftercms.studio.api.v1.content.pipeline.PipelineContent;
+import org.craftercms.studio.api.v1.exception.ContentProcessException;
+import org.craftercms.studio.api.v1.to.ResultTO;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONTENT_PROCESSOR_METRICS_ENABLED;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ContentProcessorPipelineImplTest {
+
+    private ContentProcessorMetrics metrics;
+    private ContentProcessor first;
+    private ContentProcessor second;
+    private ContentProcessorPipelineImpl pipeline;
+    private PipelineContent content;
+
+    @BeforeMethod
+    public void setUp() {
+        StudioConfiguration studioConfiguration = mock(StudioConfiguration.class);
+        when(studioConfiguration.getProperty(CONTENT_PROCESSOR_METRICS_ENABLED, Boolean.class, false))
+                .thenReturn(true);
+
+        metrics = new ContentProcessorMetrics();
+        metrics.setStudioConfiguration(studioConfiguration);
+        metrics.init();
+
+        first = mockProcessor("first");
+        second = mockProcessor("second");
+        pipeline = new ContentProcessorPipelineImpl();
+        pipeline.setChain(Arrays.asList(first, second));
+        pipeline.setMetrics(metrics);
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PipelineContent.KEY_SITE, "site1");
+        properties.put(PipelineContent.KEY_CONTENT_TYPE, "/page/entry");
+        content = new PipelineContentImpl("id", null, false, null, "UTF-8", properties);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        metrics.destroy();
+    }
+
+    @Test
+    public void testProcessorsAreRecordedBySiteAndContentType() throws Exception {
+        pipeline.processContent(content, new ResultTO());
+        pipeline.processContent(content, new ResultTO());
+
+        Map<String, Map<String, Long>> stats = metrics.getProcessorStats();
+        assertEquals(stats.keySet(),
+                new HashSet<>(Arrays.asList("first:site1:/page/entry", "second:site1:/page/entry")));
+        assertEquals(stats.get("first:site1:/page/entry").get("executions").longValue(), 2);
+        assertEquals(stats.get("first:site1:/page/entry").get("failures").longValue(), 0);
+    }
+
+    @Test
+    public void testFailuresAreRecorded() throws Exception {
+        doThrow(new ContentProcessException("error")).when(second).process(any(), any());
+        try {
+            pipeline.processContent(content, new ResultTO());
+            fail("The processor exception should be propagated");
+        } catch (ContentProcessException e) {
+            // expected
+        }
+
+        assertEquals(metrics.getProcessorStats().get("second:site1:/page/entry").get("failures").longValue(), 1);
+    }
+
+    @Test
+    public void testNothingIsRecordedWhenDisabled() throws Exception {
+        metrics.setEnabled(false);
+        pipeline.processContent(content, new ResultTO());
+
+        assertTrue(metrics.getProcessorStats().isEmpty());
+    }
+
+    private ContentProcessor mockProcessor(String name) {
+        ContentProcessor processor = mock(ContentProcessor.class);
+        when(processor.getName()).thenReturn(name);
+        when(processor.isProcessable(any())).thenReturn(true);
+        return processor;
+    }
+
+}
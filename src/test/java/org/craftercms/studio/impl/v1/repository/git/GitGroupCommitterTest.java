@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.repository.git;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v1.service.GeneralLockService;
+import org.craftercms.studio.api.v2.repository.RetryingRepositoryOperationFacade;
+import org.craftercms.studio.api.v2.utils.GitRepositoryHelper;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.eclipse.jgit.api.CommitCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.GitCommand;
+import org.eclipse.jgit.api.errors.NoHeadException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SANDBOX_GROUP_COMMIT_ENABLED;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SANDBOX_GROUP_COMMIT_MAX_ITEMS;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SANDBOX_GROUP_COMMIT_WINDOW;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class GitGroupCommitterTest {
+
+    private static final String SITE = "test";
+    private static final int WRITERS = 8;
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    @Mock
+    private GitRepositoryHelper helper;
+
+    @Mock
+    private GeneralLockService generalLockService;
+
+    @Mock
+    private RetryingRepositoryOperationFacade retryingRepositoryOperationFacade;
+
+    private final PersonIdent user = new PersonIdent("author", "author@example.com");
+
+    private File repoDir;
+
+    private Git git;
+
+    private GitGroupCommitter committer;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        initMocks(this);
+        repoDir = Files.createTempDirectory("sandbox").toFile();
+        git = Git.init().setDirectory(repoDir).call();
+        writeFile("index.xml", "v1");
+        git.add().addFilepattern("index.xml").call();
+        git.commit().setMessage("Initial commit").setAuthor(user).setCommitter(user).call();
+
+        when(studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_ENABLED)).thenReturn("true");
+        when(studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_WINDOW)).thenReturn("100");
+        when(studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_MAX_ITEMS)).thenReturn("100");
+        when(helper.getGitPath(anyString()))
+                .thenAnswer(invocation -> StringUtils.removeStart((String) invocation.getArguments()[0], "/"));
+        when(retryingRepositoryOperationFacade.call(any()))
+                .thenAnswer(invocation -> ((GitCommand<?>) invocation.getArguments()[0]).call());
+
+        committer = new GitGroupCommitter();
+        committer.setStudioConfiguration(studioConfiguration);
+        committer.setHelper(helper);
+        committer.setGeneralLockService(generalLockService);
+        committer.setRetryingRepositoryOperationFacade(retryingRepositoryOperationFacade);
+        committer.init();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        committer.destroy();
+        git.close();
+        FileUtils.deleteQuietly(repoDir);
+    }
+
+    @Test
+    public void testConcurrentWritersShareCommit() throws Exception {
+        when(studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_WINDOW)).thenReturn("1000");
+        for (int i = 0; i < WRITERS; i++) {
+            writeFile("page" + i + ".xml", "content");
+            git.add().addFilepattern("page" + i + ".xml").call();
+        }
+
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                String path = "/page" + i + ".xml";
+                results.add(writers.submit(() -> {
+                    start.await();
+                    return committer.await(
+                            committer.submit(git.getRepository(), SITE, path, "Update " + path, user));
+                }));
+            }
+            start.countDown();
+
+            Set<String> commitIds = new HashSet<>();
+            for (Future<String> result : results) {
+                commitIds.add(result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(commitIds.size(), 1);
+            assertNotNull(commitIds.iterator().next());
+        } finally {
+            writers.shutdownNow();
+        }
+
+        assertEquals(countCommits(), 2);
+        assertTrue(git.status().call().isClean());
+        verify(generalLockService).lock(anyString());
+        verify(generalLockService).unlock(anyString());
+    }
+
+    @Test
+    public void testFlushOnTimeout() throws Exception {
+        writeFile("page.xml", "content");
+        git.add().addFilepattern("page.xml").call();
+
+        CompletableFuture<String> result = committer.submit(git.getRepository(), SITE, "/page.xml", "Update", user);
+
+        // the batch is far from full so only the window can flush it
+        String commitId = result.get(10, TimeUnit.SECONDS);
+        assertEquals(commitId, git.getRepository().resolve("HEAD").getName());
+    }
+
+    @Test
+    public void testFlushWhenFull() throws Exception {
+        when(studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_WINDOW)).thenReturn("600000");
+        when(studioConfiguration.getProperty(REPO_SANDBOX_GROUP_COMMIT_MAX_ITEMS)).thenReturn("2");
+        writeFile("page1.xml", "content");
+        writeFile("page2.xml", "content");
+        git.add().addFilepattern("page1.xml").addFilepattern("page2.xml").call();
+
+        CompletableFuture<String> first = committer.submit(git.getRepository(), SITE, "/page1.xml", "Update", user);
+        CompletableFuture<String> second = committer.submit(git.getRepository(), SITE, "/page2.xml", "Update", user);
+
+        assertEquals(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testUntrackedFileIsCommitted() throws Exception {
+        writeFile("page.xml", "content");
+
+        String commitId = committer.await(
+                committer.submit(git.getRepository(), SITE, "/page.xml", "Update", user));
+
+        assertNotNull(commitId);
+        assertTrue(git.status().call().isClean());
+    }
+
+    @Test
+    public void testUnchangedPathReturnsNull() throws Exception {
+        String commitId = committer.await(
+                committer.submit(git.getRepository(), SITE, "/index.xml", "Update", user));
+
+        assertNull(commitId);
+        assertEquals(countCommits(), 1);
+    }
+
+    @Test
+    public void testErrorIsPropagatedToWaiters() throws Exception {
+        when(retryingRepositoryOperationFacade.call(any())).thenAnswer(invocation -> {
+            GitCommand<?> command = (GitCommand<?>) invocation.getArguments()[0];
+            if (command instanceof CommitCommand) {
+                throw new NoHeadException("Commit failed");
+            }
+            return command.call();
+        });
+        writeFile("page1.xml", "content");
+        writeFile("page2.xml", "content");
+        git.add().addFilepattern("page1.xml").addFilepattern("page2.xml").call();
+
+        CompletableFuture<String> first = committer.submit(git.getRepository(), SITE, "/page1.xml", "Update", user);
+        CompletableFuture<String> second = committer.submit(git.getRepository(), SITE, "/page2.xml", "Update", user);
+
+        assertNull(committer.await(first));
+        assertNull(committer.await(second));
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        verify(generalLockService).unlock(anyString());
+    }
+
+    @Test
+    public void testDisabledWhenHoldingLock() {
+        when(generalLockService.isHeldByCurrentThread(anyString())).thenReturn(true);
+
+        assertFalse(committer.isEnabled(SITE));
+    }
+
+    private void writeFile(String path, String content) throws Exception {
+        FileUtils.writeStringToFile(new File(repoDir, path), content, StandardCharsets.UTF_8);
+    }
+
+    private int countCommits() throws Exception {
+        int count = 0;
+        for (RevCommit ignored : git.log().call()) {
+            count++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.impl.v1.service;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class GeneralLockServiceImplTest {
+
+    private static final String LOCK_ID = "site:/site/website/index.xml";
+
+    private GeneralLockServiceImpl lockService;
+
+    @BeforeMethod
+    public void setUp() {
+        lockService = new GeneralLockServiceImpl();
+    }
+
+    @Test
+    public void testLocksAreEvictedWhenReleased() {
+        lockService.lock(LOCK_ID);
+        lockService.lock(LOCK_ID);
+        assertEquals(lockService.getActiveLockCount(), 1);
+
+        lockService.unlock(LOCK_ID);
+        assertEquals(lockService.getActiveLockCount(), 1);
+
+        lockService.unlock(LOCK_ID);
+        assertEquals(lockService.getActiveLockCount(), 0);
+    }
+
+    @Test
+    public void testTryLockFromOtherThread() throws Exception {
+        lockService.lock(LOCK_ID);
+
+        assertFalse(CompletableFuture.supplyAsync(() -> lockService.tryLock(LOCK_ID)).get());
+        assertFalse(CompletableFuture.supplyAsync(() -> lockService.tryLock(LOCK_ID, 10, TimeUnit.MILLISECONDS))
+                .get());
+        assertEquals(lockService.getTimeoutCount(), 1);
+        assertEquals(lockService.getActiveLockCount(), 1);
+
+        lockService.unlock(LOCK_ID);
+        assertEquals(lockService.getActiveLockCount(), 0);
+
+        assertTrue(CompletableFuture.supplyAsync(() -> {
+            boolean locked = lockService.tryLock(LOCK_ID, 10, TimeUnit.MILLISECONDS);
+            lockService.unlock(LOCK_ID);
+            return locked;
+        }).get());
+        assertEquals(lockService.getActiveLockCount(), 0);
+    }
+
+}
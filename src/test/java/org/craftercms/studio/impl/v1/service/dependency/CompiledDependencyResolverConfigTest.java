@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.dependency;
+
+import org.craftercms.studio.api.v1.to.DependencyResolverConfigTO;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class CompiledDependencyResolverConfigTest {
+
+    private static final String CONTENT =
+            "<page><content-type>/page/article</content-type>" +
+            "<header>/site/components/header.xml</header>" +
+            "<link>/site/website/about/index.xml</link>" +
+            "<image>/static-assets/images/logo.png?v=1</image>" +
+            "<style>url('/static-assets/css/main.css')</style>" +
+            "<template>/templates/web/article.ftl</template>" +
+            "<other>/site/taxonomy/categories.xml</other></page>";
+
+    private DependencyResolverConfigTO config;
+
+    @BeforeMethod
+    public void setUp() {
+        Map<String, DependencyResolverConfigTO.DependencyType> types = new LinkedHashMap<>();
+        addType(types, "page", "/site/website/([^<]+)\\.xml");
+        addType(types, "component", "/site/components/([^<]+)\\.xml");
+        addType(types, "item", "/site/(?!website/|components/)([^<]+)\\.xml");
+        addType(types, "asset", "/static-assets/([^<\"'\\)\\?\\#]+)");
+        addType(types, "rendering-template", "/templates/([^<\"]+)\\.ftl");
+        // overlaps with all the other patterns and shares the regex with a transform
+        addType(types, "everything", "/(site|static-assets|templates)/[^<\"'\\)\\?]+");
+        DependencyResolverConfigTO.DependencyType script = addType(types, "script",
+                "<content-type>/(.*)/(.*)</content-type>");
+        DependencyResolverConfigTO.DependencyExtractionTransform transform =
+                new DependencyResolverConfigTO.DependencyExtractionTransform();
+        transform.setMatch("<content-type>/(.*)/(.*)</content-type>");
+        transform.setReplace("/scripts/$1s/$2.groovy");
+        script.getIncludes().get(0).setTransforms(Collections.singletonList(transform));
+
+        DependencyResolverConfigTO.ItemType itemType = new DependencyResolverConfigTO.ItemType();
+        itemType.setIncludes(Collections.singletonList("/site/website/.*\\.xml"));
+        itemType.setDependencyTypes(types);
+
+        config = new DependencyResolverConfigTO();
+        config.setItemTypes(Collections.singletonMap("page", itemType));
+    }
+
+    private DependencyResolverConfigTO.DependencyType addType(
+            Map<String, DependencyResolverConfigTO.DependencyType> types, String name, String regex) {
+        DependencyResolverConfigTO.DependencyExtractionPattern pattern =
+                new DependencyResolverConfigTO.DependencyExtractionPattern();
+        pattern.setFindRegex(regex);
+        pattern.setTransforms(new ArrayList<>());
+        DependencyResolverConfigTO.DependencyType type = new DependencyResolverConfigTO.DependencyType();
+        type.setName(name);
+        type.setIncludes(new ArrayList<>(Collections.singletonList(pattern)));
+        types.put(name, type);
+        return type;
+    }
+
+    @Test
+    public void testItemType() {
+        CompiledDependencyResolverConfig compiled = new CompiledDependencyResolverConfig(config);
+        assertNotNull(compiled.getItemType("/site/website/index.xml"));
+        assertNull(compiled.getItemType("/site/components/header.xml"));
+    }
+
+    @Test
+    public void testScanMatchesSeparatePatterns() {
+        CompiledDependencyResolverConfig.ItemType itemType =
+                new CompiledDependencyResolverConfig(config).getItemType("/site/website/index.xml");
+        assertNotNull(itemType.candidates);
+
+        Map<String, Set<String>> actual = new HashMap<>();
+        itemType.scan(CONTENT, (type, path) -> actual.computeIfAbsent(type, t -> new HashSet<>()).add(path));
+
+        assertEquals(actual, scanSeparately(config.getItemTypes().get("page")));
+        assertEquals(actual.get("script"), Collections.singleton("/scripts/pages/article.groovy"));
+        assertEquals(actual.get("asset"),
+                new HashSet<>(Arrays.asList("/static-assets/images/logo.png", "/static-assets/css/main.css")));
+    }
+
+    @Test
+    public void testScanWithBackreferences() {
+        addType(config.getItemTypes().get("page").getDependencyTypes(), "quoted", "(['\"])(/static-assets/.+?)\\1");
+        CompiledDependencyResolverConfig.ItemType itemType =
+                new CompiledDependencyResolverConfig(config).getItemType("/site/website/index.xml");
+        assertNull(itemType.candidates);
+
+        Map<String, Set<String>> actual = new HashMap<>();
+        itemType.scan(CONTENT, (type, path) -> actual.computeIfAbsent(type, t -> new HashSet<>()).add(path));
+
+        assertEquals(actual, scanSeparately(config.getItemTypes().get("page")));
+    }
+
+    /**
+     * Reference implementation, runs every pattern over the whole content
+     */
+    private Map<String, Set<String>> scanSeparately(DependencyResolverConfigTO.ItemType itemType) {
+        Map<String, Set<String>> result = new HashMap<>();
+        for (DependencyResolverConfigTO.DependencyType type : itemType.getDependencyTypes().values()) {
+            for (DependencyResolverConfigTO.DependencyExtractionPattern pattern : type.getIncludes()) {
+                Matcher matcher = Pattern.compile(pattern.getFindRegex()).matcher(CONTENT);
+                while (matcher.find()) {
+                    String path = matcher.group();
+                    List<DependencyResolverConfigTO.DependencyExtractionTransform> transforms =
+                            pattern.getTransforms();
+                    for (DependencyResolverConfigTO.DependencyExtractionTransform transform : transforms) {
+                        path = Pattern.compile(transform.getMatch()).matcher(path)
+                                .replaceAll(transform.getReplace());
+                    }
+                    result.computeIfAbsent(type.getName(), t -> new HashSet<>()).add(path);
+                }
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.event;
+
+import org.craftercms.studio.api.v1.ebus.PreviewEventContext;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationContext;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Arrays.asList;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.EVENT_BUS_ASYNC_EVENTS;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.EVENT_BUS_ASYNC_LANES;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.EVENT_BUS_ASYNC_QUEUE_CAPACITY;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class EventServiceImplTest {
+
+    private static final String EVENT = "test.event";
+    private static final String ASYNC_EVENT = "test.asyncEvent";
+    private static final String LISTENER = "testListener";
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    @Mock
+    private ApplicationContext applicationContext;
+
+    private EventServiceImpl eventService;
+
+    private TestListener listener;
+
+    @BeforeMethod
+    public void setUp() {
+        initMocks(this);
+        when(studioConfiguration.getProperty(EVENT_BUS_ASYNC_EVENTS)).thenReturn(ASYNC_EVENT);
+        when(studioConfiguration.getProperty(EVENT_BUS_ASYNC_LANES, Integer.class)).thenReturn(2);
+        when(studioConfiguration.getProperty(EVENT_BUS_ASYNC_QUEUE_CAPACITY, Integer.class)).thenReturn(10);
+
+        listener = new TestListener();
+        when(applicationContext.getBean(LISTENER)).thenReturn(listener);
+
+        eventService = new EventServiceImpl();
+        eventService.setStudioConfiguration(studioConfiguration);
+        eventService.setApplicationContext(applicationContext);
+        eventService.init();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        eventService.destroy();
+    }
+
+    @Test
+    public void testMethodListenersAreBoundOnce() throws Exception {
+        eventService.subscribe(EVENT, LISTENER, TestListener.class.getMethod("onEvent", PreviewEventContext.class));
+
+        eventService.publish(EVENT, context("site1"));
+        eventService.publish(EVENT, context("site2"));
+
+        assertEquals(listener.sites, asList("site1", "site2"));
+        assertEquals(listener.threads, asList(Thread.currentThread().getName(), Thread.currentThread().getName()));
+        verify(applicationContext, times(1)).getBean(LISTENER);
+        assertEquals(eventService.getEventStats().get(EVENT).getPublished(), 2);
+    }
+
+    @Test
+    public void testTypedListeners() {
+        List<String> sites = new ArrayList<>();
+        eventService.subscribe(EVENT, LISTENER, PreviewEventContext.class, context -> sites.add(context.getSite()));
+
+        eventService.publish(EVENT, context("site1"));
+        eventService.unSubscribe(EVENT, LISTENER);
+        eventService.publish(EVENT, context("site2"));
+
+        assertEquals(sites, asList("site1"));
+    }
+
+    @Test
+    public void testListenerErrorsDontStopDelivery() {
+        List<String> sites = new ArrayList<>();
+        eventService.subscribe(EVENT, "failing", PreviewEventContext.class, context -> {
+            throw new IllegalStateException("test");
+        });
+        eventService.subscribe(EVENT, LISTENER, PreviewEventContext.class, context -> sites.add(context.getSite()));
+
+        eventService.publish(EVENT, context("site1"));
+
+        assertEquals(sites, asList("site1"));
+        assertEquals(eventService.getEventStats().get(EVENT).getErrors(), 1);
+    }
+
+    @Test
+    public void testAsyncEventsAreDeliveredInOrderPerSite() throws Exception {
+        CountDownLatch done = new CountDownLatch(20);
+        Map<String, List<Integer>> numbers = new ConcurrentHashMap<>();
+        Map<String, Set<String>> threads = new ConcurrentHashMap<>();
+        eventService.subscribe(ASYNC_EVENT, LISTENER, PreviewEventContext.class, context -> {
+            numbers.computeIfAbsent(context.getSite(), site -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(((NumberedEventContext) context).number);
+            threads.computeIfAbsent(context.getSite(), site -> ConcurrentHashMap.newKeySet())
+                    .add(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        for (int i = 0; i < 10; i++) {
+            eventService.publish(ASYNC_EVENT, new NumberedEventContext("site1", i));
+            eventService.publish(ASYNC_EVENT, new NumberedEventContext("site2", i));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        List<Integer> expected = asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertEquals(numbers.get("site1"), expected);
+        assertEquals(numbers.get("site2"), expected);
+        // Each site is always delivered by the same lane, never by the publishing thread
+        for (String site : asList("site1", "site2")) {
+            assertEquals(threads.get(site).size(), 1);
+            assertFalse(threads.get(site).contains(Thread.currentThread().getName()));
+        }
+    }
+
+    @Test
+    public void testLanesDeliverInlineWhenFull() throws Exception {
+        CountDownLatch done = new CountDownLatch(21);
+        AtomicBoolean first = new AtomicBoolean(true);
+        eventService.subscribe(ASYNC_EVENT, LISTENER, PreviewEventContext.class, context -> {
+            if (first.getAndSet(false)) {
+                // More events than the lane can hold, published from the lane itself
+                for (int i = 0; i < 20; i++) {
+                    eventService.publish(ASYNC_EVENT, context("site1"));
+                }
+            }
+            done.countDown();
+        });
+
+        eventService.publish(ASYNC_EVENT, context("site1"));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(eventService.getEventStats().get(ASYNC_EVENT).getPublished(), 21);
+        assertEquals(eventService.getQueueSizes(), asList(0, 0));
+    }
+
+    private PreviewEventContext context(String site) {
+        PreviewEventContext context = new PreviewEventContext();
+        context.setSite(site);
+        return context;
+    }
+
+    private static class NumberedEventContext extends PreviewEventContext {
+
+        private final int number;
+
+        private NumberedEventContext(String site, int number) {
+            this.number = number;
+            setSite(site);
+        }
+
+    }
+
+    public static class TestListener {
+
+        private final List<String> sites = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> threads = Collections.synchronizedList(new ArrayList<>());
+
+        public void onEvent(PreviewEventContext context) {
+            sites.add(context.getSite());
+            threads.add(Thread.currentThread().getName());
+        }
+
+    }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.site;
+
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
+import org.craftercms.studio.api.v1.service.GeneralLockService;
+import org.craftercms.studio.api.v2.dal.ClusterDAO;
+import org.craftercms.studio.api.v2.dal.RepoOperation;
+import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
+import org.craftercms.studio.api.v2.dal.StudioDBScriptRunner;
+import org.craftercms.studio.api.v2.dal.StudioDBScriptRunnerFactory;
+import org.craftercms.studio.api.v2.repository.ContentRepository;
+import org.craftercms.studio.api.v2.repository.RepoOperationsHandler;
+import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
+import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v2.service.cluster.StudioClusterUtils;
+import org.craftercms.studio.impl.v2.service.dependency.internal.DependencyGraphIndex;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.craftercms.studio.api.v2.dal.RepoOperation.Action.DELETE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SYNC_DB_BATCH_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SYNC_DB_CHECKPOINT_INTERVAL;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.expectThrows;
+
+public class SiteServiceImplTest {
+
+    private static final String SITE = "test";
+
+    @Mock
+    private ItemServiceInternal itemServiceInternal;
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    @Mock
+    private org.craftercms.studio.api.v1.repository.ContentRepository contentRepository;
+
+    @Mock
+    private ContentRepository contentRepositoryV2;
+
+    @Mock
+    private StudioDBScriptRunnerFactory studioDBScriptRunnerFactory;
+
+    @Mock
+    private StudioDBScriptRunner studioDBScriptRunner;
+
+    @Mock
+    private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+
+    @Mock
+    private SiteFeedMapper siteFeedMapper;
+
+    @Mock
+    private GeneralLockService generalLockService;
+
+    @Mock
+    private ClusterDAO clusterDao;
+
+    @Mock
+    private StudioClusterUtils studioClusterUtils;
+
+    @Mock
+    private DependencyGraphIndex dependencyGraphIndex;
+
+    @Mock
+    private UserServiceInternal userServiceInternal;
+
+    private SiteServiceImpl siteService;
+
+    @BeforeMethod
+    public void setUp() {
+        initMocks(this);
+        siteService = new SiteServiceImpl();
+        siteService.setItemServiceInternal(itemServiceInternal);
+        siteService.setStudioConfiguration(studioConfiguration);
+        siteService.setContentRepository(contentRepository);
+        siteService.setContentRepositoryV2(contentRepositoryV2);
+        siteService.setStudioDBScriptRunner(studioDBScriptRunnerFactory);
+        siteService.setRetryingDatabaseOperationFacade(retryingDatabaseOperationFacade);
+        siteService.setGeneralLockService(generalLockService);
+        siteService.setClusterDao(clusterDao);
+        siteService.setStudioClusterUtils(studioClusterUtils);
+        siteService.setDependencyGraphIndex(dependencyGraphIndex);
+        siteService.setUserServiceInternal(userServiceInternal);
+        siteService.siteFeedMapper = siteFeedMapper;
+
+        when(studioConfiguration.getProperty(REPO_SYNC_DB_BATCH_SIZE, Integer.class)).thenReturn(10);
+        when(studioConfiguration.getProperty(REPO_SYNC_DB_CHECKPOINT_INTERVAL, Integer.class)).thenReturn(1);
+        when(studioDBScriptRunnerFactory.getDBScriptRunner()).thenReturn(studioDBScriptRunner);
+        when(siteFeedMapper.exists(SITE)).thenReturn(1);
+        when(siteFeedMapper.getSite(any())).thenReturn(new SiteFeed());
+        when(contentRepository.getRepoLastCommitId(SITE)).thenReturn("c2");
+    }
+
+    @Test
+    public void testParentIdRootsKeepTopMostFolders() {
+        Set<String> paths = new HashSet<>(Arrays.asList(
+                "/site/website/articles/2021/a/index.xml",
+                "/site/website/articles/index.xml",
+                "/site/website/articles-old/index.xml",
+                "/static-assets/images/logo.png",
+                "/static-assets/images/icons/icon.png"));
+
+        // Sibling folders sharing a prefix are not mistaken for children
+        assertEquals(siteService.getParentIdRoots(paths), new HashSet<>(Arrays.asList(
+                "/site/website/articles",
+                "/site/website/articles-old",
+                "/static-assets/images")));
+    }
+
+    @Test
+    public void testUpdateParentIdsAfterAllOperations() {
+        Set<String> paths = new HashSet<>(Arrays.asList(
+                "/site/website/about/team.xml",
+                "/site/website/about/index.xml"));
+
+        siteService.updateParentIds(SITE, paths);
+
+        // The children are reparented to the page even if it was processed after them, then the ancestors
+        InOrder inOrder = inOrder(itemServiceInternal);
+        inOrder.verify(itemServiceInternal).updateParentIds(SITE, "/site/website/about");
+        inOrder.verify(itemServiceInternal).updateParentIds(SITE, Arrays.asList("/site", "/site/website"));
+    }
+
+    @Test
+    public void testResumedSyncKeepsParentIdsOfCheckpointedSegments() throws Exception {
+        // The first sync stops right after the checkpoint of its first segment
+        doAnswer(invocation -> {
+            RepoOperationsHandler handler = (RepoOperationsHandler) invocation.getArguments()[5];
+            handler.processBatch(Collections.singletonList(delete("/site/website/a/index.xml", "c1")));
+            handler.checkpoint("c1");
+            throw new IllegalStateException("interrupted");
+        }).when(contentRepositoryV2).streamOperationsFromDelta(eq(SITE), eq("c0"), eq("c2"), anyInt(), anyInt(),
+                any());
+        // The resumed sync continues from that checkpoint
+        doAnswer(invocation -> {
+            RepoOperationsHandler handler = (RepoOperationsHandler) invocation.getArguments()[5];
+            handler.processBatch(Collections.singletonList(delete("/site/website/b/index.xml", "c2")));
+            handler.checkpoint("c2");
+            return null;
+        }).when(contentRepositoryV2).streamOperationsFromDelta(eq(SITE), eq("c1"), eq("c2"), anyInt(), anyInt(),
+                any());
+
+        expectThrows(IllegalStateException.class, () -> siteService.syncDatabaseWithRepo(SITE, "c0", false));
+
+        // The parent ids of the first segment are rebuilt before its progress is saved
+        InOrder inOrder = inOrder(itemServiceInternal, retryingDatabaseOperationFacade);
+        inOrder.verify(itemServiceInternal).updateParentIds(SITE, "/site/website/a");
+        inOrder.verify(retryingDatabaseOperationFacade).updateSiteLastCommitId(argThat(commit("c1")));
+
+        siteService.syncDatabaseWithRepo(SITE, "c1", false);
+
+        // Only the paths of the new segment are rebuilt
+        verify(itemServiceInternal).updateParentIds(SITE, "/site/website/b");
+        verify(itemServiceInternal, times(2)).updateParentIds(eq(SITE), anyString());
+        verify(retryingDatabaseOperationFacade, times(2)).updateSiteLastCommitId(argThat(commit("c2")));
+    }
+
+    @Test
+    public void testUpdateParentIdsWithoutPaths() {
+        siteService.updateParentIds(SITE, Collections.emptySet());
+
+        verify(itemServiceInternal, never()).updateParentIds(anyString(), anyString());
+        verify(itemServiceInternal, never()).updateParentIds(anyString(), anyList());
+    }
+
+    private RepoOperation delete(String path, String commitId) {
+        return new RepoOperation(DELETE, path, ZonedDateTime.now(), null, commitId);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ArgumentMatcher<Map> commit(String commitId) {
+        return params -> commitId.equals(params.get("lastCommitId"));
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.deployment;
+
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.PREVIEW_SYNC_WINDOW;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class PreviewSyncDispatcherTest {
+
+    private static final String SITE = "test";
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    private ExecutorService executor;
+
+    private PreviewSyncDispatcher dispatcher;
+
+    private List<Boolean> syncs;
+
+    @BeforeMethod
+    public void setUp() {
+        initMocks(this);
+        when(studioConfiguration.getProperty(PREVIEW_SYNC_WINDOW, Long.class)).thenReturn(100L);
+
+        executor = Executors.newFixedThreadPool(2);
+
+        dispatcher = new PreviewSyncDispatcher();
+        dispatcher.setStudioConfiguration(studioConfiguration);
+        dispatcher.setTaskExecutor(executor::execute);
+        dispatcher.init();
+
+        syncs = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        dispatcher.destroy();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRequestsAreCoalesced() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(SITE, false, countingSync(done));
+        }
+        assertTrue(done.await(5, SECONDS));
+
+        // Any sync left from the first requests would run before this one
+        dispatcher.dispatch(SITE, true, this::sync);
+
+        assertEquals(syncs, asList(false, true));
+    }
+
+    @Test
+    public void testCallersWaitOnlyWhenRequested() {
+        dispatcher.dispatch(SITE, true, this::sync);
+
+        assertEquals(syncs, asList(true));
+    }
+
+    @Test
+    public void testRequestsDuringSyncAreGroupedInAFollowUp() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch(SITE, false, blockingSync(running, release));
+        running.await();
+
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatch(SITE, false, this::sync);
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        new Thread(() -> {
+            dispatcher.dispatch(SITE, true, this::sync);
+            done.countDown();
+        }).start();
+        assertFalse(done.await(100, MILLISECONDS));
+
+        release.countDown();
+        assertTrue(done.await(5, SECONDS));
+
+        assertEquals(syncs, asList(false, true));
+    }
+
+    @Test
+    public void testRemovedSitesAreDiscarded() {
+        dispatcher.dispatch(SITE, false, this::sync);
+        dispatcher.remove(SITE);
+
+        assertTrue(dispatcher.syncs.isEmpty());
+
+        dispatcher.dispatch(SITE, true, this::sync);
+
+        assertEquals(syncs, asList(true));
+    }
+
+    private void sync(String site, boolean waitTillDone) {
+        syncs.add(waitTillDone);
+    }
+
+    private BiConsumer<String, Boolean> countingSync(CountDownLatch done) {
+        return (site, waitTillDone) -> {
+            syncs.add(waitTillDone);
+            done.countDown();
+        };
+    }
+
+    private BiConsumer<String, Boolean> blockingSync(CountDownLatch running, CountDownLatch release) {
+        return (site, waitTillDone) -> {
+            syncs.add(waitTillDone);
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+}
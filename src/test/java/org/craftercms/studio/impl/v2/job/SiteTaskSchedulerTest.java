@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.job;
+
+import org.craftercms.studio.api.v1.service.GeneralLockService;
+import org.craftercms.studio.api.v2.job.SiteJob;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CLOCK_JOB_SCHEDULER_MAX_WORKERS;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+
+public class SiteTaskSchedulerTest {
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    @Mock
+    private GeneralLockService generalLockService;
+
+    private final List<Runnable> workers = new ArrayList<>();
+
+    private final List<String> executions = new ArrayList<>();
+
+    private SiteTaskScheduler scheduler;
+
+    @BeforeMethod
+    public void setUp() {
+        initMocks(this);
+        when(studioConfiguration.getProperty(CLOCK_JOB_SCHEDULER_MAX_WORKERS, Integer.class)).thenReturn(1);
+        when(generalLockService.tryLock(anyString())).thenReturn(true);
+
+        workers.clear();
+        executions.clear();
+
+        scheduler = new SiteTaskScheduler();
+        scheduler.setStudioConfiguration(studioConfiguration);
+        scheduler.setGeneralLockService(generalLockService);
+        scheduler.setTaskExecutor(workers::add);
+    }
+
+    @Test
+    public void testSitesAreServedRoundRobinInScheduledOrder() {
+        List<SiteJob> jobs = Arrays.asList(new RecordingJob("sync", 0), new RecordingJob("publish", 10),
+                new RecordingJob("audit", -10));
+
+        scheduler.schedule("site1", jobs);
+        scheduler.schedule("site2", jobs);
+        // previous executions are still pending
+        scheduler.schedule("site1", jobs);
+
+        assertEquals(workers.size(), 1);
+        workers.get(0).run();
+
+        assertEquals(executions, Arrays.asList("site1:sync", "site2:sync", "site1:publish", "site2:publish",
+                "site1:audit", "site2:audit"));
+        assertEquals(scheduler.getTaskStats().get("RecordingJob").getExecutions(), 6);
+        assertEquals(scheduler.getTaskStats().get("RecordingJob").getOverruns(), 3);
+        assertEquals(scheduler.getActiveWorkers(), 0);
+        assertEquals(scheduler.getReadySiteCount(), 0);
+    }
+
+    @Test
+    public void testSitesWithHigherPriorityJobsAreServedFirst() {
+        scheduler.schedule("site1", Arrays.asList(new RecordingJob("audit", -10)));
+        scheduler.schedule("site2", Arrays.asList(new RecordingJob("sync", 0), new RecordingJob("publish", 10)));
+
+        assertEquals(workers.size(), 1);
+        workers.get(0).run();
+
+        assertEquals(executions, Arrays.asList("site2:sync", "site2:publish", "site1:audit"));
+    }
+
+    private class RecordingJob implements SiteJob {
+
+        private final String name;
+        private final int priority;
+
+        private RecordingJob(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+
+        @Override
+        public void execute(String site) {
+            executions.add(site + ":" + name);
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+
+    }
+
+}
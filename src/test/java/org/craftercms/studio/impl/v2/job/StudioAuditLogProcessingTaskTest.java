@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.job;
+
+import org.apache.commons.io.FileUtils;
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v1.service.content.ContentService;
+import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v2.dal.AuditLog;
+import org.craftercms.studio.api.v2.dal.GitLog;
+import org.craftercms.studio.api.v2.dal.RepoOperation;
+import org.craftercms.studio.api.v2.repository.ContentRepository;
+import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
+import org.craftercms.studio.api.v2.service.site.internal.SiteRegistry;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.SITE_UUID_FILENAME;
+import static org.craftercms.studio.api.v1.dal.SiteFeed.STATE_READY;
+import static org.craftercms.studio.api.v2.dal.AuditLogConstants.OPERATION_CREATE;
+import static org.craftercms.studio.api.v2.dal.AuditLogConstants.OPERATION_DELETE;
+import static org.craftercms.studio.api.v2.dal.AuditLogConstants.OPERATION_UPDATE;
+import static org.craftercms.studio.api.v2.dal.RepoOperation.Action.CREATE;
+import static org.craftercms.studio.api.v2.dal.RepoOperation.Action.DELETE;
+import static org.craftercms.studio.api.v2.dal.RepoOperation.Action.UPDATE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_BASE_PATH;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SITES_REPOS_PATH;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class StudioAuditLogProcessingTaskTest {
+
+    private static final String SITE = "test";
+    private static final String SITE_UUID = "1234";
+    private static final long SITE_FEED_ID = 5;
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    @Mock
+    private SiteService siteService;
+
+    @Mock
+    private SiteRegistry siteRegistry;
+
+    @Mock
+    private ContentRepository contentRepository;
+
+    @Mock
+    private AuditServiceInternal auditServiceInternal;
+
+    @Mock
+    private ContentService contentService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private File repoDir;
+
+    private StudioAuditLogProcessingTask task;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        initMocks(this);
+        repoDir = Files.createTempDirectory("repos").toFile();
+        File siteDir = new File(repoDir, "sites/" + SITE);
+        FileUtils.writeStringToFile(new File(siteDir, SITE_UUID_FILENAME), SITE_UUID, StandardCharsets.UTF_8);
+
+        when(studioConfiguration.getProperty(REPO_BASE_PATH)).thenReturn(repoDir.getAbsolutePath());
+        when(studioConfiguration.getProperty(SITES_REPOS_PATH)).thenReturn("sites");
+
+        SiteFeed siteFeed = new SiteFeed();
+        siteFeed.setId(SITE_FEED_ID);
+        siteFeed.setSiteUuid(SITE_UUID);
+        when(siteRegistry.getSite(SITE)).thenReturn(siteFeed);
+        when(siteService.getSiteState(SITE)).thenReturn(STATE_READY);
+        when(siteService.getLastSyncedGitlogCommitId(SITE)).thenReturn("0");
+
+        when(auditServiceInternal.createAuditLogEntry()).thenAnswer(invocation -> new AuditLog());
+        when(contentService.getContentTypeClasses(eq(SITE), any())).thenAnswer(invocation -> {
+            Map<String, String> classes = new LinkedHashMap<>();
+            for (Object path : (List<?>) invocation.getArguments()[1]) {
+                classes.put((String) path, "page");
+            }
+            return classes;
+        });
+
+        task = new StudioAuditLogProcessingTask();
+        task.setStudioConfiguration(studioConfiguration);
+        task.setSiteService(siteService);
+        task.setSiteRegistry(siteRegistry);
+        task.setContentRepository(contentRepository);
+        task.setAuditServiceInternal(auditServiceInternal);
+        task.setContentService(contentService);
+        task.setTransactionManager(transactionManager);
+        task.setBatchSizeAudited(BATCH_SIZE);
+        task.setMaxBatches(10);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(repoDir);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCommitsAreAuditedInBatches() throws Exception {
+        when(contentRepository.getUnauditedCommits(SITE, BATCH_SIZE))
+                .thenReturn(gitLogs("c1", "c2"), gitLogs("c3"), Collections.emptyList());
+        when(contentRepository.getOperationsFromCommits(SITE, Arrays.asList("c1", "c2"))).thenReturn(operations(
+                "c1", Arrays.asList(operation(CREATE, "/site/website/index.xml"),
+                                    operation(CREATE, "/site/website/.keep")),
+                "c2", Collections.singletonList(operation(UPDATE, "/site/website/index.xml"))));
+        when(contentRepository.getOperationsFromCommits(SITE, Collections.singletonList("c3"))).thenReturn(operations(
+                "c3", Collections.singletonList(operation(DELETE, "/site/website/index.xml"))));
+
+        task.executeInternal(SITE);
+
+        ArgumentCaptor<List<AuditLog>> captor = ArgumentCaptor.forClass(List.class);
+        verify(auditServiceInternal, times(2)).insertAuditLogs(captor.capture());
+        List<AuditLog> firstBatch = captor.getAllValues().get(0);
+        assertEquals(firstBatch.stream().map(AuditLog::getOperation).collect(toList()),
+                Arrays.asList(OPERATION_CREATE, OPERATION_UPDATE));
+        assertEquals(firstBatch.get(0).getSiteId(), SITE_FEED_ID);
+        assertEquals(firstBatch.get(0).getPrimaryTargetId(), SITE + ":/site/website/index.xml");
+        assertEquals(firstBatch.get(0).getPrimaryTargetSubtype(), "page");
+        assertEquals(captor.getAllValues().get(1).get(0).getOperation(), OPERATION_DELETE);
+
+        verify(contentRepository).markGitLogAuditedBulk(SITE, Arrays.asList("c1", "c2"));
+        verify(contentRepository).markGitLogAuditedBulk(SITE, Collections.singletonList("c3"));
+        verify(contentRepository, never()).markGitLogAudited(anyString(), anyString());
+        assertEquals(task.getAuditedCommitCount(), 3);
+        assertEquals(task.getAuditLag(SITE), 0);
+    }
+
+    @Test
+    public void testMissingCommitsAreMarkedAsAudited() throws Exception {
+        when(contentRepository.getUnauditedCommits(SITE, BATCH_SIZE)).thenReturn(gitLogs("missing"));
+        when(contentRepository.getOperationsFromCommits(eq(SITE), anyList())).thenReturn(Collections.emptyMap());
+
+        task.executeInternal(SITE);
+
+        verify(contentRepository).markGitLogAuditedBulk(SITE, Collections.singletonList("missing"));
+    }
+
+    @Test
+    public void testAuditIsRolledBackWhenCommitsCannotBeMarked() throws Exception {
+        TransactionStatus txStatus = mock(TransactionStatus.class);
+        when(transactionManager.getTransaction(any())).thenReturn(txStatus);
+        when(contentRepository.getUnauditedCommits(SITE, BATCH_SIZE)).thenReturn(gitLogs("c1"));
+        when(contentRepository.getOperationsFromCommits(eq(SITE), anyList())).thenReturn(operations(
+                "c1", Collections.singletonList(operation(CREATE, "/site/website/index.xml"))));
+        doThrow(new RuntimeException("error")).when(contentRepository)
+                .markGitLogAuditedBulk(SITE, Collections.singletonList("c1"));
+
+        task.executeInternal(SITE);
+
+        InOrder inOrder = inOrder(transactionManager, auditServiceInternal, contentRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(auditServiceInternal).insertAuditLogs(anyList());
+        inOrder.verify(contentRepository).markGitLogAuditedBulk(SITE, Collections.singletonList("c1"));
+        inOrder.verify(transactionManager).rollback(txStatus);
+        verify(transactionManager, never()).commit(any());
+        assertEquals(task.getAuditedCommitCount(), 0);
+    }
+
+    @Test
+    public void testLagIsReportedWhenCommitsArePending() throws Exception {
+        task.setMaxBatches(1);
+        when(contentRepository.getUnauditedCommits(SITE, BATCH_SIZE)).thenReturn(gitLogs("c1", "c2"));
+        when(contentRepository.getOperationsFromCommits(eq(SITE), anyList())).thenReturn(operations(
+                "c1", Collections.singletonList(operation(CREATE, "/site/website/index.xml")),
+                "c2", Collections.emptyList()));
+
+        task.executeInternal(SITE);
+
+        verify(contentRepository, times(1)).getUnauditedCommits(anyString(), anyInt());
+        assertTrue(task.getAuditLag(SITE) >= 60 * 60 * 1000);
+    }
+
+    private List<GitLog> gitLogs(String... commitIds) {
+        return Arrays.stream(commitIds).map(commitId -> {
+            GitLog gitLog = new GitLog();
+            gitLog.setSiteId(SITE);
+            gitLog.setCommitId(commitId);
+            return gitLog;
+        }).collect(toList());
+    }
+
+    private RepoOperation operation(RepoOperation.Action action, String path) {
+        RepoOperation operation = new RepoOperation(action, path, ZonedDateTime.now().minusHours(1), null, "c");
+        operation.setAuthor("admin");
+        return operation;
+    }
+
+    private Map<String, List<RepoOperation>> operations(Object... entries) {
+        Map<String, List<RepoOperation>> operations = new LinkedHashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            @SuppressWarnings("unchecked")
+            List<RepoOperation> list = (List<RepoOperation>) entries[i + 1];
+            operations.put((String) entries[i], list);
+        }
+        return operations;
+    }
+
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.job;
+
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.io.FileUtils;
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v1.repository.ContentRepository;
+import org.craftercms.studio.api.v1.service.GeneralLockService;
+import org.craftercms.studio.api.v1.service.event.EventService;
+import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v2.dal.ClusterDAO;
+import org.craftercms.studio.api.v2.dal.ClusterMember;
+import org.craftercms.studio.api.v2.dal.ClusterSiteRecord;
+import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
+import org.craftercms.studio.api.v2.repository.RetryingRepositoryOperationFacade;
+import org.craftercms.studio.api.v2.service.config.ConfigurationService;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v2.service.cluster.StudioClusterUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.GitCommand;
+import org.eclipse.jgit.api.TransportCommand;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.craftercms.studio.api.v1.dal.SiteFeed.STATE_READY;
+import static org.craftercms.studio.api.v1.ebus.EBusConstants.EVENT_PREVIEW_SYNC;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_BASE_PATH;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SANDBOX_PATH;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SITES_REPOS_PATH;
+import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.CLUSTER_NODE_REMOTE_NAME_PREFIX;
+import static org.eclipse.jgit.lib.Constants.HEAD;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+
+public class StudioClusterSandboxRepoSyncTaskTest {
+
+    private static final String SITE = "test";
+    private static final long SITE_FEED_ID = 5;
+    private static final String LOCAL_ADDRESS = "node1";
+    private static final long LOCAL_NODE_ID = 1;
+    private static final long REMOTE_NODE_ID = 2;
+    private static final long IDLE_NODE_ID = 3;
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    @Mock
+    private SiteService siteService;
+
+    @Mock
+    private ContentRepository contentRepository;
+
+    @Mock
+    private StudioClusterUtils studioClusterUtils;
+
+    @Mock
+    private HierarchicalConfiguration<ImmutableNode> clusterConfiguration;
+
+    @Mock
+    private ClusterDAO clusterDao;
+
+    @Mock
+    private GeneralLockService generalLockService;
+
+    @Mock
+    private EventService eventService;
+
+    @Mock
+    private ConfigurationService configurationService;
+
+    @Mock
+    private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+
+    @Mock
+    private RetryingRepositoryOperationFacade retryingRepositoryOperationFacade;
+
+    private File localDir;
+    private File remoteDir;
+
+    private Git localGit;
+    private Git remoteGit;
+
+    private ClusterMember remoteNode;
+    private ClusterMember idleNode;
+
+    private ClusterSiteRecord localRecord;
+    private ClusterSiteRecord remoteRecord;
+    private ClusterSiteRecord idleRecord;
+
+    private StudioClusterSandboxRepoSyncTask task;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        initMocks(this);
+        StudioClusterSandboxRepoSyncTask.remotesMap.clear();
+
+        // Two local repositories play the role of the sandbox of each node
+        localDir = Files.createTempDirectory("node1").toFile();
+        remoteDir = Files.createTempDirectory("node2").toFile();
+
+        File localSandbox = new File(localDir, "sites/" + SITE + "/sandbox");
+        localGit = Git.init().setDirectory(localSandbox).call();
+        commit(localGit, "index.xml", "v1");
+        commit(localGit, "config/studio/site-config.xml", "v1");
+        remoteGit = Git.cloneRepository()
+                .setURI(localSandbox.toURI().toString())
+                .setDirectory(new File(remoteDir, "sites/" + SITE + "/sandbox"))
+                .call();
+
+        when(studioConfiguration.getProperty(REPO_BASE_PATH)).thenReturn(localDir.getAbsolutePath());
+        when(studioConfiguration.getProperty(SITES_REPOS_PATH)).thenReturn("sites");
+        when(studioConfiguration.getProperty(SANDBOX_PATH)).thenReturn("sandbox");
+
+        SiteFeed siteFeed = new SiteFeed();
+        siteFeed.setId(SITE_FEED_ID);
+        siteFeed.setState(STATE_READY);
+        siteFeed.setSandboxBranch(localGit.getRepository().getBranch());
+        when(siteService.getSite(SITE)).thenReturn(siteFeed);
+        when(contentRepository.getRepoFirstCommitId(SITE)).thenReturn(head(localGit));
+
+        ClusterMember localNode = createMember(LOCAL_NODE_ID, localDir);
+        remoteNode = createMember(REMOTE_NODE_ID, remoteDir);
+        idleNode = createMember(IDLE_NODE_ID, Files.createTempDirectory("node3").toFile());
+
+        when(clusterConfiguration.isEmpty()).thenReturn(false);
+        when(studioClusterUtils.getClusterConfiguration()).thenReturn(clusterConfiguration);
+        when(studioClusterUtils.getClusterNodeLocalAddress()).thenReturn(LOCAL_ADDRESS);
+        when(studioClusterUtils.getClusterNodes(LOCAL_ADDRESS)).thenReturn(Arrays.asList(remoteNode, idleNode));
+        when(studioClusterUtils.configureAuthenticationForCommand(any(), any(TransportCommand.class), any()))
+                .thenAnswer(invocation -> invocation.getArguments()[1]);
+
+        localRecord = createRecord(LOCAL_NODE_ID, head(localGit));
+        remoteRecord = createRecord(REMOTE_NODE_ID, head(localGit));
+        idleRecord = createRecord(IDLE_NODE_ID, head(localGit));
+        when(clusterDao.getMemberByLocalAddress(LOCAL_ADDRESS)).thenReturn(localNode);
+        when(clusterDao.getSiteStateAcrossCluster(SITE))
+                .thenReturn(Arrays.asList(localRecord, remoteRecord, idleRecord));
+        when(clusterDao.existsClusterSiteSyncRepo(LOCAL_NODE_ID, SITE_FEED_ID)).thenReturn(1);
+
+        when(generalLockService.tryLock(anyString())).thenReturn(true);
+        when(retryingRepositoryOperationFacade.call(any()))
+                .thenAnswer(invocation -> ((GitCommand<?>) invocation.getArguments()[0]).call());
+
+        task = new StudioClusterSandboxRepoSyncTask();
+        task.setStudioConfiguration(studioConfiguration);
+        task.setSiteService(siteService);
+        task.setContentRepository(contentRepository);
+        task.setStudioClusterUtils(studioClusterUtils);
+        task.setClusterDao(clusterDao);
+        task.setGeneralLockService(generalLockService);
+        task.setEventService(eventService);
+        task.setConfigurationService(configurationService);
+        task.setConfigurationPatterns(new String[] { "/?config/.+" });
+        task.setRetryingDatabaseOperationFacade(retryingDatabaseOperationFacade);
+        task.setRetryingRepositoryOperationFacade(retryingRepositoryOperationFacade);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        localGit.close();
+        remoteGit.close();
+        FileUtils.deleteQuietly(localDir);
+        FileUtils.deleteQuietly(remoteDir);
+    }
+
+    @Test
+    public void testNoSyncWhenWatermarksMatch() throws Exception {
+        task.executeInternal(SITE);
+
+        verify(retryingRepositoryOperationFacade, never()).call(any());
+        verify(retryingDatabaseOperationFacade, never()).updateClusterNodeLastCommitId(anyLong(), anyLong(),
+                anyString());
+        verify(eventService, never()).publish(anyString(), any());
+    }
+
+    @Test
+    public void testSyncFromNodeAhead() throws Exception {
+        commit(remoteGit, "config/studio/site-config.xml", "v2");
+        remoteRecord.setNodeLastCommitId(head(remoteGit));
+
+        task.executeInternal(SITE);
+
+        assertEquals(head(localGit), head(remoteGit));
+        verify(studioClusterUtils).configureAuthenticationForCommand(eq(remoteNode), any(TransportCommand.class),
+                any());
+        verify(studioClusterUtils, never()).configureAuthenticationForCommand(eq(idleNode),
+                any(TransportCommand.class), any());
+        verify(configurationService).invalidateConfiguration(SITE, "config/studio/site-config.xml");
+        verify(retryingDatabaseOperationFacade).updateClusterNodeLastCommitId(LOCAL_NODE_ID, SITE_FEED_ID,
+                head(remoteGit));
+        verify(eventService).publish(eq(EVENT_PREVIEW_SYNC), any());
+    }
+
+    @Test
+    public void testSyncedWatermarkIsNotFetchedAgain() throws Exception {
+        commit(remoteGit, "index.xml", "v2");
+        remoteRecord.setNodeLastCommitId(head(remoteGit));
+
+        task.executeInternal(SITE);
+        // The local node published its new head but the record is stale, the remote must still be skipped
+        task.executeInternal(SITE);
+
+        verify(studioClusterUtils, times(1)).configureAuthenticationForCommand(eq(remoteNode),
+                any(TransportCommand.class), any());
+        verify(eventService, times(1)).publish(eq(EVENT_PREVIEW_SYNC), any());
+    }
+
+    @Test
+    public void testLocalWatermarkIsPublishedWhenMissing() throws Exception {
+        localRecord.setNodeLastCommitId(null);
+        when(contentRepository.getRepoLastCommitId(SITE)).thenReturn(head(localGit));
+
+        task.executeInternal(SITE);
+
+        verify(retryingDatabaseOperationFacade).updateClusterNodeLastCommitId(LOCAL_NODE_ID, SITE_FEED_ID,
+                head(localGit));
+        verify(retryingRepositoryOperationFacade, never()).call(any());
+    }
+
+    private ClusterMember createMember(long id, File baseDir) {
+        ClusterMember member = new ClusterMember();
+        member.setId(id);
+        member.setLocalAddress("node" + id);
+        member.setGitUrl("file://" + baseDir.getAbsolutePath() + "/sites/{siteId}");
+        member.setGitRemoteName(CLUSTER_NODE_REMOTE_NAME_PREFIX + "node" + id);
+        return member;
+    }
+
+    private ClusterSiteRecord createRecord(long nodeId, String commitId) {
+        ClusterSiteRecord record = new ClusterSiteRecord();
+        record.setClusterNodeId(nodeId);
+        record.setSiteId(SITE_FEED_ID);
+        record.setSiteIdString(SITE);
+        record.setState(STATE_READY);
+        record.setNodeLastCommitId(commitId);
+        return record;
+    }
+
+    private void commit(Git git, String path, String content) throws Exception {
+        File file = new File(git.getRepository().getWorkTree(), path);
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        git.add().addFilepattern(path).call();
+        git.commit().setMessage("Update " + path).setAuthor("test", "test@example.com")
+                .setCommitter("test", "test@example.com").call();
+    }
+
+    private String head(Git git) throws Exception {
+        return git.getRepository().resolve(HEAD).getName();
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.job;
+
+import org.craftercms.studio.api.v1.dal.PublishRequest;
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
+import org.craftercms.studio.api.v1.service.deployment.DeploymentException;
+import org.craftercms.studio.api.v1.service.deployment.PublishingManager;
+import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v1.to.DeploymentItemTO;
+import org.craftercms.studio.api.v2.dal.AuditLog;
+import org.craftercms.studio.api.v2.repository.ContentRepository;
+import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CLOCK_JOB_TASK_PUBLISHER_MAX_CONCURRENT_ENVIRONMENTS;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_MANDATORY_DEPENDENCIES_CHECK_ENABLED;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.expectThrows;
+
+public class StudioPublisherTaskTest {
+
+    private static final String SITE = "site1";
+    private static final String LIVE = "live";
+    private static final String STAGING = "staging";
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    @Mock
+    private SiteService siteService;
+
+    @Mock
+    private ContentRepository contentRepository;
+
+    @Mock
+    private PublishingManager publishingManager;
+
+    @Mock
+    private ServicesConfig servicesConfig;
+
+    @Mock
+    private AuditServiceInternal auditServiceInternal;
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    private ExecutorService executor;
+
+    private StudioPublisherTask task;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        initMocks(this);
+        when(studioConfiguration.getProperty(CLOCK_JOB_TASK_PUBLISHER_MAX_CONCURRENT_ENVIRONMENTS, Integer.class))
+                .thenReturn(2);
+        when(studioConfiguration.getProperty(anyString())).thenReturn("");
+        when(studioConfiguration.getProperty(JOB_DEPLOY_CONTENT_TO_ENVIRONMENT_MANDATORY_DEPENDENCIES_CHECK_ENABLED))
+                .thenReturn("true");
+
+        SiteFeed siteFeed = new SiteFeed();
+        siteFeed.setSiteId(SITE);
+        siteFeed.setSandboxBranch("master");
+        when(siteService.getSite(SITE)).thenReturn(siteFeed);
+        when(auditServiceInternal.createAuditLogEntry()).thenReturn(new AuditLog());
+        when(publishingManager.isPublishingQueueEmpty(SITE)).thenReturn(true);
+        when(publishingManager.processItem(any(PublishRequest.class))).thenAnswer(invocation -> {
+            PublishRequest item = (PublishRequest) invocation.getArguments()[0];
+            DeploymentItemTO deploymentItem = new DeploymentItemTO();
+            deploymentItem.setPath(item.getPath());
+            return deploymentItem;
+        });
+        doAnswer(invocation -> {
+            events.add("publish:" + invocation.getArguments()[3]);
+            return null;
+        }).when(contentRepository).publish(eq(SITE), anyString(), anyList(), anyString(), anyString(), anyString());
+
+        events.clear();
+        executor = Executors.newFixedThreadPool(2);
+
+        task = new StudioPublisherTask();
+        task.setStudioConfiguration(studioConfiguration);
+        task.setSiteService(siteService);
+        task.setContentRepository(contentRepository);
+        task.setPublishingManager(publishingManager);
+        task.setServicesConfig(servicesConfig);
+        task.setAuditServiceInternal(auditServiceInternal);
+        task.setPublisherTaskExecutor(executor);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBatchesArePublishedPerEnvironmentInOrder() throws Exception {
+        List<PublishRequest> live1 = requests(LIVE, "/site/website/a/index.xml");
+        List<PublishRequest> live2 = requests(LIVE, "/site/website/b/index.xml");
+        List<PublishRequest> staging1 = requests(STAGING, "/site/website/c/index.xml");
+        mockReadyItems(LIVE, live1, live2);
+        mockReadyItems(STAGING, staging1);
+
+        task.publishEnvironments(SITE, new HashSet<>(Arrays.asList(LIVE, STAGING)));
+
+        verify(publishingManager).markItemsCompleted(SITE, LIVE, live1);
+        verify(publishingManager).markItemsCompleted(SITE, LIVE, live2);
+        verify(publishingManager).markItemsCompleted(SITE, STAGING, staging1);
+        verify(publishingManager, never()).markItemsReady(anyString(), anyString(), anyList());
+        assertEquals(task.getPreparedBatchCount(), 3);
+        assertEquals(task.getDeployedBatchCount(), 3);
+        assertEquals(task.getTotalQueueDepth(), 0);
+
+        // the next batch of an environment is only fetched after the previous one has been published
+        List<String> liveEvents = filter(LIVE);
+        assertEquals(liveEvents, Arrays.asList("fetch:live", "publish:live", "fetch:live", "publish:live",
+                "fetch:live"));
+        assertEquals(filter(STAGING), Arrays.asList("fetch:staging", "publish:staging", "fetch:staging"));
+    }
+
+    @Test
+    public void testNextBatchIsNotPreparedWhenDeployFails() throws Exception {
+        List<PublishRequest> live1 = requests(LIVE, "/site/website/a/index.xml");
+        List<PublishRequest> live2 = requests(LIVE, "/site/website/b/index.xml");
+        mockReadyItems(LIVE, live1, live2);
+        doAnswer(invocation -> {
+            events.add("publish:" + invocation.getArguments()[3]);
+            throw new DeploymentException("Unable to publish");
+        }).when(contentRepository).publish(eq(SITE), anyString(), anyList(), anyString(), anyString(), anyString());
+
+        expectThrows(DeploymentException.class,
+                () -> task.publishEnvironments(SITE, new HashSet<>(Collections.singletonList(LIVE))));
+
+        assertEquals(events, Arrays.asList("fetch:live", "publish:live"));
+        verify(publishingManager, times(1)).processItem(any(PublishRequest.class));
+        verify(publishingManager, times(1)).processMandatoryDependencies(any(PublishRequest.class), any(), any());
+        verify(publishingManager).markItemsReady(SITE, LIVE, live1);
+        verify(publishingManager, never()).markItemsProcessing(SITE, LIVE, live2);
+        verify(siteService).enablePublishing(SITE, false);
+        assertEquals(task.getPreparedBatchCount(), 1);
+        assertEquals(task.getDeployedBatchCount(), 0);
+    }
+
+    @SafeVarargs
+    private final void mockReadyItems(String environment, List<PublishRequest>... batches) {
+        List<List<PublishRequest>> pending = Collections.synchronizedList(new ArrayList<>(Arrays.asList(batches)));
+        when(publishingManager.getItemsReadyForDeployment(SITE, environment)).thenAnswer(invocation -> {
+            events.add("fetch:" + environment);
+            return pending.isEmpty() ? Collections.emptyList() : pending.remove(0);
+        });
+    }
+
+    private List<PublishRequest> requests(String environment, String path) {
+        PublishRequest request = new PublishRequest();
+        request.setSite(SITE);
+        request.setEnvironment(environment);
+        request.setPath(path);
+        request.setUser("admin");
+        request.setPackageId("package-" + path);
+        return Collections.singletonList(request);
+    }
+
+    private List<String> filter(String environment) {
+        List<String> result = new ArrayList<>();
+        synchronized (events) {
+            events.stream().filter(event -> event.endsWith(":" + environment)).forEach(result::add);
+        }
+        return result;
+    }
+
+}
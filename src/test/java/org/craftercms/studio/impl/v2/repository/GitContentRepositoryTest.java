@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import org.apache.commons.io.FileUtils;
+import org.craftercms.studio.api.v2.dal.RepoOperation;
+import org.craftercms.studio.api.v2.repository.RepoOperationsHandler;
+import org.craftercms.studio.api.v2.utils.GitRepositoryHelper;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.craftercms.studio.api.v1.constant.GitRepositories.SANDBOX;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class GitContentRepositoryTest {
+
+    private static final String SITE = "test";
+
+    @Mock
+    private GitRepositoryHelper helper;
+
+    private final PersonIdent user = new PersonIdent("author", "author@example.com");
+
+    private File repoDir;
+
+    private Git git;
+
+    private GitContentRepository contentRepository;
+
+    private TestHandler handler;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        initMocks(this);
+        repoDir = Files.createTempDirectory("sandbox").toFile();
+        git = Git.init().setDirectory(repoDir).call();
+        when(helper.getRepository(SITE, SANDBOX)).thenReturn(git.getRepository());
+
+        contentRepository = new GitContentRepository();
+        contentRepository.setHelper(helper);
+        handler = new TestHandler();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        git.close();
+        FileUtils.deleteQuietly(repoDir);
+    }
+
+    @Test
+    public void testStreamOperationsInBatchesAndSegments() throws Exception {
+        writeFile("a.xml", "a");
+        writeFile("b.xml", "b");
+        writeFile("c.xml", "c");
+        commit("First");
+        writeFile("a.xml", "a2");
+        writeFile("d.xml", "d");
+        RevCommit second = commit("Second");
+        git.rm().addFilepattern("b.xml").call();
+        RevCommit third = commit("Third");
+
+        contentRepository.streamOperationsFromDelta(SITE, null, third.getName(), 2, 2, handler);
+
+        // The first segment covers the first two commits so a.xml is only created once
+        assertEquals(handler.checkpoints, Arrays.asList(second.getName(), third.getName()));
+        assertEquals(handler.batchSizes, Arrays.asList(2, 2, 1));
+        assertEquals(handler.describe(), Arrays.asList("CREATE /a.xml", "CREATE /b.xml", "CREATE /c.xml",
+                "CREATE /d.xml", "DELETE /b.xml"));
+    }
+
+    @Test
+    public void testStreamOperationsFromCommit() throws Exception {
+        writeFile("a.xml", "a");
+        RevCommit first = commit("First");
+        writeFile("a.xml", "a2");
+        writeFile("b.xml", "b");
+        RevCommit second = commit("Second");
+
+        contentRepository.streamOperationsFromDelta(SITE, first.getName(), second.getName(), 10, 10, handler);
+
+        assertEquals(handler.checkpoints, Arrays.asList(second.getName()));
+        assertEquals(handler.describe(), Arrays.asList("UPDATE /a.xml", "CREATE /b.xml"));
+    }
+
+    @Test
+    public void testStreamOperationsWithMerge() throws Exception {
+        RevCommit base = createMerge();
+        RevCommit merge = git.log().setMaxCount(1).call().iterator().next();
+        RevCommit mainCommit = merge.getParent(0);
+
+        contentRepository.streamOperationsFromDelta(SITE, base.getName(), merge.getName(), 10, 1, handler);
+
+        // Segments follow the first parent chain, the commit from the other branch is never used as a boundary
+        assertEquals(handler.checkpoints, Arrays.asList(mainCommit.getName(), merge.getName()));
+        assertEquals(handler.describe(), Arrays.asList("CREATE /main.xml", "CREATE /side.xml"));
+    }
+
+    @Test
+    public void testStreamOperationsFromMergedBranch() throws Exception {
+        createMerge();
+        RevCommit merge = git.log().setMaxCount(1).call().iterator().next();
+        RevCommit sideCommit = git.getRepository().parseCommit(merge.getParent(1));
+
+        contentRepository.streamOperationsFromDelta(SITE, sideCommit.getName(), merge.getName(), 10, 1, handler);
+
+        // Nothing from the side branch can be deleted because it is diffed against the first parent
+        assertTrue(handler.operations.stream().noneMatch(op -> op.getAction() == RepoOperation.Action.DELETE));
+        assertTrue(handler.describe().contains("CREATE /main.xml"));
+    }
+
+    /**
+     * Creates a side branch and a commit on the main branch, then merges them
+     * @return the commit where both branches start
+     */
+    private RevCommit createMerge() throws Exception {
+        writeFile("index.xml", "index");
+        RevCommit base = commit("Base");
+        String mainBranch = git.getRepository().getBranch();
+
+        git.checkout().setCreateBranch(true).setName("side").call();
+        writeFile("side.xml", "side");
+        commit("Side");
+
+        git.checkout().setName(mainBranch).call();
+        writeFile("main.xml", "main");
+        commit("Main");
+
+        git.merge().include(git.getRepository().resolve("side"))
+                .setFastForward(MergeCommand.FastForwardMode.NO_FF)
+                .setMessage("Merge side")
+                .call();
+        return base;
+    }
+
+    private void writeFile(String path, String content) throws Exception {
+        FileUtils.writeStringToFile(new File(repoDir, path), content, StandardCharsets.UTF_8);
+    }
+
+    private RevCommit commit(String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        return git.commit().setMessage(message).setAuthor(user).setCommitter(user).call();
+    }
+
+    private static class TestHandler implements RepoOperationsHandler {
+
+        private final List<RepoOperation> operations = new ArrayList<>();
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private final List<String> checkpoints = new ArrayList<>();
+
+        @Override
+        public void processBatch(List<RepoOperation> batch) {
+            batchSizes.add(batch.size());
+            operations.addAll(batch);
+        }
+
+        @Override
+        public void checkpoint(String commitId) {
+            checkpoints.add(commitId);
+        }
+
+        private List<String> describe() {
+            return operations.stream().map(op -> op.getAction() + " " + op.getPath()).collect(toList());
+        }
+
+    }
+
+}
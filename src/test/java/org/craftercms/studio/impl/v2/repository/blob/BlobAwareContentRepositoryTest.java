@@ -152,6 +152,23 @@ public class BlobAwareContentRepositoryTest {
         assertEquals(proxy.getContentSize(SITE, ORIGINAL_PATH), SIZE, "original path should return the original size");
     }
 
+    @Test
+    public void getContentIdTest() {
+        when(localV1.getContentId(SITE, CONFIG_PATH)).thenReturn("1234");
+
+        assertNull(proxy.getContentId(SITE, ORIGINAL_PATH), "blobs should not have an id");
+        assertEquals(proxy.getContentId(SITE, CONFIG_PATH), "1234", "local files should return the local id");
+        verify(localV1, never()).getContentId(SITE, POINTER_PATH);
+    }
+
+    @Test
+    public void getContentByIdTest() {
+        when(localV1.getContentById(SITE, "1234")).thenReturn(CONTENT);
+
+        assertEquals(proxy.getContentById(SITE, "1234"), CONTENT, "ids should be resolved by the local repository");
+        verify(store, never()).getContentById(anyString(), anyString());
+    }
+
     @Test
     public void writeContentTest() throws ServiceLayerException {
         proxy.writeContent(SITE, ORIGINAL_PATH, CONTENT);
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository.blob;
+
+import com.google.common.base.Ticker;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_CACHE_ENABLED;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_CACHE_MAX_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_CACHE_METADATA_MAX_ENTRIES;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_CACHE_METADATA_TTL;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_CACHE_PATH;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class BlobContentCacheTest {
+
+    private static final long MAX_SIZE = 10;
+    private static final long METADATA_TTL = 60;
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    private BlobContentCache cache;
+
+    private File cacheDir;
+
+    /**
+     * Local stand-in for the remote store, counts the requests for each blob
+     */
+    private final Map<String, String> remoteContent = new HashMap<>();
+    private final AtomicInteger remoteRequests = new AtomicInteger();
+    private final AtomicLong time = new AtomicLong();
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        initMocks(this);
+        cacheDir = Files.createTempDirectory("blob-cache").toFile();
+        when(studioConfiguration.getProperty(BLOB_CACHE_ENABLED, Boolean.class, false)).thenReturn(true);
+        when(studioConfiguration.getProperty(BLOB_CACHE_PATH)).thenReturn(cacheDir.getAbsolutePath());
+        when(studioConfiguration.getProperty(BLOB_CACHE_MAX_SIZE, Long.class)).thenReturn(MAX_SIZE);
+        when(studioConfiguration.getProperty(BLOB_CACHE_METADATA_MAX_ENTRIES, Long.class)).thenReturn(100L);
+        when(studioConfiguration.getProperty(BLOB_CACHE_METADATA_TTL, Long.class)).thenReturn(METADATA_TTL);
+
+        cache = new BlobContentCache();
+        cache.setStudioConfiguration(studioConfiguration);
+        cache.ticker = new Ticker() {
+            @Override
+            public long read() {
+                return time.get();
+            }
+        };
+        cache.init();
+
+        remoteContent.clear();
+        remoteContent.put("a", "aaaa");
+        remoteContent.put("b", "bbbb");
+        remoteContent.put("c", "cccc");
+        remoteContent.put("big", "this is too big");
+        remoteRequests.set(0);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(cacheDir);
+    }
+
+    @Test
+    public void testContentIsCachedAfterCompleteRead() throws Exception {
+        assertEquals(read("a"), "aaaa");
+        assertEquals(read("a"), "aaaa");
+        assertEquals(remoteRequests.get(), 1);
+        assertEquals(cache.getStatistics().get("contentHits"), 1L);
+        assertEquals(cache.getStatistics().get("contentMisses"), 1L);
+
+        // the size is known once the content has been cached
+        assertEquals(cache.getContentSize("a", () -> { throw new IllegalStateException(); }), 4L);
+    }
+
+    @Test
+    public void testPartialReadIsNotCached() throws Exception {
+        try (InputStream content = cache.getContent("a", () -> load("a"))) {
+            assertEquals(content.read(), 'a');
+        }
+        assertEquals(read("a"), "aaaa");
+        assertEquals(remoteRequests.get(), 2);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        read("a");
+        read("b");
+        // a is now the most recently used
+        read("a");
+        read("c");
+
+        assertEquals(cache.getStatistics().get("evictions"), 1L);
+        assertEquals(cache.getStatistics().get("size"), 8L);
+        remoteRequests.set(0);
+        read("a");
+        read("c");
+        assertEquals(remoteRequests.get(), 0);
+        read("b");
+        assertEquals(remoteRequests.get(), 1);
+    }
+
+    @Test
+    public void testBiggerThanCacheIsNotCached() throws Exception {
+        assertEquals(read("big"), "this is too big");
+        assertEquals(read("big"), "this is too big");
+        assertEquals(remoteRequests.get(), 2);
+        assertEquals(cache.getStatistics().get("size"), 0L);
+    }
+
+    @Test
+    public void testMetadataIsCached() {
+        assertEquals(cache.getContentSize("b", () -> { remoteRequests.incrementAndGet(); return 4; }), 4L);
+        assertEquals(cache.getContentSize("b", () -> { remoteRequests.incrementAndGet(); return 4; }), 4L);
+        assertTrue(cache.contentExists("b", () -> { throw new IllegalStateException(); }));
+        assertEquals(remoteRequests.get(), 1);
+
+        assertFalse(cache.contentExists("missing", () -> false));
+        assertFalse(cache.contentExists("missing", () -> false));
+    }
+
+    @Test
+    public void testExistenceExpires() {
+        assertTrue(cache.contentExists("b", () -> { throw new IllegalStateException(); }));
+
+        // The blob is deleted outside Studio, the cached file is kept but the metadata expires
+        time.addAndGet(TimeUnit.SECONDS.toNanos(METADATA_TTL + 1));
+        assertFalse(cache.contentExists("b", () -> false));
+    }
+
+    @Test
+    public void testFilesAreKeptAfterRestart() throws Exception {
+        read("a");
+
+        BlobContentCache restarted = new BlobContentCache();
+        restarted.setStudioConfiguration(studioConfiguration);
+        restarted.init();
+        try (InputStream content = restarted.getContent("a", () -> load("a"))) {
+            assertEquals(IOUtils.toString(content, StandardCharsets.UTF_8), "aaaa");
+        }
+        assertEquals(remoteRequests.get(), 1);
+    }
+
+    private String read(String key) throws Exception {
+        try (InputStream content = cache.getContent(key, () -> load(key))) {
+            return IOUtils.toString(content, StandardCharsets.UTF_8);
+        }
+    }
+
+    private InputStream load(String key) {
+        remoteRequests.incrementAndGet();
+        return new ByteArrayInputStream(remoteContent.get(key).getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository.blob.s3;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.CopyPartResult;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.SSEAlgorithm;
+import com.amazonaws.services.s3.model.StorageClass;
+import org.craftercms.commons.file.blob.exception.BlobStoreException;
+import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v2.repository.blob.s3.AwsS3BlobPromoter.Promotion;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.stream.Collectors.toList;
+import static org.craftercms.studio.api.v2.dal.PublishStatus.PUBLISHING;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_MAX_RETRIES;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_MULTIPART_THRESHOLD;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_PART_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_RETRY_DELAY;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_STATUS_INTERVAL;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.BLOB_PROMOTION_STATUS_MESSAGE;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+
+public class AwsS3BlobPromoterTest {
+
+    private static final String SITE = "test";
+    private static final String PREVIEW = "preview";
+    private static final String LIVE = "live";
+    private static final String UPLOAD_ID = "upload";
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    @Mock
+    private SiteService siteService;
+
+    @Mock
+    private AmazonS3 client;
+
+    private ExecutorService executor;
+
+    private AwsS3BlobPromoter promoter;
+
+    @BeforeMethod
+    public void setUp() {
+        initMocks(this);
+        when(studioConfiguration.getProperty(BLOB_PROMOTION_MULTIPART_THRESHOLD, Long.class)).thenReturn(10L);
+        when(studioConfiguration.getProperty(BLOB_PROMOTION_PART_SIZE, Long.class)).thenReturn(4L);
+        when(studioConfiguration.getProperty(BLOB_PROMOTION_MAX_RETRIES, Integer.class)).thenReturn(2);
+        when(studioConfiguration.getProperty(BLOB_PROMOTION_RETRY_DELAY, Long.class)).thenReturn(0L);
+        when(studioConfiguration.getProperty(BLOB_PROMOTION_STATUS_INTERVAL, Long.class)).thenReturn(0L);
+        when(studioConfiguration.getProperty(BLOB_PROMOTION_STATUS_MESSAGE)).thenReturn("{x} of {y}");
+
+        when(client.getObjectMetadata(anyString(), anyString())).thenReturn(metadata(5));
+
+        executor = Executors.newFixedThreadPool(4);
+
+        promoter = new AwsS3BlobPromoter();
+        promoter.setStudioConfiguration(studioConfiguration);
+        promoter.setSiteService(siteService);
+        promoter.setExecutor(executor);
+        promoter.init();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDeletesAreBatched() {
+        promoter.promote(SITE, client, Arrays.asList(
+                Promotion.copy(PREVIEW, "a.png", LIVE, "a.png", -1),
+                Promotion.move(LIVE, "b.png", "c.png", -1),
+                Promotion.delete(LIVE, "d.png", "e.png")
+        ), false);
+
+        verify(client).copyObject(PREVIEW, "a.png", LIVE, "a.png");
+        verify(client).copyObject(LIVE, "b.png", LIVE, "c.png");
+        verify(client, never()).getObjectMetadata(anyString(), anyString());
+
+        ArgumentCaptor<DeleteObjectsRequest> captor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(client).deleteObjects(captor.capture());
+        assertEquals(getKeys(captor.getValue()), Arrays.asList("b.png", "d.png", "e.png"));
+        verify(client, never()).deleteObject(anyString(), anyString());
+    }
+
+    @Test
+    public void testKnownSizeSkipsMetadata() {
+        promoter.promote(SITE, client, Arrays.asList(Promotion.copy(PREVIEW, "a.png", PREVIEW, "b.png", 5)),
+                false);
+
+        verify(client, never()).getObjectMetadata(anyString(), anyString());
+        verify(client).copyObject(PREVIEW, "a.png", PREVIEW, "b.png");
+    }
+
+    @Test
+    public void testLargeObjectsUseMultipartCopy() {
+        when(client.getObjectMetadata(PREVIEW, "video.mp4")).thenReturn(metadata(11));
+        InitiateMultipartUploadResult initResult = new InitiateMultipartUploadResult();
+        initResult.setUploadId(UPLOAD_ID);
+        when(client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initResult);
+        when(client.copyPart(any(CopyPartRequest.class))).thenAnswer(invocation -> {
+            CopyPartRequest request = (CopyPartRequest) invocation.getArguments()[0];
+            CopyPartResult result = new CopyPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag" + request.getPartNumber());
+            return result;
+        });
+
+        promoter.promote(SITE, client, Arrays.asList(Promotion.copy(PREVIEW, "video.mp4", LIVE, "video.mp4", 11)),
+                false);
+
+        ArgumentCaptor<CopyPartRequest> parts = ArgumentCaptor.forClass(CopyPartRequest.class);
+        verify(client, times(3)).copyPart(parts.capture());
+        List<CopyPartRequest> requests = parts.getAllValues();
+        assertEquals(requests.get(0).getFirstByte(), Long.valueOf(0));
+        assertEquals(requests.get(0).getLastByte(), Long.valueOf(3));
+        assertEquals(requests.get(2).getFirstByte(), Long.valueOf(8));
+        assertEquals(requests.get(2).getLastByte(), Long.valueOf(10));
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(client).completeMultipartUpload(complete.capture());
+        assertEquals(complete.getValue().getPartETags().size(), 3);
+        verify(client, never()).copyObject(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testUnknownSizeSkipsMetadata() {
+        promoter.promote(SITE, client, Arrays.asList(Promotion.copy(PREVIEW, "a.png", LIVE, "a.png", -1)), false);
+
+        verify(client, never()).getObjectMetadata(anyString(), anyString());
+        verify(client).copyObject(PREVIEW, "a.png", LIVE, "a.png");
+    }
+
+    @Test
+    public void testTooLargeObjectsFallBackToMultipartCopy() {
+        AmazonServiceException tooLarge = error(400);
+        tooLarge.setErrorCode("InvalidRequest");
+        tooLarge.setErrorMessage("The specified copy source is larger than the maximum allowable size for a copy " +
+                "source: 5368709120");
+        when(client.copyObject(PREVIEW, "video.mp4", LIVE, "video.mp4")).thenThrow(tooLarge);
+        when(client.getObjectMetadata(PREVIEW, "video.mp4")).thenReturn(metadata(11));
+        InitiateMultipartUploadResult initResult = new InitiateMultipartUploadResult();
+        initResult.setUploadId(UPLOAD_ID);
+        when(client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initResult);
+        when(client.copyPart(any(CopyPartRequest.class))).thenReturn(new CopyPartResult());
+
+        promoter.promote(SITE, client, Arrays.asList(Promotion.copy(PREVIEW, "video.mp4", LIVE, "video.mp4", -1)),
+                false);
+
+        verify(client, times(1)).copyObject(PREVIEW, "video.mp4", LIVE, "video.mp4");
+        verify(client, times(3)).copyPart(any(CopyPartRequest.class));
+        verify(client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void testMultipartCopyKeepsSourceMetadata() {
+        ObjectMetadata metadata = metadata(11);
+        metadata.setContentType("video/mp4");
+        metadata.setCacheControl("max-age=3600");
+        metadata.setContentDisposition("inline");
+        metadata.addUserMetadata("owner", "admin");
+        metadata.setHeader(Headers.SERVER_SIDE_ENCRYPTION, SSEAlgorithm.KMS.getAlgorithm());
+        metadata.setHeader(Headers.SERVER_SIDE_ENCRYPTION_AWS_KMS_KEYID, "key");
+        metadata.setHeader(Headers.STORAGE_CLASS, StorageClass.StandardInfrequentAccess.toString());
+        when(client.getObjectMetadata(PREVIEW, "video.mp4")).thenReturn(metadata);
+        InitiateMultipartUploadResult initResult = new InitiateMultipartUploadResult();
+        initResult.setUploadId(UPLOAD_ID);
+        when(client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initResult);
+        when(client.copyPart(any(CopyPartRequest.class))).thenReturn(new CopyPartResult());
+
+        promoter.promote(SITE, client, Arrays.asList(Promotion.copy(PREVIEW, "video.mp4", LIVE, "video.mp4", 11)),
+                false);
+
+        ArgumentCaptor<InitiateMultipartUploadRequest> init =
+                ArgumentCaptor.forClass(InitiateMultipartUploadRequest.class);
+        verify(client).initiateMultipartUpload(init.capture());
+        ObjectMetadata targetMetadata = init.getValue().getObjectMetadata();
+        assertEquals(targetMetadata.getContentType(), "video/mp4");
+        assertEquals(targetMetadata.getCacheControl(), "max-age=3600");
+        assertEquals(targetMetadata.getContentDisposition(), "inline");
+        assertEquals(targetMetadata.getUserMetaDataOf("owner"), "admin");
+        assertEquals(init.getValue().getSSEAwsKeyManagementParams().getAwsKmsKeyId(), "key");
+        assertEquals(init.getValue().getStorageClass(), StorageClass.StandardInfrequentAccess.toString());
+    }
+
+    @Test
+    public void testTransientErrorsAreRetried() {
+        when(client.copyObject(PREVIEW, "a.png", LIVE, "a.png"))
+                .thenThrow(error(503))
+                .thenReturn(null);
+
+        promoter.promote(SITE, client, Arrays.asList(Promotion.copy(PREVIEW, "a.png", LIVE, "a.png", 5)), false);
+
+        verify(client, times(2)).copyObject(PREVIEW, "a.png", LIVE, "a.png");
+    }
+
+    @Test(expectedExceptions = BlobStoreException.class)
+    public void testClientErrorsAreNotRetried() {
+        when(client.copyObject(PREVIEW, "a.png", LIVE, "a.png")).thenThrow(error(403));
+
+        try {
+            promoter.promote(SITE, client, Arrays.asList(Promotion.copy(PREVIEW, "a.png", LIVE, "a.png", 5)),
+                    false);
+        } finally {
+            verify(client, times(1)).copyObject(PREVIEW, "a.png", LIVE, "a.png");
+        }
+    }
+
+    @Test
+    public void testConflictingPromotionsKeepOrder() {
+        // The old object needs to be moved before the new one is published in the same path
+        promoter.promote(SITE, client, Arrays.asList(
+                Promotion.move(LIVE, "a.png", "b.png", 5),
+                Promotion.copy(PREVIEW, "a.png", LIVE, "a.png", 5)
+        ), false);
+
+        InOrder inOrder = inOrder(client);
+        inOrder.verify(client).copyObject(LIVE, "a.png", LIVE, "b.png");
+        inOrder.verify(client).deleteObjects(any(DeleteObjectsRequest.class));
+        inOrder.verify(client).copyObject(PREVIEW, "a.png", LIVE, "a.png");
+    }
+
+    @Test
+    public void testProgressIsReported() throws Exception {
+        promoter.promote(SITE, client, Arrays.asList(
+                Promotion.copy(PREVIEW, "a.png", LIVE, "a.png", 5),
+                Promotion.delete(LIVE, "b.png")
+        ), true);
+
+        verify(siteService).updatePublishingStatusMessage(SITE, PUBLISHING, "2 of 2");
+    }
+
+    private ObjectMetadata metadata(long size) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(size);
+        return metadata;
+    }
+
+    private AmazonServiceException error(int status) {
+        AmazonServiceException e = new AmazonServiceException("error");
+        e.setStatusCode(status);
+        return e;
+    }
+
+    private List<String> getKeys(DeleteObjectsRequest request) {
+        return request.getKeys().stream().map(KeyVersion::getKey).collect(toList());
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.dependency.internal;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class DependencyGraphTest {
+
+    private static final String PAGE = "/site/website/index.xml";
+    private static final String COMPONENT = "/site/components/header.xml";
+    private static final String IMAGE = "/static-assets/images/logo.png";
+    private static final String CSS = "/static-assets/css/main.css";
+
+    private DependencyGraph graph;
+
+    @BeforeMethod
+    public void setUp() {
+        graph = new DependencyGraph();
+        graph.addDependency(PAGE, COMPONENT);
+        graph.addDependency(COMPONENT, IMAGE);
+        graph.addDependency(COMPONENT, CSS);
+        graph.addDependency(CSS, IMAGE);
+    }
+
+    @Test
+    public void testClosure() {
+        assertEquals(graph.getClosure(singletonList(PAGE), false, -1, path -> true),
+                new HashSet<>(Arrays.asList(COMPONENT, IMAGE, CSS)));
+        assertEquals(graph.getClosure(singletonList(PAGE), false, 1, path -> true), Collections.singleton(COMPONENT));
+        assertEquals(graph.getClosure(singletonList(IMAGE), true, -1, path -> true),
+                new HashSet<>(Arrays.asList(COMPONENT, CSS, PAGE)));
+        assertEquals(graph.getClosure(singletonList(PAGE), false, -1, path -> !path.endsWith(".css")),
+                new HashSet<>(Arrays.asList(COMPONENT, IMAGE)));
+    }
+
+    @Test
+    public void testUpdates() {
+        graph.setDependencies(COMPONENT, singletonList(CSS));
+        assertEquals(graph.getDependents(singletonList(IMAGE)), Collections.singleton(CSS));
+        assertEquals(graph.getDependencyCount(), 3);
+
+        graph.moveItem(CSS, "/static-assets/css/site.css");
+        assertEquals(graph.getDependencies(singletonList(COMPONENT)),
+                Collections.singleton("/static-assets/css/site.css"));
+        assertEquals(graph.getDependencies(singletonList("/static-assets/css/site.css")),
+                Collections.singleton(IMAGE));
+
+        graph.removeItem(COMPONENT);
+        assertTrue(graph.getDependencies(singletonList(PAGE)).isEmpty());
+        assertEquals(graph.getDependencyCount(), 1);
+    }
+
+    @Test
+    public void testDependentsByPrefix() {
+        assertEquals(graph.getDependentsByPrefix(singletonList("/static-assets/")),
+                new HashSet<>(Arrays.asList(COMPONENT, CSS)));
+        assertTrue(graph.getDependentsByPrefix(singletonList("/site/website/")).isEmpty());
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.item.internal;
+
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v2.dal.Item;
+import org.craftercms.studio.api.v2.dal.ItemDAO;
+import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
+import org.craftercms.studio.api.v2.service.site.internal.SiteRegistry;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DB_BULK_OPERATIONS_BATCH_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DB_PARENT_IDS_PAGE_SIZE;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class ItemServiceInternalImplTest {
+
+    private static final String SITE = "test";
+    private static final long SITE_FEED_ID = 5;
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    @Mock
+    private SiteRegistry siteRegistry;
+
+    @Mock
+    private ItemDAO itemDao;
+
+    @Mock
+    private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+
+    private ItemServiceInternalImpl itemServiceInternal;
+
+    private List<Item> items;
+    private Map<Long, Long> parentIds;
+    private List<Integer> batchSizes;
+
+    @BeforeMethod
+    public void setUp() {
+        initMocks(this);
+
+        items = Arrays.asList(
+                item(1, "/site", null),
+                item(2, "/site/website", null),
+                item(3, "/site/website/index.xml", null),
+                item(4, "/site/website/about", null),
+                item(5, "/site/website/about/index.xml", 2L),
+                item(6, "/site/website/about/team.xml", 4L),
+                item(7, "/site/components", null),
+                item(8, "/site/components/header.xml", 7L));
+        parentIds = new HashMap<>();
+        batchSizes = new ArrayList<>();
+
+        SiteFeed siteFeed = new SiteFeed();
+        siteFeed.setId(SITE_FEED_ID);
+        siteFeed.setSiteId(SITE);
+        when(siteRegistry.getSite(SITE)).thenReturn(siteFeed);
+        when(studioConfiguration.getProperty(DB_BULK_OPERATIONS_BATCH_SIZE, Integer.class)).thenReturn(BATCH_SIZE);
+
+        when(itemDao.getSubtreeParentIds(eq(SITE_FEED_ID), anyString(), anyLong(), anyInt()))
+                .thenAnswer(invocation -> {
+                    String path = invocation.getArgument(1);
+                    long lastId = invocation.getArgument(2);
+                    int limit = invocation.getArgument(3);
+                    return items.stream()
+                            .filter(item -> item.getPath().equals(path) || item.getPath().startsWith(path + "/"))
+                            .filter(item -> item.getId() > lastId)
+                            .limit(limit)
+                            .collect(toList());
+                });
+        when(itemDao.getItemIdsByPaths(eq(SITE_FEED_ID), anyList()))
+                .thenAnswer(invocation -> {
+                    List<String> paths = invocation.getArgument(1);
+                    assertTrue(paths.size() <= BATCH_SIZE);
+                    return items.stream().filter(item -> paths.contains(item.getPath())).collect(toList());
+                });
+        doAnswer(invocation -> {
+            List<Item> batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            batch.forEach(item -> parentIds.put(item.getId(), item.getParentId()));
+            return null;
+        }).when(retryingDatabaseOperationFacade).updateParentIdBulk(anyList());
+
+        itemServiceInternal = new ItemServiceInternalImpl();
+        itemServiceInternal.setStudioConfiguration(studioConfiguration);
+        itemServiceInternal.setSiteRegistry(siteRegistry);
+        itemServiceInternal.setItemDao(itemDao);
+        itemServiceInternal.setRetryingDatabaseOperationFacade(retryingDatabaseOperationFacade);
+    }
+
+    @Test
+    public void testUpdateParentIdsInSinglePage() {
+        when(studioConfiguration.getProperty(DB_PARENT_IDS_PAGE_SIZE, Integer.class)).thenReturn(100);
+
+        itemServiceInternal.updateParentIds(SITE, "");
+
+        assertParentIds();
+        verify(itemDao).getSubtreeParentIds(SITE_FEED_ID, "", 0, 100);
+    }
+
+    @Test
+    public void testUpdateParentIdsInMultiplePages() {
+        when(studioConfiguration.getProperty(DB_PARENT_IDS_PAGE_SIZE, Integer.class)).thenReturn(3);
+
+        itemServiceInternal.updateParentIds(SITE, "");
+
+        assertParentIds();
+        verify(itemDao).getSubtreeParentIds(SITE_FEED_ID, "", 0, 3);
+        verify(itemDao).getSubtreeParentIds(SITE_FEED_ID, "", 3, 3);
+        verify(itemDao).getSubtreeParentIds(SITE_FEED_ID, "", 6, 3);
+    }
+
+    @Test
+    public void testUpdateParentIdsForSubtree() {
+        when(studioConfiguration.getProperty(DB_PARENT_IDS_PAGE_SIZE, Integer.class)).thenReturn(100);
+
+        itemServiceInternal.updateParentIds(SITE, "/site/website/about");
+
+        // Items outside of the subtree are not touched
+        assertEquals(parentIds.size(), 3);
+        assertEquals(parentIds.get(4L), Long.valueOf(3));
+        assertEquals(parentIds.get(5L), Long.valueOf(3));
+        assertEquals(parentIds.get(6L), Long.valueOf(5));
+    }
+
+    @Test
+    public void testUpdateParentIdsForPaths() {
+        itemServiceInternal.updateParentIds(SITE, Arrays.asList("/site/website", "/site/website/about",
+                "/site/components/header.xml"));
+
+        // Only the given items are updated, header.xml already has the right parent
+        assertEquals(parentIds.size(), 2);
+        assertEquals(parentIds.get(2L), Long.valueOf(1));
+        assertEquals(parentIds.get(4L), Long.valueOf(3));
+    }
+
+    private void assertParentIds() {
+        // Items without parent or with the right parent already are not updated
+        assertEquals(parentIds.size(), 6);
+        assertEquals(parentIds.get(2L), Long.valueOf(1));
+        assertEquals(parentIds.get(3L), Long.valueOf(1));
+        assertEquals(parentIds.get(4L), Long.valueOf(3));
+        assertEquals(parentIds.get(5L), Long.valueOf(3));
+        assertEquals(parentIds.get(6L), Long.valueOf(5));
+        assertEquals(parentIds.get(7L), Long.valueOf(1));
+        assertNull(parentIds.get(1L));
+        assertTrue(batchSizes.stream().allMatch(size -> size <= BATCH_SIZE));
+    }
+
+    private static Item item(long id, String path, Long parentId) {
+        Item item = new Item();
+        item.setId(id);
+        item.setPath(path);
+        item.setParentId(parentId);
+        return item;
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.notification;
+
+import freemarker.template.Template;
+import org.craftercms.studio.api.v1.to.NotificationConfigTO;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.NOTIFICATION_TIMEZONE;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+public class NotificationServiceImplTest {
+
+    private static final String SITE = "test";
+    private static final String KEY = "contentApproved";
+    private static final String MESSAGE = "Hello ${name}";
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    private NotificationServiceImpl notificationService;
+
+    @BeforeMethod
+    public void setUp() {
+        initMocks(this);
+        when(studioConfiguration.getProperty(NOTIFICATION_TIMEZONE)).thenReturn("UTC");
+
+        notificationService = new NotificationServiceImpl();
+        notificationService.setStudioConfiguration(studioConfiguration);
+        notificationService.init();
+    }
+
+    @Test
+    public void testTemplatesAreCompiledOncePerConfiguration() throws Exception {
+        NotificationConfigTO config = new NotificationConfigTO(SITE);
+
+        Template template = notificationService.getTemplate(config, KEY, MESSAGE);
+        assertSame(notificationService.getTemplate(config, KEY, MESSAGE), template);
+        assertNotSame(notificationService.getTemplate(config, KEY, "Bye ${name}"), template);
+
+        NotificationConfigTO newConfig = new NotificationConfigTO(SITE);
+        assertNotSame(notificationService.getTemplate(newConfig, KEY, MESSAGE), template);
+    }
+
+    @Test
+    public void testMessagesAreRendered() {
+        NotificationConfigTO config = new NotificationConfigTO(SITE);
+
+        assertEquals(notificationService.processMessage(config, KEY, MESSAGE,
+                Collections.<String, Object>singletonMap("name", "author")), "Hello author");
+        assertEquals(notificationService.processMessage(config, KEY, MESSAGE,
+                Collections.<String, Object>singletonMap("name", "reviewer")), "Hello reviewer");
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2007-2021 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.site.internal;
+
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SITE_REGISTRY_MAX_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.SITE_REGISTRY_TTL;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+public class SiteRegistryImplTest {
+
+    private static final String SITE = "test";
+    private static final String MISSING_SITE = "missing";
+
+    @Mock
+    private SiteFeedMapper siteFeedMapper;
+
+    @Mock
+    private StudioConfiguration studioConfiguration;
+
+    private SiteRegistryImpl siteRegistry;
+
+    private SiteFeed siteFeed;
+
+    @BeforeMethod
+    public void setUp() {
+        initMocks(this);
+
+        siteFeed = new SiteFeed();
+        siteFeed.setId(5);
+        siteFeed.setSiteId(SITE);
+        when(siteFeedMapper.getSite(anyMap())).thenAnswer(invocation -> {
+            Map<?, ?> params = invocation.getArgument(0);
+            return SITE.equals(params.get(SITE_ID)) ? siteFeed : null;
+        });
+        when(studioConfiguration.getProperty(SITE_REGISTRY_MAX_SIZE, Long.class)).thenReturn(10L);
+        when(studioConfiguration.getProperty(SITE_REGISTRY_TTL, Long.class)).thenReturn(60L);
+
+        siteRegistry = new SiteRegistryImpl();
+        siteRegistry.setSiteFeedMapper(siteFeedMapper);
+        siteRegistry.setStudioConfiguration(studioConfiguration);
+        siteRegistry.init();
+    }
+
+    @Test
+    public void testSiteIsLoadedOnce() {
+        assertSame(siteRegistry.getSite(SITE), siteFeed);
+        assertSame(siteRegistry.getSite(SITE), siteFeed);
+
+        verify(siteFeedMapper, times(1)).getSite(anyMap());
+        assertEquals(siteRegistry.getHitCount(), 1);
+        assertEquals(siteRegistry.getMissCount(), 1);
+    }
+
+    @Test
+    public void testMissingSiteIsNotCached() {
+        assertNull(siteRegistry.getSite(MISSING_SITE));
+        assertNull(siteRegistry.getSite(MISSING_SITE));
+
+        verify(siteFeedMapper, times(2)).getSite(anyMap());
+    }
+
+    @Test
+    public void testInvalidatedSiteIsReloaded() {
+        siteRegistry.getSite(SITE);
+        siteRegistry.invalidate(SITE);
+        siteRegistry.getSite(SITE);
+        siteRegistry.invalidateAll();
+        siteRegistry.getSite(SITE);
+
+        verify(siteFeedMapper, times(3)).getSite(anyMap());
+    }
+
+    @Test
+    public void testSiteChangedWhileLoadingIsNotCached() {
+        when(siteFeedMapper.getSite(anyMap())).thenAnswer(invocation -> {
+            // Simulate a site update that happens right after the record was read
+            siteRegistry.invalidate(SITE);
+            return siteFeed;
+        });
+
+        assertSame(siteRegistry.getSite(SITE), siteFeed);
+        assertSame(siteRegistry.getSite(SITE), siteFeed);
+
+        verify(siteFeedMapper, times(2)).getSite(anyMap());
+    }
+
+}